@@ -0,0 +1,58 @@
+package com.example.hr_assistant.benchmark;
+
+import com.example.hr_assistant.config.AntifraudConfig;
+import com.example.hr_assistant.model.Antifraud;
+import com.example.hr_assistant.repository.AntifraudRepository;
+import com.example.hr_assistant.service.antifraud.AntifraudService;
+import com.example.hr_assistant.service.antifraud.HeartbeatAggregator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Итоговый fraud score интервью (чтение записи, расчет, сохранение через заглушку репозитория)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AntifraudBenchmark {
+
+    private AntifraudService antifraudService;
+    private Antifraud antifraud;
+
+    @Setup
+    public void setUp() {
+        antifraud = new Antifraud();
+        antifraud.setLivenessScore(0.82);
+        antifraud.setFaceMatchScore(0.91);
+        antifraud.setVoiceMatchScore(0.77);
+        antifraud.setTextAiScore(0.35);
+        antifraud.setVisibilityEventsCount(4);
+        antifraud.setHeartbeatGaps(1);
+        antifraud.setDevtoolsDetected(false);
+        antifraud.setTabSwitchesCount(2);
+        antifraud.setWindowBlurCount(3);
+
+        AntifraudRepository repository = BenchmarkStubs.repository(AntifraudRepository.class, Map.of(
+            "findByInterviewId", args -> Optional.of(antifraud),
+            "save", args -> args[0]));
+        AntifraudConfig config = new AntifraudConfig();
+        HeartbeatAggregator heartbeatAggregator = BenchmarkStubs.construct(HeartbeatAggregator.class,
+            config, repository, new SimpleMeterRegistry());
+        antifraudService = BenchmarkStubs.construct(AntifraudService.class,
+            config, repository, heartbeatAggregator, new ObjectMapper());
+    }
+
+    @Benchmark
+    public Double calculateFraudScore() {
+        antifraudService.calculateFraudScore(1L);
+        return antifraud.getOverallFraudScore();
+    }
+}
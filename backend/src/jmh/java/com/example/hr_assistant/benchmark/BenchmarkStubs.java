@@ -0,0 +1,73 @@
+package com.example.hr_assistant.benchmark;
+
+import com.example.hr_assistant.config.MlModelsConfig;
+import com.example.hr_assistant.repository.ModelVersionRepository;
+import com.example.hr_assistant.service.ml.ModelManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Заглушки зависимостей для бенчмарков: без Spring контекста, БД и ONNX моделей
+ */
+final class BenchmarkStubs {
+
+    private BenchmarkStubs() {
+    }
+
+    /**
+     * Создает сервис через его единственный конструктор, подставляя переданные зависимости по типу.
+     * Зависимости, не нужные замеряемому методу, остаются null.
+     */
+    static <T> T construct(Class<T> type, Object... dependencies) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructors()[0];
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                for (Object dependency : dependencies) {
+                    if (parameterTypes[i].isInstance(dependency)) {
+                        args[i] = dependency;
+                        break;
+                    }
+                }
+            }
+            constructor.setAccessible(true);
+            return type.cast(constructor.newInstance(args));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Не удалось создать " + type.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Репозиторий-заглушка: методы из answers отвечают заданной функцией, остальные возвращают null
+     */
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (self, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> type.getSimpleName() + "Stub";
+                };
+            }
+            return null;
+        });
+        return type.cast(proxy);
+    }
+
+    /**
+     * ModelManager без загруженных моделей: сервисы уходят в эвристики и fallback-ветки
+     */
+    static ModelManager modelManagerWithoutModels() {
+        return new ModelManager(new MlModelsConfig(), repository(ModelVersionRepository.class, Map.of()),
+            new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.hr_assistant.benchmark;
+
+import com.example.hr_assistant.config.EmbeddingCacheConfig;
+import com.example.hr_assistant.config.MlModelsConfig;
+import com.example.hr_assistant.repository.ModelVersionRepository;
+import com.example.hr_assistant.service.ml.ClassificationService;
+import com.example.hr_assistant.service.ml.EmbeddingCache;
+import com.example.hr_assistant.service.ml.EmbeddingService;
+import com.example.hr_assistant.service.ml.InferenceBatcher;
+import com.example.hr_assistant.service.ml.ModelManager;
+import com.example.hr_assistant.service.ml.TextTokenizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячий путь локального инференса: WordPiece токенизация, очередь InferenceBatcher, пул предикторов
+ * ModelManager и проход ONNX модели в OnnxRuntime. Модель — крошечная фикстура {@link OnnxFixtures}:
+ * замер показывает накладные расходы конвейера вокруг модели, а не скорость настоящего BERT.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InferenceBenchmark {
+
+    private static final String ANSWER = "Я пять лет разрабатывал микросервисы на Java и Spring Boot, "
+        + "настраивал Kafka и PostgreSQL, писал тесты и настраивал CI/CD.";
+    private static final List<String> REQUIREMENTS = List.of("Java", "Spring", "Kafka", "PostgreSQL",
+        "Docker", "Тестирование", "CI/CD", "Микросервисы");
+
+    @Param({"true", "false"})
+    private boolean batching;
+
+    private Path modelsDir;
+    private ModelManager modelManager;
+    private InferenceBatcher inferenceBatcher;
+    private EmbeddingService embeddingService;
+    private ClassificationService classificationService;
+    private Map<String, String> requirements;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Без альтернативного движка OnnxRuntime не загружает PyTorch для операций NDArray
+        System.setProperty("ai.djl.onnx.disable_alternative", "true");
+
+        String text = ANSWER + " " + String.join(" ", REQUIREMENTS);
+        modelsDir = Files.createTempDirectory("jmh-onnx");
+        MlModelsConfig config = new MlModelsConfig();
+        config.setPath(modelsDir.toString());
+        config.setEmbeddings(OnnxFixtures.writeModel(modelsDir.resolve("embeddings"), text, 64));
+        config.setClassifier(OnnxFixtures.writeModel(modelsDir.resolve("classifier"), text, 64));
+        config.getBatching().setEnabled(batching);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        modelManager = new ModelManager(config, BenchmarkStubs.repository(ModelVersionRepository.class,
+            Map.of("findActiveByModelName", args -> Optional.empty())), registry);
+        modelManager.loadModel("embeddings", config.getEmbeddings());
+        modelManager.loadModel("classifier", config.getClassifier());
+        if (!modelManager.isModelLoaded("embeddings") || !modelManager.isModelLoaded("classifier")) {
+            throw new IllegalStateException("ONNX фикстура не загрузилась");
+        }
+
+        EmbeddingCacheConfig cacheConfig = new EmbeddingCacheConfig();
+        cacheConfig.setEnabled(false);
+        TextTokenizer tokenizer = BenchmarkStubs.construct(TextTokenizer.class, config);
+        inferenceBatcher = new InferenceBatcher(modelManager, tokenizer, config, registry);
+        embeddingService = BenchmarkStubs.construct(EmbeddingService.class, modelManager, tokenizer,
+            inferenceBatcher, BenchmarkStubs.construct(EmbeddingCache.class, cacheConfig, registry));
+        classificationService = BenchmarkStubs.construct(ClassificationService.class, modelManager,
+            embeddingService, tokenizer, inferenceBatcher);
+
+        requirements = new LinkedHashMap<>();
+        REQUIREMENTS.forEach(requirement -> requirements.put(requirement, requirement));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        inferenceBatcher.shutdown();
+        modelManager.cleanup();
+        try (var files = Files.walk(modelsDir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public float[] embedAnswer() {
+        return embeddingService.createEmbedding(ANSWER);
+    }
+
+    @Benchmark
+    public List<float[]> embedRequirements() {
+        return embeddingService.createEmbeddings(REQUIREMENTS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public float[] embedAnswerConcurrent() {
+        return embeddingService.createEmbedding(ANSWER);
+    }
+
+    @Benchmark
+    public Map<String, Double> classifyAgainstRequirements() {
+        return classificationService.classifyCompliance(ANSWER, requirements);
+    }
+}
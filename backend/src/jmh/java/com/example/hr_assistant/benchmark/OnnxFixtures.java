@@ -0,0 +1,158 @@
+package com.example.hr_assistant.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Фикстуры моделей для бенчмарков: словарь WordPiece и крошечная BERT-подобная ONNX модель.
+ *
+ * Модель записывается напрямую в protobuf (onnx.proto, IR 8, opset 13) без зависимостей:
+ * входы input_ids и attention_mask [batch, sequence] int64, выходы
+ * last_hidden_state = Gather(таблица эмбеддингов, input_ids) [batch, sequence, hidden] и
+ * logits = MatMul(ReduceMean(last_hidden_state, 1), W) [batch, 3].
+ * Этого достаточно, чтобы через ModelManager, InferenceBatcher и OnnxRuntime прошел настоящий инференс.
+ */
+final class OnnxFixtures {
+
+    private static final int FLOAT = 1;
+    private static final int INT64 = 7;
+    private static final int ATTRIBUTE_INTS = 7;
+    private static final int ATTRIBUTE_INT = 2;
+
+    private OnnxFixtures() {
+    }
+
+    /**
+     * Пишет model.onnx и vocab.txt в каталог модели; возвращает имя файла модели
+     */
+    static String writeModel(Path modelDir, String text, int hidden) throws IOException {
+        Files.createDirectories(modelDir);
+        List<String> vocabulary = List.copyOf(vocabulary(text));
+        Files.write(modelDir.resolve("vocab.txt"), vocabulary);
+        Files.write(modelDir.resolve("model.onnx"), model(vocabulary.size(), hidden));
+        return "model.onnx";
+    }
+
+    /**
+     * Словарь из специальных токенов, префиксов слов текста и одиночных символов-продолжений
+     */
+    static Set<String> vocabulary(String text) {
+        Set<String> tokens = new LinkedHashSet<>(List.of("[PAD]", "[UNK]", "[CLS]", "[SEP]", "[MASK]"));
+        for (String word : text.toLowerCase().split("[\\s\\p{Punct}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            tokens.add(word.substring(0, Math.min(4, word.length())));
+            for (char c : word.toCharArray()) {
+                tokens.add(String.valueOf(c));
+                tokens.add("##" + c);
+            }
+            if (word.length() > 4) {
+                tokens.add("##" + word.substring(4));
+            }
+        }
+        tokens.add(",");
+        tokens.add(".");
+        return tokens;
+    }
+
+    private static byte[] model(int vocabularySize, int hidden) {
+        Random random = new Random(42);
+        Proto graph = new Proto()
+            .message(1, node("Gather", List.of("embedding_table", "input_ids"), "last_hidden_state"))
+            .message(1, node("ReduceMean", List.of("last_hidden_state"), "pooled")
+                .message(5, new Proto().string(1, "axes").int64(20, ATTRIBUTE_INTS).int64(8, 1))
+                .message(5, new Proto().string(1, "keepdims").int64(20, ATTRIBUTE_INT).int64(3, 0)))
+            .message(1, node("MatMul", List.of("pooled", "classifier_weight"), "logits"))
+            .string(2, "benchmark-bert")
+            .message(5, tensor("embedding_table", random, vocabularySize, hidden))
+            .message(5, tensor("classifier_weight", random, hidden, 3))
+            .message(11, valueInfo("input_ids", INT64, "batch", "sequence"))
+            .message(11, valueInfo("attention_mask", INT64, "batch", "sequence"))
+            .message(12, valueInfo("last_hidden_state", FLOAT, "batch", "sequence", hidden))
+            .message(12, valueInfo("logits", FLOAT, "batch", 3));
+        return new Proto()
+            .int64(1, 8)
+            .string(2, "hr-assistant-jmh")
+            .message(7, graph)
+            .message(8, new Proto().string(1, "").int64(2, 13))
+            .toByteArray();
+    }
+
+    private static Proto node(String opType, List<String> inputs, String output) {
+        Proto node = new Proto();
+        inputs.forEach(input -> node.string(1, input));
+        return node.string(2, output).string(3, opType + "_" + output).string(4, opType);
+    }
+
+    private static Proto tensor(String name, Random random, int rows, int columns) {
+        ByteBuffer data = ByteBuffer.allocate(rows * columns * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < rows * columns; i++) {
+            data.putFloat((float) random.nextGaussian());
+        }
+        return new Proto().int64(1, rows).int64(1, columns).int64(2, FLOAT).string(8, name).bytes(9, data.array());
+    }
+
+    /**
+     * Описание входа/выхода: строковые измерения — символьные (dim_param), числовые — фиксированные
+     */
+    private static Proto valueInfo(String name, int elementType, Object... dims) {
+        Proto shape = new Proto();
+        for (Object dim : dims) {
+            shape.message(1, dim instanceof String param
+                ? new Proto().string(2, param)
+                : new Proto().int64(1, ((Number) dim).longValue()));
+        }
+        Proto tensorType = new Proto().int64(1, elementType).message(2, shape);
+        return new Proto().string(1, name).message(2, new Proto().message(1, tensorType));
+    }
+
+    /**
+     * Минимальный writer protobuf: varint и length-delimited поля
+     */
+    private static final class Proto {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Proto int64(int field, long value) {
+            varint((long) field << 3);
+            varint(value);
+            return this;
+        }
+
+        Proto string(int field, String value) {
+            return bytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Proto message(int field, Proto message) {
+            return bytes(field, message.toByteArray());
+        }
+
+        Proto bytes(int field, byte[] value) {
+            varint(((long) field << 3) | 2);
+            varint(value.length);
+            out.writeBytes(value);
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.hr_assistant.benchmark;
+
+import com.example.hr_assistant.service.antifraud.AiTextDetectionService;
+import com.example.hr_assistant.service.ml.ClassificationService;
+import com.example.hr_assistant.service.queue.AnalysisProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Оценка ответа: взвешенный итог, эвристики AI-текста и подсчет ключевых слов анализа
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+
+    private static final String TRANSCRIPT = ("Следует отметить, что я осуществлял разработку на Java и Spring. "
+        + "Таким образом, в соответствии с задачами команды мы реализовывали микросервисы, Kafka и PostgreSQL. "
+        + "Важно отметить, что процесс характеризовался высокой нагрузкой, Java и Docker были основными инструментами. ")
+        .repeat(20);
+
+    private ClassificationService classificationService;
+    private AiTextDetectionService aiTextDetectionService;
+    private AnalysisProcessor analysisProcessor;
+    private MethodHandle analyzeKeywords;
+
+    private Map<String, Double> competencyScores;
+    private Map<String, Double> weights;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        classificationService = BenchmarkStubs.construct(ClassificationService.class);
+        aiTextDetectionService = BenchmarkStubs.construct(AiTextDetectionService.class,
+            BenchmarkStubs.modelManagerWithoutModels());
+        analysisProcessor = BenchmarkStubs.construct(AnalysisProcessor.class);
+        analyzeKeywords = MethodHandles.privateLookupIn(AnalysisProcessor.class, MethodHandles.lookup())
+            .findVirtual(AnalysisProcessor.class, "analyzeKeywords",
+                MethodType.methodType(Map.class, String.class, Set.class));
+
+        competencyScores = new LinkedHashMap<>();
+        weights = new LinkedHashMap<>();
+        String[] competencies = {"Java", "Spring", "Kafka", "PostgreSQL", "Docker", "Kubernetes", "REST", "SQL",
+            "Микросервисы", "Тестирование", "CI/CD", "Git", "Linux", "Redis", "gRPC", "Алгоритмы"};
+        for (int i = 0; i < competencies.length; i++) {
+            competencyScores.put(competencies[i], (i % 3) * 0.5);
+            weights.put(competencies[i], 1.0 + (i % 4) * 0.25);
+        }
+    }
+
+    @Benchmark
+    public double calculateOverallScore() {
+        return classificationService.calculateOverallScore(competencyScores, weights);
+    }
+
+    @Benchmark
+    public AiTextDetectionService.AiDetectionResult aiTextHeuristics() {
+        return aiTextDetectionService.detectAiText(TRANSCRIPT);
+    }
+
+    @Benchmark
+    public Object analysisKeywords() throws Throwable {
+        return analyzeKeywords.invoke(analysisProcessor, TRANSCRIPT, competencyScores.keySet());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.hr_assistant.benchmark;
+
+import com.example.hr_assistant.service.ml.EmbeddingService;
+import com.example.hr_assistant.service.ml.similarity.ScalarSimilarityKernel;
+import com.example.hr_assistant.service.ml.similarity.SimilarityKernel;
+import com.example.hr_assistant.service.ml.similarity.SimilarityKernels;
+import com.example.hr_assistant.service.ml.similarity.VectorSimilarityKernel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Косинусное сходство: одна пара векторов и ответ против набора требований / галереи
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimilarityBenchmark {
+
+    @Param({"384", "768"})
+    private int dimension;
+
+    @Param({"256"})
+    private int references;
+
+    private final SimilarityKernel scalar = new ScalarSimilarityKernel();
+    private final SimilarityKernel vector = new VectorSimilarityKernel();
+
+    private EmbeddingService embeddingService;
+    private float[] query;
+    private float[] normalizedQuery;
+    private List<float[]> referenceList;
+    private float[] matrix;
+    private float[] normalizedMatrix;
+
+    @Setup
+    public void setUp() {
+        embeddingService = BenchmarkStubs.construct(EmbeddingService.class);
+        Random random = new Random(42);
+        query = randomVector(random);
+        referenceList = new ArrayList<>(references);
+        for (int i = 0; i < references; i++) {
+            referenceList.add(randomVector(random));
+        }
+        matrix = SimilarityKernels.pack(referenceList);
+        normalizedQuery = SimilarityKernels.normalize(query);
+        normalizedMatrix = matrix.clone();
+        SimilarityKernels.normalizeRows(normalizedMatrix, dimension);
+    }
+
+    @Benchmark
+    public float cosineScalar() {
+        return scalar.cosine(query, 0, matrix, 0, dimension);
+    }
+
+    @Benchmark
+    public float cosineVector() {
+        return vector.cosine(query, 0, matrix, 0, dimension);
+    }
+
+    @Benchmark
+    public double embeddingServiceCosine() {
+        return embeddingService.cosineSimilarity(query, referenceList.get(0));
+    }
+
+    @Benchmark
+    public void pairwiseLoop(Blackhole blackhole) {
+        for (float[] reference : referenceList) {
+            blackhole.consume(embeddingService.cosineSimilarity(query, reference));
+        }
+    }
+
+    @Benchmark
+    public float[] oneVsMany() {
+        return SimilarityKernels.oneVsMany(query, matrix, dimension);
+    }
+
+    @Benchmark
+    public float[] oneVsManyNormalized() {
+        return SimilarityKernels.oneVsManyNormalized(normalizedQuery, normalizedMatrix, dimension);
+    }
+
+    private float[] randomVector(Random random) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.hr_assistant.benchmark;
+
+import com.example.hr_assistant.config.MlModelsConfig;
+import com.example.hr_assistant.service.ml.TextTokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Токенизация пары (ответ, требование) — выполняется для каждого требования вакансии.
+ * Режим wordpiece использует словарь, сгенерированный во временном каталоге моделей.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextTokenizerBenchmark {
+
+    private static final String MODEL = "classifier";
+
+    @Param({"short", "long"})
+    private String answerSize;
+
+    @Param({"pseudo", "wordpiece"})
+    private String mode;
+
+    private TextTokenizer tokenizer;
+    private String answer;
+    private String requirement;
+    private List<String> batch;
+    private Path modelsDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        String sentence = "Я пять лет разрабатывал микросервисы на Java и Spring Boot, настраивал Kafka и PostgreSQL. ";
+        answer = "short".equals(answerSize) ? sentence : sentence.repeat(12);
+        requirement = "Опыт коммерческой разработки на Java от 3 лет";
+        batch = List.of(requirement, sentence, "Знание SQL и Docker", "Опыт работы с Kafka");
+
+        modelsDir = Files.createTempDirectory("jmh-models");
+        MlModelsConfig config = new MlModelsConfig();
+        config.setPath(modelsDir.toString());
+        if ("wordpiece".equals(mode)) {
+            writeVocabulary(modelsDir.resolve(MODEL), sentence + " " + requirement);
+        }
+        tokenizer = BenchmarkStubs.construct(TextTokenizer.class, config);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.walk(modelsDir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long[][] encodePair() {
+        return tokenizer.encodePair(MODEL, answer, requirement);
+    }
+
+    @Benchmark
+    public long[][] encodeSingle() {
+        return tokenizer.encodeSingle(MODEL, answer);
+    }
+
+    @Benchmark
+    public Object encodeBatch() {
+        return tokenizer.encodeBatch(MODEL, batch);
+    }
+
+    private static void writeVocabulary(Path dir, String text) throws IOException {
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("vocab.txt"), OnnxFixtures.vocabulary(text));
+    }
+}
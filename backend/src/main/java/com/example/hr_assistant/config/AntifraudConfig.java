@@ -30,4 +30,30 @@ public class AntifraudConfig {
         private Double reject = 0.85;
         private Double review = 0.6;
     }
+
+    private Heartbeat heartbeat = new Heartbeat();
+
+    @Data
+    public static class Heartbeat {
+        /** Период сброса накопленных счетчиков heartbeat в таблицу antifraud */
+        private Long flushIntervalMs = 5000L;
+        /** Интервал между heartbeat, начиная с которого фиксируется пропуск */
+        private Long gapThresholdMs = 15000L;
+        /** Счетчики интервью без heartbeat дольше этого времени удаляются из памяти после сброса */
+        private Long idleEvictMs = 600000L;
+        /** Шаг колеса таймеров, по которому проверяются пропуски heartbeat */
+        private Long tickMs = 1000L;
+        /** Число ячеек колеса таймеров (округляется до степени двойки) */
+        private Integer wheelSize = 64;
+    }
+
+    private Evaluation evaluation = new Evaluation();
+
+    @Data
+    public static class Evaluation {
+        /** Потоки для параллельного выполнения проверок */
+        private Integer threads = 8;
+        /** Сколько ждать самую долгую проверку */
+        private Long timeoutMs = 60000L;
+    }
 }
@@ -0,0 +1,27 @@
+package com.example.hr_assistant.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация кэша эмбеддингов
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ml.cache.embeddings")
+@Data
+public class EmbeddingCacheConfig {
+
+    private Boolean enabled = true;
+    private Integer maxEntries = 20000;
+    private Long maxBytes = 64L * 1024 * 1024;
+
+    private Redis redis = new Redis();
+
+    @Data
+    public static class Redis {
+        private Boolean enabled = false;
+        private String keyPrefix = "hr:emb:";
+        private Long ttlSeconds = 7L * 24 * 3600;
+    }
+}
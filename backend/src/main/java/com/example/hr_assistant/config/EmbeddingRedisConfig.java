@@ -0,0 +1,49 @@
+package com.example.hr_assistant.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Подключение к Redis для общего кэша эмбеддингов.
+ * RedisAutoConfiguration отключена в приложении, поэтому фабрика соединений создается здесь
+ * из стандартных свойств spring.data.redis.*
+ */
+@Configuration
+@EnableConfigurationProperties(RedisProperties.class)
+@ConditionalOnProperty(name = "ml.cache.embeddings.redis.enabled", havingValue = "true")
+public class EmbeddingRedisConfig {
+
+    @Bean
+    public LettuceConnectionFactory embeddingRedisConnectionFactory(RedisProperties properties) {
+        RedisStandaloneConfiguration server = new RedisStandaloneConfiguration(properties.getHost(), properties.getPort());
+        server.setDatabase(properties.getDatabase());
+        if (properties.getPassword() != null && !properties.getPassword().isBlank()) {
+            server.setPassword(RedisPassword.of(properties.getPassword()));
+        }
+
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder client = LettuceClientConfiguration.builder();
+        if (properties.getTimeout() != null) {
+            client.commandTimeout(properties.getTimeout());
+        }
+        return new LettuceConnectionFactory(server, client.build());
+    }
+
+    @Bean
+    public RedisTemplate<String, byte[]> embeddingRedisTemplate(LettuceConnectionFactory embeddingRedisConnectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(embeddingRedisConnectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        return template;
+    }
+}
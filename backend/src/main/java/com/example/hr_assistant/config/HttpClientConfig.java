@@ -0,0 +1,72 @@
+package com.example.hr_assistant.config;
+
+import io.netty.channel.ChannelOption;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Общий пул HTTP соединений Reactor Netty для клиентов ML микросервисов.
+ *
+ * Все WebClient, собранные из {@link org.springframework.web.reactive.function.client.WebClient.Builder},
+ * используют один {@link ConnectionProvider}: соединения к сервисам переиспользуются (keep-alive),
+ * число соединений и очередь ожидающих запросов ограничены (http.client.pool.*).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "http.client")
+@Data
+public class HttpClientConfig {
+
+    private Long connectTimeoutMs = 3000L;
+    /** Максимальный размер тела ответа в памяти (видео аватара, аудио TTS) */
+    private Integer maxInMemorySizeMb = 64;
+    private Pool pool = new Pool();
+
+    @Data
+    public static class Pool {
+        /** Максимум соединений на один адрес сервиса */
+        private Integer maxConnections = 100;
+        /** Максимум запросов, ожидающих свободное соединение */
+        private Integer pendingAcquireMaxCount = 500;
+        private Long pendingAcquireTimeoutMs = 5000L;
+        /** Простаивающее соединение закрывается через это время */
+        private Long maxIdleTimeMs = 30000L;
+        private Long maxLifeTimeMs = 300000L;
+        /** Период фоновой очистки простаивающих соединений */
+        private Long evictIntervalMs = 60000L;
+        /** Метрики пула reactor.netty.connection.provider.* */
+        private Boolean metricsEnabled = true;
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider httpConnectionProvider() {
+        return ConnectionProvider.builder("ml-services")
+            .maxConnections(pool.getMaxConnections())
+            .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+            .pendingAcquireTimeout(Duration.ofMillis(pool.getPendingAcquireTimeoutMs()))
+            .maxIdleTime(Duration.ofMillis(pool.getMaxIdleTimeMs()))
+            .maxLifeTime(Duration.ofMillis(pool.getMaxLifeTimeMs()))
+            .evictInBackground(Duration.ofMillis(pool.getEvictIntervalMs()))
+            .metrics(Boolean.TRUE.equals(pool.getMetricsEnabled()))
+            .build();
+    }
+
+    @Bean
+    public WebClientCustomizer pooledWebClientCustomizer(ConnectionProvider httpConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(httpConnectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs.intValue())
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .keepAlive(true);
+        int maxInMemorySize = maxInMemorySizeMb * 1024 * 1024;
+        return builder -> builder
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemorySize));
+    }
+}
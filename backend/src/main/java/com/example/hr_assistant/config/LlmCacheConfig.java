@@ -0,0 +1,20 @@
+package com.example.hr_assistant.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация кэша ответов LLM
+ */
+@Configuration
+@ConfigurationProperties(prefix = "llm.cache")
+@Data
+public class LlmCacheConfig {
+
+    private Boolean enabled = true;
+    private Integer maxEntries = 5000;
+    private Long maxBytes = 32L * 1024 * 1024;
+    /** Время жизни ответа: после обновления модели или промпта старые ответы уходят сами */
+    private Long ttlSeconds = 24L * 3600;
+}
@@ -1,11 +1,24 @@
 package com.example.hr_assistant.config;
 
+import com.example.hr_assistant.service.storage.MinioMultipartClient;
+import io.minio.MinioAsyncClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.minio.MinioClient;
 import lombok.Data;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Конфигурация MinIO клиента
@@ -21,13 +34,115 @@ public class MinioConfig {
     private String secretKey;
     private String bucketName;
     private String region;
+    private Multipart multipart = new Multipart();
+    private Streaming streaming = new Streaming();
+    private Client client = new Client();
+
+    /**
+     * HTTP клиент MinIO (OkHttp) и параллельная загрузка крупных объектов
+     */
+    @Data
+    public static class Client {
+        /** Простаивающие keep-alive соединения в пуле */
+        private Integer maxIdleConnections = 32;
+        private Long keepAliveSeconds = 300L;
+        /** Одновременные асинхронные запросы: всего и к одному хосту */
+        private Integer maxRequests = 128;
+        private Integer maxRequestsPerHost = 64;
+        private Long connectTimeoutMs = 5000L;
+        private Long readTimeoutMs = 60000L;
+        private Long writeTimeoutMs = 60000L;
+        /** Объекты больше размера части загружаются частями (S3: минимум 5 МБ) */
+        private Long partSizeBytes = 16L * 1024 * 1024;
+        /** Части одного объекта, загружаемые одновременно */
+        private Integer parallelParts = 4;
+    }
+
+    /**
+     * Загрузка записей интервью частями напрямую в хранилище
+     */
+    @Data
+    public static class Multipart {
+        /** Размер части, который предлагается клиенту (S3: минимум 5 МБ, кроме последней) */
+        private Long partSizeBytes = 8L * 1024 * 1024;
+        private Integer maxParts = 10000;
+        /** Срок действия presigned URL части */
+        private Integer presignExpiryMinutes = 60;
+        /** Незавершенные загрузки старше этого срока отменяются */
+        private Long abandonAfterHours = 24L;
+    }
+
+    /**
+     * Потоковая выдача медиа с поддержкой HTTP Range
+     */
+    @Data
+    public static class Streaming {
+        /** Размер одного буфера копирования */
+        private Integer bufferSizeBytes = 64 * 1024;
+        /** Максимум буферов в пуле, то есть одновременно копируемых потоков без доп. выделений */
+        private Integer maxBuffers = 64;
+        /** Кэш метаданных объектов (statObject): записи и время жизни */
+        private Integer metadataCacheEntries = 10000;
+        private Long metadataTtlSeconds = 300L;
+    }
 
+    /**
+     * Общий HTTP клиент синхронного и асинхронного клиентов MinIO: пул соединений и диспетчер
+     * асинхронных запросов настраиваются minio.client.*
+     */
     @Bean
-    public MinioClient minioClient() {
+    public OkHttpClient minioHttpClient(MeterRegistry meterRegistry) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(client.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(client.getMaxRequestsPerHost());
+        ConnectionPool connectionPool = new ConnectionPool(client.getMaxIdleConnections(),
+            client.getKeepAliveSeconds(), TimeUnit.SECONDS);
+
+        Gauge.builder("hr.storage.connections", connectionPool, ConnectionPool::connectionCount)
+            .description("Соединения в пуле HTTP клиента MinIO")
+            .tag("state", "total")
+            .register(meterRegistry);
+        Gauge.builder("hr.storage.connections", connectionPool, ConnectionPool::idleConnectionCount)
+            .description("Соединения в пуле HTTP клиента MinIO")
+            .tag("state", "idle")
+            .register(meterRegistry);
+        Gauge.builder("hr.storage.requests.queued", dispatcher, Dispatcher::queuedCallsCount)
+            .description("Асинхронные запросы к MinIO, ожидающие отправки")
+            .register(meterRegistry);
+
+        return new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(connectionPool)
+            .connectTimeout(Duration.ofMillis(client.getConnectTimeoutMs()))
+            .readTimeout(Duration.ofMillis(client.getReadTimeoutMs()))
+            .writeTimeout(Duration.ofMillis(client.getWriteTimeoutMs()))
+            .protocols(List.of(Protocol.HTTP_1_1))
+            .build();
+    }
+
+    @Bean
+    public MinioClient minioClient(OkHttpClient minioHttpClient) {
         return MinioClient.builder()
             .endpoint(endpoint)
             .credentials(accessKey, secretKey)
             .region(region)
+            .httpClient(minioHttpClient)
             .build();
     }
+
+    @Bean
+    @Primary
+    public MinioAsyncClient minioAsyncClient(OkHttpClient minioHttpClient) {
+        return MinioAsyncClient.builder()
+            .endpoint(endpoint)
+            .credentials(accessKey, secretKey)
+            .region(region)
+            .httpClient(minioHttpClient)
+            .build();
+    }
+
+    @Bean
+    public MinioMultipartClient minioMultipartClient(MinioAsyncClient minioAsyncClient) {
+        return new MinioMultipartClient(minioAsyncClient);
+    }
 }
@@ -20,4 +20,56 @@ public class MlModelsConfig {
     private String faceRecognition;
     private String liveness;
     private String aiDetector;
+
+    private Pool pool = new Pool();
+
+    @Data
+    public static class Pool {
+        private Integer size = 4;
+        private Long acquireTimeoutMs = 2000L;
+    }
+
+    private Batching batching = new Batching();
+
+    @Data
+    public static class Batching {
+        private Boolean enabled = true;
+        private Integer maxBatchSize = 16;
+        private Long maxWaitMs = 5L;
+        private Integer queueCapacity = 1024;
+    }
+
+    private Tokenizer tokenizer = new Tokenizer();
+
+    @Data
+    public static class Tokenizer {
+        /** Имя файла словаря WordPiece в каталоге модели */
+        private String vocabFile = "vocab.txt";
+        private Integer maxTokens = 256;
+        private Boolean lowerCase = true;
+        private Boolean stripAccents = false;
+    }
+
+    private Asr asr = new Asr();
+
+    @Data
+    public static class Asr {
+        /** Путь к ffmpeg; если не задан, используется бинарник из org.bytedeco:ffmpeg */
+        private String ffmpegPath;
+        private Integer sampleRate = 16000;
+        /** Длина окна, подаваемого в Whisper */
+        private Integer windowSeconds = 30;
+        /** Перекрытие соседних окон, чтобы не резать слова на границе */
+        private Integer overlapSeconds = 5;
+        /** Размер буфера чтения PCM из ffmpeg */
+        private Integer readBufferBytes = 65536;
+        /** Инкрементальная транскрипция чанков по мере загрузки */
+        private Boolean liveEnabled = true;
+        /** Максимум чанков, ожидающих передачи в ffmpeg, на одну сессию */
+        private Integer liveQueueChunks = 64;
+        /** Максимум одновременных сессий инкрементальной транскрипции; сверх лимита ответ обрабатывается целиком */
+        private Integer liveMaxSessions = 16;
+        /** Сессии без новых чанков дольше этого времени закрываются */
+        private Integer liveSessionTtlMinutes = 30;
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.hr_assistant.config;
+
+import com.example.hr_assistant.service.queue.JobStage;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Конфигурация конвейера фоновых задач (загрузка → транскрипция → анализ → антифрод → уведомления)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "queue.pipeline")
+@Data
+public class PipelineConfig {
+
+    private Boolean enabled = true;
+    /** Транспорт очередей: memory (в процессе); брокер подключается отдельной реализацией JobTransport */
+    private String transport = "memory";
+    /** Сколько ждать места в очереди этапа, прежде чем отклонить задачу */
+    private Long offerTimeoutMs = 2000L;
+
+    private Map<JobStage, Stage> stages = new EnumMap<>(JobStage.class);
+
+    @Data
+    public static class Stage {
+        private Integer workers = 2;
+        private Integer capacity = 100;
+    }
+
+    private Retry retry = new Retry();
+
+    @Data
+    public static class Retry {
+        private Integer maxAttempts = 4;
+        private Long initialBackoffMs = 1000L;
+        private Double multiplier = 2.0;
+        private Long maxBackoffMs = 60000L;
+    }
+
+    /**
+     * Параметры этапа; для этапов без настроек — значения по умолчанию
+     */
+    public Stage stage(JobStage stage) {
+        return stages.computeIfAbsent(stage, s -> new Stage());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.hr_assistant.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Политики устойчивости вызовов ML микросервисов (rubert, sbert, llm, detectgpt, video-antifraud,
+ * whisperx, tts, avatar): таймауты, circuit breaker, ограничение параллелизма и повторы.
+ * Сервис без своей секции использует resilience.defaults.*; незаданные поля секции сервиса берутся
+ * из resilience.defaults.*, незаданные поля defaults — встроенные значения {@link Policy#builtIn()}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "resilience")
+@Data
+public class ResilienceConfig {
+
+    private Map<String, Policy> services = new HashMap<>();
+    /** Политика сервисов без своей секции и значения незаданных полей секций сервисов */
+    private Policy defaults = Policy.builtIn();
+
+    public Policy policy(String service) {
+        Policy policy = services.get(service);
+        return policy != null ? policy.mergedOver(defaults) : defaults;
+    }
+
+    /**
+     * Политика сервиса; null — поле не задано
+     */
+    @Data
+    public static class Policy {
+        private Long connectTimeoutMs;
+        /** Максимальное время ответа одной попытки */
+        private Long readTimeoutMs;
+
+        /** Одновременные вызовы сервиса; сверх лимита вызов сразу отклоняется */
+        private Integer maxConcurrentCalls;
+
+        /** Доля ошибок (%) в окне, при которой circuit breaker размыкается */
+        private Float failureRateThreshold;
+        /** Доля медленных вызовов (%) в окне, при которой circuit breaker размыкается */
+        private Float slowCallRateThreshold;
+        private Long slowCallDurationMs;
+        private Integer slidingWindowSize;
+        private Integer minimumNumberOfCalls;
+        /** Время в разомкнутом состоянии перед пробными вызовами */
+        private Long openStateMs;
+
+        /** Всего попыток, включая первую */
+        private Integer maxAttempts;
+        private Long retryBackoffMs;
+        /**
+         * Задержка дублирующего (hedged) запроса: если ответа нет дольше, параллельно отправляется второй
+         * и берется первый успешный. 0 — без дублирования; только для идемпотентных вызовов.
+         * Основной и дублирующий запросы занимают в bulkhead одно место.
+         */
+        private Long hedgeDelayMs;
+
+        /**
+         * Встроенные значения всех полей
+         */
+        public static Policy builtIn() {
+            Policy policy = new Policy();
+            policy.connectTimeoutMs = 2000L;
+            policy.readTimeoutMs = 10000L;
+            policy.maxConcurrentCalls = 20;
+            policy.failureRateThreshold = 50f;
+            policy.slowCallRateThreshold = 80f;
+            policy.slowCallDurationMs = 5000L;
+            policy.slidingWindowSize = 20;
+            policy.minimumNumberOfCalls = 10;
+            policy.openStateMs = 30000L;
+            policy.maxAttempts = 2;
+            policy.retryBackoffMs = 200L;
+            policy.hedgeDelayMs = 0L;
+            return policy;
+        }
+
+        /**
+         * Копия политики, в которой незаданные поля взяты из base
+         */
+        public Policy mergedOver(Policy base) {
+            Policy merged = new Policy();
+            merged.connectTimeoutMs = connectTimeoutMs != null ? connectTimeoutMs : base.connectTimeoutMs;
+            merged.readTimeoutMs = readTimeoutMs != null ? readTimeoutMs : base.readTimeoutMs;
+            merged.maxConcurrentCalls = maxConcurrentCalls != null ? maxConcurrentCalls : base.maxConcurrentCalls;
+            merged.failureRateThreshold = failureRateThreshold != null ? failureRateThreshold : base.failureRateThreshold;
+            merged.slowCallRateThreshold = slowCallRateThreshold != null ? slowCallRateThreshold : base.slowCallRateThreshold;
+            merged.slowCallDurationMs = slowCallDurationMs != null ? slowCallDurationMs : base.slowCallDurationMs;
+            merged.slidingWindowSize = slidingWindowSize != null ? slidingWindowSize : base.slidingWindowSize;
+            merged.minimumNumberOfCalls = minimumNumberOfCalls != null ? minimumNumberOfCalls : base.minimumNumberOfCalls;
+            merged.openStateMs = openStateMs != null ? openStateMs : base.openStateMs;
+            merged.maxAttempts = maxAttempts != null ? maxAttempts : base.maxAttempts;
+            merged.retryBackoffMs = retryBackoffMs != null ? retryBackoffMs : base.retryBackoffMs;
+            merged.hedgeDelayMs = hedgeDelayMs != null ? hedgeDelayMs : base.hedgeDelayMs;
+            return merged;
+        }
+    }
+}
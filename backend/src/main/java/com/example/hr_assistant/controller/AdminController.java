@@ -1,10 +1,13 @@
 package com.example.hr_assistant.controller;
 
 import com.example.hr_assistant.model.AuditLog;
+import com.example.hr_assistant.model.DeadLetterJob;
 import com.example.hr_assistant.repository.AuditLogRepository;
+import com.example.hr_assistant.repository.DeadLetterJobRepository;
+import com.example.hr_assistant.service.external.LlmResponseCache;
 import com.example.hr_assistant.service.ml.ModelManager;
 import com.example.hr_assistant.service.ml.TrainingService;
-// import com.example.hr_assistant.service.queue.QueueService;
+import com.example.hr_assistant.service.queue.JobPipeline;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -31,8 +34,10 @@ public class AdminController {
 
     private final ModelManager modelManager;
     private final TrainingService trainingService;
-    // private final QueueService queueService;
+    private final JobPipeline jobPipeline;
+    private final DeadLetterJobRepository deadLetterJobRepository;
     private final AuditLogRepository auditLogRepository;
+    private final LlmResponseCache llmResponseCache;
 
     @PostMapping("/models/reload")
     @Operation(summary = "Перезагрузить модели", description = "Перезагрузка всех ML моделей")
@@ -246,6 +251,65 @@ public class AdminController {
         }
     }
 
+    @GetMapping("/jobs")
+    @Operation(summary = "Состояние конвейера", description = "Очереди и воркеры этапов фоновой обработки")
+    public ResponseEntity<Map<String, Object>> getPipelineStats() {
+        try {
+            return ResponseEntity.ok(jobPipeline.stats());
+
+        } catch (Exception e) {
+            log.error("Ошибка при получении состояния конвейера: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/jobs/dead-letters")
+    @Operation(summary = "Упавшие задачи", description = "Задачи конвейера, исчерпавшие попытки обработки")
+    public ResponseEntity<List<DeadLetterJob>> getDeadLetters(
+            @RequestParam(value = "interviewId", required = false) Long interviewId) {
+        try {
+            List<DeadLetterJob> jobs = interviewId != null
+                ? deadLetterJobRepository.findByInterviewId(interviewId)
+                : deadLetterJobRepository.findTop100ByOrderByCreatedAtDesc();
+            return ResponseEntity.ok(jobs);
+
+        } catch (Exception e) {
+            log.error("Ошибка при получении упавших задач: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/jobs/dead-letters/{id}/retry")
+    @Operation(summary = "Повторить задачу", description = "Повторная постановка упавшей задачи на ее этап")
+    public ResponseEntity<Map<String, String>> retryDeadLetter(@PathVariable Long id) {
+        log.info("Повтор упавшей задачи {} администратором", id);
+        String jobId = jobPipeline.requeueDeadLetter(id);
+        return ResponseEntity.ok(Map.of(
+            "status", "success",
+            "jobId", jobId,
+            "timestamp", LocalDateTime.now().toString()
+        ));
+    }
+
+    @GetMapping("/llm/cache")
+    @Operation(summary = "Кэш ответов LLM", description = "Размер, попадания/промахи и последние использованные записи кэша ответов LLM")
+    public ResponseEntity<Map<String, Object>> getLlmCache(
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.ok(llmResponseCache.stats(Math.max(0, limit)));
+    }
+
+    @DeleteMapping("/llm/cache")
+    @Operation(summary = "Очистить кэш ответов LLM", description = "Удаляет все сохраненные ответы LLM")
+    public ResponseEntity<Map<String, Object>> clearLlmCache() {
+        log.info("Очистка кэша ответов LLM администратором");
+        int removed = llmResponseCache.clear();
+        return ResponseEntity.ok(Map.of(
+            "status", "success",
+            "removed", removed,
+            "timestamp", LocalDateTime.now().toString()
+        ));
+    }
+
     @GetMapping("/system/health")
     @Operation(summary = "Здоровье системы", description = "Проверка состояния всех компонентов системы")
     public ResponseEntity<Map<String, Object>> getSystemHealth() {
@@ -1,21 +1,37 @@
 package com.example.hr_assistant.controller;
 
 import com.example.hr_assistant.model.Interview;
+import com.example.hr_assistant.model.Recording;
 import com.example.hr_assistant.model.dto.*;
+import com.example.hr_assistant.model.dto.RecordingUploadDtos.PartUrlsResponse;
+import com.example.hr_assistant.model.dto.RecordingUploadDtos.UploadSessionRequest;
+import com.example.hr_assistant.model.dto.RecordingUploadDtos.UploadSessionResponse;
 import com.example.hr_assistant.repository.InterviewRepository;
+import com.example.hr_assistant.repository.RecordingRepository;
 import com.example.hr_assistant.service.antifraud.AntifraudService;
-// import com.example.hr_assistant.service.queue.QueueService;
+import com.example.hr_assistant.service.ml.LiveTranscriptionService;
+import com.example.hr_assistant.service.queue.AntifraudProcessor;
+import com.example.hr_assistant.service.queue.QueueService;
 import com.example.hr_assistant.service.storage.MediaStorageService;
+import com.example.hr_assistant.service.storage.MediaStreamingService;
+import com.example.hr_assistant.service.storage.RecordingUploadService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -31,7 +47,11 @@ public class InterviewController {
     private final InterviewRepository interviewRepository;
     private final AntifraudService antifraudService;
     private final MediaStorageService mediaStorageService;
-    // private final QueueService queueService;
+    private final RecordingUploadService recordingUploadService;
+    private final MediaStreamingService mediaStreamingService;
+    private final RecordingRepository recordingRepository;
+    private final LiveTranscriptionService liveTranscriptionService;
+    private final QueueService queueService;
 
     @PostMapping
     @Operation(summary = "Создать интервью", description = "Создание нового интервью для кандидата")
@@ -85,7 +105,7 @@ public class InterviewController {
                 .orElseThrow(() -> new RuntimeException("Интервью не найдено: " + id));
             
             interview.setStatus(Interview.InterviewStatus.STARTED);
-            interview.setStartedAt(java.time.LocalDateTime.now());
+            interview.setStartedAt(LocalDateTime.now());
             interviewRepository.save(interview);
             
             log.info("Интервью {} запущено", id);
@@ -98,11 +118,39 @@ public class InterviewController {
         }
     }
 
+    @PostMapping("/{id}/finish")
+    @Operation(summary = "Завершить интервью", description = "Завершение интервью и итоговый расчет антифрод оценки")
+    public ResponseEntity<Void> finishInterview(@PathVariable Long id) {
+        try {
+            Interview interview = interviewRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Интервью не найдено: " + id));
+            
+            interview.setStatus(Interview.InterviewStatus.COMPLETED);
+            interview.setFinishedAt(LocalDateTime.now());
+            interviewRepository.save(interview);
+            
+            // Записываем накопленные heartbeat счетчики и пересчитываем fraud score
+            antifraudService.completeHeartbeats(id);
+            queueService.sendAntifraudTask(id, AntifraudProcessor.FRAUD_SCORE, null);
+            
+            log.info("Интервью {} завершено", id);
+            
+            return ResponseEntity.ok().build();
+            
+        } catch (Exception e) {
+            log.error("Ошибка при завершении интервью {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping("/{id}/questions/{qid}/start-record")
     @Operation(summary = "Начать запись ответа", description = "Начало записи ответа на вопрос")
     public ResponseEntity<Void> startRecording(@PathVariable Long id, @PathVariable Long qid) {
         try {
-            // Логика начала записи
+            // Новая запись ответа: прежние сессия инкрементальной транскрипции и загрузка частями сбрасываются.
+            // Обрыв внутри одной записи продолжается через upload-session без start-record
+            liveTranscriptionService.start(id, qid);
+            recordingUploadService.abort(id, qid);
             log.info("Начата запись для интервью {}, вопрос {}", id, qid);
             return ResponseEntity.ok().build();
             
@@ -113,52 +161,129 @@ public class InterviewController {
     }
 
     @PostMapping("/{id}/questions/{qid}/upload-chunk")
-    @Operation(summary = "Загрузить чанк записи", description = "Загрузка части аудио/видео записи")
+    @Operation(summary = "Передать чанк записи на транскрипцию", description = "Фрагмент аудио/видео записи во время записи для инкрементальной транскрипции. Фрагмент не сохраняется: запись целиком загружается частями через upload-session, обработку запускает finish-record. success=false — инкрементальная транскрипция недоступна, фрагменты можно больше не отправлять.")
     public ResponseEntity<MediaUploadResponse> uploadChunk(
             @PathVariable Long id,
             @PathVariable Long qid,
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "chunkIndex", defaultValue = "0") Integer chunkIndex,
             @RequestParam(value = "isFinal", defaultValue = "false") Boolean isFinal) {
-        
+
+        MediaUploadResponse response = new MediaUploadResponse();
+        response.setFileSize(file.getSize());
+        response.setContentType(file.getContentType());
+        if (!liveTranscriptionService.isEnabled()) {
+            response.setSuccess(false);
+            response.setMessage("Инкрементальная транскрипция недоступна");
+            return ResponseEntity.ok(response);
+        }
+        // Единственный путь, где байты записи проходят через JVM: фрагмент сразу уходит в ffmpeg
+        // сессии транскрипции и в хранилище не пишется
         try {
-            String folder = String.format("interviews/%d/questions/%d", id, qid);
-            MediaUploadResponse response = mediaStorageService.uploadFile(file, folder);
-            
-            if (response.getSuccess()) {
-                // Отправляем задачу транскрипции если это финальный чанк
-                if (isFinal) {
-                    // queueService.sendTranscriptionTask(id, response.getFileUrl());
-                }
+            liveTranscriptionService.appendChunk(id, qid, file.getBytes(), chunkIndex);
+            if (isFinal) {
+                liveTranscriptionService.endOfStream(id, qid);
             }
-            
-            return ResponseEntity.ok(response);
-            
+            response.setSuccess(true);
         } catch (Exception e) {
-            log.error("Ошибка при загрузке чанка: {}", e.getMessage(), e);
-            
-            MediaUploadResponse errorResponse = new MediaUploadResponse();
-            errorResponse.setSuccess(false);
-            errorResponse.setMessage("Ошибка загрузки: " + e.getMessage());
-            
-            return ResponseEntity.badRequest().body(errorResponse);
+            log.warn("Инкрементальная транскрипция интервью {}, вопрос {} остановлена: {}", id, qid, e.getMessage());
+            liveTranscriptionService.abort(id, qid);
+            response.setSuccess(false);
+            response.setMessage("Инкрементальная транскрипция остановлена");
         }
+        return ResponseEntity.ok(response);
     }
 
-    @PostMapping("/{id}/questions/{qid}/finish-record")
-    @Operation(summary = "Завершить запись", description = "Завершение записи ответа и запуск анализа")
-    public ResponseEntity<Void> finishRecording(@PathVariable Long id, @PathVariable Long qid) {
+    @PostMapping("/{id}/questions/{qid}/upload-session")
+    @Operation(summary = "Начать загрузку записи частями", description = "Открывает multipart загрузку записи ответа напрямую в хранилище. Если незавершенная загрузка уже есть, возвращает ее с принятыми частями.")
+    public ResponseEntity<UploadSessionResponse> startUploadSession(
+            @PathVariable Long id,
+            @PathVariable Long qid,
+            @RequestBody(required = false) UploadSessionRequest request) {
         try {
-            // Логика завершения записи и запуска анализа
-            log.info("Завершена запись для интервью {}, вопрос {}", id, qid);
-            return ResponseEntity.ok().build();
-            
+            UploadSessionRequest body = request != null ? request : new UploadSessionRequest();
+            return ResponseEntity.ok(recordingUploadService.start(id, qid, body.getFileName(), body.getContentType()));
+
         } catch (Exception e) {
-            log.error("Ошибка при завершении записи: {}", e.getMessage());
+            log.error("Ошибка при открытии загрузки записи: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @GetMapping("/{id}/questions/{qid}/upload-session")
+    @Operation(summary = "Состояние загрузки записи", description = "Незавершенная загрузка и части, уже принятые хранилищем")
+    public ResponseEntity<UploadSessionResponse> getUploadSession(@PathVariable Long id, @PathVariable Long qid) {
+        return recordingUploadService.session(id, qid)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/questions/{qid}/upload-session/part-urls")
+    @Operation(summary = "URL для загрузки частей", description = "Presigned URL для PUT частей записи напрямую в хранилище; ETag из ответа хранилища сохраняется в нем же")
+    public ResponseEntity<PartUrlsResponse> getPartUrls(
+            @PathVariable Long id,
+            @PathVariable Long qid,
+            @RequestParam("parts") List<Integer> partNumbers) {
+        try {
+            return ResponseEntity.ok(recordingUploadService.partUrls(id, qid, partNumbers));
+
+        } catch (Exception e) {
+            log.error("Ошибка при выдаче URL частей записи: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/{id}/questions/{qid}/upload-session")
+    @Operation(summary = "Отменить загрузку записи", description = "Отменяет multipart загрузку, принятые части удаляются")
+    public ResponseEntity<Void> abortUploadSession(@PathVariable Long id, @PathVariable Long qid) {
+        return recordingUploadService.abort(id, qid)
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/{id}/questions/{qid}/finish-record")
+    @Operation(summary = "Завершить запись", description = "Сборка записи ответа из загруженных частей и запуск анализа")
+    public Mono<ResponseEntity<Void>> finishRecording(@PathVariable Long id, @PathVariable Long qid) {
+        // Запись, загруженная частями напрямую в хранилище, собирается в один объект; запись ответа
+        // (Recording) указывает на него при любом способе транскрипции
+        return Mono.fromCallable(() -> recordingUploadService.complete(id, qid))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(upload -> {
+                if (upload.isEmpty()) {
+                    log.warn("Запись интервью {}, вопрос {} не загружена, обрабатывать нечего", id, qid);
+                    liveTranscriptionService.abort(id, qid);
+                    return Mono.just(ResponseEntity.badRequest().<Void>build());
+                }
+                MediaUploadResponse recording = upload.get();
+                // Распознавание последнего окна инкрементальной транскрипции не занимает поток запроса
+                return liveTranscriptionService.finish(id, qid, recording.getFileUrl(), recording.getFileSize())
+                    .map(Optional::of)
+                    .onErrorResume(e -> {
+                        log.warn("Инкрементальная транскрипция интервью {}, вопрос {} не удалась, запись будет обработана целиком: {}",
+                            id, qid, e.getMessage());
+                        return Mono.just(Optional.empty());
+                    })
+                    .defaultIfEmpty(Optional.empty())
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(liveTranscript -> {
+                        liveTranscript.ifPresentOrElse(
+                            transcript -> {
+                                log.info("Транскрипция ответа готова: интервью {}, вопрос {}, confidence={}",
+                                    id, qid, transcript.getAsrConfidence());
+                                queueService.sendAnalysisTask(id, transcript.getText());
+                            },
+                            () -> queueService.sendUploadTask(id, qid, recording.getFileUrl(), recording.getFileSize()));
+                        log.info("Завершена запись для интервью {}, вопрос {}", id, qid);
+                        return ResponseEntity.ok().<Void>build();
+                    });
+            })
+            .onErrorResume(e -> {
+                log.error("Ошибка при завершении записи: {}", e.getMessage());
+                liveTranscriptionService.abort(id, qid);
+                return Mono.just(ResponseEntity.badRequest().build());
+            });
+    }
+
     @PostMapping("/{id}/heartbeat")
     @Operation(summary = "Heartbeat", description = "Отправка heartbeat от клиента")
     public ResponseEntity<Void> heartbeat(@PathVariable Long id, @RequestBody HeartbeatRequest request) {
@@ -191,19 +316,42 @@ public class InterviewController {
     }
 
     @GetMapping("/{id}/media/{type}")
-    @Operation(summary = "Получить медиа", description = "Получение URL для доступа к медиа файлам")
-    public ResponseEntity<String> getMediaUrl(@PathVariable Long id, @PathVariable String type) {
+    @Operation(summary = "Получить медиа", description = "URL потоковой выдачи последней записи интервью указанного типа (audio, video, audio_video); при заданном questionId — записи этого вопроса")
+    public ResponseEntity<String> getMediaUrl(
+            @PathVariable Long id,
+            @PathVariable String type,
+            @RequestParam(value = "questionId", required = false) Long questionId) {
         try {
-            // Логика получения URL медиа файла
-            String mediaUrl = "http://example.com/media/" + id + "/" + type;
-            return ResponseEntity.ok(mediaUrl);
-            
+            Recording.RecordingType requested = Recording.RecordingType.valueOf(type.toUpperCase());
+            return recordingRepository.findByInterviewId(id).stream()
+                .filter(r -> questionId == null || r.getQuestion() != null && questionId.equals(r.getQuestion().getId()))
+                .filter(r -> r.getType() == requested || r.getType() == Recording.RecordingType.AUDIO_VIDEO)
+                .filter(r -> r.getFileUrl() != null)
+                .reduce((first, second) -> second)
+                .map(recording -> ResponseEntity.ok(ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/interviews/{id}/recordings/{recordingId}/stream")
+                    .buildAndExpand(id, recording.getId())
+                    .toUriString()))
+                .orElse(ResponseEntity.notFound().build());
+
         } catch (Exception e) {
             log.error("Ошибка при получении URL медиа: {}", e.getMessage());
             return ResponseEntity.notFound().build();
         }
     }
 
+    @GetMapping("/{id}/recordings/{recordingId}/stream")
+    @Operation(summary = "Потоковая выдача записи", description = "Отдает запись из хранилища с поддержкой HTTP Range (206 Partial Content) для перемотки в плеере")
+    public ResponseEntity<StreamingResponseBody> streamRecording(
+            @PathVariable Long id,
+            @PathVariable Long recordingId,
+            @RequestHeader HttpHeaders headers) {
+        return recordingRepository.findById(recordingId)
+            .filter(recording -> recording.getInterview() != null && id.equals(recording.getInterview().getId()))
+            .map(recording -> mediaStreamingService.serve(mediaStorageService.getObjectName(recording.getFileUrl()), headers))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping
     @Operation(summary = "Список интервью", description = "Получение списка интервью")
     public ResponseEntity<List<InterviewResponse>> getInterviews() {
@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/media")
@@ -18,20 +19,24 @@ public class MediaController {
 
     @PostMapping("/tts/{questionId}")
     @Operation(summary = "Generate TTS for question")
-    public ResponseEntity<TtsResponse> tts(@PathVariable Long questionId, @RequestBody TtsRequest req) {
-        String url = mediaGenerationService.generateTtsForQuestion(questionId, req.getSpeaker(), req.getSpeed());
-        TtsResponse resp = new TtsResponse();
-        resp.setUrl(url);
-        return ResponseEntity.ok(resp);
+    public Mono<ResponseEntity<TtsResponse>> tts(@PathVariable Long questionId, @RequestBody TtsRequest req) {
+        return mediaGenerationService.generateTtsForQuestion(questionId, req.getSpeaker(), req.getSpeed())
+            .map(url -> {
+                TtsResponse resp = new TtsResponse();
+                resp.setUrl(url);
+                return ResponseEntity.ok(resp);
+            });
     }
 
     @PostMapping("/avatar/{questionId}")
     @Operation(summary = "Generate talking-head avatar for question using its TTS audio")
-    public ResponseEntity<AvatarResponse> avatar(@PathVariable Long questionId, @RequestBody AvatarRequest req) {
-        String url = mediaGenerationService.generateAvatarForQuestion(questionId, req.getFaceImagePath());
-        AvatarResponse resp = new AvatarResponse();
-        resp.setUrl(url);
-        return ResponseEntity.ok(resp);
+    public Mono<ResponseEntity<AvatarResponse>> avatar(@PathVariable Long questionId, @RequestBody AvatarRequest req) {
+        return mediaGenerationService.generateAvatarForQuestion(questionId, req.getFaceImagePath())
+            .map(url -> {
+                AvatarResponse resp = new AvatarResponse();
+                resp.setUrl(url);
+                return ResponseEntity.ok(resp);
+            });
     }
 
     @Data
@@ -7,6 +7,7 @@ import com.example.hr_assistant.model.dto.NlpDtos.SimilarityResponse;
 import com.example.hr_assistant.service.ml.ClassificationService;
 import com.example.hr_assistant.service.ml.EmbeddingService;
 import com.example.hr_assistant.service.external.LlmClient;
+import com.example.hr_assistant.service.external.PromptBudget;
 import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,8 +16,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,12 +31,21 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/nlp")
 @RequiredArgsConstructor
+@Slf4j
 @Tag(name = "NLP", description = "Сравнение текстов и классификация соответствия кандидата требованиям")
 public class NlpController {
 
     private final EmbeddingService embeddingService;
     private final ClassificationService classificationService;
     private final LlmClient llmClient;
+    private final PromptBudget promptBudget;
+
+    private static final int EXPLANATION_MAX_TOKENS = 384;
+    private static final String EXPLANATION_STREAM_ERROR = "Не удалось сформировать объяснение";
+    private static final String EXPLANATION_TEMPLATE = "Вакансия: %s\n" +
+            "Ответ кандидата: \"%s\"\n" +
+            "Требования: \"%s\"\n" +
+            "Сформируй объяснение, подходит ли кандидат. Ответь кратко и по делу.";
 
     @PostMapping("/similarity")
     @Operation(summary = "Вычисление сходства", description = "Принимает текст кандидата и список текстов требований вакансии. Возвращает косинусное сходство для каждого требования и максимальное значение.")
@@ -41,9 +56,8 @@ public class NlpController {
     public ResponseEntity<SimilarityResponse> similarity(@Valid @RequestBody SimilarityRequest request) {
         List<Double> sims = new ArrayList<>();
         float[] textEmb = embeddingService.createEmbedding(request.getText());
-        for (String ref : request.getReferences()) {
-            float[] refEmb = embeddingService.createEmbedding(ref);
-            sims.add(embeddingService.cosineSimilarity(textEmb, refEmb));
+        for (float similarity : embeddingService.cosineSimilarities(textEmb, embeddingService.createEmbeddings(request.getReferences()))) {
+            sims.add((double) similarity);
         }
         SimilarityResponse resp = new SimilarityResponse();
         resp.setSimilarities(sims);
@@ -80,18 +94,41 @@ public class NlpController {
         @ApiResponse(responseCode = "200", description = "Успешно",
             content = @Content(schema = @Schema(implementation = String.class)))
     })
-    public ResponseEntity<String> explanation(
+    public Mono<ResponseEntity<String>> explanation(
             @RequestParam("vacancy") String vacancy,
             @RequestParam("answer") String answer,
             @RequestParam("requirements") String requirements
     ) {
-        String prompt = "Вакансия: " + vacancy + "\n" +
-                "Ответ кандидата: \"" + answer + "\"\n" +
-                "Требования: \"" + requirements + "\"\n" +
-                "Сформируй объяснение, подходит ли кандидат. Ответь кратко и по делу.";
-        String output = llmClient.generate(prompt, 384, 0.3);
-        return ResponseEntity.ok(output);
+        // Ответ LLM ожидается без занятого потока Tomcat: запрос завершается асинхронно
+        return llmClient.generateAsync(explanationPrompt(vacancy, answer, requirements), EXPLANATION_MAX_TOKENS, 0.3)
+            .map(ResponseEntity::ok);
     }
-}
 
+    @PostMapping(value = "/explanation/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Потоковое объяснение пригодности", description = "То же, что /explanation, но текст приходит по мере генерации событиями SSE \"token\"; конец ответа — событие \"done\", ошибка генерации — событие \"error\". Отключение клиента прерывает генерацию в LLM. "
+        + "EventSource не подходит: он отправляет только GET без заголовка Authorization, а тексты ответа не помещаются в URL. Поток читается через fetch (POST, параметры формой application/x-www-form-urlencoded) с разбором SSE, см. streamExplanation во frontend/src/services/nlp.ts.")
+    public Flux<ServerSentEvent<String>> explanationStream(
+            @RequestParam("vacancy") String vacancy,
+            @RequestParam("answer") String answer,
+            @RequestParam("requirements") String requirements
+    ) {
+        return llmClient.stream(explanationPrompt(vacancy, answer, requirements), EXPLANATION_MAX_TOKENS, 0.3)
+            .map(token -> ServerSentEvent.builder(token).event("token").build())
+            .concatWithValues(ServerSentEvent.builder("").event("done").build())
+            .onErrorResume(e -> {
+                // Текст исключения может содержать адреса и ответы внутренних сервисов — клиенту уходит общее сообщение
+                log.error("Ошибка потоковой генерации объяснения: {}", e.getMessage(), e);
+                return Flux.just(ServerSentEvent.builder(EXPLANATION_STREAM_ERROR).event("error").build());
+            });
+    }
 
+    /**
+     * Промпт объяснения: поля вакансии, ответа и требований подгоняются под бюджет токенов,
+     * инструкция модели сохраняется всегда
+     */
+    private String explanationPrompt(String vacancy, String answer, String requirements) {
+        String[] fields = promptBudget.fit(EXPLANATION_MAX_TOKENS,
+            String.format(EXPLANATION_TEMPLATE, "", "", ""), vacancy, answer, requirements);
+        return String.format(EXPLANATION_TEMPLATE, (Object[]) fields);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.hr_assistant.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Очередь этапа конвейера заполнена дольше допустимого времени ожидания
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class PipelineOverloadedException extends RuntimeException {
+    public PipelineOverloadedException(String message) {
+        super(message);
+    }
+}
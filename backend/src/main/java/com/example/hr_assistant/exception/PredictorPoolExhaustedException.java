@@ -0,0 +1,14 @@
+package com.example.hr_assistant.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Все предикторы модели заняты дольше допустимого времени ожидания
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class PredictorPoolExhaustedException extends RuntimeException {
+    public PredictorPoolExhaustedException(String message) {
+        super(message);
+    }
+}
@@ -62,6 +62,11 @@ public class Antifraud {
     @CreationTimestamp
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
+
+    /** Счетчики heartbeat обновляются UPDATE в обход сущности; версия не дает затереть их устаревшей копией */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
     
     public enum FraudStatus {
         CLEAN, SUSPICIOUS, FRAUD_DETECTED, MANUAL_REVIEW
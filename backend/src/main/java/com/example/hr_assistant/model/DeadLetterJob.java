@@ -0,0 +1,42 @@
+package com.example.hr_assistant.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Задача конвейера, исчерпавшая попытки обработки
+ */
+@Data
+@Entity
+@Table(name = "dead_letter_jobs")
+public class DeadLetterJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false, length = 36)
+    private String jobId;
+
+    @Column(name = "stage", nullable = false, length = 32)
+    private String stage;
+
+    @Column(name = "interview_id")
+    private Long interviewId;
+
+    @Column(name = "payload_json", columnDefinition = "TEXT", nullable = false)
+    private String payloadJson;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
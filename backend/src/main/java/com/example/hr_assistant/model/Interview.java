@@ -77,6 +77,10 @@ public class Interview {
     private LocalDateTime updatedAt;
     
     public enum InterviewStatus {
-        CREATED, STARTED, IN_PROGRESS, COMPLETED, CANCELLED, FAILED
+        CREATED, STARTED, IN_PROGRESS, COMPLETED, CANCELLED, FAILED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == CANCELLED || this == FAILED;
+        }
     }
 }
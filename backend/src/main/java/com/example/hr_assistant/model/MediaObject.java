@@ -0,0 +1,47 @@
+package com.example.hr_assistant.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Объект хранилища, адресуемый по содержимому: ключ — SHA-256 байтов.
+ * Одинаковые файлы хранятся один раз, refCount — число ссылок на объект.
+ * deleting — объект удаляется последним владельцем; запись удаляется после объекта.
+ */
+@Data
+@Entity
+@Table(name = "media_objects")
+public class MediaObject {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", nullable = false, unique = true, length = 64)
+    private String contentHash;
+
+    @Column(name = "object_name", nullable = false, unique = true, length = 512)
+    private String objectName;
+
+    @Column(name = "content_type", length = 128)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 1;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_referenced_at")
+    private LocalDateTime lastReferencedAt;
+
+    @Column(name = "deleting", nullable = false)
+    private Boolean deleting = false;
+}
@@ -0,0 +1,48 @@
+package com.example.hr_assistant.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Результат рендера TTS или аватара, сохраненный по ключу входных параметров.
+ * Повторный запрос с тем же ключом получает готовый файл без синтеза.
+ */
+@Data
+@Entity
+@Table(name = "media_renders")
+public class MediaRender {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 16)
+    private RenderKind kind;
+
+    @Column(name = "cache_key", nullable = false, unique = true, length = 64)
+    private String cacheKey;
+
+    @Column(name = "file_url", nullable = false, length = 1024)
+    private String fileUrl;
+
+    @Column(name = "model_version", length = 64)
+    private String modelVersion;
+
+    @Column(name = "hit_count", nullable = false)
+    private Long hitCount = 0L;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_used_at")
+    private LocalDateTime lastUsedAt;
+
+    public enum RenderKind {
+        TTS, AVATAR
+    }
+}
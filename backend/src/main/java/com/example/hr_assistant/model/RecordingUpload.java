@@ -0,0 +1,57 @@
+package com.example.hr_assistant.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сессия multipart загрузки записи ответа напрямую в хранилище.
+ * Части и их ETag хранит само хранилище, здесь — идентификаторы загрузки и итог.
+ */
+@Data
+@Entity
+@Table(name = "recording_uploads")
+public class RecordingUpload {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "interview_id", nullable = false)
+    private Long interviewId;
+
+    @Column(name = "question_id", nullable = false)
+    private Long questionId;
+
+    @Column(name = "object_name", nullable = false, length = 512)
+    private String objectName;
+
+    @Column(name = "upload_id", nullable = false, length = 512)
+    private String uploadId;
+
+    @Column(name = "content_type", length = 128)
+    private String contentType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private UploadStatus status = UploadStatus.IN_PROGRESS;
+
+    @Column(name = "parts_count")
+    private Integer partsCount;
+
+    @Column(name = "total_bytes")
+    private Long totalBytes;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public enum UploadStatus {
+        IN_PROGRESS, COMPLETED, ABORTED
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.hr_assistant.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Предрасчитанный эмбеддинг требования вакансии.
+ * Вектор хранится упакованным float32 (little-endian), версия модели позволяет отбросить устаревшие векторы.
+ */
+@Data
+@Entity
+@Table(name = "vacancy_requirement_embeddings")
+public class VacancyRequirementEmbedding {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "vacancy_id", nullable = false)
+    private Long vacancyId;
+
+    @Column(name = "requirement_key", nullable = false, length = 500)
+    private String requirementKey;
+
+    @Column(name = "requirement_text", columnDefinition = "TEXT", nullable = false)
+    private String requirementText;
+
+    @Column(name = "embedding", nullable = false)
+    private byte[] embedding;
+
+    @Column(name = "dimension", nullable = false)
+    private Integer dimension;
+
+    @Column(name = "model_version", nullable = false)
+    private String modelVersion;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package com.example.hr_assistant.model.dto;
+
+import lombok.Data;
+
+/**
+ * Данные для комплексной антифрод проверки интервью.
+ * Проверки, для которых данные не переданы, пропускаются.
+ */
+@Data
+public class AntifraudEvaluationRequest {
+
+    private Long interviewId;
+    /** Видео для liveness проверки */
+    private byte[] videoData;
+    /** Кадр кандидата и эталонное фото для face match */
+    private byte[] candidateImage;
+    private byte[] referenceImage;
+    /** Голос кандидата и эталонная запись для voice verification */
+    private byte[] candidateAudio;
+    private byte[] referenceAudio;
+    /** Текст ответов для AI text detection */
+    private String text;
+}
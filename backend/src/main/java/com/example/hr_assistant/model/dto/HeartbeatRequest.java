@@ -14,5 +14,8 @@ public class HeartbeatRequest {
     private Integer windowHeight;
     private Boolean isFullscreen;
     private Boolean isVisible;
+    /** Устаревший формат: имена событий через запятую */
     private String browserEvents;
+    /** Компактный пакет событий с временем каждого события (base64 в JSON), см. BrowserEventParser */
+    private byte[] eventBatch;
 }
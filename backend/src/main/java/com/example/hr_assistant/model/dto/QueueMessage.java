@@ -12,8 +12,10 @@ public class QueueMessage {
     
     private MessageType type;
     private Long interviewId;
+    private Long questionId;
     private Long recordingId;
     private String fileUrl;
+    private Long fileSizeBytes;
     private String transcriptText;
     private String taskType;
     private Object data;
@@ -0,0 +1,48 @@
+package com.example.hr_assistant.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Загрузка записи ответа частями напрямую в хранилище (S3/MinIO multipart upload)
+ */
+public class RecordingUploadDtos {
+
+    @Data
+    public static class UploadSessionRequest {
+        private String fileName;
+        private String contentType;
+    }
+
+    @Data
+    public static class UploadSessionResponse {
+        private Long sessionId;
+        private String uploadId;
+        private String objectName;
+        /** Рекомендуемый размер части; все части, кроме последней, не меньше 5 МБ */
+        private Long partSizeBytes;
+        private Integer maxParts;
+        /** Части, уже принятые хранилищем, — для продолжения прерванной загрузки */
+        private List<UploadedPart> uploadedParts;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UploadedPart {
+        private Integer partNumber;
+        private String etag;
+        private Long size;
+    }
+
+    @Data
+    public static class PartUrlsResponse {
+        /** Номер части → presigned URL для PUT */
+        private Map<Integer, String> urls;
+        private String expiresAt;
+    }
+}
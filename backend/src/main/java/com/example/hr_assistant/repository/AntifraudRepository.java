@@ -2,9 +2,11 @@ package com.example.hr_assistant.repository;
 
 import com.example.hr_assistant.model.Antifraud;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,6 +18,24 @@ import java.util.Optional;
 public interface AntifraudRepository extends JpaRepository<Antifraud, Long> {
     
     Optional<Antifraud> findByInterviewId(Long interviewId);
+
+    /**
+     * Прибавляет приращения счетчиков heartbeat без чтения записи. Версия увеличивается, чтобы
+     * параллельное сохранение устаревшей копии записи получило конфликт, а не затерло счетчики.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Antifraud a SET "
+        + "a.visibilityEventsCount = COALESCE(a.visibilityEventsCount, 0) + :visibility, "
+        + "a.windowBlurCount = COALESCE(a.windowBlurCount, 0) + :blur, "
+        + "a.tabSwitchesCount = COALESCE(a.tabSwitchesCount, 0) + :tabSwitches, "
+        + "a.heartbeatGaps = COALESCE(a.heartbeatGaps, 0) + :gaps, "
+        + "a.devtoolsDetected = CASE WHEN :devtools = TRUE THEN TRUE ELSE a.devtoolsDetected END, "
+        + "a.version = a.version + 1 "
+        + "WHERE a.interview.id = :interviewId")
+    int addHeartbeatCounters(@Param("interviewId") Long interviewId, @Param("visibility") int visibility,
+                             @Param("blur") int blur, @Param("tabSwitches") int tabSwitches,
+                             @Param("gaps") int gaps, @Param("devtools") boolean devtools);
     
     @Query("SELECT a FROM Antifraud a WHERE a.overallFraudScore > :threshold")
     List<Antifraud> findSuspiciousInterviews(@Param("threshold") Double threshold);
@@ -0,0 +1,18 @@
+package com.example.hr_assistant.repository;
+
+import com.example.hr_assistant.model.DeadLetterJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Репозиторий задач конвейера, ушедших в dead letter
+ */
+@Repository
+public interface DeadLetterJobRepository extends JpaRepository<DeadLetterJob, Long> {
+
+    List<DeadLetterJob> findTop100ByOrderByCreatedAtDesc();
+
+    List<DeadLetterJob> findByInterviewId(Long interviewId);
+}
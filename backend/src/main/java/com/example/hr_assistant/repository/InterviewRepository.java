@@ -1,7 +1,9 @@
 package com.example.hr_assistant.repository;
 
 import com.example.hr_assistant.model.Interview;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -31,4 +33,21 @@ public interface InterviewRepository extends JpaRepository<Interview, Long> {
     List<Interview> findSuspiciousInterviews(@Param("threshold") Double threshold);
     
     Optional<Interview> findByIdAndStatus(Long id, Interview.InterviewStatus status);
+    
+    @Query("SELECT i.status FROM Interview i WHERE i.id = :id")
+    Optional<Interview.InterviewStatus> findStatusById(@Param("id") Long id);
+
+    /**
+     * Интервью с вакансией и ее компетенциями: используются вне транзакции (анализ ответа)
+     */
+    @EntityGraph(attributePaths = {"vacancy", "vacancy.requiredCompetencies"})
+    @Query("SELECT i FROM Interview i WHERE i.id = :id")
+    Optional<Interview> findWithVacancyById(@Param("id") Long id);
+
+    /**
+     * Обновляет оценку соответствия без записи остальных полей интервью
+     */
+    @Modifying
+    @Query("UPDATE Interview i SET i.matchingScore = :score WHERE i.id = :id")
+    int updateMatchingScore(@Param("id") Long id, @Param("score") Double score);
 }
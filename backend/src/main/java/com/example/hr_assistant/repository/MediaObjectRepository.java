@@ -0,0 +1,54 @@
+package com.example.hr_assistant.repository;
+
+import com.example.hr_assistant.model.MediaObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Репозиторий объектов хранилища, адресуемых по содержимому.
+ * Счетчик ссылок меняется атомарными UPDATE, без чтения и записи сущности.
+ * Запись с deleting = true — надгробие: объект удаляется из хранилища, новые ссылки на него не добавляются,
+ * а то же содержимое нельзя зарегистрировать заново, пока запись не удалена.
+ */
+@Repository
+public interface MediaObjectRepository extends JpaRepository<MediaObject, Long> {
+
+    Optional<MediaObject> findByContentHash(String contentHash);
+
+    Optional<MediaObject> findByObjectName(String objectName);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaObject m SET m.refCount = m.refCount + 1, m.lastReferencedAt = :now "
+        + "WHERE m.id = :id AND m.deleting = false")
+    int incrementRefCount(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaObject m SET m.refCount = m.refCount - 1 WHERE m.id = :id AND m.refCount > 0")
+    int decrementRefCount(@Param("id") Long id);
+
+    /**
+     * Помечает запись удаляемой, только если на объект не осталось ссылок; 0 — ссылка появилась снова
+     * или объект уже удаляет другой владелец
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaObject m SET m.deleting = true WHERE m.id = :id AND m.refCount <= 0 AND m.deleting = false")
+    int markDeleting(@Param("id") Long id);
+
+    /**
+     * Снимает пометку удаления, если объект удалить не удалось
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaObject m SET m.deleting = false WHERE m.id = :id")
+    int unmarkDeleting(@Param("id") Long id);
+}
@@ -0,0 +1,44 @@
+package com.example.hr_assistant.repository;
+
+import com.example.hr_assistant.model.MediaRender;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий кэша рендеров TTS и аватаров
+ */
+@Repository
+public interface MediaRenderRepository extends JpaRepository<MediaRender, Long> {
+
+    Optional<MediaRender> findByCacheKey(String cacheKey);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaRender r SET r.hitCount = r.hitCount + 1, r.lastUsedAt = :now WHERE r.id = :id")
+    int markUsed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Рендеры вида kind, созданные другой версией модели или не использованные с момента before
+     */
+    @Query("SELECT r FROM MediaRender r WHERE r.kind = :kind "
+        + "AND (r.modelVersion IS NULL OR r.modelVersion <> :version OR r.lastUsedAt < :before)")
+    List<MediaRender> findEvictable(@Param("kind") MediaRender.RenderKind kind,
+                                    @Param("version") String version,
+                                    @Param("before") LocalDateTime before);
+
+    /**
+     * Удаляет рендер, если к нему не обращались после since; 0 — рендер снова используется
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MediaRender r WHERE r.id = :id AND r.lastUsedAt <= :since")
+    int deleteUnusedSince(@Param("id") Long id, @Param("since") LocalDateTime since);
+}
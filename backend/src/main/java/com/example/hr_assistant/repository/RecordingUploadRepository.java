@@ -0,0 +1,21 @@
+package com.example.hr_assistant.repository;
+
+import com.example.hr_assistant.model.RecordingUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий сессий multipart загрузки записей
+ */
+@Repository
+public interface RecordingUploadRepository extends JpaRepository<RecordingUpload, Long> {
+
+    Optional<RecordingUpload> findFirstByInterviewIdAndQuestionIdAndStatusOrderByCreatedAtDesc(
+        Long interviewId, Long questionId, RecordingUpload.UploadStatus status);
+
+    List<RecordingUpload> findByStatusAndCreatedAtBefore(RecordingUpload.UploadStatus status, LocalDateTime before);
+}
@@ -0,0 +1,35 @@
+package com.example.hr_assistant.repository;
+
+import com.example.hr_assistant.model.VacancyRequirementEmbedding;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Репозиторий предрасчитанных эмбеддингов требований вакансий
+ */
+@Repository
+public interface VacancyRequirementEmbeddingRepository extends JpaRepository<VacancyRequirementEmbedding, Long> {
+
+    List<VacancyRequirementEmbedding> findByVacancyIdAndModelVersion(Long vacancyId, String modelVersion);
+
+    @Modifying
+    @Query("DELETE FROM VacancyRequirementEmbedding e WHERE e.vacancyId = :vacancyId")
+    void deleteByVacancyId(@Param("vacancyId") Long vacancyId);
+
+    /**
+     * Заменяет индекс вакансии в отдельной транзакции: вызывается после коммита сохранения вакансии
+     * и после расчета эмбеддингов, который не должен держать транзакцию открытой
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    default void replaceForVacancy(Long vacancyId, List<VacancyRequirementEmbedding> rows) {
+        deleteByVacancyId(vacancyId);
+        saveAll(rows);
+    }
+}
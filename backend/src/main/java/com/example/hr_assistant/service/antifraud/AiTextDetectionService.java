@@ -1,9 +1,11 @@
 package com.example.hr_assistant.service.antifraud;
 
-import ai.djl.ndarray.NDArray;
-import ai.djl.ndarray.NDList;
+import com.example.hr_assistant.service.external.DetectGptClient;
+import com.example.hr_assistant.service.ml.InferenceBatcher;
+import com.example.hr_assistant.service.ml.TextTokenizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
@@ -17,38 +19,41 @@ import java.util.Map;
 public class AiTextDetectionService {
 
     private final com.example.hr_assistant.service.ml.ModelManager modelManager;
+    private final InferenceBatcher inferenceBatcher;
+    private final TextTokenizer textTokenizer;
+    private final DetectGptClient detectGptClient;
+
+    @Value("${features.detectgpt.enabled:false}")
+    private boolean detectGptEnabled;
 
     /**
      * Детектирует AI-генерированный текст
      */
     public AiDetectionResult detectAiText(String text) {
+        if (detectGptEnabled) {
+            try {
+                return toResult(detectGptClient.detectAiProbability(text));
+            } catch (Exception e) {
+                // Разомкнутый circuit breaker отклоняет вызов сразу, без ожидания таймаута
+                log.warn("DetectGPT недоступен ({}), используем локальную модель", e.getMessage());
+            }
+        }
+
         try {
             if (!modelManager.isModelLoaded("ai-detector")) {
                 log.warn("Модель детекции AI текста не загружена, используем эвристики");
                 return detectWithHeuristics(text);
             }
 
-            ai.djl.inference.Predictor<Object, Object> predictor = modelManager.getPredictor("ai-detector");
-            
             // Подготавливаем текст для анализа
-            NDList input = prepareTextInput(text);
+            long[][] input = prepareTextInput(text);
             
-            // Выполняем детекцию
-            @SuppressWarnings("unchecked")
-            NDList output = (NDList) predictor.predict(input);
+            // Выполняем детекцию (через микробатчинг вместе с параллельными запросами)
+            float[] logits = inferenceBatcher.infer("ai-detector", input).output(0);
             
             // Извлекаем результат
-            double aiProbability = extractAiProbability(output);
-            Map<String, Object> flags = extractDetectionFlags(output);
-            
-            AiDetectionResult result = new AiDetectionResult();
-            result.setAiProbability(aiProbability);
-            result.setIsAiGenerated(aiProbability > 0.7); // Порог детекции
-            result.setFlags(flags);
-            
-            log.info("AI text detection: probability={}, isAi={}", aiProbability, result.getIsAiGenerated());
-            
-            return result;
+            double aiProbability = extractAiProbability(logits);
+            return toResult(aiProbability);
             
         } catch (Exception e) {
             log.error("Ошибка при детекции AI текста: {}", e.getMessage(), e);
@@ -56,6 +61,17 @@ public class AiTextDetectionService {
         }
     }
 
+    private AiDetectionResult toResult(double aiProbability) {
+        AiDetectionResult result = new AiDetectionResult();
+        result.setAiProbability(aiProbability);
+        result.setIsAiGenerated(aiProbability > 0.7); // Порог детекции
+        result.setFlags(extractDetectionFlags(aiProbability));
+
+        log.info("AI text detection: probability={}, isAi={}", aiProbability, result.getIsAiGenerated());
+
+        return result;
+    }
+
     /**
      * Детекция с использованием эвристик (fallback)
      */
@@ -99,51 +115,36 @@ public class AiTextDetectionService {
     }
 
     /**
-     * Подготавливает текст для модели
+     * Подготавливает текст для модели: токены со специальными символами и attention mask
      */
-    private NDList prepareTextInput(String text) {
-        // Здесь должна быть логика:
-        // 1. Токенизация текста
-        // 2. Добавление специальных токенов
-        // 3. Создание attention mask
-        // 4. Преобразование в NDArray
-        
-        // Заглушка
-        try {
-            // В реальной реализации нужно токенизировать текст
-            return new NDList();
-        } catch (Exception e) {
-            log.error("Ошибка при подготовке текста: {}", e.getMessage());
-            throw new RuntimeException("Ошибка подготовки текста", e);
-        }
+    private long[][] prepareTextInput(String text) {
+        return textTokenizer.encodeSingle("ai-detector", text);
     }
 
     /**
-     * Извлекает вероятность AI генерации из выхода модели
+     * Извлекает вероятность AI генерации из logits модели (класс 1 — "AI-generated")
      */
-    private double extractAiProbability(NDList output) {
-        try {
-            // В реальной реализации нужно:
-            // 1. Получить logits из выхода модели
-            // 2. Применить softmax
-            // 3. Извлечь вероятность класса "AI-generated"
-            
-            // Заглушка
-            return Math.random() * 0.3; // Случайное значение 0-0.3 (обычно не AI)
-        } catch (Exception e) {
-            log.error("Ошибка при извлечении AI probability: {}", e.getMessage());
+    private double extractAiProbability(float[] logits) {
+        if (logits.length == 0) {
             return 0.0;
         }
+        if (logits.length == 1) {
+            return 1.0 / (1.0 + Math.exp(-logits[0]));
+        }
+        double max = Math.max(logits[0], logits[1]);
+        double human = Math.exp(logits[0] - max);
+        double ai = Math.exp(logits[1] - max);
+        return ai / (human + ai);
     }
 
     /**
-     * Извлекает флаги детекции из выхода модели
+     * Извлекает флаги детекции по вероятности модели
      */
-    private Map<String, Object> extractDetectionFlags(NDList output) {
+    private Map<String, Object> extractDetectionFlags(double aiProbability) {
         return Map.of(
-            "high_confidence", false,
+            "high_confidence", aiProbability > 0.9 || aiProbability < 0.1,
             "multiple_indicators", false,
-            "suspicious_patterns", false
+            "suspicious_patterns", aiProbability > 0.7
         );
     }
 
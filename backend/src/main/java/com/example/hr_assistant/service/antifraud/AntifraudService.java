@@ -3,16 +3,32 @@ package com.example.hr_assistant.service.antifraud;
 import com.example.hr_assistant.config.AntifraudConfig;
 import com.example.hr_assistant.model.Antifraud;
 import com.example.hr_assistant.model.Interview;
+import com.example.hr_assistant.model.dto.AntifraudEvaluationRequest;
 import com.example.hr_assistant.model.dto.HeartbeatRequest;
 import com.example.hr_assistant.repository.AntifraudRepository;
+import com.example.hr_assistant.repository.InterviewRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Основной сервис антифрод системы
@@ -22,14 +38,38 @@ import java.util.Map;
 @Slf4j
 public class AntifraudService {
 
+    private static final int MAX_SAVE_ATTEMPTS = 5;
+
     private final AntifraudConfig antifraudConfig;
     private final AntifraudRepository antifraudRepository;
+    private final InterviewRepository interviewRepository;
     private final LivenessService livenessService;
     private final FaceRecognitionService faceRecognitionService;
     private final VoiceVerificationService voiceVerificationService;
     private final AiTextDetectionService aiTextDetectionService;
+    private final HeartbeatAggregator heartbeatAggregator;
+    private final HeartbeatLivenessTracker heartbeatLivenessTracker;
     private final ObjectMapper objectMapper;
 
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private ExecutorService checkExecutor;
+
+    @PostConstruct
+    public void init() {
+        checkExecutor = Executors.newFixedThreadPool(antifraudConfig.getEvaluation().getThreads(), r -> {
+            Thread thread = new Thread(r, "antifraud-check-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (checkExecutor != null) {
+            checkExecutor.shutdownNow();
+        }
+    }
+
     /**
      * Создает антифрод запись для интервью
      */
@@ -47,27 +87,90 @@ public class AntifraudService {
     }
 
     /**
-     * Обновляет heartbeat данные
+     * Учитывает heartbeat. Счетчики копятся в памяти и записываются в БД пакетно ({@link HeartbeatAggregator}).
+     * Heartbeat завершенного интервью игнорируется; статус читается из БД только для неотслеживаемого интервью
+     * (первый сигнал или сигнал после рестарта).
      */
     public void updateHeartbeat(Long interviewId, HeartbeatRequest heartbeat) {
-        try {
-            Antifraud antifraud = antifraudRepository.findByInterviewId(interviewId)
-                .orElseThrow(() -> new RuntimeException("Antifraud запись не найдена для интервью: " + interviewId));
-
-            // Анализируем browser events
-            analyzeBrowserEvents(antifraud, heartbeat);
-            
-            // Проверяем на devtools
-            boolean devtoolsDetected = detectDevtools(heartbeat);
-            if (devtoolsDetected) {
-                antifraud.setDevtoolsDetected(true);
+        if (!heartbeatLivenessTracker.isTracked(interviewId) && isFinished(interviewId)) {
+            log.debug("Heartbeat завершенного интервью {} проигнорирован", interviewId);
+            return;
+        }
+        if (heartbeatLivenessTracker.heartbeat(interviewId, System.currentTimeMillis())) {
+            heartbeatAggregator.record(interviewId, heartbeat);
+        }
+    }
+
+    private boolean isFinished(Long interviewId) {
+        return interviewRepository.findStatusById(interviewId)
+            .map(Interview.InterviewStatus::isFinished)
+            .orElse(true);
+    }
+
+    /**
+     * Завершает отслеживание heartbeat интервью и записывает накопленные счетчики и хронологию событий
+     */
+    public void completeHeartbeats(Long interviewId) {
+        heartbeatLivenessTracker.stop(interviewId);
+        heartbeatAggregator.complete(interviewId);
+    }
+
+    /**
+     * Выполняет все антифрод проверки, для которых переданы данные, параллельно на выделенном пуле.
+     * Результаты объединяются в памяти, запись обновляется и fraud score пересчитывается одним сохранением.
+     * Упавшая или не уложившаяся в таймаут проверка пропускается, остальные результаты сохраняются.
+     */
+    public Antifraud evaluateAll(AntifraudEvaluationRequest request) {
+        Long interviewId = request.getInterviewId();
+        long startTime = System.currentTimeMillis();
+
+        List<Future<CheckResult>> futures = new ArrayList<>();
+        if (request.getVideoData() != null) {
+            futures.add(submitCheck(() -> livenessCheck(request.getVideoData())));
+        }
+        if (request.getCandidateImage() != null && request.getReferenceImage() != null) {
+            futures.add(submitCheck(() -> faceMatchCheck(request.getCandidateImage(), request.getReferenceImage())));
+        }
+        if (request.getCandidateAudio() != null && request.getReferenceAudio() != null) {
+            futures.add(submitCheck(() -> voiceCheck(request.getCandidateAudio(), request.getReferenceAudio())));
+        }
+        if (request.getText() != null && !request.getText().isBlank()) {
+            futures.add(submitCheck(() -> aiTextCheck(request.getText())));
+        }
+
+        long deadline = System.nanoTime()
+            + TimeUnit.MILLISECONDS.toNanos(antifraudConfig.getEvaluation().getTimeoutMs());
+        List<CheckResult> results = new ArrayList<>(futures.size());
+        for (Future<CheckResult> future : futures) {
+            try {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("Антифрод проверка интервью " + interviewId + " прервана", e);
+            } catch (ExecutionException | TimeoutException e) {
+                future.cancel(true);
+                Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                log.error("Антифрод проверка интервью {} не выполнена: {}", interviewId, cause.toString());
             }
-            
-            antifraudRepository.save(antifraud);
-            
-        } catch (Exception e) {
-            log.error("Ошибка при обновлении heartbeat: {}", e.getMessage(), e);
         }
+
+        // Счетчики heartbeat записываются до чтения записи, чтобы fraud score учел их
+        heartbeatAggregator.flush(interviewId);
+        Antifraud antifraud = update(interviewId, current -> {
+            Map<String, Object> flags = getOrCreateFlags(current);
+            for (CheckResult result : results) {
+                result.apply().accept(current);
+                flags.putAll(result.flags());
+            }
+            current.setFlagsJson(serializeFlags(flags));
+            applyFraudScore(current);
+        });
+
+        log.info("Антифрод проверки интервью {}: выполнено {}/{} за {} мс, score={}, status={}",
+            interviewId, results.size(), futures.size(), System.currentTimeMillis() - startTime,
+            antifraud.getOverallFraudScore(), antifraud.getFraudStatus());
+        return antifraud;
     }
 
     /**
@@ -75,22 +178,10 @@ public class AntifraudService {
      */
     public void performLivenessCheck(Long interviewId, byte[] videoData) {
         try {
-            Antifraud antifraud = antifraudRepository.findByInterviewId(interviewId)
-                .orElseThrow(() -> new RuntimeException("Antifraud запись не найдена"));
-
-            LivenessService.LivenessResult result = livenessService.checkLiveness(videoData);
-            
-            antifraud.setLivenessScore(result.getLivenessScore());
-            
-            // Обновляем флаги
-            Map<String, Object> flags = getOrCreateFlags(antifraud);
-            flags.put("liveness", result.getFlags());
-            antifraud.setFlagsJson(serializeFlags(flags));
-            
-            antifraudRepository.save(antifraud);
-            
-            log.info("Liveness проверка для интервью {}: score={}", interviewId, result.getLivenessScore());
-            
+            CheckResult result = livenessCheck(videoData);
+            applyAndSave(interviewId, result);
+            log.info("Liveness проверка для интервью {}: {}", interviewId, result.summary());
+
         } catch (Exception e) {
             log.error("Ошибка при liveness проверке: {}", e.getMessage(), e);
         }
@@ -101,23 +192,10 @@ public class AntifraudService {
      */
     public void performFaceMatchCheck(Long interviewId, byte[] candidateImage, byte[] referenceImage) {
         try {
-            Antifraud antifraud = antifraudRepository.findByInterviewId(interviewId)
-                .orElseThrow(() -> new RuntimeException("Antifraud запись не найдена"));
-
-            FaceRecognitionService.FaceMatchResult result = 
-                faceRecognitionService.verifyFaceMatch(candidateImage, referenceImage);
-            
-            antifraud.setFaceMatchScore(result.getFaceMatchScore());
-            
-            // Обновляем флаги
-            Map<String, Object> flags = getOrCreateFlags(antifraud);
-            flags.put("face_match", result.getFlags());
-            antifraud.setFlagsJson(serializeFlags(flags));
-            
-            antifraudRepository.save(antifraud);
-            
-            log.info("Face match проверка для интервью {}: score={}", interviewId, result.getFaceMatchScore());
-            
+            CheckResult result = faceMatchCheck(candidateImage, referenceImage);
+            applyAndSave(interviewId, result);
+            log.info("Face match проверка для интервью {}: {}", interviewId, result.summary());
+
         } catch (Exception e) {
             log.error("Ошибка при face match проверке: {}", e.getMessage(), e);
         }
@@ -128,25 +206,10 @@ public class AntifraudService {
      */
     public void performVoiceVerificationCheck(Long interviewId, byte[] candidateAudio, byte[] referenceAudio) {
         try {
-            Antifraud antifraud = antifraudRepository.findByInterviewId(interviewId)
-                .orElseThrow(() -> new RuntimeException("Antifraud запись не найдена"));
-
-            VoiceVerificationService.VoiceMatchResult result = 
-                voiceVerificationService.verifyVoiceMatch(candidateAudio, referenceAudio);
-            
-            antifraud.setVoiceMatchScore(result.getVoiceMatchScore());
-            
-            // Обновляем флаги
-            Map<String, Object> flags = getOrCreateFlags(antifraud);
-            flags.put("voice_match", result.getFlags());
-            flags.put("synthetic_speech", result.getIsSynthetic());
-            antifraud.setFlagsJson(serializeFlags(flags));
-            
-            antifraudRepository.save(antifraud);
-            
-            log.info("Voice verification для интервью {}: score={}, synthetic={}", 
-                interviewId, result.getVoiceMatchScore(), result.getIsSynthetic());
-            
+            CheckResult result = voiceCheck(candidateAudio, referenceAudio);
+            applyAndSave(interviewId, result);
+            log.info("Voice verification для интервью {}: {}", interviewId, result.summary());
+
         } catch (Exception e) {
             log.error("Ошибка при voice verification: {}", e.getMessage(), e);
         }
@@ -157,22 +220,10 @@ public class AntifraudService {
      */
     public void performAiTextDetection(Long interviewId, String text) {
         try {
-            Antifraud antifraud = antifraudRepository.findByInterviewId(interviewId)
-                .orElseThrow(() -> new RuntimeException("Antifraud запись не найдена"));
-
-            AiTextDetectionService.AiDetectionResult result = aiTextDetectionService.detectAiText(text);
-            
-            antifraud.setTextAiScore(result.getAiProbability());
-            
-            // Обновляем флаги
-            Map<String, Object> flags = getOrCreateFlags(antifraud);
-            flags.put("ai_text_detection", result.getFlags());
-            antifraud.setFlagsJson(serializeFlags(flags));
-            
-            antifraudRepository.save(antifraud);
-            
-            log.info("AI text detection для интервью {}: probability={}", interviewId, result.getAiProbability());
-            
+            CheckResult result = aiTextCheck(text);
+            applyAndSave(interviewId, result);
+            log.info("AI text detection для интервью {}: {}", interviewId, result.summary());
+
         } catch (Exception e) {
             log.error("Ошибка при AI text detection: {}", e.getMessage(), e);
         }
@@ -183,105 +234,148 @@ public class AntifraudService {
      */
     public void calculateFraudScore(Long interviewId) {
         try {
-            Antifraud antifraud = antifraudRepository.findByInterviewId(interviewId)
-                .orElseThrow(() -> new RuntimeException("Antifraud запись не найдена"));
-
-            AntifraudConfig.Weights weights = antifraudConfig.getWeights();
-            
-            double fraudScore = 0.0;
-            
-            // Liveness score (чем ниже, тем больше fraud)
-            if (antifraud.getLivenessScore() != null) {
-                fraudScore += weights.getLiveness() * (1.0 - antifraud.getLivenessScore());
-            }
-            
-            // Face match score (чем ниже, тем больше fraud)
-            if (antifraud.getFaceMatchScore() != null) {
-                fraudScore += weights.getFaceMatch() * (1.0 - antifraud.getFaceMatchScore());
-            }
-            
-            // Voice match score (чем ниже, тем больше fraud)
-            if (antifraud.getVoiceMatchScore() != null) {
-                fraudScore += weights.getVoiceMatch() * (1.0 - antifraud.getVoiceMatchScore());
-            }
-            
-            // AI text score (чем выше, тем больше fraud)
-            if (antifraud.getTextAiScore() != null) {
-                fraudScore += weights.getTextAi() * antifraud.getTextAiScore();
-            }
-            
-            // Visibility penalty
-            if (antifraud.getVisibilityEventsCount() > 0) {
-                double visibilityPenalty = Math.min(1.0, antifraud.getVisibilityEventsCount() / 10.0);
-                fraudScore += weights.getVisibility() * visibilityPenalty;
-            }
-            
-            // Devtools penalty
-            if (antifraud.getDevtoolsDetected()) {
-                fraudScore += weights.getDevtools();
-            }
-            
-            antifraud.setOverallFraudScore(fraudScore);
-            
-            // Определяем статус
-            AntifraudConfig.Thresholds thresholds = antifraudConfig.getThresholds();
-            if (fraudScore >= thresholds.getReject()) {
-                antifraud.setFraudStatus(Antifraud.FraudStatus.FRAUD_DETECTED);
-            } else if (fraudScore >= thresholds.getReview()) {
-                antifraud.setFraudStatus(Antifraud.FraudStatus.MANUAL_REVIEW);
-            } else {
-                antifraud.setFraudStatus(Antifraud.FraudStatus.CLEAN);
-            }
-            
-            antifraudRepository.save(antifraud);
-            
-            log.info("Fraud score для интервью {}: score={}, status={}", 
-                interviewId, fraudScore, antifraud.getFraudStatus());
-            
+            heartbeatAggregator.flush(interviewId);
+            Antifraud antifraud = update(interviewId, this::applyFraudScore);
+
+            log.info("Fraud score для интервью {}: score={}, status={}",
+                interviewId, antifraud.getOverallFraudScore(), antifraud.getFraudStatus());
+
         } catch (Exception e) {
             log.error("Ошибка при вычислении fraud score: {}", e.getMessage(), e);
         }
     }
 
     /**
-     * Анализирует browser events
+     * Результат одной проверки: как обновить запись и какие флаги добавить
      */
-    private void analyzeBrowserEvents(Antifraud antifraud, HeartbeatRequest heartbeat) {
-        if (heartbeat.getBrowserEvents() != null) {
-            // Парсим browser events и обновляем счетчики
-            String events = heartbeat.getBrowserEvents();
-            
-            if (events.contains("visibilitychange")) {
-                antifraud.setVisibilityEventsCount(antifraud.getVisibilityEventsCount() + 1);
-            }
-            
-            if (events.contains("blur")) {
-                antifraud.setWindowBlurCount(antifraud.getWindowBlurCount() + 1);
-            }
-            
-            if (events.contains("tab_switch")) {
-                antifraud.setTabSwitchesCount(antifraud.getTabSwitchesCount() + 1);
+    private record CheckResult(String summary, Consumer<Antifraud> apply, Map<String, Object> flags) {
+    }
+
+    /**
+     * Future пула, а не CompletableFuture: cancel(true) прерывает поток зависшей проверки и освобождает его
+     */
+    private Future<CheckResult> submitCheck(Callable<CheckResult> check) {
+        return checkExecutor.submit(check);
+    }
+
+    private CheckResult livenessCheck(byte[] videoData) {
+        LivenessService.LivenessResult result = livenessService.checkLiveness(videoData);
+        Map<String, Object> flags = new HashMap<>();
+        flags.put("liveness", result.getFlags());
+        return new CheckResult("score=" + result.getLivenessScore(),
+            antifraud -> antifraud.setLivenessScore(result.getLivenessScore()), flags);
+    }
+
+    private CheckResult faceMatchCheck(byte[] candidateImage, byte[] referenceImage) {
+        FaceRecognitionService.FaceMatchResult result =
+            faceRecognitionService.verifyFaceMatch(candidateImage, referenceImage);
+        Map<String, Object> flags = new HashMap<>();
+        flags.put("face_match", result.getFlags());
+        return new CheckResult("score=" + result.getFaceMatchScore(),
+            antifraud -> antifraud.setFaceMatchScore(result.getFaceMatchScore()), flags);
+    }
+
+    private CheckResult voiceCheck(byte[] candidateAudio, byte[] referenceAudio) {
+        VoiceVerificationService.VoiceMatchResult result =
+            voiceVerificationService.verifyVoiceMatch(candidateAudio, referenceAudio);
+        Map<String, Object> flags = new HashMap<>();
+        flags.put("voice_match", result.getFlags());
+        flags.put("synthetic_speech", result.getIsSynthetic());
+        return new CheckResult("score=" + result.getVoiceMatchScore() + ", synthetic=" + result.getIsSynthetic(),
+            antifraud -> antifraud.setVoiceMatchScore(result.getVoiceMatchScore()), flags);
+    }
+
+    private CheckResult aiTextCheck(String text) {
+        AiTextDetectionService.AiDetectionResult result = aiTextDetectionService.detectAiText(text);
+        Map<String, Object> flags = new HashMap<>();
+        flags.put("ai_text_detection", result.getFlags());
+        return new CheckResult("probability=" + result.getAiProbability(),
+            antifraud -> antifraud.setTextAiScore(result.getAiProbability()), flags);
+    }
+
+    private void applyAndSave(Long interviewId, CheckResult result) {
+        update(interviewId, antifraud -> {
+            result.apply().accept(antifraud);
+            Map<String, Object> flags = getOrCreateFlags(antifraud);
+            flags.putAll(result.flags());
+            antifraud.setFlagsJson(serializeFlags(flags));
+        });
+    }
+
+    /**
+     * Читает запись, применяет изменение и сохраняет. Если запись за это время изменилась
+     * (сброс счетчиков heartbeat или другая проверка), изменение применяется к свежей копии заново.
+     */
+    private Antifraud update(Long interviewId, Consumer<Antifraud> change) {
+        for (int attempt = 1; ; attempt++) {
+            Antifraud antifraud = findAntifraud(interviewId);
+            change.accept(antifraud);
+            try {
+                return antifraudRepository.save(antifraud);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Antifraud запись интервью {} изменена параллельно, попытка {}", interviewId, attempt + 1);
             }
         }
     }
 
+    private Antifraud findAntifraud(Long interviewId) {
+        return antifraudRepository.findByInterviewId(interviewId)
+            .orElseThrow(() -> new RuntimeException("Antifraud запись не найдена для интервью: " + interviewId));
+    }
+
     /**
-     * Детектирует devtools
+     * Считает fraud score и статус по текущим значениям записи (без сохранения)
      */
-    private boolean detectDevtools(HeartbeatRequest heartbeat) {
-        // Простая эвристика для детекции devtools
-        // В реальной реализации нужны более сложные методы
-        
-        if (heartbeat.getWindowWidth() != null && heartbeat.getWindowHeight() != null) {
-            // Проверяем на подозрительные размеры окна
-            int width = heartbeat.getWindowWidth();
-            int height = heartbeat.getWindowHeight();
-            
-            // Devtools обычно открываются сбоку или снизу
-            return width < 800 || height < 600;
+    private void applyFraudScore(Antifraud antifraud) {
+        AntifraudConfig.Weights weights = antifraudConfig.getWeights();
+
+        double fraudScore = 0.0;
+
+        // Liveness score (чем ниже, тем больше fraud)
+        if (antifraud.getLivenessScore() != null) {
+            fraudScore += weights.getLiveness() * (1.0 - antifraud.getLivenessScore());
+        }
+
+        // Face match score (чем ниже, тем больше fraud)
+        if (antifraud.getFaceMatchScore() != null) {
+            fraudScore += weights.getFaceMatch() * (1.0 - antifraud.getFaceMatchScore());
+        }
+
+        // Voice match score (чем ниже, тем больше fraud)
+        if (antifraud.getVoiceMatchScore() != null) {
+            fraudScore += weights.getVoiceMatch() * (1.0 - antifraud.getVoiceMatchScore());
+        }
+
+        // AI text score (чем выше, тем больше fraud)
+        if (antifraud.getTextAiScore() != null) {
+            fraudScore += weights.getTextAi() * antifraud.getTextAiScore();
+        }
+
+        // Visibility penalty
+        if (antifraud.getVisibilityEventsCount() > 0) {
+            double visibilityPenalty = Math.min(1.0, antifraud.getVisibilityEventsCount() / 10.0);
+            fraudScore += weights.getVisibility() * visibilityPenalty;
+        }
+
+        // Devtools penalty
+        if (antifraud.getDevtoolsDetected()) {
+            fraudScore += weights.getDevtools();
+        }
+
+        antifraud.setOverallFraudScore(fraudScore);
+
+        // Определяем статус
+        AntifraudConfig.Thresholds thresholds = antifraudConfig.getThresholds();
+        if (fraudScore >= thresholds.getReject()) {
+            antifraud.setFraudStatus(Antifraud.FraudStatus.FRAUD_DETECTED);
+        } else if (fraudScore >= thresholds.getReview()) {
+            antifraud.setFraudStatus(Antifraud.FraudStatus.MANUAL_REVIEW);
+        } else {
+            antifraud.setFraudStatus(Antifraud.FraudStatus.CLEAN);
         }
-        
-        return false;
     }
 
     /**
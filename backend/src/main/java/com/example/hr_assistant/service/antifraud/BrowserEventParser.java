@@ -0,0 +1,158 @@
+package com.example.hr_assistant.service.antifraud;
+
+/**
+ * Разбор браузерных событий heartbeat.
+ *
+ * Компактный формат (поле eventBatch, в JSON — base64):
+ * <pre>
+ *   версия (1 байт, = 1)
+ *   время первого события, epoch ms (varint)
+ *   число событий (varint)
+ *   событие: код {@link BrowserEventType} (1 байт), смещение от предыдущего события в мс (varint)
+ * </pre>
+ * Устаревший формат — строка имен через запятую (например, "visibilitychange:hidden,blur");
+ * все события строки получают время heartbeat.
+ *
+ * Компактный пакет применяется целиком: события сначала декодируются во временные массивы и передаются
+ * получателю, только если весь пакет корректен. Поврежденный пакет не оставляет частично учтенных событий.
+ */
+public final class BrowserEventParser {
+
+    public static final int VERSION = 1;
+    private static final int MAX_EVENTS = 10_000;
+
+    private BrowserEventParser() {
+    }
+
+    /**
+     * Получатель разобранных событий
+     */
+    @FunctionalInterface
+    public interface EventSink {
+        void accept(BrowserEventType type, long timestampMs);
+    }
+
+    /**
+     * Разбирает компактный пакет событий. Возвращает число событий в пакете.
+     *
+     * @throws IllegalArgumentException если пакет поврежден
+     */
+    public static int parse(byte[] batch, EventSink sink) {
+        if (batch == null || batch.length == 0) {
+            return 0;
+        }
+        if (batch[0] != VERSION) {
+            throw new IllegalArgumentException("Неподдерживаемая версия пакета событий: " + batch[0]);
+        }
+        Cursor cursor = new Cursor(batch, 1);
+        long timestamp = cursor.varint();
+        long count = cursor.varint();
+        if (count > MAX_EVENTS) {
+            throw new IllegalArgumentException("Слишком много событий в пакете: " + count);
+        }
+        // Событие занимает не меньше двух байт: заведомо обрезанный пакет отсекается до выделения массивов
+        if (count > cursor.remaining() / 2) {
+            throw new IllegalArgumentException("Пакет событий обрезан");
+        }
+        BrowserEventType[] types = new BrowserEventType[(int) count];
+        long[] timestamps = new long[(int) count];
+        for (int i = 0; i < count; i++) {
+            int code = cursor.readByte();
+            // Смещение первого события нулевое: время уже задано заголовком
+            timestamp += cursor.varint();
+            types[i] = BrowserEventType.fromCode(code);
+            timestamps[i] = timestamp;
+        }
+        for (int i = 0; i < count; i++) {
+            if (types[i] != null) {
+                sink.accept(types[i], timestamps[i]);
+            }
+        }
+        return (int) count;
+    }
+
+    /**
+     * Разбирает строку событий устаревшего формата. Возвращает число распознанных событий.
+     */
+    public static int parseLegacy(String events, long timestampMs, EventSink sink) {
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+        int recognized = 0;
+        int length = events.length();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            int nameEnd = -1;
+            while (end < length && events.charAt(end) != ',') {
+                if (nameEnd < 0 && events.charAt(end) == ':') {
+                    nameEnd = end;
+                }
+                end++;
+            }
+            if (nameEnd < 0) {
+                nameEnd = end;
+            }
+            BrowserEventType type = matchLegacy(events, start, nameEnd);
+            if (type != null) {
+                sink.accept(type, timestampMs);
+                recognized++;
+            }
+            start = end + 1;
+        }
+        return recognized;
+    }
+
+    private static BrowserEventType matchLegacy(String events, int from, int to) {
+        while (from < to && events.charAt(from) == ' ') {
+            from++;
+        }
+        while (to > from && events.charAt(to - 1) == ' ') {
+            to--;
+        }
+        int length = to - from;
+        for (BrowserEventType type : BrowserEventType.values()) {
+            String name = type.getLegacyName();
+            if (name.length() == length && events.regionMatches(from, name, 0, length)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Позиция чтения пакета
+     */
+    private static final class Cursor {
+        private final byte[] data;
+        private int position;
+
+        Cursor(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        int remaining() {
+            return data.length - position;
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Пакет событий обрезан");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Некорректный varint в пакете событий");
+        }
+    }
+}
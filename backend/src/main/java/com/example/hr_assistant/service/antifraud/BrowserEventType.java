@@ -0,0 +1,51 @@
+package com.example.hr_assistant.service.antifraud;
+
+/**
+ * Типы браузерных событий антифрода и их коды в компактном пакете событий heartbeat
+ */
+public enum BrowserEventType {
+
+    VISIBILITY_HIDDEN(1, "visibilitychange"),
+    VISIBILITY_VISIBLE(2, "visibilityvisible"),
+    BLUR(3, "blur"),
+    FOCUS(4, "focus"),
+    TAB_SWITCH(5, "tab_switch"),
+    DEVTOOLS(6, "devtools_suspected"),
+    FULLSCREEN_EXIT(7, "fullscreen_exit"),
+    COPY(8, "copy"),
+    PASTE(9, "paste");
+
+    private static final BrowserEventType[] BY_CODE = new BrowserEventType[16];
+
+    static {
+        for (BrowserEventType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+    private final String legacyName;
+
+    BrowserEventType(int code, String legacyName) {
+        this.code = code;
+        this.legacyName = legacyName;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Имя события в устаревшем строковом формате browserEvents
+     */
+    public String getLegacyName() {
+        return legacyName;
+    }
+
+    /**
+     * Тип по коду; null для неизвестного кода (событие из более новой версии клиента)
+     */
+    public static BrowserEventType fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.hr_assistant.service.antifraud;
+
+/**
+ * Событие: от кандидата не приходит heartbeat дольше antifraud.heartbeat.gap-threshold-ms
+ *
+ * @param interviewId     интервью
+ * @param lastHeartbeatAt время последнего heartbeat (epoch ms)
+ * @param silentForMs     длительность молчания на момент обнаружения
+ */
+public record CandidateSilenceEvent(Long interviewId, long lastHeartbeatAt, long silentForMs) {
+}
@@ -2,10 +2,12 @@ package com.example.hr_assistant.service.antifraud;
 
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
+import com.example.hr_assistant.service.ml.similarity.SimilarityKernels;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,14 +30,11 @@ public class FaceRecognitionService {
                 return createFallbackEmbedding();
             }
 
-            ai.djl.inference.Predictor<Object, Object> predictor = modelManager.getPredictor("face-recognition");
-            
             // Подготавливаем данные изображения
             NDList input = prepareImageInput(imageData);
             
             // Извлекаем эмбеддинг лица
-            @SuppressWarnings("unchecked")
-            NDList output = (NDList) predictor.predict(input);
+            NDList output = modelManager.predict("face-recognition", input);
             NDArray embedding = output.get(0);
             
             // Конвертируем в массив float
@@ -81,6 +80,24 @@ public class FaceRecognitionService {
         }
     }
 
+    /**
+     * Сравнивает лицо с галереей эталонных эмбеддингов: одно извлечение эмбеддинга
+     * и один проход по непрерывной матрице галереи
+     */
+    public float[] compareWithGallery(byte[] image, List<float[]> gallery) {
+        if (gallery.isEmpty()) {
+            return new float[0];
+        }
+        try {
+            float[] imageEmbedding = extractFaceEmbedding(image);
+            return SimilarityKernels.oneVsMany(imageEmbedding, SimilarityKernels.pack(gallery), imageEmbedding.length);
+            
+        } catch (Exception e) {
+            log.error("Ошибка при сравнении с галереей лиц: {}", e.getMessage(), e);
+            return new float[gallery.size()];
+        }
+    }
+
     /**
      * Проверяет соответствие лица кандидата (face match)
      */
@@ -116,21 +133,7 @@ public class FaceRecognitionService {
             return 0.0;
         }
 
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-
-        for (int i = 0; i < embedding1.length; i++) {
-            dotProduct += embedding1[i] * embedding2[i];
-            norm1 += embedding1[i] * embedding1[i];
-            norm2 += embedding2[i] * embedding2[i];
-        }
-
-        if (norm1 == 0.0 || norm2 == 0.0) {
-            return 0.0;
-        }
-
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        return SimilarityKernels.cosine(embedding1, embedding2);
     }
 
     /**
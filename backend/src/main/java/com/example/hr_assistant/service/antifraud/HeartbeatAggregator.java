@@ -0,0 +1,359 @@
+package com.example.hr_assistant.service.antifraud;
+
+import com.example.hr_assistant.config.AntifraudConfig;
+import com.example.hr_assistant.model.Antifraud;
+import com.example.hr_assistant.model.dto.HeartbeatRequest;
+import com.example.hr_assistant.repository.AntifraudRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Накопление heartbeat событий в памяти с отложенной записью (write-behind).
+ *
+ * Heartbeat только увеличивает счетчики интервью в памяти, без обращений к БД.
+ * Накопленные приращения периодически сбрасываются в таблицу antifraud (antifraud.heartbeat.flush-interval-ms),
+ * а также перед расчетом fraud score и при завершении интервью. Сброс прибавляет приращения атомарным UPDATE,
+ * не перечитывая запись, поэтому не конфликтует с антифрод проверками, сохраняющими ту же запись.
+ *
+ * Новые браузерные события тем же сбросом дописываются в хронологию (флаг browser_event_timeline),
+ * поэтому хронология не теряется при вытеснении простаивающих счетчиков. В хронологии хранятся
+ * последние TIMELINE_SIZE событий.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HeartbeatAggregator {
+
+    private final AntifraudConfig antifraudConfig;
+    private final AntifraudRepository antifraudRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    static final String TIMELINE_FLAG = "browser_event_timeline";
+    private static final int TIMELINE_SIZE = 256;
+    private static final int MAX_SAVE_ATTEMPTS = 5;
+
+    private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+    private Counter heartbeatCounter;
+    private Counter flushedRowsCounter;
+
+    @PostConstruct
+    public void init() {
+        heartbeatCounter = Counter.builder("hr.antifraud.heartbeats")
+            .description("Принятые heartbeat")
+            .register(meterRegistry);
+        flushedRowsCounter = Counter.builder("hr.antifraud.heartbeat.flushed")
+            .description("Записи antifraud, обновленные сбросом счетчиков heartbeat")
+            .register(meterRegistry);
+        Gauge.builder("hr.antifraud.heartbeat.interviews", counters, Map::size)
+            .description("Интервью с накапливаемыми счетчиками heartbeat")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Учитывает heartbeat интервью
+     */
+    public void record(Long interviewId, HeartbeatRequest heartbeat) {
+        boolean devtools = detectDevtools(heartbeat);
+        update(interviewId, interviewCounters -> {
+            interviewCounters.lastSeenAt = System.currentTimeMillis();
+
+            // Каждое событие учитывается отдельно; пакет с временем событий приоритетнее строки
+            if (heartbeat.getEventBatch() != null && heartbeat.getEventBatch().length > 0) {
+                BrowserEventParser.parse(heartbeat.getEventBatch(), interviewCounters);
+            } else if (heartbeat.getBrowserEvents() != null) {
+                long timestamp = heartbeat.getTimestamp() != null ? heartbeat.getTimestamp() : interviewCounters.lastSeenAt;
+                BrowserEventParser.parseLegacy(heartbeat.getBrowserEvents(), timestamp, interviewCounters);
+            }
+
+            if (devtools) {
+                interviewCounters.devtools.set(true);
+            }
+        });
+        if (heartbeatCounter != null) {
+            heartbeatCounter.increment();
+        }
+    }
+
+    /**
+     * Учитывает пропуск heartbeat, обнаруженный {@link HeartbeatLivenessTracker}
+     */
+    public void recordGap(Long interviewId) {
+        update(interviewId, interviewCounters -> interviewCounters.gaps.increment());
+    }
+
+    /**
+     * Записывает накопленные счетчики одного интервью (например, перед расчетом fraud score)
+     */
+    public void flush(Long interviewId) {
+        Counters interviewCounters = counters.get(interviewId);
+        if (interviewCounters != null) {
+            Delta delta;
+            synchronized (interviewCounters) {
+                delta = interviewCounters.drain();
+            }
+            write(interviewId, delta);
+        }
+    }
+
+    /**
+     * Записывает накопленные счетчики и хронологию интервью и перестает их вести (при завершении интервью)
+     */
+    public void complete(Long interviewId) {
+        Counters interviewCounters = counters.get(interviewId);
+        if (interviewCounters != null) {
+            write(interviewId, evict(interviewId, interviewCounters));
+        }
+    }
+
+    /**
+     * Пакетный сброс накопленных приращений всех интервью
+     */
+    @Scheduled(fixedDelayString = "${antifraud.heartbeat.flush-interval-ms:5000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        long idleEvictMs = antifraudConfig.getHeartbeat().getIdleEvictMs();
+        Map<Long, Delta> deltas = new HashMap<>();
+        counters.forEach((interviewId, interviewCounters) -> {
+            Delta delta;
+            synchronized (interviewCounters) {
+                // Простой проверяется под блокировкой: heartbeat, пришедший после проверки, создаст новые счетчики
+                delta = now - interviewCounters.lastSeenAt > idleEvictMs
+                    ? evict(interviewId, interviewCounters)
+                    : interviewCounters.drain();
+            }
+            if (!delta.isEmpty()) {
+                deltas.put(interviewId, delta);
+            }
+        });
+
+        int written = 0;
+        for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+            if (write(entry.getKey(), entry.getValue())) {
+                written++;
+            }
+        }
+        if (written > 0) {
+            log.debug("Счетчики heartbeat сброшены: {} интервью", written);
+        }
+    }
+
+    /**
+     * Применяет изменение к счетчикам интервью под их блокировкой, чтобы сброс не вытеснил счетчики
+     * между поиском и изменением (приращение ушло бы вместе с вытесненным объектом)
+     */
+    private void update(Long interviewId, Consumer<Counters> change) {
+        while (true) {
+            Counters interviewCounters = counters.computeIfAbsent(interviewId, id -> new Counters());
+            synchronized (interviewCounters) {
+                if (!interviewCounters.evicted) {
+                    change.accept(interviewCounters);
+                    return;
+                }
+            }
+        }
+    }
+
+    private Delta evict(Long interviewId, Counters interviewCounters) {
+        synchronized (interviewCounters) {
+            interviewCounters.evicted = true;
+            counters.remove(interviewId, interviewCounters);
+            return interviewCounters.drain();
+        }
+    }
+
+    /**
+     * Прибавляет приращения к записи antifraud и дописывает новые события в хронологию.
+     * При ошибке приращения и события возвращаются в память и будут записаны при следующем сбросе.
+     */
+    private boolean write(Long interviewId, Delta delta) {
+        if (delta.isEmpty()) {
+            return false;
+        }
+        if (delta.hasCounters()) {
+            try {
+                int updated = antifraudRepository.addHeartbeatCounters(interviewId, clamp(delta.visibility()),
+                    clamp(delta.blur()), clamp(delta.tabSwitches()), clamp(delta.gaps()), delta.devtools());
+                if (updated == 0) {
+                    log.warn("Antifraud запись для интервью {} не найдена, счетчики heartbeat отброшены", interviewId);
+                    return false;
+                }
+                flushedRowsCounter.increment();
+            } catch (Exception e) {
+                log.error("Ошибка сброса счетчиков heartbeat интервью {}: {}", interviewId, e.getMessage());
+                update(interviewId, interviewCounters -> interviewCounters.restore(delta));
+                return false;
+            }
+        }
+        if (!delta.events().isEmpty()) {
+            try {
+                appendTimeline(interviewId, delta.events());
+            } catch (Exception e) {
+                log.error("Ошибка записи хронологии событий интервью {}: {}", interviewId, e.getMessage());
+                update(interviewId, interviewCounters -> interviewCounters.restoreEvents(delta.events()));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Дописывает события в хронологию флагов записи antifraud. Запись читается заново, если ее
+     * параллельно изменили (антифрод проверка или сброс счетчиков).
+     */
+    @SuppressWarnings("unchecked")
+    private void appendTimeline(Long interviewId, List<TimelineEvent> events) throws JsonProcessingException {
+        for (int attempt = 1; ; attempt++) {
+            Optional<Antifraud> found = antifraudRepository.findByInterviewId(interviewId);
+            if (found.isEmpty()) {
+                log.warn("Antifraud запись для интервью {} не найдена, хронология событий отброшена", interviewId);
+                return;
+            }
+            Antifraud antifraud = found.get();
+            Map<String, Object> flags = antifraud.getFlagsJson() != null
+                ? objectMapper.readValue(antifraud.getFlagsJson(), Map.class)
+                : new HashMap<>();
+            List<Object> timeline = flags.get(TIMELINE_FLAG) instanceof List<?> stored
+                ? new ArrayList<>(stored)
+                : new ArrayList<>();
+            events.forEach(event -> timeline.add(Map.of("type", event.type().name(), "at", event.timestamp())));
+            flags.put(TIMELINE_FLAG, timeline.subList(Math.max(0, timeline.size() - TIMELINE_SIZE), timeline.size()));
+            antifraud.setFlagsJson(objectMapper.writeValueAsString(flags));
+            try {
+                antifraudRepository.save(antifraud);
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static int clamp(long value) {
+        return (int) Math.min(Integer.MAX_VALUE, value);
+    }
+
+    /**
+     * Детектирует devtools
+     */
+    private boolean detectDevtools(HeartbeatRequest heartbeat) {
+        // Простая эвристика для детекции devtools
+        // В реальной реализации нужны более сложные методы
+
+        if (heartbeat.getWindowWidth() != null && heartbeat.getWindowHeight() != null) {
+            // Проверяем на подозрительные размеры окна
+            int width = heartbeat.getWindowWidth();
+            int height = heartbeat.getWindowHeight();
+
+            // Devtools обычно открываются сбоку или снизу
+            return width < 800 || height < 600;
+        }
+
+        return false;
+    }
+
+    /**
+     * Счетчики одного интервью
+     */
+    private static final class Counters implements BrowserEventParser.EventSink {
+        private final LongAdder visibility = new LongAdder();
+        private final LongAdder blur = new LongAdder();
+        private final LongAdder tabSwitches = new LongAdder();
+        private final LongAdder gaps = new LongAdder();
+        private final AtomicBoolean devtools = new AtomicBoolean();
+        private volatile long lastSeenAt = System.currentTimeMillis();
+        /** Счетчики удалены из карты; изменения идут в новый объект. Меняется под блокировкой объекта. */
+        private boolean evicted;
+        /** События, еще не записанные в хронологию (не более TIMELINE_SIZE последних) */
+        private ArrayDeque<TimelineEvent> events = new ArrayDeque<>();
+
+        @Override
+        public void accept(BrowserEventType type, long timestampMs) {
+            switch (type) {
+                case VISIBILITY_HIDDEN -> visibility.increment();
+                case BLUR -> blur.increment();
+                case TAB_SWITCH -> tabSwitches.increment();
+                case DEVTOOLS -> devtools.set(true);
+                default -> {
+                }
+            }
+            // Вызывается под блокировкой счетчиков (update)
+            if (events.size() == TIMELINE_SIZE) {
+                events.pollFirst();
+            }
+            events.addLast(new TimelineEvent(type, timestampMs));
+        }
+
+        Delta drain() {
+            List<TimelineEvent> drained = events.isEmpty() ? List.of() : List.copyOf(events);
+            events.clear();
+            return new Delta(visibility.sumThenReset(), blur.sumThenReset(), tabSwitches.sumThenReset(),
+                gaps.sumThenReset(), devtools.getAndSet(false), drained);
+        }
+
+        /**
+         * Возвращает незаписанные события перед пришедшими позже
+         */
+        void restoreEvents(List<TimelineEvent> unsaved) {
+            ArrayDeque<TimelineEvent> merged = new ArrayDeque<>(unsaved);
+            merged.addAll(events);
+            while (merged.size() > TIMELINE_SIZE) {
+                merged.pollFirst();
+            }
+            events = merged;
+        }
+
+        void restore(Delta delta) {
+            visibility.add(delta.visibility());
+            blur.add(delta.blur());
+            tabSwitches.add(delta.tabSwitches());
+            gaps.add(delta.gaps());
+            if (delta.devtools()) {
+                devtools.set(true);
+            }
+            restoreEvents(delta.events());
+        }
+    }
+
+    /**
+     * Событие в хронологии интервью
+     */
+    public record TimelineEvent(BrowserEventType type, long timestamp) {
+    }
+
+    /**
+     * Приращения счетчиков и новые события с момента предыдущего сброса
+     */
+    private record Delta(long visibility, long blur, long tabSwitches, long gaps, boolean devtools,
+                         List<TimelineEvent> events) {
+
+        boolean hasCounters() {
+            return visibility != 0 || blur != 0 || tabSwitches != 0 || gaps != 0 || devtools;
+        }
+
+        boolean isEmpty() {
+            return !hasCounters() && events.isEmpty();
+        }
+    }
+}
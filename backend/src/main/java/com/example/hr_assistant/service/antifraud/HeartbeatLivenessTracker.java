@@ -0,0 +1,248 @@
+package com.example.hr_assistant.service.antifraud;
+
+import com.example.hr_assistant.config.AntifraudConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Отслеживание живости активных интервью на хешированном колесе таймеров (hashed timing wheel).
+ *
+ * Для каждого интервью в колесе лежит один таймер на момент «последний heartbeat + gap-threshold-ms».
+ * Heartbeat не трогает колесо — только обновляет время последнего сигнала; таймер, сработавший
+ * при свежем heartbeat, лениво переставляется на новый срок. За тик обрабатывается одна ячейка
+ * колеса, поэтому стоимость тика не зависит от числа открытых интервью, а БД не читается вовсе.
+ *
+ * Истекший таймер означает пропуск heartbeat: счетчик heartbeatGaps увеличивается через
+ * {@link HeartbeatAggregator}, а слушатели получают {@link CandidateSilenceEvent}. Интервью,
+ * молчащее дольше idle-evict-ms, перестает отслеживаться.
+ *
+ * Завершенное интервью ({@link #stop}) помечается на idle-evict-ms: поздний heartbeat не возобновляет
+ * его отслеживание.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HeartbeatLivenessTracker {
+
+    private final AntifraudConfig antifraudConfig;
+    private final HeartbeatAggregator heartbeatAggregator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, Liveness> tracked = new ConcurrentHashMap<>();
+    /** Завершенные интервью и время завершения */
+    private final Map<Long, Long> stopped = new ConcurrentHashMap<>();
+    /** Таймеры, созданные вне потока тиков; переносятся в колесо в начале тика */
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    private List<Timeout>[] wheel;
+    private int mask;
+    private long tickMs;
+    private long startedAt;
+    private long currentTick;
+    private Counter silenceCounter;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        AntifraudConfig.Heartbeat config = antifraudConfig.getHeartbeat();
+        // Размер колеса — степень двойки: номер ячейки считается маской, а не делением
+        int size = Integer.highestOneBit(Math.max(2, config.getWheelSize() - 1)) << 1;
+        wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        mask = size - 1;
+        tickMs = Math.max(1L, config.getTickMs());
+        startedAt = System.currentTimeMillis();
+
+        silenceCounter = Counter.builder("hr.antifraud.heartbeat.silences")
+            .description("Пропуски heartbeat, обнаруженные колесом таймеров")
+            .register(meterRegistry);
+        Gauge.builder("hr.antifraud.heartbeat.tracked", tracked, Map::size)
+            .description("Интервью, отслеживаемые на пропуск heartbeat")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Отмечает heartbeat интервью. O(1): новый таймер создается только при первом сигнале
+     * и после периода молчания.
+     *
+     * @return false, если интервью уже завершено и heartbeat проигнорирован
+     */
+    public boolean heartbeat(Long interviewId, long now) {
+        // Проверка и создание атомарны по ключу: stop() между ними не пропустит новую запись
+        Liveness liveness = tracked.compute(interviewId, (id, existing) ->
+            existing != null || stopped.containsKey(id) ? existing : new Liveness(id));
+        if (liveness == null) {
+            return false;
+        }
+        synchronized (liveness) {
+            liveness.lastHeartbeatAt = Math.max(liveness.lastHeartbeatAt, now);
+            if (liveness.timeout != null && !liveness.silent) {
+                return true;
+            }
+            if (liveness.silent) {
+                liveness.silent = false;
+                log.info("Heartbeat интервью {} возобновился", interviewId);
+            }
+            schedule(liveness, now + antifraudConfig.getHeartbeat().getGapThresholdMs());
+        }
+        return true;
+    }
+
+    /**
+     * Прекращает отслеживание (интервью завершено). Таймер в колесе отбрасывается при срабатывании,
+     * последующие heartbeat интервью игнорируются.
+     */
+    public void stop(Long interviewId) {
+        stopped.put(interviewId, System.currentTimeMillis());
+        Liveness liveness = tracked.remove(interviewId);
+        if (liveness != null) {
+            liveness.timeout = null;
+        }
+    }
+
+    @Scheduled(fixedRateString = "${antifraud.heartbeat.tick-ms:1000}")
+    public void tick() {
+        advance(System.currentTimeMillis());
+    }
+
+    /**
+     * Обрабатывает все тики колеса, завершившиеся к моменту now
+     */
+    synchronized void advance(long now) {
+        transferPending();
+        while (startedAt + (currentTick + 1) * tickMs <= now) {
+            long tickEnd = startedAt + (currentTick + 1) * tickMs;
+            List<Timeout> bucket = wheel[(int) (currentTick & mask)];
+            List<Timeout> due = new ArrayList<>();
+            bucket.removeIf(timeout -> {
+                if (timeout.liveness.timeout != timeout) {
+                    // Таймер заменен или интервью снято с отслеживания
+                    return true;
+                }
+                if (timeout.rounds > 0) {
+                    timeout.rounds--;
+                    return false;
+                }
+                due.add(timeout);
+                return true;
+            });
+            currentTick++;
+            due.forEach(timeout -> expire(timeout.liveness, tickEnd));
+            if ((currentTick & mask) == 0) {
+                // Раз за оборот колеса забываем давно завершенные интервью
+                long idleEvictMs = antifraudConfig.getHeartbeat().getIdleEvictMs();
+                stopped.values().removeIf(stoppedAt -> tickEnd - stoppedAt >= idleEvictMs);
+            }
+            transferPending();
+        }
+    }
+
+    /**
+     * Отслеживается ли интервью сейчас
+     */
+    public boolean isTracked(Long interviewId) {
+        return tracked.containsKey(interviewId);
+    }
+
+    int trackedCount() {
+        return tracked.size();
+    }
+
+    private void expire(Liveness liveness, long now) {
+        AntifraudConfig.Heartbeat config = antifraudConfig.getHeartbeat();
+        long last;
+        synchronized (liveness) {
+            last = liveness.lastHeartbeatAt;
+            if (now - last < config.getGapThresholdMs()) {
+                // Heartbeat приходил после постановки таймера — переносим срок
+                schedule(liveness, last + config.getGapThresholdMs());
+                return;
+            }
+            if (liveness.silent) {
+                if (now - last >= config.getIdleEvictMs()) {
+                    tracked.remove(liveness.interviewId, liveness);
+                    liveness.timeout = null;
+                    log.info("Интервью {} снято с отслеживания heartbeat после {} мс молчания",
+                        liveness.interviewId, now - last);
+                } else {
+                    schedule(liveness, last + config.getIdleEvictMs());
+                }
+                return;
+            }
+            liveness.silent = true;
+            schedule(liveness, last + config.getIdleEvictMs());
+        }
+
+        silenceCounter.increment();
+        heartbeatAggregator.recordGap(liveness.interviewId);
+        log.warn("Пропуск heartbeat интервью {}: нет сигнала {} мс", liveness.interviewId, now - last);
+        try {
+            eventPublisher.publishEvent(new CandidateSilenceEvent(liveness.interviewId, last, now - last));
+        } catch (RuntimeException e) {
+            log.error("Ошибка обработки события молчания интервью {}: {}", liveness.interviewId, e.getMessage());
+        }
+    }
+
+    private void schedule(Liveness liveness, long deadline) {
+        Timeout timeout = new Timeout(liveness, deadline);
+        liveness.timeout = timeout;
+        pending.add(timeout);
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.liveness.timeout != timeout) {
+                continue;
+            }
+            long deadlineTick = Math.max(currentTick, (timeout.deadline - startedAt) / tickMs);
+            timeout.rounds = (deadlineTick - currentTick) / wheel.length;
+            wheel[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Состояние отслеживания одного интервью
+     */
+    private static final class Liveness {
+        private final Long interviewId;
+        private volatile long lastHeartbeatAt;
+        private volatile boolean silent;
+        private volatile Timeout timeout;
+
+        Liveness(Long interviewId) {
+            this.interviewId = interviewId;
+        }
+    }
+
+    /**
+     * Таймер в ячейке колеса; rounds — сколько полных оборотов осталось до срабатывания
+     */
+    private static final class Timeout {
+        private final Liveness liveness;
+        private final long deadline;
+        private long rounds;
+
+        Timeout(Liveness liveness, long deadline) {
+            this.liveness = liveness;
+            this.deadline = deadline;
+        }
+    }
+}
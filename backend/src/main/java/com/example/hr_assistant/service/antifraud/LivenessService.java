@@ -29,14 +29,11 @@ public class LivenessService {
                 return createFallbackResult();
             }
 
-            ai.djl.inference.Predictor<Object, Object> predictor = modelManager.getPredictor("liveness");
-            
             // Подготавливаем видео данные
             NDList input = prepareVideoInput(videoData);
             
             // Выполняем анализ живости
-            @SuppressWarnings("unchecked")
-            NDList output = (NDList) predictor.predict(input);
+            NDList output = modelManager.predict("liveness", input);
             
             // Извлекаем результат
             double livenessScore = extractLivenessScore(output);
@@ -2,6 +2,7 @@ package com.example.hr_assistant.service.antifraud;
 
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
+import com.example.hr_assistant.service.ml.similarity.SimilarityKernels;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -28,14 +29,11 @@ public class VoiceVerificationService {
                 return createFallbackEmbedding();
             }
 
-            ai.djl.inference.Predictor<Object, Object> predictor = modelManager.getPredictor("voice-verification");
-            
             // Подготавливаем аудио данные
             NDList input = prepareAudioInput(audioData);
             
             // Извлекаем эмбеддинг голоса
-            @SuppressWarnings("unchecked")
-            NDList output = (NDList) predictor.predict(input);
+            NDList output = modelManager.predict("voice-verification", input);
             NDArray embedding = output.get(0);
             
             // Конвертируем в массив float
@@ -142,21 +140,7 @@ public class VoiceVerificationService {
             return 0.0;
         }
 
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-
-        for (int i = 0; i < embedding1.length; i++) {
-            dotProduct += embedding1[i] * embedding2[i];
-            norm1 += embedding1[i] * embedding1[i];
-            norm2 += embedding2[i] * embedding2[i];
-        }
-
-        if (norm1 == 0.0 || norm2 == 0.0) {
-            return 0.0;
-        }
-
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        return SimilarityKernels.cosine(embedding1, embedding2);
     }
 
     /**
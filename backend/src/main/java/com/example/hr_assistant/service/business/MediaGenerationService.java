@@ -1,7 +1,7 @@
 package com.example.hr_assistant.service.business;
 
+import com.example.hr_assistant.model.MediaRender.RenderKind;
 import com.example.hr_assistant.model.Question;
-import com.example.hr_assistant.model.dto.MediaUploadResponse;
 import com.example.hr_assistant.repository.QuestionRepository;
 import com.example.hr_assistant.service.external.AvatarClient;
 import com.example.hr_assistant.service.external.TtsClient;
@@ -9,7 +9,18 @@ import com.example.hr_assistant.service.storage.MediaStorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.util.Optional;
+
+/**
+ * Генерация TTS и аватаров вопросов. Синтез, скачивание результата и загрузка в хранилище
+ * выполняются без блокировки потока запроса; обращения к БД вынесены на boundedElastic.
+ * Результаты сохраняются по хэшу содержимого: повторная генерация того же файла не занимает
+ * места в хранилище, а рендер с уже известными параметрами берется из {@link MediaRenderCache}
+ * без обращения к TTS и avatar сервисам.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -19,42 +30,80 @@ public class MediaGenerationService {
     private final AvatarClient avatarClient;
     private final MediaStorageService mediaStorageService;
     private final QuestionRepository questionRepository;
+    private final MediaRenderCache mediaRenderCache;
 
-    public String generateTtsForQuestion(Long questionId, String speaker, Double speed) {
-        Question q = questionRepository.findById(questionId)
-            .orElseThrow(() -> new IllegalArgumentException("Question not found: " + questionId));
-        TtsClient.SynthesizeResponse resp = ttsClient.synthesize(q.getText(), speaker, speed);
-        byte[] audio = ttsClient.download(resp.getPath());
-        MediaUploadResponse up = mediaStorageService.uploadFile(
-            audio,
-            "q" + questionId + ".wav",
-            "audio/wav",
-            "tts"
-        );
-        if (Boolean.TRUE.equals(up.getSuccess())) {
-            q.setTtsAudioUrl(up.getFileUrl());
-            questionRepository.save(q);
-        }
-        return up.getFileUrl();
+    public Mono<String> generateTtsForQuestion(Long questionId, String speaker, Double speed) {
+        return findQuestion(questionId)
+            .flatMap(q -> {
+                String key = mediaRenderCache.ttsKey(q.getText(), speaker, speed);
+                // Вопрос становится еще одним владельцем готовой озвучки; файл, удаляемый после вытеснения
+                // рендера, не используется
+                Optional<String> cached = mediaRenderCache.lookup(RenderKind.TTS, key)
+                    .filter(mediaStorageService::retain);
+                if (cached.isPresent()) {
+                    return Mono.just(assignTts(q, cached.get()));
+                }
+                return ttsClient.synthesizeAsync(q.getText(), speaker, speed)
+                    .flatMap(resp -> ttsClient.downloadAsync(resp.getPath()))
+                    .flatMap(audio -> mediaStorageService.storeDeduplicatedAsync(
+                        audio,
+                        "q" + questionId + ".wav",
+                        "audio/wav",
+                        "tts"
+                    ))
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(up -> {
+                        if (Boolean.TRUE.equals(up.getSuccess())) {
+                            mediaRenderCache.put(RenderKind.TTS, key, up.getFileUrl());
+                            assignTts(q, up.getFileUrl());
+                        }
+                        return up.getFileUrl();
+                    });
+            });
     }
 
-    public String generateAvatarForQuestion(Long questionId, String faceImagePath) {
-        Question q = questionRepository.findById(questionId)
-            .orElseThrow(() -> new IllegalArgumentException("Question not found: " + questionId));
-        if (q.getTtsAudioUrl() == null || q.getTtsAudioUrl().isEmpty()) {
-            throw new IllegalStateException("TTS audio is required for avatar generation");
-        }
-        AvatarClient.GenerateResponse resp = avatarClient.generate(q.getTtsAudioUrl(), null, null, faceImagePath);
-        byte[] video = avatarClient.download(resp.getPath());
-        MediaUploadResponse up = mediaStorageService.uploadFile(
-            video,
-            "q" + questionId + ".mp4",
-            "video/mp4",
-            "avatar"
-        );
-        // Could store in separate field/model; here we reuse recordings or store url in question metadata if available
-        return up.getFileUrl();
+    public Mono<String> generateAvatarForQuestion(Long questionId, String faceImagePath) {
+        return findQuestion(questionId)
+            .flatMap(q -> {
+                if (q.getTtsAudioUrl() == null || q.getTtsAudioUrl().isEmpty()) {
+                    return Mono.error(new IllegalStateException("TTS audio is required for avatar generation"));
+                }
+                String key = mediaRenderCache.avatarKey(q.getTtsAudioUrl(), faceImagePath);
+                Optional<String> cached = mediaRenderCache.lookup(RenderKind.AVATAR, key);
+                if (cached.isPresent()) {
+                    return Mono.just(cached.get());
+                }
+                return avatarClient.generateAsync(q.getTtsAudioUrl(), null, null, faceImagePath)
+                    .flatMap(resp -> avatarClient.downloadAsync(resp.getPath()))
+                    .flatMap(video -> mediaStorageService.storeDeduplicatedAsync(
+                        video,
+                        "q" + questionId + ".mp4",
+                        "video/mp4",
+                        "avatar"
+                    ))
+                    .publishOn(Schedulers.boundedElastic())
+                    // Видео аватара не хранится ни в одной сущности: его единственный владелец — запись кэша,
+                    // которая забирает ссылку загрузки
+                    .map(up -> Boolean.TRUE.equals(up.getSuccess())
+                        ? mediaRenderCache.adopt(RenderKind.AVATAR, key, up.getFileUrl())
+                        : up.getFileUrl());
+            });
     }
-}
 
+    private String assignTts(Question q, String fileUrl) {
+        String previous = q.getTtsAudioUrl();
+        q.setTtsAudioUrl(fileUrl);
+        questionRepository.save(q);
+        // Вопрос больше не ссылается на прежнюю озвучку
+        if (previous != null && !previous.isEmpty()) {
+            mediaStorageService.release(previous);
+        }
+        return fileUrl;
+    }
 
+    private Mono<Question> findQuestion(Long questionId) {
+        return Mono.fromCallable(() -> questionRepository.findById(questionId)
+                .orElseThrow(() -> new IllegalArgumentException("Question not found: " + questionId)))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+}
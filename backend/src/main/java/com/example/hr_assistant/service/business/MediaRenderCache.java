@@ -0,0 +1,208 @@
+package com.example.hr_assistant.service.business;
+
+import com.example.hr_assistant.model.MediaRender;
+import com.example.hr_assistant.model.MediaRender.RenderKind;
+import com.example.hr_assistant.repository.MediaRenderRepository;
+import com.example.hr_assistant.service.storage.MediaStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Постоянный кэш рендеров TTS и аватаров.
+ *
+ * Ключ TTS — нормализованный текст, голос, скорость и версия модели; ключ аватара — хэш аудио,
+ * изображение лица и версия модели. По ключу хранится URL готового файла: повторный запрос, в том
+ * числе из другого интервью, получает его без синтеза и скачивания. Запись кэша держит собственную
+ * ссылку на объект в media_objects, поэтому файл не удаляется, когда его освобождает вопрос.
+ * Рендеры прежних версий моделей и не использованные дольше maxIdleDays вытесняются вместе со ссылкой.
+ * Методы блокирующие (БД), вызываются вне потоков событий.
+ */
+@Service
+@Slf4j
+public class MediaRenderCache {
+
+    private final MediaRenderRepository mediaRenderRepository;
+    private final MediaStorageService mediaStorageService;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final String ttsModelVersion;
+    private final String avatarModelVersion;
+    private final int maxIdleDays;
+
+    public MediaRenderCache(MediaRenderRepository mediaRenderRepository,
+                            MediaStorageService mediaStorageService,
+                            MeterRegistry meterRegistry,
+                            @Value("${media.render-cache.enabled:true}") boolean enabled,
+                            @Value("${services.tts.model-version:v1}") String ttsModelVersion,
+                            @Value("${services.avatar.model-version:v1}") String avatarModelVersion,
+                            @Value("${media.render-cache.max-idle-days:30}") int maxIdleDays) {
+        this.mediaRenderRepository = mediaRenderRepository;
+        this.mediaStorageService = mediaStorageService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.ttsModelVersion = ttsModelVersion;
+        this.avatarModelVersion = avatarModelVersion;
+        this.maxIdleDays = maxIdleDays;
+    }
+
+    /**
+     * Ключ озвучки: текст нормализуется (Unicode NFKC, пробелы), регистр сохраняется — он влияет на произношение
+     */
+    public String ttsKey(String text, String speaker, Double speed) {
+        return key(RenderKind.TTS, normalizeText(text), speaker != null ? speaker : "default",
+            speed != null ? String.format(Locale.ROOT, "%.2f", speed) : "default", ttsModelVersion);
+    }
+
+    /**
+     * Ключ аватара: аудио определяется хэшем содержимого, если файл сохранен по хэшу, иначе URL
+     */
+    public String avatarKey(String audioUrl, String faceImagePath) {
+        String audio = mediaStorageService.contentHashOf(audioUrl).orElse(audioUrl);
+        return key(RenderKind.AVATAR, audio, faceImagePath != null ? faceImagePath : "default", avatarModelVersion);
+    }
+
+    /**
+     * URL готового рендера по ключу
+     */
+    public Optional<String> lookup(RenderKind kind, String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Optional<MediaRender> render = mediaRenderRepository.findByCacheKey(key);
+        render.ifPresent(found -> mediaRenderRepository.markUsed(found.getId(), LocalDateTime.now()));
+        Counter.builder(render.isPresent() ? "hr.media.render.cache.hits" : "hr.media.render.cache.misses")
+            .description("Обращения к кэшу рендеров TTS и аватаров")
+            .tag("kind", kind.name().toLowerCase(Locale.ROOT))
+            .register(meterRegistry)
+            .increment();
+        return render.map(MediaRender::getFileUrl);
+    }
+
+    /**
+     * Запоминает рендер, файлом которого владеет вызывающий: запись кэша добавляет собственную ссылку.
+     * Если тот же ключ одновременно сохранил другой запрос, остается его запись.
+     */
+    public void put(RenderKind kind, String key, String fileUrl) {
+        if (!enabled || fileUrl == null) {
+            return;
+        }
+        Optional<MediaRender> saved = save(kind, key, fileUrl);
+        if (saved.isEmpty()) {
+            return;
+        }
+        if (!mediaStorageService.retain(fileUrl)) {
+            // Файл уже удаляется: запись без ссылки не должна снимать чужую ссылку при вытеснении
+            mediaRenderRepository.deleteById(saved.get().getId());
+            return;
+        }
+        log.info("Рендер {} сохранен в кэш: {}", kind, fileUrl);
+    }
+
+    /**
+     * Запоминает рендер, которым больше никто не владеет: запись кэша забирает ссылку вызывающего.
+     * Если тот же ключ уже сохранил другой запрос, ссылка вызывающего снимается и возвращается URL
+     * сохраненного рендера. Возвращает URL, который следует отдать клиенту.
+     */
+    public String adopt(RenderKind kind, String key, String fileUrl) {
+        if (!enabled || fileUrl == null) {
+            return fileUrl;
+        }
+        if (save(kind, key, fileUrl).isPresent()) {
+            log.info("Рендер {} сохранен в кэш: {}", kind, fileUrl);
+            return fileUrl;
+        }
+        return mediaRenderRepository.findByCacheKey(key)
+            .map(existing -> {
+                mediaStorageService.release(fileUrl);
+                return existing.getFileUrl();
+            })
+            .orElse(fileUrl);
+    }
+
+    /**
+     * Вытесняет рендеры прежних версий моделей и не использованные дольше maxIdleDays,
+     * снимая ссылку записи на файл. Рендер, к которому обратились во время вытеснения, остается.
+     */
+    @Scheduled(fixedDelayString = "${media.render-cache.eviction-interval-ms:3600000}")
+    public void evictStale() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime before = now.minusDays(maxIdleDays);
+        int evicted = evict(RenderKind.TTS, ttsModelVersion, before, now)
+            + evict(RenderKind.AVATAR, avatarModelVersion, before, now);
+        if (evicted > 0) {
+            log.info("Из кэша рендеров вытеснено записей: {}", evicted);
+        }
+    }
+
+    private int evict(RenderKind kind, String modelVersion, LocalDateTime before, LocalDateTime now) {
+        int evicted = 0;
+        for (MediaRender render : mediaRenderRepository.findEvictable(kind, modelVersion, before)) {
+            try {
+                // Сначала удаляется запись: новые обращения больше не находят файл, затем снимается ее ссылка
+                if (mediaRenderRepository.deleteUnusedSince(render.getId(), now) > 0) {
+                    mediaStorageService.release(render.getFileUrl());
+                    evicted++;
+                }
+            } catch (Exception e) {
+                log.warn("Не удалось вытеснить рендер {}: {}", render.getFileUrl(), e.getMessage());
+            }
+        }
+        if (evicted > 0) {
+            Counter.builder("hr.media.render.cache.evictions")
+                .description("Рендеры TTS и аватаров, вытесненные из кэша")
+                .tag("kind", kind.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment(evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * Сохраняет запись кэша; пусто — запись с таким ключом уже есть
+     */
+    private Optional<MediaRender> save(RenderKind kind, String key, String fileUrl) {
+        MediaRender render = new MediaRender();
+        render.setKind(kind);
+        render.setCacheKey(key);
+        render.setFileUrl(fileUrl);
+        render.setModelVersion(kind == RenderKind.TTS ? ttsModelVersion : avatarModelVersion);
+        render.setLastUsedAt(LocalDateTime.now());
+        try {
+            return Optional.of(mediaRenderRepository.save(render));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Рендер {} с ключом {} уже в кэше", kind, key);
+            return Optional.empty();
+        }
+    }
+
+    static String normalizeText(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).strip().replaceAll("\\s+", " ");
+    }
+
+    private static String key(RenderKind kind, String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String fingerprint = kind.name() + "\u0000" + String.join("\u0000", parts);
+            return HexFormat.of().formatHex(digest.digest(fingerprint.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
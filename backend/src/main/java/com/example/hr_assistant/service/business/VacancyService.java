@@ -2,6 +2,7 @@ package com.example.hr_assistant.service.business;
 
 import com.example.hr_assistant.model.Vacancy;
 import com.example.hr_assistant.repository.VacancyRepository;
+import com.example.hr_assistant.service.ml.RequirementEmbeddingIndex;
 
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +24,7 @@ import java.util.Optional;
 public class VacancyService {
 
     private final VacancyRepository vacancyRepository;
+    private final RequirementEmbeddingIndex requirementEmbeddingIndex;
 
     /**
      * Получить все вакансии
@@ -45,7 +47,9 @@ public class VacancyService {
      */
     public Vacancy createVacancy(Vacancy vacancy) {
         log.info("Создание новой вакансии: {}", vacancy.getTitle());
-        return vacancyRepository.save(vacancy);
+        Vacancy saved = vacancyRepository.save(vacancy);
+        requirementEmbeddingIndex.rebuild(saved);
+        return saved;
     }
 
     /**
@@ -68,7 +72,10 @@ public class VacancyService {
         existingVacancy.setExperienceLevel(vacancy.getExperienceLevel());
         existingVacancy.setStatus(vacancy.getStatus());
         
-        return vacancyRepository.save(existingVacancy);
+        Vacancy saved = vacancyRepository.save(existingVacancy);
+        // Тексты требований могли измениться — пересчитываем их эмбеддинги
+        requirementEmbeddingIndex.rebuild(saved);
+        return saved;
     }
 
     /**
@@ -80,6 +87,7 @@ public class VacancyService {
         Vacancy existingVacancy = vacancyRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Вакансия не найдена с ID: " + id));
         
+        requirementEmbeddingIndex.delete(id);
         vacancyRepository.deleteById(id);
     }
 }
@@ -1,5 +1,6 @@
 package com.example.hr_assistant.service.external;
 
+import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,44 +9,59 @@ import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class AvatarClient {
 
-    private final WebClient.Builder webClientBuilder;
+    private static final String SERVICE = "avatar";
+
+    private final ServiceResilience serviceResilience;
 
     @Value("${services.avatar.base-url:http://avatar:8200}")
     private String baseUrl;
 
+    private WebClient client;
+
+    @PostConstruct
+    public void init() {
+        client = serviceResilience.webClient(SERVICE, baseUrl);
+    }
+
     public GenerateResponse generate(String audioUrl, String audioPath, String drivingAudioWav, String faceImagePath) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
+        return generateAsync(audioUrl, audioPath, drivingAudioWav, faceImagePath).block();
+    }
+
+    public Mono<GenerateResponse> generateAsync(String audioUrl, String audioPath, String drivingAudioWav, String faceImagePath) {
         GenerateRequest req = new GenerateRequest();
         req.setAudio_url(audioUrl);
         req.setAudio_path(audioPath);
         req.setDriving_audio_wav(drivingAudioWav);
         req.setFace_image_path(faceImagePath);
-        return client.post()
-            .uri("/generate")
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(req)
-            .retrieve()
-            .bodyToMono(GenerateResponse.class)
-            .doOnError(e -> log.error("Avatar generate error: {}", e.getMessage()))
-            .block();
+        return serviceResilience.decorate(SERVICE, () -> client.post()
+                .uri("/generate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(req)
+                .retrieve()
+                .bodyToMono(GenerateResponse.class))
+            .doOnError(e -> log.error("Avatar generate error: {}", e.getMessage()));
     }
 
     public byte[] download(String filename) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
-        ByteArrayResource res = client.get()
-            .uri("/video/{filename}", filename)
-            .accept(MediaType.APPLICATION_OCTET_STREAM)
-            .retrieve()
-            .bodyToMono(ByteArrayResource.class)
+        return downloadAsync(filename).block();
+    }
+
+    public Mono<byte[]> downloadAsync(String filename) {
+        return serviceResilience.decorate(SERVICE, () -> client.get()
+                .uri("/video/{filename}", filename)
+                .accept(MediaType.APPLICATION_OCTET_STREAM)
+                .retrieve()
+                .bodyToMono(ByteArrayResource.class))
             .doOnError(e -> log.error("Avatar download error: {}", e.getMessage()))
-            .block();
-        return res != null ? res.getByteArray() : new byte[0];
+            .map(ByteArrayResource::getByteArray)
+            .defaultIfEmpty(new byte[0]);
     }
 
     @Data
@@ -1,5 +1,6 @@
 package com.example.hr_assistant.service.external;
 
+import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,30 +8,43 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class DetectGptClient {
 
-    private final WebClient.Builder webClientBuilder;
+    private static final String SERVICE = "detectgpt";
+
+    private final ServiceResilience serviceResilience;
 
     @Value("${services.detectgpt.base-url:http://localhost:8092}")
     private String baseUrl;
 
+    private WebClient client;
+
+    @PostConstruct
+    public void init() {
+        client = serviceResilience.webClient(SERVICE, baseUrl);
+    }
+
     public double detectAiProbability(String text) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
+        return detectAiProbabilityAsync(text).block();
+    }
+
+    public Mono<Double> detectAiProbabilityAsync(String text) {
         DetectRequest req = new DetectRequest();
         req.setText(text);
-        DetectResponse resp = client.post()
-            .uri("/detect")
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(req)
-            .retrieve()
-            .bodyToMono(DetectResponse.class)
+        return serviceResilience.decorate(SERVICE, () -> client.post()
+                .uri("/detect")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(req)
+                .retrieve()
+                .bodyToMono(DetectResponse.class))
             .doOnError(e -> log.error("Ошибка DetectGPT /detect: {}", e.getMessage()))
-            .block();
-        return resp != null ? resp.getAi_probability() : 0.0;
+            .map(DetectResponse::getAi_probability)
+            .defaultIfEmpty(0.0);
     }
 
     @Data
@@ -38,5 +52,3 @@ public class DetectGptClient {
     @Data
     public static class DetectResponse { private double ai_probability; }
 }
-
-
@@ -1,5 +1,6 @@
 package com.example.hr_assistant.service.external;
 
+import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,8 +8,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -16,46 +22,137 @@ import java.util.List;
 @Slf4j
 public class EmbedClient {
 
-    private final WebClient.Builder webClientBuilder;
+    private static final String SERVICE = "sbert";
+    /** Лимит текстов одного вызова /embed/batch (MAX_BATCH_TEXTS embed-service, сверх него — 413) */
+    static final int MAX_BATCH_TEXTS = 512;
+
+    private final ServiceResilience serviceResilience;
 
     @Value("${services.sbert.base-url:http://localhost:8088}")
     private String baseUrl;
 
+    private WebClient client;
+
+    @PostConstruct
+    public void init() {
+        client = serviceResilience.webClient(SERVICE, baseUrl);
+    }
+
     public List<Double> embed(String text) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
+        return embedAsync(text).block();
+    }
+
+    /**
+     * Эмбеддинг текста; при ошибке сервиса — пустой список
+     */
+    public Mono<List<Double>> embedAsync(String text) {
         EmbedRequest req = new EmbedRequest();
         req.setText(text);
-        EmbedResponse resp = client.post()
-                .uri("/embed")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(req)
-                .retrieve()
-                .bodyToMono(EmbedResponse.class)
+        return serviceResilience.decorate(SERVICE, () -> client.post()
+                    .uri("/embed")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(req)
+                    .retrieve()
+                    .bodyToMono(EmbedResponse.class))
+                .map(EmbedResponse::getEmbedding)
                 .onErrorResume(e -> {
                     log.error("Ошибка вызова /embed: {}", e.getMessage());
                     return Mono.empty();
                 })
-                .block();
-        return resp != null ? resp.getEmbedding() : List.of();
+                .defaultIfEmpty(List.of());
+    }
+
+    /**
+     * Эмбеддинги списка текстов вызовами /embed/batch по MAX_BATCH_TEXTS; порядок совпадает с texts
+     */
+    public List<float[]> embedBatch(List<String> texts) {
+        return embedBatchAsync(texts).block();
+    }
+
+    /**
+     * Пакетные эмбеддинги в бинарном виде (float32) без JSON-списков чисел.
+     * Список длиннее MAX_BATCH_TEXTS делится на части, которые отправляются последовательно
+     * (не занимая несколько мест в bulkhead), результаты склеиваются в исходном порядке.
+     * В отличие от {@link #embedAsync}, ошибка сервиса передается вызывающему для перехода на fallback.
+     */
+    public Mono<List<float[]>> embedBatchAsync(List<String> texts) {
+        if (texts.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        if (texts.size() <= MAX_BATCH_TEXTS) {
+            return embedChunk(texts);
+        }
+        return Flux.range(0, (texts.size() + MAX_BATCH_TEXTS - 1) / MAX_BATCH_TEXTS)
+            .concatMap(chunk -> embedChunk(texts.subList(chunk * MAX_BATCH_TEXTS,
+                Math.min(texts.size(), (chunk + 1) * MAX_BATCH_TEXTS))))
+            .collect(() -> new ArrayList<float[]>(texts.size()), List::addAll);
+    }
+
+    private Mono<List<float[]>> embedChunk(List<String> texts) {
+        EmbedBatchRequest req = new EmbedBatchRequest();
+        req.setTexts(texts);
+        return serviceResilience.decorate(SERVICE, () -> client.post()
+                .uri("/embed/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(req)
+                .retrieve()
+                .bodyToMono(byte[].class))
+            .map(EmbedClient::decodeBatch)
+            .flatMap(vectors -> vectors.size() == texts.size()
+                ? Mono.just(vectors)
+                : Mono.error(new IllegalStateException(
+                    "Сервис эмбеддингов вернул " + vectors.size() + " векторов для " + texts.size() + " текстов")))
+            .doOnError(e -> log.error("Ошибка вызова /embed/batch: {}", e.getMessage()));
+    }
+
+    /**
+     * Разбирает бинарный пакет: int32 LE число векторов, int32 LE размерность, векторы float32 LE подряд
+     */
+    static List<float[]> decodeBatch(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 2 * Integer.BYTES) {
+            throw new IllegalStateException("Пакет эмбеддингов обрезан: " + payload.length + " байт");
+        }
+        int count = buffer.getInt();
+        int dimension = buffer.getInt();
+        if (count < 0 || dimension < 0 || (long) count * dimension * Float.BYTES != buffer.remaining()) {
+            throw new IllegalStateException("Некорректный пакет эмбеддингов: " + count + "x" + dimension
+                + ", " + buffer.remaining() + " байт данных");
+        }
+        FloatBuffer floats = buffer.asFloatBuffer();
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] vector = new float[dimension];
+            floats.get(vector);
+            vectors.add(vector);
+        }
+        return vectors;
     }
 
     public double similarity(String a, String b) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
+        return similarityAsync(a, b).block();
+    }
+
+    /**
+     * Косинусная близость двух текстов; при ошибке сервиса — 0
+     */
+    public Mono<Double> similarityAsync(String a, String b) {
         SimilarityRequest req = new SimilarityRequest();
         req.setText1(a);
         req.setText2(b);
-        SimilarityResponse resp = client.post()
-                .uri("/similarity")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(req)
-                .retrieve()
-                .bodyToMono(SimilarityResponse.class)
+        return serviceResilience.decorate(SERVICE, () -> client.post()
+                    .uri("/similarity")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(req)
+                    .retrieve()
+                    .bodyToMono(SimilarityResponse.class))
+                .map(SimilarityResponse::getSimilarity)
                 .onErrorResume(e -> {
                     log.error("Ошибка вызова /similarity: {}", e.getMessage());
                     return Mono.empty();
                 })
-                .block();
-        return resp != null ? resp.getSimilarity() : 0.0;
+                .defaultIfEmpty(0.0);
     }
 
     @Data
@@ -63,9 +160,9 @@ public class EmbedClient {
     @Data
     public static class EmbedResponse { private List<Double> embedding; }
     @Data
+    public static class EmbedBatchRequest { private List<String> texts; }
+    @Data
     public static class SimilarityRequest { private String text1; private String text2; }
     @Data
     public static class SimilarityResponse { private double similarity; }
 }
-
-
@@ -1,44 +1,104 @@
 package com.example.hr_assistant.service.external;
 
+import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class LlmClient {
 
-    private final WebClient.Builder webClientBuilder;
+    private static final String SERVICE = "llm";
+    private static final ParameterizedTypeReference<ServerSentEvent<StreamChunk>> CHUNK_EVENT =
+        new ParameterizedTypeReference<>() {};
+
+    private final ServiceResilience serviceResilience;
+    private final PromptBudget promptBudget;
+    private final LlmResponseCache responseCache;
 
     @Value("${services.llm.base-url:http://localhost:8090}")
     private String baseUrl;
 
+    /** Модель llm-service (LLM_MODEL_PATH); входит в ключ кэша ответов */
+    @Value("${services.llm.model:mistral-7b-instruct.Q4_K_M}")
+    private String model;
+
+    private WebClient client;
+
+    @PostConstruct
+    public void init() {
+        client = serviceResilience.webClient(SERVICE, baseUrl);
+    }
+
     public String generate(String prompt, int maxTokens, double temperature) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
-        GenerateRequest req = new GenerateRequest();
-        req.setPrompt(truncate(prompt));
-        req.setMax_tokens(maxTokens);
-        req.setTemperature(temperature);
-        GenerateResponse resp = client.post()
-            .uri("/generate")
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(req)
-            .retrieve()
-            .bodyToMono(GenerateResponse.class)
+        return generateAsync(prompt, maxTokens, temperature).block();
+    }
+
+    /**
+     * Генерация с кэшем ответов: одинаковые запросы, в том числе одновременные, вызывают LLM один раз
+     */
+    public Mono<String> generateAsync(String prompt, int maxTokens, double temperature) {
+        GenerateRequest req = request(prompt, maxTokens, temperature);
+        return responseCache.getOrGenerate(cacheKey(req), () -> serviceResilience.decorate(SERVICE, () -> client.post()
+                .uri("/generate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(req)
+                .retrieve()
+                .bodyToMono(GenerateResponse.class))
             .doOnError(e -> log.error("Ошибка вызова LLM /generate: {}", e.getMessage()))
-            .block();
-        return resp != null ? resp.getOutput() : "";
+            .map(resp -> resp.getOutput() != null ? resp.getOutput() : ""))
+            .defaultIfEmpty("");
+    }
+
+    /**
+     * Потоковая генерация: фрагменты ответа приходят по мере генерации (SSE /generate/stream).
+     * Отмена подписки закрывает соединение, и llm-service прекращает генерацию.
+     * Ответ из кэша отдается одним фрагментом; полностью полученный поток записывается в кэш.
+     */
+    public Flux<String> stream(String prompt, int maxTokens, double temperature) {
+        GenerateRequest req = request(prompt, maxTokens, temperature);
+        String key = cacheKey(req);
+        String cached = responseCache.isEnabled() ? responseCache.get(key) : null;
+        if (cached != null) {
+            return Flux.just(cached);
+        }
+        StringBuilder output = new StringBuilder();
+        return serviceResilience.decorateStream(SERVICE, () -> client.post()
+                .uri("/generate/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(req)
+                .retrieve()
+                .bodyToFlux(CHUNK_EVENT))
+            .takeWhile(event -> !"done".equals(event.event()))
+            .mapNotNull(ServerSentEvent::data)
+            .mapNotNull(StreamChunk::getToken)
+            .doOnNext(output::append)
+            .doOnComplete(() -> responseCache.put(key, output.toString().strip()))
+            .doOnError(e -> log.error("Ошибка вызова LLM /generate/stream: {}", e.getMessage()))
+            .doOnCancel(() -> log.debug("Потоковая генерация LLM отменена клиентом"));
+    }
+
+    private String cacheKey(GenerateRequest req) {
+        return responseCache.key(req.getPrompt(), req.getMax_tokens(), req.getTemperature(), model);
     }
 
-    private String truncate(String s) {
-        if (s == null) return "";
-        int max = 4000;
-        return s.length() > max ? s.substring(0, max) : s;
+    private GenerateRequest request(String prompt, int maxTokens, double temperature) {
+        GenerateRequest req = new GenerateRequest();
+        req.setPrompt(promptBudget.clamp(prompt, maxTokens));
+        req.setMax_tokens(maxTokens);
+        req.setTemperature(temperature);
+        return req;
     }
 
     @Data
@@ -52,6 +112,9 @@ public class LlmClient {
     public static class GenerateResponse {
         private String output;
     }
-}
-
 
+    @Data
+    public static class StreamChunk {
+        private String token;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.hr_assistant.service.external;
+
+import com.example.hr_assistant.config.LlmCacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Кэш ответов LLM.
+ *
+ * Ключ — SHA-256 отпечаток (промпт, max_tokens, temperature, модель): любой параметр, влияющий
+ * на генерацию, дает новый ключ. Записи живут ttl-seconds, локальный LRU ограничен числом записей
+ * и объемом памяти. Одновременные запросы с одинаковым ключом выполняют одну генерацию (single-flight):
+ * остальные подписываются на ее результат. Пустые ответы и ошибки не кэшируются.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LlmResponseCache {
+
+    /** Оценка накладных расходов записи: ключ, объект записи, узел LinkedHashMap */
+    private static final int ENTRY_OVERHEAD_BYTES = 200;
+
+    private final LlmCacheConfig config;
+    private final MeterRegistry meterRegistry;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
+    private long currentBytes;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter joined;
+    private Counter evictions;
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("hr.llm.cache.hits")
+            .description("Попадания в кэш ответов LLM")
+            .register(meterRegistry);
+        misses = Counter.builder("hr.llm.cache.misses")
+            .description("Промахи кэша ответов LLM")
+            .register(meterRegistry);
+        joined = Counter.builder("hr.llm.cache.joined")
+            .description("Запросы, дождавшиеся уже идущей генерации с тем же ключом")
+            .register(meterRegistry);
+        evictions = Counter.builder("hr.llm.cache.evictions")
+            .description("Вытеснения и истечения записей кэша ответов LLM")
+            .register(meterRegistry);
+        Gauge.builder("hr.llm.cache.entries", this, LlmResponseCache::size)
+            .description("Количество записей в кэше ответов LLM")
+            .register(meterRegistry);
+        Gauge.builder("hr.llm.cache.bytes", this, LlmResponseCache::bytes)
+            .description("Оценка памяти кэша ответов LLM")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(config.getEnabled());
+    }
+
+    /**
+     * Отпечаток запроса генерации
+     */
+    public String key(String prompt, int maxTokens, double temperature, String model) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String fingerprint = String.join("\u0000", prompt, Integer.toString(maxTokens),
+                Double.toString(temperature), model != null ? model : "unknown");
+            return HexFormat.of().formatHex(digest.digest(fingerprint.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Ответ из кэша или результат генерации. Генерация запускается не более одного раза на ключ
+     * одновременно; ее результат попадает в кэш.
+     */
+    public Mono<String> getOrGenerate(String key, Supplier<Mono<String>> generation) {
+        if (!isEnabled()) {
+            return Mono.defer(generation);
+        }
+        return Mono.defer(() -> {
+            String cached = get(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            boolean[] started = {false};
+            Mono<String> shared = inFlight.computeIfAbsent(key, k -> {
+                started[0] = true;
+                return Mono.defer(generation)
+                    .doOnNext(value -> put(k, value))
+                    .doFinally(signal -> inFlight.remove(k))
+                    .cache();
+            });
+            if (!started[0]) {
+                joined.increment();
+            }
+            return shared;
+        });
+    }
+
+    public String get(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > now) {
+                hits.increment();
+                return entry.value();
+            }
+            if (entry != null) {
+                remove(key, entry);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String key, String value) {
+        if (!isEnabled() || value == null || value.isBlank()) {
+            return;
+        }
+        long entryBytes = entryBytes(value);
+        if (entryBytes > config.getMaxBytes()) {
+            return;
+        }
+        Entry entry = new Entry(value, System.currentTimeMillis(), System.currentTimeMillis() + config.getTtlSeconds() * 1000);
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                currentBytes -= entryBytes(previous.value());
+            }
+            currentBytes += entryBytes;
+
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > config.getMaxEntries() || currentBytes > config.getMaxBytes()) && eldest.hasNext()) {
+                Map.Entry<String, Entry> evicted = eldest.next();
+                currentBytes -= entryBytes(evicted.getValue().value());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Очищает кэш; идущие генерации завершатся и запишут свои ответы
+     */
+    public int clear() {
+        synchronized (entries) {
+            int removed = entries.size();
+            entries.clear();
+            currentBytes = 0;
+            log.info("Кэш ответов LLM очищен: {} записей", removed);
+            return removed;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long bytes() {
+        synchronized (entries) {
+            return currentBytes;
+        }
+    }
+
+    /**
+     * Состояние кэша и последние использованные записи (без текста ответов)
+     */
+    public Map<String, Object> stats(int limit) {
+        List<Map<String, Object>> recent = new ArrayList<>();
+        synchronized (entries) {
+            List<Map.Entry<String, Entry>> ordered = new ArrayList<>(entries.entrySet());
+            for (int i = ordered.size() - 1; i >= 0 && recent.size() < limit; i--) {
+                Map.Entry<String, Entry> e = ordered.get(i);
+                recent.add(Map.of(
+                    "key", e.getKey(),
+                    "chars", e.getValue().value().length(),
+                    "createdAt", Instant.ofEpochMilli(e.getValue().createdAt()).toString(),
+                    "expiresAt", Instant.ofEpochMilli(e.getValue().expiresAt()).toString()
+                ));
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("entries", size());
+        stats.put("bytes", bytes());
+        stats.put("maxEntries", config.getMaxEntries());
+        stats.put("maxBytes", config.getMaxBytes());
+        stats.put("ttlSeconds", config.getTtlSeconds());
+        stats.put("inFlight", inFlight.size());
+        stats.put("hits", (long) hits.count());
+        stats.put("misses", (long) misses.count());
+        stats.put("joined", (long) joined.count());
+        stats.put("recent", recent);
+        return stats;
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        currentBytes -= entryBytes(entry.value());
+        evictions.increment();
+    }
+
+    private static long entryBytes(String value) {
+        return value.length() * 2L + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private record Entry(String value, long createdAt, long expiresAt) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.hr_assistant.service.external;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Бюджет токенов промпта LLM.
+ *
+ * Контекст модели (llm.context-tokens) делится между промптом и ответом (max_tokens). Число токенов
+ * оценивается без токенизатора модели: слово кириллицей — примерно токен на 3 символа, латиницей
+ * и цифрами — на 4, знак препинания — отдельный токен, пробел присоединяется к следующему слову.
+ * Оценка с запасом (llm.token-safety-margin), окончательную проверку по настоящему токенизатору
+ * делает llm-service.
+ */
+@Component
+@Slf4j
+public class PromptBudget {
+
+    private static final double CYRILLIC_CHARS_PER_TOKEN = 3.0;
+    private static final double LATIN_CHARS_PER_TOKEN = 4.0;
+    private static final String ELLIPSIS = "…";
+
+    private final int contextTokens;
+    private final double safetyMargin;
+
+    public PromptBudget(@Value("${llm.context-tokens:2048}") int contextTokens,
+                        @Value("${llm.token-safety-margin:0.1}") double safetyMargin) {
+        this.contextTokens = contextTokens;
+        this.safetyMargin = safetyMargin;
+    }
+
+    /**
+     * Токены, доступные промпту при заданной длине ответа
+     */
+    public int available(int maxOutputTokens) {
+        return Math.max(0, (int) ((contextTokens - maxOutputTokens) * (1 - safetyMargin)));
+    }
+
+    /**
+     * Оценка числа токенов текста
+     */
+    public int estimateTokens(String text) {
+        return text == null ? 0 : scan(text, Integer.MAX_VALUE)[1];
+    }
+
+    /**
+     * Подгоняет переменные поля промпта под бюджет. Шаблон (fixedText — все неизменяемые части промпта)
+     * сохраняется целиком, поля, не влезающие в бюджет, обрезаются по границе слова: короткие поля
+     * остаются полными, остаток бюджета делится поровну между длинными.
+     */
+    public String[] fit(int maxOutputTokens, String fixedText, String... fields) {
+        int budget = available(maxOutputTokens) - estimateTokens(fixedText);
+        int[] tokens = Arrays.stream(fields).mapToInt(this::estimateTokens).toArray();
+        if (Arrays.stream(tokens).sum() <= budget) {
+            return fields;
+        }
+
+        Integer[] order = new Integer[fields.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> tokens[i]));
+
+        String[] fitted = new String[fields.length];
+        int remaining = Math.max(0, budget);
+        for (int k = 0; k < order.length; k++) {
+            int i = order[k];
+            int share = remaining / (order.length - k);
+            fitted[i] = tokens[i] <= share ? fields[i] : truncate(fields[i], share);
+            remaining -= Math.min(tokens[i], share);
+        }
+        log.debug("Промпт LLM обрезан до {} токенов: поля {} -> {}", budget, Arrays.toString(tokens),
+            Arrays.toString(Arrays.stream(fitted).mapToInt(this::estimateTokens).toArray()));
+        return fitted;
+    }
+
+    /**
+     * Обрезает готовый промпт, если он не помещается в контекст
+     */
+    public String clamp(String prompt, int maxOutputTokens) {
+        if (prompt == null) {
+            return "";
+        }
+        int budget = available(maxOutputTokens);
+        if (estimateTokens(prompt) <= budget) {
+            return prompt;
+        }
+        log.warn("Промпт LLM ({} токенов) не помещается в бюджет {} и обрезан", estimateTokens(prompt), budget);
+        return truncate(prompt, budget);
+    }
+
+    private String truncate(String text, int tokens) {
+        if (tokens <= 1) {
+            return "";
+        }
+        int end = scan(text, tokens - 1)[0];
+        return text.substring(0, end).stripTrailing() + ELLIPSIS;
+    }
+
+    /**
+     * Проходит текст по словам, пока не исчерпан лимит токенов.
+     * Возвращает позицию конца последнего целого слова и число токенов до нее.
+     */
+    private int[] scan(String text, int limit) {
+        int tokens = 0;
+        int position = 0;
+        int length = text.length();
+        while (position < length) {
+            int start = position;
+            while (start < length && Character.isWhitespace(text.charAt(start))) {
+                start++;
+            }
+            if (start == length) {
+                break;
+            }
+            int end = start;
+            int cost;
+            if (Character.isLetterOrDigit(text.charAt(start))) {
+                int cyrillic = 0;
+                while (end < length && Character.isLetterOrDigit(text.charAt(end))) {
+                    if (Character.UnicodeBlock.of(text.charAt(end)) == Character.UnicodeBlock.CYRILLIC) {
+                        cyrillic++;
+                    }
+                    end++;
+                }
+                int latin = end - start - cyrillic;
+                cost = Math.max(1, (int) Math.ceil(cyrillic / CYRILLIC_CHARS_PER_TOKEN
+                    + latin / LATIN_CHARS_PER_TOKEN));
+            } else {
+                end = start + 1;
+                cost = 1;
+            }
+            if (tokens + cost > limit) {
+                break;
+            }
+            tokens += cost;
+            position = end;
+        }
+        return new int[]{position, tokens};
+    }
+}
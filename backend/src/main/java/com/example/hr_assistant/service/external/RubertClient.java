@@ -1,5 +1,6 @@
 package com.example.hr_assistant.service.external;
 
+import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,30 +8,105 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class RubertClient {
 
-    private final WebClient.Builder webClientBuilder;
+    private static final String SERVICE = "rubert";
+
+    private final ServiceResilience serviceResilience;
 
     @Value("${services.rubert.base-url:http://rubert:8093}")
     private String baseUrl;
 
+    private WebClient client;
+
+    @PostConstruct
+    public void init() {
+        client = serviceResilience.webClient(SERVICE, baseUrl);
+    }
+
     public ScoreResponse score(String answer, String requirement) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
+        return scoreAsync(answer, requirement).block();
+    }
+
+    public Mono<ScoreResponse> scoreAsync(String answer, String requirement) {
         ScoreRequest req = new ScoreRequest();
         req.setAnswer(answer);
         req.setRequirement(requirement);
-        return client.post()
-            .uri("/score")
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(req)
-            .retrieve()
-            .bodyToMono(ScoreResponse.class)
-            .doOnError(e -> log.error("ruBERT /score error: {}", e.getMessage()))
-            .block();
+        return serviceResilience.decorate(SERVICE, () -> client.post()
+                .uri("/score")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(req)
+                .retrieve()
+                .bodyToMono(ScoreResponse.class))
+            .doOnError(e -> log.error("ruBERT /score error: {}", e.getMessage()));
+    }
+
+    /**
+     * Оценка одного ответа по N требованиям за один вызов; порядок совпадает с requirements
+     */
+    public List<ScoreResponse> scoreBatch(String answer, List<String> requirements) {
+        return scoreBatchAsync(answer, requirements).block();
+    }
+
+    public Mono<List<ScoreResponse>> scoreBatchAsync(String answer, List<String> requirements) {
+        return scoreMatrix(List.of(answer), requirements)
+            .map(matrix -> matrix.row(0));
+    }
+
+    /**
+     * Оценка M ответов по N требованиям за один вызов /score/batch (контракт сервиса — матрица).
+     * Если сервис не поддерживает пакетную оценку (404), пары оцениваются параллельными вызовами /score.
+     */
+    private Mono<BatchScoreResponse> scoreMatrix(List<String> answers, List<String> requirements) {
+        if (answers.isEmpty() || requirements.isEmpty()) {
+            return Mono.just(new BatchScoreResponse());
+        }
+        BatchScoreRequest req = new BatchScoreRequest();
+        req.setAnswers(answers);
+        req.setRequirements(requirements);
+        return serviceResilience.decorate(SERVICE, () -> client.post()
+                .uri("/score/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(req)
+                .retrieve()
+                .bodyToMono(BatchScoreResponse.class))
+            .onErrorResume(WebClientResponseException.NotFound.class, e -> {
+                log.warn("ruBERT не поддерживает /score/batch, оцениваем пары по одной");
+                return scorePairs(answers, requirements);
+            })
+            .doOnError(e -> log.error("ruBERT /score/batch error: {}", e.getMessage()));
+    }
+
+    /**
+     * Оценка пар по одной. Параллелизм — четверть лимита bulkhead сервиса: вызовы не вытесняют
+     * друг друга и другие запросы к ruBERT отказом заполненного bulkhead
+     */
+    private Mono<BatchScoreResponse> scorePairs(List<String> answers, List<String> requirements) {
+        int columns = requirements.size();
+        int concurrency = Math.max(1, serviceResilience.maxConcurrentCalls(SERVICE) / 4);
+        return Flux.range(0, answers.size() * columns)
+            .flatMapSequential(i -> scoreAsync(answers.get(i / columns), requirements.get(i % columns)),
+                concurrency)
+            .collectList()
+            .map(pairs -> {
+                BatchScoreResponse response = new BatchScoreResponse();
+                for (int row = 0; row < answers.size(); row++) {
+                    List<ScoreResponse> rowPairs = pairs.subList(row * columns, (row + 1) * columns);
+                    response.getSimilarity().add(rowPairs.stream().map(ScoreResponse::getSimilarity).toList());
+                    response.getScore().add(rowPairs.stream().map(ScoreResponse::getScore).toList());
+                }
+                return response;
+            });
     }
 
     @Data
@@ -38,6 +114,30 @@ public class RubertClient {
 
     @Data
     public static class ScoreResponse { private double similarity; private double score; }
-}
 
+    @Data
+    public static class BatchScoreRequest { private List<String> answers; private List<String> requirements; }
+
+    /**
+     * Матрицы оценок: строка — ответ, столбец — требование
+     */
+    @Data
+    public static class BatchScoreResponse {
+        private List<List<Double>> similarity = new ArrayList<>();
+        private List<List<Double>> score = new ArrayList<>();
 
+        public List<ScoreResponse> row(int answerIndex) {
+            List<ScoreResponse> row = new ArrayList<>();
+            if (answerIndex >= score.size()) {
+                return row;
+            }
+            for (int i = 0; i < score.get(answerIndex).size(); i++) {
+                ScoreResponse response = new ScoreResponse();
+                response.setSimilarity(similarity.get(answerIndex).get(i));
+                response.setScore(score.get(answerIndex).get(i));
+                row.add(response);
+            }
+            return row;
+        }
+    }
+}
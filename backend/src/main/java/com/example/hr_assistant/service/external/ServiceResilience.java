@@ -0,0 +1,198 @@
+package com.example.hr_assistant.service.external;
+
+import com.example.hr_assistant.config.ResilienceConfig;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Устойчивые вызовы ML микросервисов по политикам {@link ResilienceConfig}.
+ *
+ * Каждая попытка ограничена bulkhead (лимит одновременных вызовов без ожидания; дублирующий запрос
+ * занимает место основного) и таймаутом ответа, результат учитывается circuit breaker'ом сервиса,
+ * неудачная попытка повторяется с задержкой.
+ * Разомкнутый circuit breaker или заполненный bulkhead отклоняют вызов сразу — клиенты в этом случае
+ * переходят на локальные fallback'и, не занимая потоки в ожидании недоступного сервиса.
+ * Метрики: resilience4j.circuitbreaker.*, resilience4j.bulkhead.*, resilience4j.retry.* с тегом name=сервис.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ServiceResilience {
+
+    private final ResilienceConfig resilienceConfig;
+    private final WebClient.Builder webClientBuilder;
+    private final ConnectionProvider httpConnectionProvider;
+    private final MeterRegistry meterRegistry;
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheadRegistry = BulkheadRegistry.ofDefaults();
+    private final RetryRegistry retryRegistry = RetryRegistry.ofDefaults();
+
+    @PostConstruct
+    public void init() {
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+        TaggedRetryMetrics.ofRetryRegistry(retryRegistry).bindTo(meterRegistry);
+    }
+
+    /**
+     * WebClient сервиса: общий пул соединений, таймауты соединения и ответа из политики сервиса
+     */
+    public WebClient webClient(String service, String baseUrl) {
+        ResilienceConfig.Policy policy = resilienceConfig.policy(service);
+        HttpClient httpClient = HttpClient.create(httpConnectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, policy.getConnectTimeoutMs().intValue())
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .keepAlive(true)
+            .responseTimeout(Duration.ofMillis(policy.getReadTimeoutMs()));
+        return webClientBuilder.clone()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .baseUrl(baseUrl)
+            .build();
+    }
+
+    /**
+     * Фабрика запросов RestTemplate с таймаутами из политики сервиса
+     */
+    public ClientHttpRequestFactory requestFactory(String service) {
+        ResilienceConfig.Policy policy = resilienceConfig.policy(service);
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(policy.getConnectTimeoutMs().intValue());
+        factory.setReadTimeout(policy.getReadTimeoutMs().intValue());
+        return factory;
+    }
+
+    /**
+     * Оборачивает реактивный вызов сервиса. Вызов создается заново на каждую попытку.
+     */
+    public <T> Mono<T> decorate(String service, Supplier<Mono<T>> call) {
+        ResilienceConfig.Policy policy = resilienceConfig.policy(service);
+        Mono<T> attempt = Mono.defer(call)
+            .timeout(Duration.ofMillis(policy.getReadTimeoutMs()));
+        if (policy.getHedgeDelayMs() > 0) {
+            Mono<T> single = attempt;
+            attempt = Mono.firstWithValue(single,
+                Mono.delay(Duration.ofMillis(policy.getHedgeDelayMs())).then(single));
+        }
+        // Bulkhead снаружи дублирования: основной и дублирующий запросы занимают одно место,
+        // и дубль не отклоняется заполненным bulkhead'ом
+        return attempt
+            .transformDeferred(BulkheadOperator.of(bulkhead(service)))
+            .transformDeferred(CircuitBreakerOperator.of(circuitBreaker(service)))
+            .transformDeferred(RetryOperator.of(retry(service)));
+    }
+
+    /**
+     * Оборачивает потоковый вызов сервиса (SSE). Повторов и дублирования нет: часть потока уже могла
+     * уйти клиенту. Таймаут чтения ограничивает ожидание первого и каждого следующего элемента,
+     * место в bulkhead занято до завершения или отмены потока.
+     */
+    public <T> Flux<T> decorateStream(String service, Supplier<Flux<T>> call) {
+        Duration readTimeout = Duration.ofMillis(resilienceConfig.policy(service).getReadTimeoutMs());
+        return Flux.defer(call)
+            .timeout(Mono.delay(readTimeout), item -> Mono.delay(readTimeout))
+            .transformDeferred(BulkheadOperator.of(bulkhead(service)))
+            .transformDeferred(CircuitBreakerOperator.of(circuitBreaker(service)));
+    }
+
+    /**
+     * Оборачивает блокирующий вызов сервиса (RestTemplate)
+     */
+    public <T> T call(String service, Supplier<T> call) {
+        Supplier<T> decorated = Bulkhead.decorateSupplier(bulkhead(service), call);
+        decorated = CircuitBreaker.decorateSupplier(circuitBreaker(service), decorated);
+        decorated = Retry.decorateSupplier(retry(service), decorated);
+        return decorated.get();
+    }
+
+    /**
+     * Лимит одновременных вызовов сервиса (bulkhead)
+     */
+    public int maxConcurrentCalls(String service) {
+        return resilienceConfig.policy(service).getMaxConcurrentCalls();
+    }
+
+    /**
+     * Вызов отклонен без обращения к сервису (circuit breaker разомкнут или bulkhead заполнен)
+     */
+    public static boolean isRejected(Throwable error) {
+        return error instanceof CallNotPermittedException || error instanceof BulkheadFullException;
+    }
+
+    private CircuitBreaker circuitBreaker(String service) {
+        return circuitBreakerRegistry.circuitBreaker(service, () -> {
+            ResilienceConfig.Policy policy = resilienceConfig.policy(service);
+            return CircuitBreakerConfig.custom()
+                .failureRateThreshold(policy.getFailureRateThreshold())
+                .slowCallRateThreshold(policy.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(Duration.ofMillis(policy.getSlowCallDurationMs()))
+                .slidingWindowSize(policy.getSlidingWindowSize())
+                .minimumNumberOfCalls(policy.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(Duration.ofMillis(policy.getOpenStateMs()))
+                .ignoreException(ServiceResilience::isClientError)
+                .build();
+        });
+    }
+
+    private Bulkhead bulkhead(String service) {
+        return bulkheadRegistry.bulkhead(service, () -> BulkheadConfig.custom()
+            .maxConcurrentCalls(resilienceConfig.policy(service).getMaxConcurrentCalls())
+            // Без ожидания: реактивный вызов не должен блокировать поток в очереди bulkhead
+            .maxWaitDuration(Duration.ZERO)
+            .build());
+    }
+
+    private Retry retry(String service) {
+        return retryRegistry.retry(service, () -> {
+            ResilienceConfig.Policy policy = resilienceConfig.policy(service);
+            return RetryConfig.custom()
+                .maxAttempts(Math.max(1, policy.getMaxAttempts()))
+                .waitDuration(Duration.ofMillis(policy.getRetryBackoffMs()))
+                .retryOnException(error -> !isRejected(error) && !isClientError(error))
+                .failAfterMaxAttempts(false)
+                .build();
+        });
+    }
+
+    /**
+     * Ошибка запроса (4xx) не говорит о неисправности сервиса и не повторяется
+     */
+    private static boolean isClientError(Throwable error) {
+        return error instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()
+            || error instanceof HttpClientErrorException;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.hr_assistant.service.external;
 
+import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,43 +9,58 @@ import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class TtsClient {
 
-    private final WebClient.Builder webClientBuilder;
+    private static final String SERVICE = "tts";
+
+    private final ServiceResilience serviceResilience;
 
     @Value("${services.tts.base-url:http://tts:8100}")
     private String baseUrl;
 
+    private WebClient client;
+
+    @PostConstruct
+    public void init() {
+        client = serviceResilience.webClient(SERVICE, baseUrl);
+    }
+
     public SynthesizeResponse synthesize(String text, String speaker, Double speed) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
+        return synthesizeAsync(text, speaker, speed).block();
+    }
+
+    public Mono<SynthesizeResponse> synthesizeAsync(String text, String speaker, Double speed) {
         SynthesizeRequest req = new SynthesizeRequest();
         req.setText(text);
         req.setSpeaker(speaker);
         req.setSpeed(speed);
-        return client.post()
-            .uri("/synthesize")
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(req)
-            .retrieve()
-            .bodyToMono(SynthesizeResponse.class)
-            .doOnError(e -> log.error("TTS synthesize error: {}", e.getMessage()))
-            .block();
+        return serviceResilience.decorate(SERVICE, () -> client.post()
+                .uri("/synthesize")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(req)
+                .retrieve()
+                .bodyToMono(SynthesizeResponse.class))
+            .doOnError(e -> log.error("TTS synthesize error: {}", e.getMessage()));
     }
 
     public byte[] download(String filename) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
-        ByteArrayResource res = client.get()
-            .uri("/audio/{filename}", filename)
-            .accept(MediaType.APPLICATION_OCTET_STREAM)
-            .retrieve()
-            .bodyToMono(ByteArrayResource.class)
+        return downloadAsync(filename).block();
+    }
+
+    public Mono<byte[]> downloadAsync(String filename) {
+        return serviceResilience.decorate(SERVICE, () -> client.get()
+                .uri("/audio/{filename}", filename)
+                .accept(MediaType.APPLICATION_OCTET_STREAM)
+                .retrieve()
+                .bodyToMono(ByteArrayResource.class))
             .doOnError(e -> log.error("TTS download error: {}", e.getMessage()))
-            .block();
-        return res != null ? res.getByteArray() : new byte[0];
+            .map(ByteArrayResource::getByteArray)
+            .defaultIfEmpty(new byte[0]);
     }
 
     @Data
@@ -1,5 +1,6 @@
 package com.example.hr_assistant.service.external;
 
+import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,43 +11,57 @@ import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class VideoAntifraudClient {
 
-    private final WebClient.Builder webClientBuilder;
+    private static final String SERVICE = "video-antifraud";
+
+    private final ServiceResilience serviceResilience;
 
     @Value("${services.video-antifraud.base-url:http://localhost:8091}")
     private String baseUrl;
 
+    private WebClient client;
+
+    @PostConstruct
+    public void init() {
+        client = serviceResilience.webClient(SERVICE, baseUrl);
+    }
+
     public VerifyResponse verify(byte[] content, String filename, String contentType) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
+        return verifyAsync(content, filename, contentType).block();
+    }
+
+    public Mono<VerifyResponse> verifyAsync(byte[] content, String filename, String contentType) {
         MultipartBodyBuilder mb = new MultipartBodyBuilder();
         mb.part("file", new ByteArrayResource(content) { @Override public String getFilename() { return filename; }})
             .header("Content-Type", contentType);
-        return client.post().uri("/verify")
-            .contentType(MediaType.MULTIPART_FORM_DATA)
-            .body(BodyInserters.fromMultipartData(mb.build()))
-            .retrieve()
-            .bodyToMono(VerifyResponse.class)
-            .doOnError(e -> log.error("Ошибка /verify: {}", e.getMessage()))
-            .block();
+        return serviceResilience.decorate(SERVICE, () -> client.post().uri("/verify")
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(mb.build()))
+                .retrieve()
+                .bodyToMono(VerifyResponse.class))
+            .doOnError(e -> log.error("Ошибка /verify: {}", e.getMessage()));
     }
 
     public LivenessResponse liveness(byte[] content, String filename, String contentType) {
-        WebClient client = webClientBuilder.baseUrl(baseUrl).build();
+        return livenessAsync(content, filename, contentType).block();
+    }
+
+    public Mono<LivenessResponse> livenessAsync(byte[] content, String filename, String contentType) {
         MultipartBodyBuilder mb = new MultipartBodyBuilder();
         mb.part("file", new ByteArrayResource(content) { @Override public String getFilename() { return filename; }})
             .header("Content-Type", contentType);
-        return client.post().uri("/liveness")
-            .contentType(MediaType.MULTIPART_FORM_DATA)
-            .body(BodyInserters.fromMultipartData(mb.build()))
-            .retrieve()
-            .bodyToMono(LivenessResponse.class)
-            .doOnError(e -> log.error("Ошибка /liveness: {}", e.getMessage()))
-            .block();
+        return serviceResilience.decorate(SERVICE, () -> client.post().uri("/liveness")
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(mb.build()))
+                .retrieve()
+                .bodyToMono(LivenessResponse.class))
+            .doOnError(e -> log.error("Ошибка /liveness: {}", e.getMessage()));
     }
 
     @Data
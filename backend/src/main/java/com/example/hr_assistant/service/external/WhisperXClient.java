@@ -1,5 +1,7 @@
 package com.example.hr_assistant.service.external;
 
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpEntity;
@@ -14,13 +16,23 @@ import org.springframework.web.client.RestTemplate;
 import java.io.File;
 
 @Service
+@RequiredArgsConstructor
 public class WhisperXClient {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final String SERVICE = "whisperx";
+
+    private final ServiceResilience serviceResilience;
+
+    private RestTemplate restTemplate;
 
     @Value("${whisperx.url:http://localhost:9000}")
     private String whisperxUrl;
 
+    @PostConstruct
+    public void init() {
+        restTemplate = new RestTemplate(serviceResilience.requestFactory(SERVICE));
+    }
+
     public String transcribe(
             File audioFile,
             String language,
@@ -47,7 +59,8 @@ public class WhisperXClient {
         if (maxSpeakers != null) body.add("max_speakers", String.valueOf(maxSpeakers));
 
         HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-        ResponseEntity<String> response = restTemplate.postForEntity(url, requestEntity, String.class);
+        ResponseEntity<String> response = serviceResilience.call(SERVICE,
+            () -> restTemplate.postForEntity(url, requestEntity, String.class));
         return response.getBody();
     }
 }
@@ -5,84 +5,201 @@ package com.example.hr_assistant.service.ml;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
+import ai.djl.translate.TranslateException;
+import com.example.hr_assistant.config.MlModelsConfig;
 import com.example.hr_assistant.model.Transcript;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Сервис для автоматического распознавания речи (ASR)
+ *
+ * Аудио декодируется потоково (ffmpeg → 16 кГц float PCM) и подается в Whisper окнами
+ * ml.models.asr.window-seconds с перекрытием overlap-seconds. Тексты соседних окон склеиваются
+ * с удалением повторов на перекрытии. Потребление памяти не зависит от длины записи.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AsrService {
 
+    private static final int MAX_OVERLAP_WORDS = 30;
+
     private final ModelManager modelManager;
-    private static final int SAMPLE_RATE = 16000;
+    private final AudioDecoder audioDecoder;
+    private final MlModelsConfig mlModelsConfig;
+    private final ObjectMapper objectMapper;
 
     /**
-     * Транскрибирует аудио файл в текст
+     * Распознанный фрагмент записи
      */
-    public Transcript transcribeAudio(byte[] audioData, String language) {
+    public record Segment(long startMs, long endMs, String text, double confidence) {
+    }
+
+    /**
+     * Транскрибирует аудио из потока. Поток не закрывается.
+     */
+    public Transcript transcribeStream(InputStream audio, String language) {
         long startTime = System.currentTimeMillis();
-        
+
         try {
             if (!modelManager.isModelLoaded("whisper")) {
                 throw new IllegalStateException("Whisper модель не загружена");
             }
 
-            // Загружаем аудио (упрощенная версия без DJL Audio)
-            // В реальной реализации нужно использовать библиотеку для работы с аудио
-            // Например, librosa или аналогичную
-            
-            // Создаем заглушку для аудио данных
-            NDArray audioArray = createAudioArray(audioData);
-            
-            // Выполняем транскрипцию
-            ai.djl.inference.Predictor<Object, Object> predictor = modelManager.getPredictor("whisper");
-            NDList input = new NDList(audioArray);
-            @SuppressWarnings("unchecked")
-            NDList output = (NDList) predictor.predict(input);
-            
-            // Извлекаем результат
-            String transcript = extractTranscript(output);
-            double confidence = extractConfidence(output);
-            
-            // Создаем объект транскрипции
-            Transcript result = new Transcript();
-            result.setText(transcript);
-            result.setAsrConfidence(confidence);
+            List<Segment> segments = new ArrayList<>();
+            audioDecoder.decode(audio, newWindower(segments::add));
+
+            Transcript result = toTranscript(segments);
             result.setLanguage(language);
             result.setProcessingTimeMs(System.currentTimeMillis() - startTime);
-            
-            log.info("Транскрипция завершена за {} мс, confidence: {}", 
-                result.getProcessingTimeMs(), confidence);
-            
+
+            log.info("Транскрипция завершена за {} мс: {} окон, confidence: {}",
+                result.getProcessingTimeMs(), segments.size(), result.getAsrConfidence());
+
             return result;
-            
+
         } catch (Exception e) {
             log.error("Ошибка при транскрипции аудио: {}", e.getMessage(), e);
             throw new RuntimeException("Ошибка транскрипции", e);
         }
     }
 
+    /**
+     * Транскрибирует аудио в памяти
+     */
+    public Transcript transcribeAudio(byte[] audioData, String language) {
+        return transcribeStream(new ByteArrayInputStream(audioData), language);
+    }
+
     /**
      * Транскрибирует аудио файл по пути
      */
     public Transcript transcribeAudioFile(Path audioFilePath, String language) {
-        try {
-            byte[] audioData = java.nio.file.Files.readAllBytes(audioFilePath);
-            return transcribeAudio(audioData, language);
+        try (InputStream audio = Files.newInputStream(audioFilePath)) {
+            return transcribeStream(audio, language);
         } catch (IOException e) {
             log.error("Ошибка при чтении аудио файла: {}", e.getMessage(), e);
             throw new RuntimeException("Ошибка чтения аудио файла", e);
         }
     }
 
+    /**
+     * Создает нарезчик окон с параметрами ml.models.asr, каждое окно распознается и передается в sink
+     */
+    public PcmWindower newWindower(Consumer<Segment> sink) {
+        MlModelsConfig.Asr asr = mlModelsConfig.getAsr();
+        int sampleRate = asr.getSampleRate();
+        return new PcmWindower(asr.getWindowSeconds() * sampleRate, asr.getOverlapSeconds() * sampleRate,
+            (window, length, startSample) -> sink.accept(transcribeWindow(window, length, startSample)));
+    }
+
+    /**
+     * Распознает одно окно. Хвост окна после length должен быть заполнен нулями.
+     */
+    public Segment transcribeWindow(float[] window, int length, long startSample) {
+        int sampleRate = mlModelsConfig.getAsr().getSampleRate();
+        try (NDManager manager = NDManager.newBaseManager()) {
+            NDList output = modelManager.predict("whisper", new NDList(manager.create(window)));
+            long startMs = startSample * 1000 / sampleRate;
+            long endMs = (startSample + length) * 1000 / sampleRate;
+            return new Segment(startMs, endMs, extractTranscript(output), extractConfidence(output));
+        } catch (TranslateException e) {
+            throw new RuntimeException("Ошибка распознавания окна с сэмпла " + startSample, e);
+        }
+    }
+
+    /**
+     * Собирает транскрипцию из окон: текст склеивается без повторов на перекрытии,
+     * confidence усредняется с весом по длительности окна.
+     * В wordsJson пишутся фрагменты с таймкодами (текст фрагмента — без повтора перекрытия).
+     */
+    public Transcript toTranscript(List<Segment> segments) {
+        StringBuilder text = new StringBuilder();
+        List<Segment> stitched = new ArrayList<>(segments.size());
+        double weightedConfidence = 0;
+        long totalMs = 0;
+        for (Segment segment : segments) {
+            String appended = appendWithoutOverlap(text, segment.text());
+            if (!appended.isEmpty()) {
+                stitched.add(new Segment(segment.startMs(), segment.endMs(), appended, segment.confidence()));
+            }
+            long duration = Math.max(1, segment.endMs() - segment.startMs());
+            weightedConfidence += segment.confidence() * duration;
+            totalMs += duration;
+        }
+
+        Transcript result = new Transcript();
+        result.setText(text.toString());
+        result.setAsrConfidence(totalMs > 0 ? weightedConfidence / totalMs : 0.0);
+        try {
+            result.setWordsJson(objectMapper.writeValueAsString(stitched));
+        } catch (JsonProcessingException e) {
+            log.warn("Не удалось сериализовать фрагменты транскрипции: {}", e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Дописывает текст окна, пропуская самое длинное совпадение конца накопленного текста с началом нового.
+     * Возвращает фактически добавленную часть.
+     */
+    static String appendWithoutOverlap(StringBuilder text, String next) {
+        if (next == null || next.isBlank()) {
+            return "";
+        }
+        String[] nextWords = next.trim().split("\\s+");
+        String[] tailWords = tailWords(text, MAX_OVERLAP_WORDS);
+
+        int overlap = 0;
+        for (int k = Math.min(tailWords.length, nextWords.length); k > 0; k--) {
+            boolean matches = true;
+            for (int i = 0; i < k && matches; i++) {
+                matches = tailWords[tailWords.length - k + i].equalsIgnoreCase(nextWords[i]);
+            }
+            if (matches) {
+                overlap = k;
+                break;
+            }
+        }
+
+        int appendedFrom = text.length();
+        for (int i = overlap; i < nextWords.length; i++) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(nextWords[i]);
+        }
+        return text.substring(appendedFrom).trim();
+    }
+
+    private static String[] tailWords(StringBuilder text, int maxWords) {
+        int start = text.length();
+        int words = 0;
+        while (start > 0 && words < maxWords) {
+            start = text.lastIndexOf(" ", start - 1);
+            words++;
+            if (start < 0) {
+                start = 0;
+                break;
+            }
+        }
+        String tail = text.substring(start).trim();
+        return tail.isEmpty() ? new String[0] : tail.split("\\s+");
+    }
+
     /**
      * Извлекает текст транскрипции из выхода модели
      */
@@ -126,28 +243,4 @@ public class AsrService {
     public String[] getSupportedLanguages() {
         return new String[]{"ru", "en"};
     }
-
-    /**
-     * Создает NDArray из аудио данных (заглушка)
-     */
-    private NDArray createAudioArray(byte[] audioData) {
-        try (NDManager manager = NDManager.newBaseManager()) {
-            // В реальной реализации нужно:
-            // 1. Декодировать аудио файл
-            // 2. Нормализовать sample rate до 16kHz
-            // 3. Преобразовать в float array
-            // 4. Создать NDArray
-            
-            // Заглушка - создаем случайный массив
-            float[] audioFloats = new float[16000]; // 1 секунда при 16kHz
-            for (int i = 0; i < audioFloats.length; i++) {
-                audioFloats[i] = (float) (Math.random() * 2 - 1); // [-1, 1]
-            }
-            
-            return manager.create(audioFloats);
-        } catch (Exception e) {
-            log.error("Ошибка при создании аудио массива: {}", e.getMessage());
-            throw new RuntimeException("Ошибка обработки аудио", e);
-        }
-    }
 }
@@ -0,0 +1,172 @@
+package com.example.hr_assistant.service.ml;
+
+import com.example.hr_assistant.config.MlModelsConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.Loader;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Потоковое декодирование аудио через процесс ffmpeg.
+ *
+ * Контейнер (webm, mp4, wav, ...) подается в stdin процесса, из stdout читается моно float32 PCM
+ * с частотой ml.models.asr.sample-rate. Ни исходный файл, ни декодированный сигнал целиком в памяти не хранятся.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AudioDecoder {
+
+    private final MlModelsConfig mlModelsConfig;
+
+    private volatile String ffmpegBinary;
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService pumpExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "audio-decoder-pump-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        pumpExecutor.shutdownNow();
+    }
+
+    /**
+     * Запускает процесс декодирования. Вызывающий пишет контейнер в {@link PcmStream#input()}
+     * и читает сэмплы через {@link PcmStream#read(float[])}.
+     */
+    public PcmStream open() throws IOException {
+        MlModelsConfig.Asr asr = mlModelsConfig.getAsr();
+        ProcessBuilder builder = new ProcessBuilder(List.of(
+            resolveBinary(), "-hide_banner", "-nostdin", "-loglevel", "error",
+            "-i", "pipe:0", "-vn", "-ac", "1", "-ar", String.valueOf(asr.getSampleRate()),
+            "-f", "f32le", "pipe:1"));
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        return new PcmStream(builder.start(), asr.getReadBufferBytes());
+    }
+
+    /**
+     * Декодирует поток целиком и передает сэмплы в windower. Вход закрывается вызывающим.
+     */
+    public void decode(InputStream audio, PcmWindower windower) throws IOException {
+        try (PcmStream stream = open()) {
+            Future<?> pump = pumpExecutor.submit(() -> {
+                try (OutputStream input = stream.input()) {
+                    audio.transferTo(input);
+                } catch (IOException e) {
+                    // ffmpeg закрыл stdin раньше (ошибка формата) — причина будет в коде завершения
+                    log.debug("Передача аудио в ffmpeg прервана: {}", e.getMessage());
+                }
+            });
+
+            float[] samples = new float[mlModelsConfig.getAsr().getReadBufferBytes() / Float.BYTES];
+            int count;
+            while ((count = stream.read(samples)) >= 0) {
+                windower.feed(samples, 0, count);
+            }
+            windower.flush();
+
+            pump.cancel(true);
+            int exitCode = stream.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("ffmpeg завершился с кодом " + exitCode);
+            }
+        }
+    }
+
+    private String resolveBinary() {
+        String binary = ffmpegBinary;
+        if (binary == null) {
+            String configured = mlModelsConfig.getAsr().getFfmpegPath();
+            binary = configured != null && !configured.isBlank()
+                ? configured
+                : Loader.load(org.bytedeco.ffmpeg.ffmpeg.class);
+            log.info("ffmpeg для декодирования аудио: {}", binary);
+            ffmpegBinary = binary;
+        }
+        return binary;
+    }
+
+    /**
+     * Запущенный процесс ffmpeg: вход — контейнер, выход — float32 little-endian PCM
+     */
+    public static final class PcmStream implements Closeable {
+
+        private final Process process;
+        private final InputStream output;
+        private final byte[] buffer;
+        private int carried;
+
+        PcmStream(Process process, int bufferBytes) {
+            this.process = process;
+            this.output = process.getInputStream();
+            this.buffer = new byte[Math.max(Float.BYTES, bufferBytes - bufferBytes % Float.BYTES)];
+        }
+
+        public OutputStream input() {
+            return process.getOutputStream();
+        }
+
+        /**
+         * Читает доступные сэмплы (не больше dst.length и размера буфера). Возвращает -1 в конце потока.
+         */
+        public int read(float[] dst) throws IOException {
+            int limit = Math.min(buffer.length, dst.length * Float.BYTES);
+            while (true) {
+                int read = output.read(buffer, carried, limit - carried);
+                if (read < 0) {
+                    return -1;
+                }
+                int available = carried + read;
+                int samples = available / Float.BYTES;
+                if (samples == 0) {
+                    carried = available;
+                    continue;
+                }
+                ByteBuffer.wrap(buffer, 0, samples * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer()
+                    .get(dst, 0, samples);
+                carried = available - samples * Float.BYTES;
+                System.arraycopy(buffer, samples * Float.BYTES, buffer, 0, carried);
+                return samples;
+            }
+        }
+
+        public int waitFor() throws IOException {
+            try {
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                    throw new IOException("ffmpeg не завершился вовремя");
+                }
+                return process.exitValue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+                throw new IOException("Ожидание ffmpeg прервано", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+}
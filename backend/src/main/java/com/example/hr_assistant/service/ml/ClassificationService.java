@@ -1,14 +1,17 @@
 package com.example.hr_assistant.service.ml;
 
-import ai.djl.ndarray.NDArray;
-import ai.djl.ndarray.NDList;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.beans.factory.annotation.Value;
+import com.example.hr_assistant.model.Vacancy;
 import com.example.hr_assistant.service.external.RubertClient;
 
 /**
@@ -23,6 +26,8 @@ public class ClassificationService {
     private final EmbeddingService embeddingService;
     private final TextTokenizer textTokenizer;
     private final RubertClient rubertClient;
+    private final InferenceBatcher inferenceBatcher;
+    private final RequirementEmbeddingIndex requirementEmbeddingIndex;
 
     @Value("${features.rubert.enabled:false}")
     private boolean rubertEnabled;
@@ -35,36 +40,27 @@ public class ClassificationService {
         
         try {
             if (rubertEnabled) {
-                for (Map.Entry<String, String> requirement : requirements.entrySet()) {
-                    String competency = requirement.getKey();
-                    String requirementText = requirement.getValue();
-                    RubertClient.ScoreResponse r = rubertClient.score(answer, requirementText);
-                    results.put(competency, r != null ? r.getScore() : 0.0);
-                }
-                return results;
+                return classifyWithRubert(answer, requirements);
             }
             if (!modelManager.isModelLoaded("classifier")) {
                 log.warn("Модель классификатора не загружена, используем эмбеддинги");
                 return classifyWithEmbeddings(answer, requirements);
             }
 
-            ai.djl.inference.Predictor<Object, Object> predictor = modelManager.getPredictor("classifier");
-            
+            // Ставим все пары (ответ, требование) в очередь сразу — батчер выполнит их одним проходом
+            Map<String, CompletableFuture<InferenceBatcher.InferenceResult>> pending = new LinkedHashMap<>();
             for (Map.Entry<String, String> requirement : requirements.entrySet()) {
-                String competency = requirement.getKey();
-                String requirementText = requirement.getValue();
-                
-                // Подготавливаем данные для классификации
-                NDList input = prepareClassificationInput(answer, requirementText);
-                
-                // Выполняем классификацию
-                @SuppressWarnings("unchecked")
-                NDList output = (NDList) predictor.predict(input);
-                
+                long[][] input = prepareClassificationInput(answer, requirement.getValue());
+                pending.put(requirement.getKey(), inferenceBatcher.submit("classifier", input));
+            }
+
+            for (Map.Entry<String, CompletableFuture<InferenceBatcher.InferenceResult>> entry : pending.entrySet()) {
+                String competency = entry.getKey();
+
                 // Извлекаем результат (0, 0.5, 1)
-                double score = extractClassificationScore(output);
+                double score = extractClassificationScore(entry.getValue().join().output(0));
                 results.put(competency, score);
-                
+
                 log.debug("Классификация для {}: {}", competency, score);
             }
             
@@ -77,21 +73,95 @@ public class ClassificationService {
         return results;
     }
 
+    /**
+     * Классифицирует соответствие ответа требованиям вакансии.
+     * Для классификатора-пар нужны тексты требований; при классификации по эмбеддингам
+     * векторы требований берутся из предрасчитанного индекса, и считается только эмбеддинг ответа.
+     */
+    public Map<String, Double> classifyCompliance(String answer, Vacancy vacancy) {
+        Map<String, String> requirements = RequirementEmbeddingIndex.requirementTexts(vacancy);
+        if (requirements.isEmpty()) {
+            return new HashMap<>();
+        }
+        if (rubertEnabled || modelManager.isModelLoaded("classifier")) {
+            return classifyCompliance(answer, requirements);
+        }
+
+        try {
+            Map<String, float[]> requirementEmbeddings = requirementEmbeddingIndex.getEmbeddings(vacancy);
+            if (requirementEmbeddings.size() == requirements.size()) {
+                return classifyWithEmbeddings(embeddingService.createEmbedding(answer), requirementEmbeddings);
+            }
+        } catch (Exception e) {
+            log.error("Ошибка при чтении индекса требований вакансии {}: {}", vacancy.getId(), e.getMessage());
+        }
+        return classifyWithEmbeddings(answer, requirements);
+    }
+
+    /**
+     * Классификация сервисом ruBERT: все требования оцениваются одним вызовом /score/batch.
+     * Если ruBERT недоступен (circuit breaker разомкнут, таймаут, ошибка) — классификация по эмбеддингам.
+     */
+    private Map<String, Double> classifyWithRubert(String answer, Map<String, String> requirements) {
+        try {
+            List<String> competencies = new ArrayList<>(requirements.keySet());
+            List<RubertClient.ScoreResponse> scores = rubertClient.scoreBatch(answer,
+                competencies.stream().map(requirements::get).toList());
+            if (scores == null || scores.size() != competencies.size()) {
+                throw new IllegalStateException("ruBERT вернул " + (scores == null ? 0 : scores.size())
+                    + " оценок для " + competencies.size() + " требований");
+            }
+            Map<String, Double> results = new HashMap<>();
+            for (int i = 0; i < competencies.size(); i++) {
+                results.put(competencies.get(i), scores.get(i).getScore());
+            }
+            return results;
+        } catch (Exception e) {
+            log.warn("ruBERT недоступен ({}), используем эмбеддинги", e.getMessage());
+            return classifyWithEmbeddings(answer, requirements);
+        }
+    }
+
     /**
      * Классификация с использованием эмбеддингов (fallback)
      */
     private Map<String, Double> classifyWithEmbeddings(String answer, Map<String, String> requirements) {
+        try {
+            float[] answerEmbedding = embeddingService.createEmbedding(answer);
+            List<String> competencies = new ArrayList<>(requirements.keySet());
+            List<float[]> embeddings = embeddingService.createEmbeddings(
+                competencies.stream().map(requirements::get).toList());
+            
+            Map<String, float[]> requirementEmbeddings = new LinkedHashMap<>();
+            for (int i = 0; i < competencies.size(); i++) {
+                requirementEmbeddings.put(competencies.get(i), embeddings.get(i));
+            }
+            return classifyWithEmbeddings(answerEmbedding, requirementEmbeddings);
+            
+        } catch (Exception e) {
+            log.error("Ошибка при классификации с эмбеддингами: {}", e.getMessage(), e);
+            // Возвращаем нулевые оценки
+            Map<String, Double> results = new HashMap<>();
+            requirements.keySet().forEach(competency -> results.put(competency, 0.0));
+            return results;
+        }
+    }
+
+    /**
+     * Оценивает ответ по косинусному сходству с готовыми эмбеддингами требований
+     */
+    private Map<String, Double> classifyWithEmbeddings(float[] answerEmbedding, Map<String, float[]> requirementEmbeddings) {
         Map<String, Double> results = new HashMap<>();
         
         try {
-            float[] answerEmbedding = embeddingService.createEmbedding(answer);
+            // Сходство со всеми требованиями считается одним проходом по матрице эмбеддингов
+            List<String> competencies = new ArrayList<>(requirementEmbeddings.keySet());
+            float[] similarities = embeddingService.cosineSimilarities(answerEmbedding,
+                new ArrayList<>(requirementEmbeddings.values()));
             
-            for (Map.Entry<String, String> requirement : requirements.entrySet()) {
-                String competency = requirement.getKey();
-                String requirementText = requirement.getValue();
-                
-                float[] requirementEmbedding = embeddingService.createEmbedding(requirementText);
-                double similarity = embeddingService.cosineSimilarity(answerEmbedding, requirementEmbedding);
+            for (int i = 0; i < competencies.size(); i++) {
+                String competency = competencies.get(i);
+                double similarity = similarities[i];
                 
                 // Преобразуем similarity в score (0, 0.5, 1)
                 double score = convertSimilarityToScore(similarity);
@@ -104,7 +174,7 @@ public class ClassificationService {
         } catch (Exception e) {
             log.error("Ошибка при классификации с эмбеддингами: {}", e.getMessage(), e);
             // Возвращаем нулевые оценки
-            requirements.keySet().forEach(competency -> results.put(competency, 0.0));
+            requirementEmbeddings.keySet().forEach(competency -> results.put(competency, 0.0));
         }
         
         return results;
@@ -113,31 +183,31 @@ public class ClassificationService {
     /**
      * Подготавливает входные данные для классификатора
      */
-    private NDList prepareClassificationInput(String answer, String requirement) {
-        return textTokenizer.tokenizePair(answer, requirement);
+    private long[][] prepareClassificationInput(String answer, String requirement) {
+        return textTokenizer.encodePair("classifier", answer, requirement);
     }
 
     /**
-     * Извлекает оценку классификации из выхода модели
+     * Извлекает оценку классификации из logits модели.
+     * Три класса соответствуют оценкам 0 / 0.5 / 1, один logit — бинарному классификатору.
      */
-    private double extractClassificationScore(NDList output) {
-        try {
-            // В реальной реализации нужно:
-            // 1. Получить logits из выхода модели
-            // 2. Применить softmax
-            // 3. Выбрать класс с максимальной вероятностью
-            // 4. Преобразовать в score (0, 0.5, 1)
-            
-            // Заглушка - случайная оценка
-            double random = Math.random();
-            if (random < 0.3) return 0.0;
-            if (random < 0.7) return 0.5;
-            return 1.0;
-            
-        } catch (Exception e) {
-            log.error("Ошибка при извлечении оценки: {}", e.getMessage());
+    private double extractClassificationScore(float[] logits) {
+        if (logits.length == 0) {
             return 0.0;
         }
+        if (logits.length == 1) {
+            double probability = 1.0 / (1.0 + Math.exp(-logits[0]));
+            if (probability >= 0.7) return 1.0;
+            if (probability >= 0.4) return 0.5;
+            return 0.0;
+        }
+
+        // softmax монотонен, поэтому класс с максимальной вероятностью — argmax logits
+        int best = 0;
+        for (int i = 1; i < Math.min(logits.length, 3); i++) {
+            if (logits[i] > logits[best]) best = i;
+        }
+        return best * 0.5;
     }
 
     /**
@@ -0,0 +1,231 @@
+package com.example.hr_assistant.service.ml;
+
+import com.example.hr_assistant.config.EmbeddingCacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Кэш эмбеддингов текста.
+ *
+ * Ключ — SHA-256 нормализованного текста и версия модели, поэтому замена модели не отдает старые векторы.
+ * Локальный уровень — LRU, ограниченный числом записей и объемом памяти.
+ * Второй уровень (Redis, ml.cache.embeddings.redis.enabled) разделяет кэш между репликами backend;
+ * ошибки Redis не прерывают расчет, а только дают промах.
+ *
+ * Возвращаемые массивы разделяются между вызовами и не должны изменяться.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddingCache {
+
+    /** Оценка накладных расходов записи: заголовки массива, ключ, узел LinkedHashMap */
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final EmbeddingCacheConfig config;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<RedisTemplate<String, byte[]>> redisTemplateProvider;
+
+    private final LinkedHashMap<String, float[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+
+    private RedisTemplate<String, byte[]> redisTemplate;
+    private Counter localHits;
+    private Counter redisHits;
+    private Counter misses;
+    private Counter evictions;
+    private Counter redisErrors;
+
+    @PostConstruct
+    public void init() {
+        redisTemplate = Boolean.TRUE.equals(config.getRedis().getEnabled()) ? redisTemplateProvider.getIfAvailable() : null;
+        localHits = Counter.builder("hr.embeddings.cache.hits")
+            .description("Попадания в кэш эмбеддингов")
+            .tag("tier", "local")
+            .register(meterRegistry);
+        redisHits = Counter.builder("hr.embeddings.cache.hits")
+            .description("Попадания в кэш эмбеддингов")
+            .tag("tier", "redis")
+            .register(meterRegistry);
+        misses = Counter.builder("hr.embeddings.cache.misses")
+            .description("Промахи кэша эмбеддингов")
+            .register(meterRegistry);
+        evictions = Counter.builder("hr.embeddings.cache.evictions")
+            .description("Вытеснения из локального кэша эмбеддингов")
+            .register(meterRegistry);
+        redisErrors = Counter.builder("hr.embeddings.cache.redis.errors")
+            .description("Ошибки обращения к Redis кэшу эмбеддингов")
+            .register(meterRegistry);
+        Gauge.builder("hr.embeddings.cache.entries", this, EmbeddingCache::size)
+            .description("Количество записей в локальном кэше эмбеддингов")
+            .register(meterRegistry);
+        Gauge.builder("hr.embeddings.cache.bytes", this, EmbeddingCache::bytes)
+            .description("Оценка памяти локального кэша эмбеддингов")
+            .register(meterRegistry);
+        log.info("Кэш эмбеддингов: maxEntries={}, maxBytes={}, redis={}",
+            config.getMaxEntries(), config.getMaxBytes(), redisTemplate != null);
+    }
+
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(config.getEnabled());
+    }
+
+    /**
+     * Ключ кэша: хэш нормализованного текста + версия модели.
+     * foldCase — модель не различает регистр (токенизатор приводит текст к нижнему регистру);
+     * для модели с регистром "Java" и "java" получают разные векторы и разные ключи.
+     */
+    public String key(String text, String modelVersion, boolean foldCase) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(normalize(text, foldCase).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash) + ":" + (modelVersion != null ? modelVersion : "unknown");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Нормализация текста: NFC, нижний регистр (если foldCase), схлопывание пробелов
+     */
+    static String normalize(String text, boolean foldCase) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC);
+        if (foldCase) {
+            normalized = normalized.toLowerCase(Locale.ROOT);
+        }
+        return normalized.trim().replaceAll("\\s+", " ");
+    }
+
+    public float[] get(String key) {
+        return getAll(List.of(key)).get(key);
+    }
+
+    /**
+     * Ищет ключи сначала в локальном кэше, затем одним запросом в Redis.
+     * Найденные в Redis значения поднимаются в локальный уровень.
+     */
+    public Map<String, float[]> getAll(List<String> keys) {
+        Map<String, float[]> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (entries) {
+            for (String key : keys) {
+                float[] value = entries.get(key);
+                if (value != null) {
+                    found.put(key, value);
+                } else {
+                    missing.add(key);
+                }
+            }
+        }
+        localHits.increment(found.size());
+
+        if (!missing.isEmpty() && redisTemplate != null) {
+            String prefix = config.getRedis().getKeyPrefix();
+            try {
+                List<byte[]> values = redisTemplate.opsForValue().multiGet(missing.stream().map(k -> prefix + k).toList());
+                if (values != null) {
+                    for (int i = 0; i < missing.size(); i++) {
+                        byte[] bytes = values.get(i);
+                        if (bytes != null) {
+                            float[] embedding = EmbeddingCodec.decode(bytes);
+                            found.put(missing.get(i), embedding);
+                            putLocal(missing.get(i), embedding);
+                            redisHits.increment();
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                redisErrors.increment();
+                log.debug("Ошибка чтения кэша эмбеддингов из Redis: {}", e.getMessage());
+            }
+        }
+
+        misses.increment(keys.size() - found.size());
+        return found;
+    }
+
+    public void put(String key, float[] embedding) {
+        putLocal(key, embedding);
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.opsForValue().set(config.getRedis().getKeyPrefix() + key, EmbeddingCodec.encode(embedding),
+                    Duration.ofSeconds(config.getRedis().getTtlSeconds()));
+            } catch (Exception e) {
+                redisErrors.increment();
+                log.debug("Ошибка записи кэша эмбеддингов в Redis: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void putLocal(String key, float[] embedding) {
+        long entryBytes = entryBytes(key, embedding);
+        if (entryBytes > config.getMaxBytes()) {
+            return;
+        }
+        synchronized (entries) {
+            float[] previous = entries.put(key, embedding);
+            if (previous != null) {
+                currentBytes -= entryBytes(key, previous);
+            }
+            currentBytes += entryBytes;
+
+            Iterator<Map.Entry<String, float[]>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > config.getMaxEntries() || currentBytes > config.getMaxBytes()) && eldest.hasNext()) {
+                Map.Entry<String, float[]> entry = eldest.next();
+                currentBytes -= entryBytes(entry.getKey(), entry.getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Очищает локальный уровень (Redis истекает по TTL)
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            currentBytes = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long bytes() {
+        synchronized (entries) {
+            return currentBytes;
+        }
+    }
+
+    private static long entryBytes(String key, float[] embedding) {
+        return (long) embedding.length * Float.BYTES + key.length() * 2L + ENTRY_OVERHEAD_BYTES;
+    }
+}
@@ -1,14 +1,18 @@
 package com.example.hr_assistant.service.ml;
 
-import ai.djl.ndarray.NDArray;
-import ai.djl.ndarray.NDList;
-import ai.djl.ndarray.NDManager;
+import com.example.hr_assistant.service.external.EmbedClient;
+import com.example.hr_assistant.service.ml.similarity.SimilarityKernels;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Сервис для работы с эмбеддингами текста
@@ -18,8 +22,17 @@ import java.util.stream.Collectors;
 @Slf4j
 public class EmbeddingService {
 
+    private static final String REMOTE_MODEL_VERSION = "embed-service";
+
     private final ModelManager modelManager;
     private final TextTokenizer textTokenizer;
+    private final InferenceBatcher inferenceBatcher;
+    private final EmbeddingCache embeddingCache;
+    private final EmbedClient embedClient;
+
+    /** Если локальная модель не загружена, эмбеддинги запрашиваются у embed-service */
+    @Value("${features.sbert.enabled:false}")
+    private boolean remoteEnabled;
 
     /**
      * Создает эмбеддинг для текста
@@ -27,26 +40,33 @@ public class EmbeddingService {
     public float[] createEmbedding(String text) {
         try {
             if (!modelManager.isModelLoaded("embeddings")) {
+                if (remoteEnabled) {
+                    return createEmbeddings(List.of(text)).get(0);
+                }
                 throw new IllegalStateException("Модель эмбеддингов не загружена");
             }
 
-            ai.djl.inference.Predictor<Object, Object> predictor = modelManager.getPredictor("embeddings");
-            
+            String cacheKey = cacheKey(text, true);
+            if (cacheKey != null) {
+                float[] cached = embeddingCache.get(cacheKey);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
             // Подготавливаем входные данные
-            NDList input = textTokenizer.tokenizeSingle(text);
-            
-            // Получаем эмбеддинг
-            @SuppressWarnings("unchecked")
-            NDList output = (NDList) predictor.predict(input);
-            NDArray embedding = output.get(0);
-            
-            // Конвертируем в массив float
-            float[] result = embedding.toFloatArray();
-            
+            long[][] features = textTokenizer.encodeSingle("embeddings", text);
+
+            // Получаем эмбеддинг (запрос объединяется в батч с параллельными вызовами)
+            float[] result = toEmbedding(inferenceBatcher.infer("embeddings", features), features);
+            if (cacheKey != null) {
+                embeddingCache.put(cacheKey, result);
+            }
+
             log.debug("Создан эмбеддинг размером {} для текста: {}", result.length, text.substring(0, Math.min(50, text.length())));
-            
+
             return result;
-            
+
         } catch (Exception e) {
             log.error("Ошибка при создании эмбеддинга: {}", e.getMessage(), e);
             throw new RuntimeException("Ошибка создания эмбеддинга", e);
@@ -54,37 +74,149 @@ public class EmbeddingService {
     }
 
     /**
-     * Создает эмбеддинги для списка текстов
+     * Создает эмбеддинги для списка текстов: найденные в кэше берутся оттуда,
+     * остальные ставятся в очередь сразу, чтобы батчер выполнил их минимальным числом проходов модели
      */
     public List<float[]> createEmbeddings(List<String> texts) {
-        return texts.stream()
-            .map(this::createEmbedding)
-            .collect(Collectors.toList());
+        boolean local = modelManager.isModelLoaded("embeddings");
+        if (!local && !remoteEnabled) {
+            throw new IllegalStateException("Модель эмбеддингов не загружена");
+        }
+
+        List<String> keys = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            keys.add(cacheKey(text, local));
+        }
+        Map<String, float[]> cached = embeddingCache.isEnabled()
+            ? embeddingCache.getAll(keys.stream().distinct().toList())
+            : Map.of();
+
+        float[][] embeddings = new float[texts.size()][];
+        if (!local) {
+            return createRemoteEmbeddings(texts, keys, cached, embeddings);
+        }
+        List<Integer> computed = new ArrayList<>();
+        List<long[][]> features = new ArrayList<>();
+        List<CompletableFuture<InferenceBatcher.InferenceResult>> futures = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            float[] hit = keys.get(i) != null ? cached.get(keys.get(i)) : null;
+            if (hit != null) {
+                embeddings[i] = hit;
+                continue;
+            }
+            long[][] encoded = textTokenizer.encodeSingle("embeddings", texts.get(i));
+            computed.add(i);
+            features.add(encoded);
+            futures.add(inferenceBatcher.submit("embeddings", encoded));
+        }
+
+        try {
+            for (int j = 0; j < futures.size(); j++) {
+                int index = computed.get(j);
+                embeddings[index] = toEmbedding(futures.get(j).join(), features.get(j));
+                if (keys.get(index) != null) {
+                    embeddingCache.put(keys.get(index), embeddings[index]);
+                }
+            }
+        } catch (CompletionException e) {
+            log.error("Ошибка при создании эмбеддингов: {}", e.getMessage(), e);
+            throw new RuntimeException("Ошибка создания эмбеддингов", e.getCause());
+        }
+        return Arrays.asList(embeddings);
     }
 
     /**
-     * Вычисляет косинусное сходство между двумя эмбеддингами
+     * Эмбеддинги сервиса embed-service: все тексты, которых нет в кэше, — одним бинарным пакетом
      */
-    public double cosineSimilarity(float[] embedding1, float[] embedding2) {
-        if (embedding1.length != embedding2.length) {
-            throw new IllegalArgumentException("Размеры эмбеддингов должны совпадать");
+    private List<float[]> createRemoteEmbeddings(List<String> texts, List<String> keys, Map<String, float[]> cached,
+                                                 float[][] embeddings) {
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            float[] hit = keys.get(i) != null ? cached.get(keys.get(i)) : null;
+            if (hit != null) {
+                embeddings[i] = hit;
+            } else {
+                missing.add(i);
+            }
         }
+        if (!missing.isEmpty()) {
+            List<float[]> vectors = embedClient.embedBatch(missing.stream().map(texts::get).toList());
+            for (int j = 0; j < missing.size(); j++) {
+                int index = missing.get(j);
+                embeddings[index] = vectors.get(j);
+                if (keys.get(index) != null) {
+                    embeddingCache.put(keys.get(index), embeddings[index]);
+                }
+            }
+        }
+        return Arrays.asList(embeddings);
+    }
 
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+    /**
+     * Ключ кэша для текста или null, если кэш отключен.
+     * Векторы локальной модели и embed-service несовместимы, поэтому версии в ключе разные.
+     * Регистр в ключе не учитывается, только если его не различает локальный токенизатор:
+     * как токенизирует embed-service, неизвестно.
+     */
+    private String cacheKey(String text, boolean local) {
+        if (!embeddingCache.isEnabled()) {
+            return null;
+        }
+        return local
+            ? embeddingCache.key(text, modelManager.getModelVersion("embeddings"), textTokenizer.isLowerCase())
+            : embeddingCache.key(text, REMOTE_MODEL_VERSION, false);
+    }
 
-        for (int i = 0; i < embedding1.length; i++) {
-            dotProduct += embedding1[i] * embedding2[i];
-            norm1 += embedding1[i] * embedding1[i];
-            norm2 += embedding2[i] * embedding2[i];
+    /**
+     * Приводит выход модели к вектору предложения.
+     * Если модель возвращает эмбеддинги токенов [seq, hidden], выполняется mean pooling
+     * по attention mask запроса (позиции паддинга батча не учитываются).
+     */
+    private float[] toEmbedding(InferenceBatcher.InferenceResult result, long[][] features) {
+        float[] values = result.output(0);
+        long[] shape = result.shape(0);
+        if (shape.length != 2) {
+            return values;
         }
 
-        if (norm1 == 0.0 || norm2 == 0.0) {
-            return 0.0;
+        int seqLen = (int) shape[0];
+        int hidden = (int) shape[1];
+        long[] mask = features.length > 1 ? features[1] : features[0];
+        float[] pooled = new float[hidden];
+        int count = 0;
+        for (int t = 0; t < Math.min(seqLen, mask.length); t++) {
+            if (mask[t] == 0) {
+                continue;
+            }
+            int offset = t * hidden;
+            for (int h = 0; h < hidden; h++) {
+                pooled[h] += values[offset + h];
+            }
+            count++;
+        }
+        if (count > 0) {
+            for (int h = 0; h < hidden; h++) {
+                pooled[h] /= count;
+            }
         }
+        return pooled;
+    }
+
+    /**
+     * Вычисляет косинусное сходство между двумя эмбеддингами
+     */
+    public double cosineSimilarity(float[] embedding1, float[] embedding2) {
+        return SimilarityKernels.cosine(embedding1, embedding2);
+    }
 
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    /**
+     * Косинусное сходство эмбеддинга с каждым из эталонных эмбеддингов (один проход по матрице)
+     */
+    public float[] cosineSimilarities(float[] embedding, List<float[]> references) {
+        if (references.isEmpty()) {
+            return new float[0];
+        }
+        return SimilarityKernels.oneVsMany(embedding, SimilarityKernels.pack(references), embedding.length);
     }
 
     /**
@@ -92,11 +224,10 @@ public class EmbeddingService {
      */
     public double calculateTextSimilarity(String text, List<String> referenceTexts) {
         float[] textEmbedding = createEmbedding(text);
+        List<float[]> referenceEmbeddings = createEmbeddings(referenceTexts);
         
         double maxSimilarity = 0.0;
-        for (String reference : referenceTexts) {
-            float[] referenceEmbedding = createEmbedding(reference);
-            double similarity = cosineSimilarity(textEmbedding, referenceEmbedding);
+        for (float similarity : cosineSimilarities(textEmbedding, referenceEmbeddings)) {
             maxSimilarity = Math.max(maxSimilarity, similarity);
         }
         
@@ -109,21 +240,6 @@ public class EmbeddingService {
      * Нормализует эмбеддинг
      */
     public float[] normalizeEmbedding(float[] embedding) {
-        double norm = 0.0;
-        for (float value : embedding) {
-            norm += value * value;
-        }
-        norm = Math.sqrt(norm);
-        
-        if (norm == 0.0) {
-            return embedding;
-        }
-        
-        float[] normalized = new float[embedding.length];
-        for (int i = 0; i < embedding.length; i++) {
-            normalized[i] = (float) (embedding[i] / norm);
-        }
-        
-        return normalized;
+        return SimilarityKernels.normalize(embedding);
     }
 }
@@ -0,0 +1,53 @@
+package com.example.hr_assistant.service.ml;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Батч токенизированных текстов, дополненный до самой длинной последовательности батча.
+ * Каждый вход модели хранится одним плоским массивом [batchSize * sequenceLength] построчно.
+ */
+@Getter
+@AllArgsConstructor
+public class EncodedBatch {
+
+    private final int batchSize;
+    private final int sequenceLength;
+    /** Плоские входы модели в порядке признаков (input_ids, attention_mask) */
+    private final long[][] inputs;
+
+    /**
+     * Дополняет признаки запросов до самой длинной строки: input_ids — токеном [PAD] словаря,
+     * остальные входы (attention_mask, token_type_ids) — нулями.
+     * Все запросы должны иметь одинаковое число входов.
+     */
+    public static EncodedBatch pad(List<long[][]> features, long padId) {
+        if (features.isEmpty()) {
+            throw new IllegalArgumentException("Пустой батч");
+        }
+        int inputCount = features.get(0).length;
+        int maxLen = 0;
+        for (long[][] request : features) {
+            if (request.length != inputCount) {
+                throw new IllegalArgumentException("Запросы батча имеют разное число входов");
+            }
+            maxLen = Math.max(maxLen, request[0].length);
+        }
+
+        int batchSize = features.size();
+        long[][] inputs = new long[inputCount][batchSize * maxLen];
+        if (padId != 0) {
+            Arrays.fill(inputs[0], padId);
+        }
+        for (int b = 0; b < batchSize; b++) {
+            long[][] request = features.get(b);
+            for (int i = 0; i < inputCount; i++) {
+                System.arraycopy(request[i], 0, inputs[i], b * maxLen, request[i].length);
+            }
+        }
+        return new EncodedBatch(batchSize, maxLen, inputs);
+    }
+}
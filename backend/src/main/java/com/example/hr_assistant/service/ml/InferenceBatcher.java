@@ -0,0 +1,313 @@
+package com.example.hr_assistant.service.ml;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import com.example.hr_assistant.config.MlModelsConfig;
+import com.example.hr_assistant.exception.PredictorPoolExhaustedException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Микробатчинг инференса ONNX моделей.
+ *
+ * Параллельные запросы к одной модели собираются в окне maxWaitMs (но не больше maxBatchSize),
+ * дополняются токеном [PAD] словаря модели до самой длинной последовательности в батче
+ * и выполняются одним проходом модели.
+ * Пока все предикторы модели заняты, диспетчер не формирует новый батч — запросы копятся в очереди,
+ * и следующий батч получается крупнее.
+ *
+ * Вход каждого запроса — строки признаков одинаковой длины (например, input_ids и attention_mask).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InferenceBatcher {
+
+    /** Движок, которым ModelManager загружает модели; входы батча создаются в нем же */
+    private static final String ENGINE = "OnnxRuntime";
+
+    private final ModelManager modelManager;
+    private final TextTokenizer textTokenizer;
+    private final MlModelsConfig mlModelsConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ModelQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, BatchMeters> meters = new ConcurrentHashMap<>();
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService batchExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "inference-batch-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        queues.values().forEach(ModelQueue::stop);
+        batchExecutor.shutdownNow();
+    }
+
+    /**
+     * Ставит запрос в очередь модели. Результат — выходы модели для этого запроса без батч-измерения.
+     */
+    public CompletableFuture<InferenceResult> submit(String modelName, long[][] features) {
+        validate(features);
+        MlModelsConfig.Batching batching = mlModelsConfig.getBatching();
+        if (!Boolean.TRUE.equals(batching.getEnabled())) {
+            PendingRequest request = new PendingRequest(features);
+            runBatch(modelName, List.of(request));
+            return request.future;
+        }
+
+        PendingRequest request = new PendingRequest(features);
+        ModelQueue queue = queues.computeIfAbsent(modelName, this::startQueue);
+        if (!queue.running) {
+            throw new IllegalStateException("Микробатчинг модели остановлен");
+        }
+        if (!queue.pending.offer(request)) {
+            throw new PredictorPoolExhaustedException("Очередь инференса модели " + modelName + " переполнена");
+        }
+        return request.future;
+    }
+
+    /**
+     * Синхронный вариант submit
+     */
+    public InferenceResult infer(String modelName, long[][] features) {
+        try {
+            return submit(modelName, features).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private ModelQueue startQueue(String modelName) {
+        MlModelsConfig.Batching batching = mlModelsConfig.getBatching();
+        ModelQueue queue = new ModelQueue(modelName, batching.getQueueCapacity(), mlModelsConfig.getPool().getSize());
+        Thread dispatcher = new Thread(() -> dispatch(queue), "inference-dispatcher-" + modelName);
+        dispatcher.setDaemon(true);
+        queue.dispatcher = dispatcher;
+        dispatcher.start();
+        log.info("Запущен микробатчинг модели {}: maxBatchSize={}, maxWaitMs={}",
+            modelName, batching.getMaxBatchSize(), batching.getMaxWaitMs());
+        return queue;
+    }
+
+    /**
+     * Цикл диспетчера: ждет первый запрос, затем добирает батч до maxBatchSize или истечения окна
+     */
+    private void dispatch(ModelQueue queue) {
+        MlModelsConfig.Batching batching = mlModelsConfig.getBatching();
+        int maxBatchSize = Math.max(1, batching.getMaxBatchSize());
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(batching.getMaxWaitMs());
+
+        while (queue.running) {
+            // Запросы, уже извлеченные из очереди: при остановке они завершаются ошибкой, а не теряются
+            List<PendingRequest> batch = new ArrayList<>(maxBatchSize);
+            try {
+                PendingRequest first = queue.pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.permits.acquire();
+
+                long deadline = first.enqueuedAt + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingRequest next = remaining > 0
+                        ? queue.pending.poll(remaining, TimeUnit.NANOSECONDS)
+                        : queue.pending.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                try {
+                    batchExecutor.execute(() -> {
+                        try {
+                            runBatch(queue.modelName, batch);
+                        } finally {
+                            queue.permits.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    queue.permits.release();
+                    batch.forEach(r -> r.future.completeExceptionally(e));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(InferenceBatcher::reject);
+                break;
+            }
+        }
+
+        PendingRequest left;
+        while ((left = queue.pending.poll()) != null) {
+            reject(left);
+        }
+    }
+
+    private static void reject(PendingRequest request) {
+        request.future.completeExceptionally(new IllegalStateException("Микробатчинг модели остановлен"));
+    }
+
+    /**
+     * Выполняет один проход модели для батча и раздает результаты по запросам
+     */
+    private void runBatch(String modelName, List<PendingRequest> batch) {
+        long now = System.nanoTime();
+        BatchMeters batchMeters = meters.computeIfAbsent(modelName, this::registerMeters);
+        batch.forEach(r -> batchMeters.queueTime().record(now - r.enqueuedAt, TimeUnit.NANOSECONDS));
+        batchMeters.batchSize().record(batch.size());
+
+        try (NDManager manager = NDManager.newBaseManager(ENGINE)) {
+            int batchSize = batch.size();
+            List<long[][]> features = new ArrayList<>(batchSize);
+            for (PendingRequest request : batch) {
+                features.add(request.features);
+            }
+            EncodedBatch padded = EncodedBatch.pad(features, textTokenizer.padId(modelName));
+
+            NDList input = new NDList(padded.getInputs().length);
+            for (long[] flat : padded.getInputs()) {
+                input.add(manager.create(flat, new Shape(batchSize, padded.getSequenceLength())));
+            }
+
+            NDList output = modelManager.predict(modelName, input);
+
+            float[][][] perRequest = new float[batchSize][output.size()][];
+            long[][] rowShapes = new long[output.size()][];
+            for (int o = 0; o < output.size(); o++) {
+                NDArray array = output.get(o);
+                long[] shape = array.getShape().getShape();
+                if (shape.length == 0 || shape[0] != batchSize) {
+                    throw new IllegalStateException("Выход модели " + modelName + " не содержит батч-измерения: "
+                        + array.getShape());
+                }
+                rowShapes[o] = Arrays.copyOfRange(shape, 1, shape.length);
+                float[] values = array.toType(DataType.FLOAT32, false).toFloatArray();
+                int rowSize = values.length / batchSize;
+                for (int b = 0; b < batchSize; b++) {
+                    perRequest[b][o] = Arrays.copyOfRange(values, b * rowSize, (b + 1) * rowSize);
+                }
+            }
+
+            for (int b = 0; b < batchSize; b++) {
+                batch.get(b).future.complete(new InferenceResult(perRequest[b], rowShapes));
+            }
+        } catch (Exception e) {
+            log.error("Ошибка батч-инференса модели {} (батч {}): {}", modelName, batch.size(), e.getMessage());
+            batch.forEach(r -> r.future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Метры модели регистрируются один раз, при первом батче
+     */
+    private BatchMeters registerMeters(String modelName) {
+        return new BatchMeters(
+            Timer.builder("hr.models.batch.queue")
+                .description("Время ожидания запроса в очереди микробатчинга")
+                .tag("model", modelName)
+                .register(meterRegistry),
+            DistributionSummary.builder("hr.models.batch.size")
+                .description("Размер батча инференса")
+                .tag("model", modelName)
+                .register(meterRegistry));
+    }
+
+    private void validate(long[][] features) {
+        if (features == null || features.length == 0) {
+            throw new IllegalArgumentException("Пустой вход модели");
+        }
+        int length = features[0].length;
+        for (long[] row : features) {
+            if (row.length != length) {
+                throw new IllegalArgumentException("Строки признаков должны иметь одинаковую длину");
+            }
+        }
+    }
+
+    /**
+     * Выходы модели для одного запроса
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class InferenceResult {
+        /** Значения каждого выхода, без батч-измерения */
+        private final float[][] outputs;
+        /** Форма каждого выхода, без батч-измерения (с учетом паддинга батча) */
+        private final long[][] shapes;
+
+        public float[] output(int index) {
+            return outputs[index];
+        }
+
+        public long[] shape(int index) {
+            return shapes[index];
+        }
+    }
+
+    private record BatchMeters(Timer queueTime, DistributionSummary batchSize) {
+    }
+
+    private static class PendingRequest {
+        private final long[][] features;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<InferenceResult> future = new CompletableFuture<>();
+
+        PendingRequest(long[][] features) {
+            this.features = features;
+        }
+    }
+
+    private static class ModelQueue {
+        private final String modelName;
+        private final BlockingQueue<PendingRequest> pending;
+        private final Semaphore permits;
+        private volatile boolean running = true;
+        private Thread dispatcher;
+
+        ModelQueue(String modelName, int capacity, int concurrency) {
+            this.modelName = modelName;
+            this.pending = new LinkedBlockingQueue<>(capacity);
+            this.permits = new Semaphore(Math.max(1, concurrency));
+        }
+
+        void stop() {
+            running = false;
+            if (dispatcher != null) {
+                dispatcher.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.hr_assistant.service.ml;
+
+import com.example.hr_assistant.config.MlModelsConfig;
+import com.example.hr_assistant.model.Interview;
+import com.example.hr_assistant.model.Question;
+import com.example.hr_assistant.model.Recording;
+import com.example.hr_assistant.model.Transcript;
+import com.example.hr_assistant.repository.InterviewRepository;
+import com.example.hr_assistant.repository.QuestionRepository;
+import com.example.hr_assistant.repository.RecordingRepository;
+import com.example.hr_assistant.repository.TranscriptRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Инкрементальная транскрипция ответа по мере загрузки чанков.
+ *
+ * На каждую пару (интервью, вопрос) открывается сессия с постоянным процессом ffmpeg: чанки записи
+ * дописываются в его stdin как продолжение одного потока, а декодированный PCM нарезается на окна
+ * и распознается сразу, пока кандидат еще отвечает. К моменту finish-record остается распознать
+ * только последнее неполное окно, поэтому задержка определяется последним чанком, а не длиной записи.
+ *
+ * Запрос загрузки только ставит чанк в ограниченную очередь сессии; запись в ffmpeg и распознавание
+ * выполняются в отдельных потоках. Число одновременных сессий ограничено (live-max-sessions), пул потоков —
+ * по два потока на сессию. Чанки ответа, для которого уже вызван finish-record или сессия прервана,
+ * отклоняются: середина контейнера без начала не декодируется, такой ответ обрабатывается целиком.
+ * Чанки не сохраняются в хранилище: запись ответа целиком загружается частями напрямую в MinIO,
+ * и транскрипция привязывается к собранному объекту при finish-record.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveTranscriptionService {
+
+    private static final byte[] END_OF_STREAM = new byte[0];
+    private static final long ENQUEUE_TIMEOUT_SECONDS = 10;
+    private static final long FINISH_TIMEOUT_SECONDS = 120;
+
+    private final AsrService asrService;
+    private final AudioDecoder audioDecoder;
+    private final ModelManager modelManager;
+    private final MlModelsConfig mlModelsConfig;
+    private final InterviewRepository interviewRepository;
+    private final QuestionRepository questionRepository;
+    private final RecordingRepository recordingRepository;
+    private final TranscriptRepository transcriptRepository;
+
+    private final Map<SessionKey, Session> sessions = new ConcurrentHashMap<>();
+    /** Ответы, для которых вызван finish-record или сессия прервана, и время закрытия */
+    private final Map<SessionKey, Long> closedKeys = new ConcurrentHashMap<>();
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private ExecutorService sessionExecutor;
+
+    @PostConstruct
+    public void init() {
+        // Каждой сессии нужны два потока: передача чанков в ffmpeg и распознавание
+        int threads = 2 * Math.max(1, mlModelsConfig.getAsr().getLiveMaxSessions());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "live-transcription-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        sessionExecutor = executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sessions.values().forEach(Session::abort);
+        sessions.clear();
+        sessionExecutor.shutdownNow();
+    }
+
+    /**
+     * Включена ли инкрементальная транскрипция и загружена ли модель Whisper
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(mlModelsConfig.getAsr().getLiveEnabled()) && modelManager.isModelLoaded("whisper");
+    }
+
+    /**
+     * Начало записи ответа: прежняя сессия этого вопроса прерывается, запрет на чанки снимается
+     */
+    public void start(Long interviewId, Long questionId) {
+        SessionKey key = new SessionKey(interviewId, questionId);
+        Session stale = sessions.remove(key);
+        if (stale != null) {
+            stale.abort();
+        }
+        closedKeys.remove(key);
+    }
+
+    /**
+     * Передает очередной чанк записи в сессию; при первом чанке сессия открывается.
+     * Бросает IllegalStateException, если ответ уже завершен или достигнут лимит сессий.
+     */
+    public void appendChunk(Long interviewId, Long questionId, byte[] data, int chunkIndex) {
+        SessionKey key = new SessionKey(interviewId, questionId);
+        Session session = sessions.compute(key, (k, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            if (closedKeys.containsKey(k)) {
+                throw new IllegalStateException("Запись ответа уже завершена: " + k);
+            }
+            if (sessions.size() >= mlModelsConfig.getAsr().getLiveMaxSessions()) {
+                throw new IllegalStateException("Достигнут лимит сессий инкрементальной транскрипции");
+            }
+            return openSession(k);
+        });
+        // Чанки одного ответа — продолжение одного контейнера, порядок записи в ffmpeg важен
+        synchronized (session) {
+            if (session.inputEnded) {
+                throw new IllegalStateException("Запись ответа уже завершена: " + key);
+            }
+            try {
+                if (!session.chunks.offer(data, ENQUEUE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Очередь чанков транскрипции переполнена: " + key);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Передача чанка прервана", e);
+            }
+            session.lastChunkIndex = chunkIndex;
+            session.fileSizeBytes += data.length;
+            session.touchedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Сообщает, что чанков больше не будет: ffmpeg дочитывает поток, пока клиент вызывает finish-record
+     */
+    public void endOfStream(Long interviewId, Long questionId) {
+        Session session = sessions.get(new SessionKey(interviewId, questionId));
+        if (session != null) {
+            session.endInput();
+        }
+    }
+
+    /**
+     * Прерывает сессию без сохранения результата
+     */
+    public void abort(Long interviewId, Long questionId) {
+        SessionKey key = new SessionKey(interviewId, questionId);
+        closedKeys.put(key, System.currentTimeMillis());
+        Session session = sessions.remove(key);
+        if (session != null) {
+            session.abort();
+        }
+    }
+
+    /**
+     * Завершает сессию: дожидается распознавания хвоста записи и сохраняет транскрипцию.
+     * Запись ответа указывает на собранный объект хранилища fileUrl размером fileSizeBytes.
+     * Поток вызывающего не блокируется — результат приходит, когда ffmpeg дочитает поток.
+     * Пусто, если сессии не было (чанки не загружались или инкрементальный режим выключен).
+     */
+    public Mono<Transcript> finish(Long interviewId, Long questionId, String fileUrl, Long fileSizeBytes) {
+        SessionKey key = new SessionKey(interviewId, questionId);
+        closedKeys.put(key, System.currentTimeMillis());
+        Session session = sessions.remove(key);
+        if (session == null) {
+            return Mono.empty();
+        }
+
+        long finishStarted = System.currentTimeMillis();
+        session.endInput();
+        return Mono.fromFuture(session.decoded)
+            .timeout(Duration.ofSeconds(FINISH_TIMEOUT_SECONDS))
+            .onErrorMap(e -> {
+                session.abort();
+                return new IllegalStateException("Ошибка инкрементальной транскрипции " + key, e);
+            })
+            .publishOn(Schedulers.boundedElastic())
+            .then(Mono.fromCallable(() -> save(key, session, fileUrl, fileSizeBytes, finishStarted)));
+    }
+
+    private Transcript save(SessionKey key, Session session, String fileUrl, Long fileSizeBytes, long finishStarted) {
+        Transcript transcript = asrService.toTranscript(session.segments);
+        transcript.setLanguage("ru");
+        transcript.setProcessingTimeMs(session.inferenceMs);
+
+        Recording recording = findOrCreateRecording(key.interviewId(), key.questionId(), session, fileUrl, fileSizeBytes);
+        recording.setAsrConfidence(transcript.getAsrConfidence());
+        recordingRepository.save(recording);
+        transcript.setRecording(recording);
+        transcriptRepository.save(transcript);
+
+        log.info("Инкрементальная транскрипция {} завершена через {} мс после finish-record: {} окон, распознавание {} мс",
+            key, System.currentTimeMillis() - finishStarted, session.segments.size(), session.inferenceMs);
+        return transcript;
+    }
+
+    /**
+     * Закрывает сессии, в которые давно не приходили чанки (клиент ушел без finish-record),
+     * и забывает давно завершенные ответы
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleSessions() {
+        long ttlMs = TimeUnit.MINUTES.toMillis(mlModelsConfig.getAsr().getLiveSessionTtlMinutes());
+        long now = System.currentTimeMillis();
+        sessions.forEach((key, session) -> {
+            if (now - session.touchedAt >= ttlMs && sessions.remove(key, session)) {
+                log.warn("Сессия транскрипции {} закрыта по простою", key);
+                closedKeys.put(key, now);
+                session.abort();
+            }
+        });
+        closedKeys.values().removeIf(closedAt -> now - closedAt >= ttlMs);
+    }
+
+    private Session openSession(SessionKey key) {
+        try {
+            Session session = new Session(audioDecoder.open(), mlModelsConfig.getAsr().getLiveQueueChunks());
+            session.pump = sessionExecutor.submit(() -> pump(session));
+            session.decoding = sessionExecutor.submit(() -> {
+                try {
+                    decode(session);
+                    session.decoded.complete(null);
+                } catch (Throwable e) {
+                    session.decoded.completeExceptionally(e);
+                }
+            });
+            log.info("Открыта сессия инкрементальной транскрипции {}", key);
+            return session;
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось запустить декодер для " + key, e);
+        }
+    }
+
+    /**
+     * Переносит чанки из очереди в stdin ffmpeg
+     */
+    private void pump(Session session) {
+        try (OutputStream input = session.stream.input()) {
+            while (true) {
+                byte[] chunk = session.chunks.take();
+                if (chunk == END_OF_STREAM) {
+                    break;
+                }
+                input.write(chunk);
+                input.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Передача чанков в ffmpeg прервана: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Читает PCM из ffmpeg и распознает окна по мере заполнения
+     */
+    private void decode(Session session) throws IOException {
+        PcmWindower windower = asrService.newWindower(segment -> session.segments.add(segment));
+        float[] samples = new float[mlModelsConfig.getAsr().getReadBufferBytes() / Float.BYTES];
+        int count;
+        while ((count = session.stream.read(samples)) >= 0) {
+            long started = System.currentTimeMillis();
+            windower.feed(samples, 0, count);
+            session.inferenceMs += System.currentTimeMillis() - started;
+        }
+        long started = System.currentTimeMillis();
+        windower.flush();
+        session.inferenceMs += System.currentTimeMillis() - started;
+
+        int exitCode = session.stream.waitFor();
+        if (exitCode != 0) {
+            throw new IOException("ffmpeg завершился с кодом " + exitCode);
+        }
+    }
+
+    private Recording findOrCreateRecording(Long interviewId, Long questionId, Session session,
+                                            String fileUrl, Long fileSizeBytes) {
+        List<Recording> existing = recordingRepository.findByInterviewIdAndQuestionId(interviewId, questionId);
+        Recording recording = existing.stream()
+            .filter(r -> Boolean.TRUE.equals(r.getIsFinalChunk()))
+            .findFirst()
+            .orElse(existing.isEmpty() ? null : existing.get(existing.size() - 1));
+        if (recording == null) {
+            Interview interview = interviewRepository.findById(interviewId)
+                .orElseThrow(() -> new IllegalArgumentException("Интервью не найдено: " + interviewId));
+            Question question = questionRepository.findById(questionId)
+                .orElseThrow(() -> new IllegalArgumentException("Вопрос не найден: " + questionId));
+            recording = new Recording();
+            recording.setInterview(interview);
+            recording.setQuestion(question);
+            recording.setType(Recording.RecordingType.AUDIO_VIDEO);
+        }
+        recording.setFileUrl(fileUrl);
+        recording.setChunkIndex(session.lastChunkIndex);
+        recording.setIsFinalChunk(true);
+        recording.setFileSizeBytes(fileSizeBytes != null ? fileSizeBytes : session.fileSizeBytes);
+        if (!session.segments.isEmpty()) {
+            recording.setDurationSeconds(session.segments.get(session.segments.size() - 1).endMs() / 1000.0);
+        }
+        return recording;
+    }
+
+    private record SessionKey(Long interviewId, Long questionId) {
+    }
+
+    private static class Session {
+        private final AudioDecoder.PcmStream stream;
+        private final BlockingQueue<byte[]> chunks;
+        /** Заполняется потоком декодирования; читается после завершения decoding */
+        private final List<AsrService.Segment> segments = new ArrayList<>();
+        /** Завершается, когда распознано последнее окно записи */
+        private final CompletableFuture<Void> decoded = new CompletableFuture<>();
+        private Future<?> pump;
+        private Future<?> decoding;
+        private volatile long touchedAt = System.currentTimeMillis();
+        private volatile int lastChunkIndex;
+        private volatile long fileSizeBytes;
+        private volatile long inferenceMs;
+        private volatile boolean inputEnded;
+
+        Session(AudioDecoder.PcmStream stream, int capacity) {
+            this.stream = stream;
+            this.chunks = new LinkedBlockingQueue<>(Math.max(1, capacity));
+        }
+
+        synchronized void endInput() {
+            if (!inputEnded) {
+                inputEnded = true;
+                try {
+                    chunks.put(END_OF_STREAM);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        void abort() {
+            if (pump != null) {
+                pump.cancel(true);
+            }
+            if (decoding != null) {
+                decoding.cancel(true);
+            }
+            stream.close();
+            decoded.cancel(false);
+        }
+    }
+}
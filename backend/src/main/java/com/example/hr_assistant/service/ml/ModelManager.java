@@ -3,12 +3,16 @@ package com.example.hr_assistant.service.ml;
 import ai.djl.Model;
 import ai.djl.ModelException;
 import ai.djl.inference.Predictor;
+import ai.djl.ndarray.NDList;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelZoo;
 import ai.djl.repository.zoo.ZooModel;
+import ai.djl.translate.TranslateException;
 import com.example.hr_assistant.config.MlModelsConfig;
 import com.example.hr_assistant.model.ModelVersion;
 import com.example.hr_assistant.repository.ModelVersionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -33,9 +37,11 @@ public class ModelManager {
 
     private final MlModelsConfig mlModelsConfig;
     private final ModelVersionRepository modelVersionRepository;
+    private final MeterRegistry meterRegistry;
     
     private final Map<String, ZooModel<?, ?>> loadedModels = new ConcurrentHashMap<>();
-    private final Map<String, Predictor<?, ?>> predictors = new ConcurrentHashMap<>();
+    private final Map<String, PredictorPool> predictorPools = new ConcurrentHashMap<>();
+    private final Map<String, String> modelVersions = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void initializeModels() {
@@ -46,8 +52,7 @@ public class ModelManager {
     @PreDestroy
     public void cleanup() {
         log.info("Очистка ресурсов ML моделей...");
-        predictors.values().forEach(Predictor::close);
-        loadedModels.values().forEach(ZooModel::close);
+        loadedModels.keySet().forEach(this::closeModel);
     }
 
     /**
@@ -117,17 +122,25 @@ public class ModelManager {
             }
 
             Criteria<?, ?> criteria = Criteria.builder()
-                .setTypes(Object.class, Object.class)
+                .setTypes(NDList.class, NDList.class)
                 .optModelPath(modelPath)
                 .optEngine("OnnxRuntime")
                 .build();
 
             ZooModel<?, ?> model = ModelZoo.loadModel(criteria);
-            loadedModels.put(modelName, model);
             
-            // Создаем предиктор для модели
-            Predictor<?, ?> predictor = model.newPredictor();
-            predictors.put(modelName, predictor);
+            // Создаем пул предикторов для модели
+            MlModelsConfig.Pool poolConfig = mlModelsConfig.getPool();
+            PredictorPool pool = new PredictorPool(modelName, model, poolConfig.getSize(),
+                poolConfig.getAcquireTimeoutMs(), meterRegistry);
+            registerPoolGauge(modelName);
+            
+            // Сначала подменяем модель: новые вызовы уходят в новый пул, прежняя модель закрывается,
+            // когда вернутся все ее предикторы
+            modelVersions.put(modelName, modelFileName + "@" + Files.getLastModifiedTime(modelPath).toMillis());
+            ZooModel<?, ?> oldModel = loadedModels.put(modelName, model);
+            PredictorPool oldPool = predictorPools.put(modelName, pool);
+            retire(oldPool, oldModel);
             
             // Сохраняем информацию о модели в БД
             saveModelVersion(modelName, modelFileName, modelPath.toString());
@@ -140,18 +153,55 @@ public class ModelManager {
     }
 
     /**
-     * Получает предиктор для модели
+     * Выполняет инференс на предикторе, взятом из пула модели.
+     * Если все предикторы заняты дольше таймаута, бросает PredictorPoolExhaustedException.
      */
     @SuppressWarnings("unchecked")
-    public <I, O> Predictor<I, O> getPredictor(String modelName) {
-        return (Predictor<I, O>) predictors.get(modelName);
+    public <I, O> O predict(String modelName, I input) throws TranslateException {
+        PredictorPool pool = predictorPools.get(modelName);
+        if (pool == null) {
+            throw new IllegalStateException("Модель не загружена: " + modelName);
+        }
+        Predictor<Object, Object> predictor;
+        try {
+            predictor = pool.borrow();
+        } catch (IllegalStateException e) {
+            // Пул закрыт заменой модели между чтением и borrow — берем предиктор из нового пула
+            PredictorPool current = predictorPools.get(modelName);
+            if (!pool.isClosed() || current == null || current == pool) {
+                throw e;
+            }
+            pool = current;
+            predictor = pool.borrow();
+        }
+        try {
+            return (O) predictor.predict(input);
+        } finally {
+            pool.release(predictor);
+        }
     }
 
     /**
      * Проверяет, загружена ли модель
      */
     public boolean isModelLoaded(String modelName) {
-        return loadedModels.containsKey(modelName) && predictors.containsKey(modelName);
+        return loadedModels.containsKey(modelName) && predictorPools.containsKey(modelName);
+    }
+
+    /**
+     * Версия загруженной модели (имя файла и время его изменения) или null, если модель не загружена.
+     * Используется в ключах кэшей, чтобы замена файла модели инвалидировала старые результаты.
+     */
+    public String getModelVersion(String modelName) {
+        return modelVersions.get(modelName);
+    }
+
+    /**
+     * Количество свободных предикторов модели
+     */
+    public int getAvailablePredictors(String modelName) {
+        PredictorPool pool = predictorPools.get(modelName);
+        return pool != null ? pool.available() : 0;
     }
 
     /**
@@ -160,22 +210,42 @@ public class ModelManager {
     public void reloadModel(String modelName) {
         log.info("Перезагрузка модели: {}", modelName);
         
-        // Закрываем старые ресурсы
-        Predictor<?, ?> oldPredictor = predictors.remove(modelName);
-        if (oldPredictor != null) {
-            oldPredictor.close();
-        }
-        
-        ZooModel<?, ?> oldModel = loadedModels.remove(modelName);
-        if (oldModel != null) {
-            oldModel.close();
-        }
-        
-        // Загружаем модель заново
+        // Загружаем модель заново; прежняя закрывается после подмены, когда освободятся ее предикторы
         String modelFileName = getModelFileName(modelName);
         loadModel(modelName, modelFileName);
     }
 
+    /**
+     * Закрывает пул предикторов и модель
+     */
+    private void closeModel(String modelName) {
+        modelVersions.remove(modelName);
+        PredictorPool oldPool = predictorPools.remove(modelName);
+        ZooModel<?, ?> oldModel = loadedModels.remove(modelName);
+        retire(oldPool, oldModel);
+    }
+
+    /**
+     * Закрывает прежний пул; модель закрывается после возврата всех выданных предикторов
+     */
+    private void retire(PredictorPool pool, ZooModel<?, ?> model) {
+        if (pool != null) {
+            pool.close(model != null ? model::close : null);
+        } else if (model != null) {
+            model.close();
+        }
+    }
+
+    /**
+     * Регистрирует gauge свободных предикторов (повторная регистрация игнорируется реестром)
+     */
+    private void registerPoolGauge(String modelName) {
+        Gauge.builder("hr.models.predictor.available", this, manager -> manager.getAvailablePredictors(modelName))
+            .description("Количество свободных предикторов модели")
+            .tag("model", modelName)
+            .register(meterRegistry);
+    }
+
     /**
      * Получает имя файла модели по имени модели
      */
@@ -0,0 +1,91 @@
+package com.example.hr_assistant.service.ml;
+
+import java.util.Arrays;
+
+/**
+ * Нарезка потока PCM на окна фиксированной длины с перекрытием.
+ *
+ * Сэмплы копятся в кольцевом буфере размером в одно окно. Когда буфер заполнен, окно отдается потребителю,
+ * а в буфере остаются последние overlap сэмплов — они станут началом следующего окна.
+ * Память не зависит от длины записи: кольцо и буфер окна выделяются один раз.
+ */
+public final class PcmWindower {
+
+    /**
+     * Получатель окон. Массив окна переиспользуется и действителен только на время вызова;
+     * хвост после length заполнен нулями.
+     */
+    @FunctionalInterface
+    public interface WindowConsumer {
+        void accept(float[] window, int length, long startSample);
+    }
+
+    private final float[] ring;
+    private final float[] window;
+    private final int hop;
+    private final WindowConsumer consumer;
+
+    private int head;
+    private int size;
+    private int fresh;
+    private long startSample;
+
+    public PcmWindower(int windowSamples, int overlapSamples, WindowConsumer consumer) {
+        if (windowSamples <= 0 || overlapSamples < 0 || overlapSamples >= windowSamples) {
+            throw new IllegalArgumentException("Некорректные параметры окна: window=" + windowSamples
+                + ", overlap=" + overlapSamples);
+        }
+        this.ring = new float[windowSamples];
+        this.window = new float[windowSamples];
+        this.hop = windowSamples - overlapSamples;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Добавляет сэмплы; по мере заполнения буфера отдает полные окна
+     */
+    public void feed(float[] samples, int offset, int length) {
+        while (length > 0) {
+            int tail = (head + size) % ring.length;
+            int count = Math.min(length, Math.min(ring.length - size, ring.length - tail));
+            System.arraycopy(samples, offset, ring, tail, count);
+            size += count;
+            fresh += count;
+            offset += count;
+            length -= count;
+            if (size == ring.length) {
+                emit();
+                head = (head + hop) % ring.length;
+                size -= hop;
+                startSample += hop;
+            }
+        }
+    }
+
+    /**
+     * Отдает последнее неполное окно, если в нем есть еще не отданные сэмплы
+     */
+    public void flush() {
+        if (fresh > 0) {
+            emit();
+        }
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Номер первого сэмпла в буфере от начала потока
+     */
+    public long position() {
+        return startSample;
+    }
+
+    private void emit() {
+        int first = Math.min(size, ring.length - head);
+        System.arraycopy(ring, head, window, 0, first);
+        System.arraycopy(ring, 0, window, first, size - first);
+        Arrays.fill(window, size, window.length, 0f);
+        fresh = 0;
+        consumer.accept(window, size, startSample);
+    }
+}
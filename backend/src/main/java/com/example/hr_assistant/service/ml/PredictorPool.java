@@ -0,0 +1,161 @@
+package com.example.hr_assistant.service.ml;
+
+import ai.djl.inference.Predictor;
+import ai.djl.repository.zoo.ZooModel;
+import com.example.hr_assistant.exception.PredictorPoolExhaustedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пул предикторов одной модели.
+ * Предикторы DJL не потокобезопасны, поэтому каждый поток берет свой экземпляр
+ * на время одного вызова predict и возвращает его обратно.
+ * Пул считает выданные предикторы: при закрытии (замена модели) модель освобождается
+ * только после возврата последнего из них, чтобы не закрыть нативную сессию ONNX под работающим predict.
+ */
+@Slf4j
+public class PredictorPool implements AutoCloseable {
+
+    private final String modelName;
+    private final BlockingQueue<Predictor<Object, Object>> idle;
+    private final List<Predictor<Object, Object>> all;
+    private final long acquireTimeoutMs;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+    /** Защищает closed, leased и onDrained: возврат и закрытие взаимоисключающие */
+    private final Object lock = new Object();
+    private volatile boolean closed;
+    /** Выданные и ожидающие предиктора вызовы */
+    private int leased;
+    private Runnable onDrained;
+
+    @SuppressWarnings("unchecked")
+    public PredictorPool(String modelName, ZooModel<?, ?> model, int size, long acquireTimeoutMs,
+                         MeterRegistry meterRegistry) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Размер пула предикторов должен быть положительным: " + size);
+        }
+        this.modelName = modelName;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.idle = new ArrayBlockingQueue<>(size);
+        this.all = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Predictor<Object, Object> predictor = (Predictor<Object, Object>) model.newPredictor();
+            all.add(predictor);
+            idle.add(predictor);
+        }
+        this.waitTimer = Timer.builder("hr.models.predictor.wait")
+            .description("Время ожидания свободного предиктора")
+            .tag("model", modelName)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("hr.models.predictor.rejected")
+            .description("Количество отказов из-за исчерпания пула предикторов")
+            .tag("model", modelName)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Берет предиктор из пула, ожидая не дольше acquireTimeoutMs
+     */
+    public Predictor<Object, Object> borrow() {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Пул предикторов закрыт: " + modelName);
+            }
+            // Ожидающий вызов тоже держит пул: модель не закроется, пока он не получит ответ
+            leased++;
+        }
+        long start = System.nanoTime();
+        Predictor<Object, Object> predictor = null;
+        try {
+            predictor = idle.poll(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            if (predictor == null) {
+                rejectedCounter.increment();
+                throw new PredictorPoolExhaustedException(
+                    "Нет свободных предикторов модели " + modelName + " за " + acquireTimeoutMs + " мс");
+            }
+            return predictor;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание предиктора прервано: " + modelName, e);
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (predictor == null) {
+                synchronized (lock) {
+                    leased--;
+                    drainIfIdle();
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает предиктор в пул. Если пул уже закрыт (перезагрузка модели), предиктор закрывается.
+     */
+    public void release(Predictor<Object, Object> predictor) {
+        if (predictor == null) {
+            return;
+        }
+        synchronized (lock) {
+            leased--;
+            if (closed || !idle.offer(predictor)) {
+                predictor.close();
+            }
+            drainIfIdle();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    public int available() {
+        return idle.size();
+    }
+
+    /**
+     * Закрывает свободные предикторы; занятые будут закрыты при возврате
+     */
+    @Override
+    public void close() {
+        close(null);
+    }
+
+    /**
+     * Закрывает пул; onDrained выполняется, когда возвращен последний выданный предиктор
+     * (сразу, если выданных нет). Используется для закрытия модели после замены.
+     */
+    public void close(Runnable onDrained) {
+        synchronized (lock) {
+            closed = true;
+            this.onDrained = onDrained;
+            Predictor<Object, Object> predictor;
+            while ((predictor = idle.poll()) != null) {
+                predictor.close();
+            }
+            drainIfIdle();
+        }
+        log.debug("Пул предикторов {} закрыт", modelName);
+    }
+
+    private void drainIfIdle() {
+        if (closed && leased == 0 && onDrained != null) {
+            Runnable action = onDrained;
+            onDrained = null;
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.hr_assistant.service.ml;
+
+import com.example.hr_assistant.model.Vacancy;
+import com.example.hr_assistant.model.VacancyRequirementEmbedding;
+import com.example.hr_assistant.repository.VacancyRequirementEmbeddingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Индекс эмбеддингов требований вакансий.
+ *
+ * Требования вакансии меняются только при редактировании, поэтому их эмбеддинги считаются
+ * один раз при сохранении вакансии и хранятся в БД с версией модели.
+ * При классификации ответа нужен только эмбеддинг самого ответа.
+ * Инференс выполняется вне транзакций БД: индекс записывается отдельной короткой транзакцией.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RequirementEmbeddingIndex {
+
+    private final VacancyRequirementEmbeddingRepository embeddingRepository;
+    private final EmbeddingService embeddingService;
+    private final ModelManager modelManager;
+
+    /**
+     * Тексты требований вакансии: требуемые компетенции (ключ и текст — название компетенции)
+     */
+    public static Map<String, String> requirementTexts(Vacancy vacancy) {
+        Map<String, String> texts = new LinkedHashMap<>();
+        if (vacancy.getRequiredCompetencies() != null) {
+            vacancy.getRequiredCompetencies().keySet().forEach(competency -> texts.put(competency, competency));
+        }
+        return texts;
+    }
+
+    /**
+     * Пересчитывает эмбеддинги требований вакансии. Старые записи заменяются в любом случае,
+     * чтобы после редактирования не использовались векторы прежних текстов.
+     * Внутри транзакции сохранения вакансии пересчет откладывается до ее коммита.
+     */
+    public void rebuild(Vacancy vacancy) {
+        if (vacancy.getId() == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuildNow(vacancy);
+                }
+            });
+        } else {
+            rebuildNow(vacancy);
+        }
+    }
+
+    private void rebuildNow(Vacancy vacancy) {
+        try {
+            String modelVersion = modelManager.getModelVersion("embeddings");
+            if (modelVersion == null) {
+                embeddingRepository.replaceForVacancy(vacancy.getId(), List.of());
+                log.debug("Модель эмбеддингов не загружена, индекс требований вакансии {} будет построен при первом анализе",
+                    vacancy.getId());
+                return;
+            }
+            store(vacancy, requirementTexts(vacancy), modelVersion);
+        } catch (RuntimeException e) {
+            // Вакансия сохраняется и без индекса — он будет построен при первом анализе
+            log.error("Не удалось построить индекс требований вакансии {}: {}", vacancy.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Удаляет индекс требований вакансии
+     */
+    @Transactional
+    public void delete(Long vacancyId) {
+        embeddingRepository.deleteByVacancyId(vacancyId);
+    }
+
+    /**
+     * Возвращает эмбеддинги требований вакансии для текущей версии модели.
+     * Если индекс отсутствует или устарел (сменилась модель), он строится заново.
+     */
+    public Map<String, float[]> getEmbeddings(Vacancy vacancy) {
+        Map<String, String> texts = requirementTexts(vacancy);
+        String modelVersion = modelManager.getModelVersion("embeddings");
+        if (texts.isEmpty() || modelVersion == null) {
+            return Map.of();
+        }
+
+        Map<String, float[]> embeddings = new LinkedHashMap<>();
+        for (VacancyRequirementEmbedding stored : embeddingRepository.findByVacancyIdAndModelVersion(vacancy.getId(), modelVersion)) {
+            if (stored.getRequirementText().equals(texts.get(stored.getRequirementKey()))) {
+                embeddings.put(stored.getRequirementKey(), EmbeddingCodec.decode(stored.getEmbedding()));
+            }
+        }
+        if (embeddings.size() == texts.size()) {
+            return embeddings;
+        }
+
+        log.info("Индекс требований вакансии {} отсутствует или устарел, пересчитываем", vacancy.getId());
+        return store(vacancy, texts, modelVersion);
+    }
+
+    /**
+     * Считает эмбеддинги (без транзакции) и заменяет ими индекс вакансии
+     */
+    private Map<String, float[]> store(Vacancy vacancy, Map<String, String> texts, String modelVersion) {
+        List<String> keys = new ArrayList<>(texts.keySet());
+        List<float[]> vectors = keys.isEmpty()
+            ? List.of()
+            : embeddingService.createEmbeddings(keys.stream().map(texts::get).toList());
+
+        Map<String, float[]> embeddings = new LinkedHashMap<>();
+        List<VacancyRequirementEmbedding> rows = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            float[] vector = vectors.get(i);
+            VacancyRequirementEmbedding row = new VacancyRequirementEmbedding();
+            row.setVacancyId(vacancy.getId());
+            row.setRequirementKey(keys.get(i));
+            row.setRequirementText(texts.get(keys.get(i)));
+            row.setEmbedding(EmbeddingCodec.encode(vector));
+            row.setDimension(vector.length);
+            row.setModelVersion(modelVersion);
+            rows.add(row);
+            embeddings.put(keys.get(i), vector);
+        }
+        embeddingRepository.replaceForVacancy(vacancy.getId(), rows);
+        log.info("Сохранено {} эмбеддингов требований вакансии {} (модель {})", rows.size(), vacancy.getId(), modelVersion);
+        return embeddings;
+    }
+}
@@ -1,69 +1,287 @@
 package com.example.hr_assistant.service.ml;
 
-import ai.djl.ndarray.NDArray;
-import ai.djl.ndarray.NDList;
-import ai.djl.ndarray.NDManager;
+import com.example.hr_assistant.config.MlModelsConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.Normalizer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
- * Простая токенизация для BERT-подобных моделей.
- * Для продакшна рекомендуется заменить на полноценный WordPiece/BPE токенайзер.
+ * Токенизация для BERT-подобных моделей.
+ *
+ * Если рядом с ONNX моделью лежит словарь (ml.models.path/&lt;модель&gt;/vocab.txt), используется WordPiece:
+ * базовое разбиение по пробелам и пунктуации, затем жадный поиск самого длинного подслова по словарю.
+ * Без словаря применяется прежняя детерминированная псевдо-токенизация по байтам UTF-8.
+ *
+ * Токены пишутся в переиспользуемые буферы потока; наружу отдаются только итоговые массивы
+ * {input_ids, attention_mask} без паддинга — дополнение выполняется по самой длинной строке батча
+ * ({@link EncodedBatch}, {@link InferenceBatcher}).
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TextTokenizer {
 
-    private static final int DEFAULT_MAX_TOKENS = 256;
+    private static final long PSEUDO_CLS_ID = 101;
+    private static final long PSEUDO_SEP_ID = 102;
+    private static final int MAX_WORD_CHARS = 100;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{Mn}+");
 
-    public NDList tokenizeSingle(String text) {
-        return tokenizePair(text, null, DEFAULT_MAX_TOKENS);
+    private final MlModelsConfig mlModelsConfig;
+
+    private final Map<String, Optional<WordPieceVocabulary>> vocabularies = new ConcurrentHashMap<>();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    public long[][] encodeSingle(String modelName, String text) {
+        return encodePair(modelName, text, null, maxTokens());
+    }
+
+    public long[][] encodePair(String modelName, String textA, String textB) {
+        return encodePair(modelName, textA, textB, maxTokens());
+    }
+
+    /**
+     * Кодирует текст или пару текстов: [CLS] A [SEP] (B [SEP]).
+     * При превышении maxTokens укорачивается более длинная часть (longest first).
+     */
+    public long[][] encodePair(String modelName, String textA, String textB, int maxTokens) {
+        WordPieceVocabulary vocabulary = vocabulary(modelName).orElse(null);
+        boolean hasB = textB != null && !textB.isEmpty();
+        int budget = Math.max(0, maxTokens - (hasB ? 3 : 2));
+
+        Scratch buffers = scratch.get();
+        int[] tokensA = buffers.first(budget);
+        int[] tokensB = buffers.second(budget);
+        int lengthA = encodeInto(vocabulary, textA, tokensA, budget);
+        int lengthB = hasB ? encodeInto(vocabulary, textB, tokensB, budget) : 0;
+        while (lengthA + lengthB > budget) {
+            if (lengthA >= lengthB) {
+                lengthA--;
+            } else {
+                lengthB--;
+            }
+        }
+
+        long cls = vocabulary != null ? vocabulary.clsId() : PSEUDO_CLS_ID;
+        long sep = vocabulary != null ? vocabulary.sepId() : PSEUDO_SEP_ID;
+        long[] inputIds = new long[2 + lengthA + (hasB ? lengthB + 1 : 0)];
+        int pos = 0;
+        inputIds[pos++] = cls;
+        for (int i = 0; i < lengthA; i++) {
+            inputIds[pos++] = tokensA[i];
+        }
+        inputIds[pos++] = sep;
+        if (hasB) {
+            for (int i = 0; i < lengthB; i++) {
+                inputIds[pos++] = tokensB[i];
+            }
+            inputIds[pos] = sep;
+        }
+
+        long[] attentionMask = new long[inputIds.length];
+        Arrays.fill(attentionMask, 1L);
+        return new long[][] {inputIds, attentionMask};
+    }
+
+    /**
+     * Кодирует список текстов и дополняет их до самой длинной последовательности батча
+     */
+    public EncodedBatch encodeBatch(String modelName, List<String> texts) {
+        List<long[][]> features = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            features.add(encodeSingle(modelName, text));
+        }
+        return EncodedBatch.pad(features, padId(modelName));
+    }
+
+    /**
+     * Идентификатор [PAD] словаря модели; без словаря — 0, как в псевдо-токенизации
+     */
+    public long padId(String modelName) {
+        return vocabulary(modelName).map(WordPieceVocabulary::padId).orElse(0);
+    }
+
+    /**
+     * Приводит ли токенизатор текст к нижнему регистру (ml.models.tokenizer.lower-case)
+     */
+    public boolean isLowerCase() {
+        return Boolean.TRUE.equals(mlModelsConfig.getTokenizer().getLowerCase());
+    }
+
+    /**
+     * Загружен ли словарь WordPiece для модели
+     */
+    public boolean hasVocabulary(String modelName) {
+        return vocabulary(modelName).isPresent();
+    }
+
+    private int maxTokens() {
+        return mlModelsConfig.getTokenizer().getMaxTokens();
+    }
+
+    private Optional<WordPieceVocabulary> vocabulary(String modelName) {
+        return vocabularies.computeIfAbsent(modelName, this::loadVocabulary);
     }
 
-    public NDList tokenizePair(String textA, String textB) {
-        return tokenizePair(textA, textB, DEFAULT_MAX_TOKENS);
+    private Optional<WordPieceVocabulary> loadVocabulary(String modelName) {
+        if (mlModelsConfig.getPath() == null) {
+            return Optional.empty();
+        }
+        Path vocabPath = Paths.get(mlModelsConfig.getPath(), modelName, mlModelsConfig.getTokenizer().getVocabFile());
+        if (!Files.exists(vocabPath)) {
+            log.info("Словарь токенизатора для {} не найден ({}), используется псевдо-токенизация", modelName, vocabPath);
+            return Optional.empty();
+        }
+        try {
+            WordPieceVocabulary vocabulary = WordPieceVocabulary.load(vocabPath);
+            log.info("Загружен словарь WordPiece для {}: {} токенов", modelName, vocabulary.size());
+            return Optional.of(vocabulary);
+        } catch (Exception e) {
+            log.error("Ошибка загрузки словаря {}: {}, используется псевдо-токенизация", vocabPath, e.getMessage());
+            return Optional.empty();
+        }
     }
 
-    public NDList tokenizePair(String textA, String textB, int maxTokens) {
-        try (NDManager manager = NDManager.newBaseManager()) {
-            int[] inputIds = toPseudoIds(textA, textB, maxTokens);
-            int[] attentionMask = new int[inputIds.length];
-            for (int i = 0; i < inputIds.length; i++) attentionMask[i] = inputIds[i] == 0 ? 0 : 1;
+    /**
+     * Токенизирует текст в буфер, не более limit токенов. Возвращает число записанных токенов.
+     */
+    private int encodeInto(WordPieceVocabulary vocabulary, String text, int[] out, int limit) {
+        if (text == null || text.isEmpty() || limit == 0) {
+            return 0;
+        }
+        if (vocabulary == null) {
+            return pseudoIds(text, out, limit);
+        }
+        if (Boolean.TRUE.equals(mlModelsConfig.getTokenizer().getStripAccents())) {
+            text = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        }
+
+        int count = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length && count < limit) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || Character.isISOControl(c)) {
+                i++;
+            } else if (isStandalone(c)) {
+                count = encodeWord(vocabulary, text, i, i + 1, out, count, limit);
+                i++;
+            } else {
+                int start = i;
+                while (i < length && !Character.isWhitespace(text.charAt(i))
+                    && !Character.isISOControl(text.charAt(i)) && !isStandalone(text.charAt(i))) {
+                    i++;
+                }
+                count = encodeWord(vocabulary, text, start, i, out, count, limit);
+            }
+        }
+        return count;
+    }
 
-            NDArray ids = manager.create(inputIds).reshape(1, inputIds.length);
-            NDArray mask = manager.create(attentionMask).reshape(1, attentionMask.length);
-            return new NDList(ids, mask);
+    /**
+     * WordPiece для одного слова: жадно берется самое длинное подслово из словаря.
+     * Если слово не раскладывается целиком, оно заменяется на [UNK].
+     */
+    private int encodeWord(WordPieceVocabulary vocabulary, String text, int start, int end, int[] out, int count, int limit) {
+        if (end - start > MAX_WORD_CHARS) {
+            out[count++] = vocabulary.unkId();
+            return count;
+        }
+        boolean lowerCase = Boolean.TRUE.equals(mlModelsConfig.getTokenizer().getLowerCase());
+        int wordStart = count;
+        int pos = start;
+        while (pos < end) {
+            int node = pos == start ? vocabulary.root() : vocabulary.continuationRoot();
+            int best = -1;
+            int bestEnd = -1;
+            for (int k = pos; k < end; k++) {
+                char c = text.charAt(k);
+                node = vocabulary.child(node, lowerCase ? Character.toLowerCase(c) : c);
+                if (node < 0) {
+                    break;
+                }
+                int id = vocabulary.tokenId(node);
+                if (id >= 0) {
+                    best = id;
+                    bestEnd = k + 1;
+                }
+            }
+            if (best < 0) {
+                out[wordStart] = vocabulary.unkId();
+                return wordStart + 1;
+            }
+            if (count >= limit) {
+                return count;
+            }
+            out[count++] = best;
+            pos = bestEnd;
         }
+        return count;
     }
 
-    private int[] toPseudoIds(String a, String b, int maxTokens) {
-        List<Integer> ids = new ArrayList<>();
-        ids.add(101); // [CLS]
-        append(ids, a);
-        ids.add(102); // [SEP]
-        if (b != null && !b.isEmpty()) {
-            append(ids, b);
-            ids.add(102);
-        }
-        if (ids.size() > maxTokens) ids = ids.subList(0, maxTokens);
-        while (ids.size() < maxTokens) ids.add(0); // pad
-        return ids.stream().mapToInt(Integer::intValue).toArray();
+    /**
+     * Пунктуация и иероглифы CJK выделяются в отдельные слова
+     */
+    private static boolean isStandalone(char c) {
+        if ((c >= 33 && c <= 47) || (c >= 58 && c <= 64) || (c >= 91 && c <= 96) || (c >= 123 && c <= 126)) {
+            return true;
+        }
+        if (c < 128) {
+            return false;
+        }
+        int type = Character.getType(c);
+        if (type == Character.CONNECTOR_PUNCTUATION || type == Character.DASH_PUNCTUATION
+            || type == Character.START_PUNCTUATION || type == Character.END_PUNCTUATION
+            || type == Character.INITIAL_QUOTE_PUNCTUATION || type == Character.FINAL_QUOTE_PUNCTUATION
+            || type == Character.OTHER_PUNCTUATION) {
+            return true;
+        }
+        return (c >= 0x4E00 && c <= 0x9FFF) || (c >= 0x3400 && c <= 0x4DBF) || (c >= 0xF900 && c <= 0xFAFF);
     }
 
-    private void append(List<Integer> ids, String text) {
-        if (text == null) return;
+    /**
+     * Детерминированная псевдо-токенизация по байтам UTF-8 (без словаря)
+     */
+    private static int pseudoIds(String text, int[] out, int limit) {
         byte[] bytes = text.toLowerCase().getBytes(StandardCharsets.UTF_8);
-        for (byte b : bytes) {
-            int v = (b & 0xFF) + 1000; // deterministic but naive mapping
-            ids.add(v);
+        int count = Math.min(bytes.length, limit);
+        for (int i = 0; i < count; i++) {
+            out[i] = (bytes[i] & 0xFF) + 1000;
         }
+        return count;
     }
-}
 
+    /**
+     * Буферы токенов потока, растут до максимальной запрошенной длины
+     */
+    private static final class Scratch {
+        private int[] first = new int[256];
+        private int[] second = new int[256];
 
+        int[] first(int capacity) {
+            if (first.length < capacity) {
+                first = new int[capacity];
+            }
+            return first;
+        }
+
+        int[] second(int capacity) {
+            if (second.length < capacity) {
+                second = new int[capacity];
+            }
+            return second;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.hr_assistant.service.ml;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Словарь WordPiece (vocab.txt: один токен на строку, id — номер строки).
+ *
+ * Токены хранятся в префиксном дереве по символам UTF-16 с отдельным корнем для продолжений "##",
+ * поэтому жадный поиск самого длинного совпадения идет по исходной строке без создания подстрок.
+ * Ребра дерева лежат в хэш-таблице с открытой адресацией на примитивных массивах.
+ */
+final class WordPieceVocabulary {
+
+    private static final long EMPTY = -1L;
+
+    private final int size;
+    private final int root;
+    private final int continuationRoot;
+    private final int[] tokenIds;
+    private final long[] edgeKeys;
+    private final int[] edgeTargets;
+    private final int mask;
+
+    private final int clsId;
+    private final int sepId;
+    private final int padId;
+    private final int unkId;
+
+    private int nodeCount;
+
+    private WordPieceVocabulary(List<String> tokens) {
+        int totalChars = 0;
+        for (String token : tokens) {
+            totalChars += token.length();
+        }
+        int capacity = Integer.highestOneBit(Math.max(16, totalChars * 2 - 1)) << 1;
+        this.edgeKeys = new long[capacity];
+        this.edgeTargets = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(edgeKeys, EMPTY);
+
+        this.tokenIds = new int[totalChars + 2];
+        Arrays.fill(tokenIds, -1);
+        this.root = nodeCount++;
+        this.continuationRoot = nodeCount++;
+
+        for (int id = 0; id < tokens.size(); id++) {
+            String token = tokens.get(id);
+            if (token.isEmpty()) {
+                continue;
+            }
+            boolean continuation = token.length() > 2 && token.startsWith("##");
+            int node = continuation ? continuationRoot : root;
+            for (int i = continuation ? 2 : 0; i < token.length(); i++) {
+                node = childOrCreate(node, token.charAt(i));
+            }
+            if (tokenIds[node] < 0) {
+                tokenIds[node] = id;
+            }
+        }
+
+        this.size = tokens.size();
+        this.clsId = require(tokens, "[CLS]");
+        this.sepId = require(tokens, "[SEP]");
+        this.unkId = require(tokens, "[UNK]");
+        int pad = tokens.indexOf("[PAD]");
+        this.padId = pad >= 0 ? pad : 0;
+    }
+
+    static WordPieceVocabulary load(Path vocabFile) throws IOException {
+        return new WordPieceVocabulary(Files.readAllLines(vocabFile, StandardCharsets.UTF_8).stream()
+            .map(String::strip)
+            .toList());
+    }
+
+    static WordPieceVocabulary of(List<String> tokens) {
+        return new WordPieceVocabulary(tokens);
+    }
+
+    private static int require(List<String> tokens, String special) {
+        int id = tokens.indexOf(special);
+        if (id < 0) {
+            throw new IllegalArgumentException("В словаре нет специального токена " + special);
+        }
+        return id;
+    }
+
+    /**
+     * Корень дерева для начала слова
+     */
+    int root() {
+        return root;
+    }
+
+    /**
+     * Корень дерева для продолжения слова (токены с префиксом "##")
+     */
+    int continuationRoot() {
+        return continuationRoot;
+    }
+
+    /**
+     * Переход по символу или -1, если такого продолжения нет в словаре
+     */
+    int child(int node, char c) {
+        long key = edgeKey(node, c);
+        int slot = slot(key);
+        while (true) {
+            long existing = edgeKeys[slot];
+            if (existing == key) {
+                return edgeTargets[slot];
+            }
+            if (existing == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * id токена, заканчивающегося в узле, или -1
+     */
+    int tokenId(int node) {
+        return tokenIds[node];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int clsId() {
+        return clsId;
+    }
+
+    int sepId() {
+        return sepId;
+    }
+
+    int padId() {
+        return padId;
+    }
+
+    int unkId() {
+        return unkId;
+    }
+
+    private int childOrCreate(int node, char c) {
+        long key = edgeKey(node, c);
+        int slot = slot(key);
+        while (edgeKeys[slot] != EMPTY) {
+            if (edgeKeys[slot] == key) {
+                return edgeTargets[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        int created = nodeCount++;
+        edgeKeys[slot] = key;
+        edgeTargets[slot] = created;
+        return created;
+    }
+
+    private static long edgeKey(int node, char c) {
+        return ((long) node << 16) | c;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
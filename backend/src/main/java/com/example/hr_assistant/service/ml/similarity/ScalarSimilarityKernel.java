@@ -0,0 +1,41 @@
+package com.example.hr_assistant.service.ml.similarity;
+
+/**
+ * Скалярная реализация ядра сходства (fallback, если Vector API недоступен)
+ */
+public class ScalarSimilarityKernel implements SimilarityKernel {
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0f;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float cosine(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float dot = 0f;
+        float normA = 0f;
+        float normB = 0f;
+        for (int i = 0; i < length; i++) {
+            float x = a[aOffset + i];
+            float y = b[bOffset + i];
+            dot += x * y;
+            normA += x * x;
+            normB += y * y;
+        }
+        return SimilarityKernels.cosineFromParts(dot, normA, normB);
+    }
+
+    @Override
+    public float squaredNorm(float[] a, int offset, int length) {
+        return dot(a, offset, a, offset, length);
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.hr_assistant.service.ml.similarity;
+
+/**
+ * Вычислительное ядро сходства векторов.
+ * Векторы задаются смещением в непрерывном массиве, чтобы матрицы эмбеддингов
+ * (строка за строкой) обрабатывались без копирования.
+ */
+public interface SimilarityKernel {
+
+    /**
+     * Скалярное произведение a[aOffset..aOffset+length) и b[bOffset..bOffset+length)
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * Косинусное сходство за один проход (произведение и обе нормы)
+     */
+    float cosine(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * Сумма квадратов элементов
+     */
+    float squaredNorm(float[] a, int offset, int length);
+
+    /**
+     * Имя реализации для логов и метрик
+     */
+    String name();
+}
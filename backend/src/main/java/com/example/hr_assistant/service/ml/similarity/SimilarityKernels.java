@@ -0,0 +1,182 @@
+package com.example.hr_assistant.service.ml.similarity;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Общие операции сходства эмбеддингов поверх {@link SimilarityKernel}.
+ *
+ * Ядро выбирается один раз: SIMD, если подключен модуль jdk.incubator.vector, иначе скалярное.
+ * Принудительно выбрать скалярное ядро можно свойством -Dhr.similarity.kernel=scalar.
+ *
+ * Пакетные варианты работают с непрерывной матрицей: строки по dimension элементов подряд.
+ * Для предварительно нормализованных векторов косинус равен скалярному произведению (fast path).
+ */
+@Slf4j
+public final class SimilarityKernels {
+
+    private static final SimilarityKernel KERNEL = loadKernel();
+
+    private SimilarityKernels() {
+    }
+
+    public static SimilarityKernel kernel() {
+        return KERNEL;
+    }
+
+    private static SimilarityKernel loadKernel() {
+        if ("scalar".equalsIgnoreCase(System.getProperty("hr.similarity.kernel"))) {
+            log.info("Ядро сходства: scalar (задано свойством hr.similarity.kernel)");
+            return new ScalarSimilarityKernel();
+        }
+        try {
+            SimilarityKernel kernel = (SimilarityKernel) Class
+                .forName("com.example.hr_assistant.service.ml.similarity.VectorSimilarityKernel")
+                .getDeclaredConstructor()
+                .newInstance();
+            // Пробный вызов: инициализирует species и проверяет доступность модуля
+            kernel.dot(new float[1], 0, new float[1], 0, 1);
+            log.info("Ядро сходства: {}", kernel.name());
+            return kernel;
+        } catch (LinkageError | ReflectiveOperationException e) {
+            log.info("Vector API недоступен ({}), используется скалярное ядро сходства", e.toString());
+            return new ScalarSimilarityKernel();
+        }
+    }
+
+    static float cosineFromParts(float dot, float squaredNormA, float squaredNormB) {
+        if (squaredNormA == 0f || squaredNormB == 0f) {
+            return 0f;
+        }
+        return (float) (dot / (Math.sqrt(squaredNormA) * Math.sqrt(squaredNormB)));
+    }
+
+    /**
+     * Косинусное сходство двух векторов одинаковой размерности
+     */
+    public static float cosine(float[] a, float[] b) {
+        requireSameLength(a.length, b.length);
+        return KERNEL.cosine(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Скалярное произведение; для нормализованных векторов равно косинусу
+     */
+    public static float dot(float[] a, float[] b) {
+        requireSameLength(a.length, b.length);
+        return KERNEL.dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Возвращает нормализованную копию вектора (нулевой вектор возвращается как есть)
+     */
+    public static float[] normalize(float[] vector) {
+        float[] copy = vector.clone();
+        normalizeRows(copy, vector.length);
+        return copy;
+    }
+
+    /**
+     * Нормализует строки матрицы на месте
+     */
+    public static void normalizeRows(float[] matrix, int dimension) {
+        for (int offset = 0; offset + dimension <= matrix.length; offset += dimension) {
+            float squared = KERNEL.squaredNorm(matrix, offset, dimension);
+            if (squared == 0f) {
+                continue;
+            }
+            float inv = (float) (1.0 / Math.sqrt(squared));
+            for (int i = offset; i < offset + dimension; i++) {
+                matrix[i] *= inv;
+            }
+        }
+    }
+
+    /**
+     * Упаковывает векторы одинаковой размерности в непрерывную матрицу
+     */
+    public static float[] pack(List<float[]> vectors) {
+        if (vectors.isEmpty()) {
+            return new float[0];
+        }
+        int dimension = vectors.get(0).length;
+        float[] matrix = new float[vectors.size() * dimension];
+        for (int row = 0; row < vectors.size(); row++) {
+            float[] vector = vectors.get(row);
+            requireSameLength(dimension, vector.length);
+            System.arraycopy(vector, 0, matrix, row * dimension, dimension);
+        }
+        return matrix;
+    }
+
+    /**
+     * Косинусное сходство запроса с каждой строкой матрицы
+     */
+    public static float[] oneVsMany(float[] query, float[] matrix, int dimension) {
+        requireSameLength(query.length, dimension);
+        int rows = rows(matrix, dimension);
+        float[] result = new float[rows];
+        float queryNorm = KERNEL.squaredNorm(query, 0, dimension);
+        for (int row = 0; row < rows; row++) {
+            int offset = row * dimension;
+            result[row] = cosineFromParts(KERNEL.dot(query, 0, matrix, offset, dimension),
+                queryNorm, KERNEL.squaredNorm(matrix, offset, dimension));
+        }
+        return result;
+    }
+
+    /**
+     * Fast path для нормализованных векторов: сходство — скалярное произведение
+     */
+    public static float[] oneVsManyNormalized(float[] query, float[] matrix, int dimension) {
+        requireSameLength(query.length, dimension);
+        int rows = rows(matrix, dimension);
+        float[] result = new float[rows];
+        for (int row = 0; row < rows; row++) {
+            result[row] = KERNEL.dot(query, 0, matrix, row * dimension, dimension);
+        }
+        return result;
+    }
+
+    /**
+     * Косинусное сходство каждой строки queries с каждой строкой matrix.
+     * Результат — матрица [queries x matrix] построчно.
+     */
+    public static float[] manyVsMany(float[] queries, float[] matrix, int dimension) {
+        float[] normalizedQueries = queries.clone();
+        float[] normalizedMatrix = matrix.clone();
+        normalizeRows(normalizedQueries, dimension);
+        normalizeRows(normalizedMatrix, dimension);
+        return manyVsManyNormalized(normalizedQueries, normalizedMatrix, dimension);
+    }
+
+    /**
+     * Fast path manyVsMany для нормализованных строк
+     */
+    public static float[] manyVsManyNormalized(float[] queries, float[] matrix, int dimension) {
+        int queryRows = rows(queries, dimension);
+        int rows = rows(matrix, dimension);
+        float[] result = new float[queryRows * rows];
+        for (int q = 0; q < queryRows; q++) {
+            int queryOffset = q * dimension;
+            for (int row = 0; row < rows; row++) {
+                result[q * rows + row] = KERNEL.dot(queries, queryOffset, matrix, row * dimension, dimension);
+            }
+        }
+        return result;
+    }
+
+    private static int rows(float[] matrix, int dimension) {
+        if (dimension <= 0 || matrix.length % dimension != 0) {
+            throw new IllegalArgumentException("Размер матрицы " + matrix.length + " не кратен размерности " + dimension);
+        }
+        return matrix.length / dimension;
+    }
+
+    private static void requireSameLength(int expected, int actual) {
+        if (expected != actual) {
+            throw new IllegalArgumentException("Размеры эмбеддингов должны совпадать: " + expected + " vs " + actual);
+        }
+    }
+}
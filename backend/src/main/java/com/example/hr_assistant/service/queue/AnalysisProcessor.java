@@ -10,105 +10,91 @@ import com.example.hr_assistant.service.ml.ClassificationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-// import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Обработчик задач анализа интервью
+ * Обработчик задач анализа интервью (этап ANALYZE).
+ *
+ * Оценки считаются без открытой транзакции (ruBERT и эмбеддинги — удаленные вызовы и инференс),
+ * анализ и оценка интервью сохраняются короткой транзакцией, задачи следующих этапов ставятся после ее коммита.
  */
 @Service
-@ConditionalOnProperty(name = "spring.rabbitmq.listener.simple.auto-startup", havingValue = "true", matchIfMissing = false)
 @RequiredArgsConstructor
 @Slf4j
-public class AnalysisProcessor {
+public class AnalysisProcessor implements JobHandler {
 
     private final ClassificationService classificationService;
     private final InterviewRepository interviewRepository;
     private final AnalysisRepository analysisRepository;
     private final QueueService queueService;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
 
-    // @RabbitListener(queues = QueueService.ANALYSIS_QUEUE)
-    public void processAnalysisTask(String message) {
-        try {
-            QueueMessage queueMessage = objectMapper.readValue(message, QueueMessage.class);
-            
-            log.info("Обработка задачи анализа: interviewId={}", queueMessage.getInterviewId());
-            
-            // Получаем интервью
-            Interview interview = interviewRepository.findById(queueMessage.getInterviewId())
-                .orElseThrow(() -> new RuntimeException("Интервью не найдено: " + queueMessage.getInterviewId()));
-            
-            Vacancy vacancy = interview.getVacancy();
-            String transcriptText = queueMessage.getTranscriptText();
-            
-            // Выполняем классификацию соответствия
-            // Преобразуем Map<String, Double> в Map<String, String> для совместимости
-            Map<String, String> requirementsAsString = new HashMap<>();
-            vacancy.getRequiredCompetencies().forEach((key, value) -> 
-                requirementsAsString.put(key, value.toString())
-            );
-            
-            Map<String, Double> competencyScores = classificationService.classifyCompliance(
-                transcriptText, 
-                requirementsAsString
-            );
-            
-            // Вычисляем общую оценку
-            double overallScore = classificationService.calculateOverallScore(
-                competencyScores, 
-                vacancy.getRequiredCompetencies()
-            );
-            
-            // Создаем анализ
-            Analysis analysis = new Analysis();
-            analysis.setInterview(interview);
-            analysis.setOverallScore(overallScore);
-            analysis.setCompetencyScoresJson(serializeMap(competencyScores));
-            analysis.setDetailsJson(createAnalysisDetails(competencyScores, transcriptText));
-            
-            // Определяем рекомендацию
-            String recommendation = determineRecommendation(overallScore);
-            analysis.setRecommendation(recommendation);
-            analysis.setRecommendationReason(createRecommendationReason(overallScore, competencyScores));
-            
-            // Сохраняем анализ
+    @Override
+    public JobStage stage() {
+        return JobStage.ANALYZE;
+    }
+
+    @Override
+    public void handle(QueueMessage queueMessage) {
+        log.info("Обработка задачи анализа: interviewId={}", queueMessage.getInterviewId());
+
+        // Получаем интервью вместе с компетенциями вакансии: дальше они читаются вне транзакции
+        Interview interview = interviewRepository.findWithVacancyById(queueMessage.getInterviewId())
+            .orElseThrow(() -> new RuntimeException("Интервью не найдено: " + queueMessage.getInterviewId()));
+
+        Vacancy vacancy = interview.getVacancy();
+        String transcriptText = queueMessage.getTranscriptText();
+
+        // Выполняем классификацию соответствия требованиям вакансии
+        // (эмбеддинги требований берутся из предрасчитанного индекса)
+        Map<String, Double> competencyScores = classificationService.classifyCompliance(
+            transcriptText,
+            vacancy
+        );
+
+        // Вычисляем общую оценку
+        double overallScore = classificationService.calculateOverallScore(
+            competencyScores,
+            vacancy.getRequiredCompetencies()
+        );
+
+        // Создаем анализ
+        Analysis analysis = new Analysis();
+        analysis.setOverallScore(overallScore);
+        analysis.setCompetencyScoresJson(serializeMap(competencyScores));
+        analysis.setDetailsJson(createAnalysisDetails(competencyScores, transcriptText));
+
+        // Определяем рекомендацию
+        String recommendation = determineRecommendation(overallScore);
+        analysis.setRecommendation(recommendation);
+        analysis.setRecommendationReason(createRecommendationReason(overallScore, competencyScores));
+
+        // Сохраняем анализ и оценку интервью одной короткой транзакцией
+        transactionTemplate.executeWithoutResult(status -> {
+            analysis.setInterview(interviewRepository.getReferenceById(interview.getId()));
             analysisRepository.save(analysis);
-            
-            // Обновляем интервью
-            interview.setMatchingScore(overallScore);
-            interviewRepository.save(interview);
-            
-            // Отправляем уведомление о завершении анализа
-            queueService.sendNotification(
-                interview.getId(),
-                "ANALYSIS_COMPLETED",
-                "Анализ интервью завершен. Оценка: " + String.format("%.1f%%", overallScore * 100)
-            );
-            
-            log.info("Анализ завершен: interviewId={}, score={}", 
-                queueMessage.getInterviewId(), overallScore);
-            
-        } catch (Exception e) {
-            log.error("Ошибка при обработке анализа: {}", e.getMessage(), e);
-            
-            // Отправляем уведомление об ошибке
-            try {
-                QueueMessage queueMessage = objectMapper.readValue(message, QueueMessage.class);
-                queueService.sendNotification(
-                    queueMessage.getInterviewId(),
-                    "ANALYSIS_ERROR",
-                    "Ошибка анализа: " + e.getMessage()
-                );
-            } catch (Exception ex) {
-                log.error("Ошибка при отправке уведомления об ошибке: {}", ex.getMessage());
-            }
-        }
+            interviewRepository.updateMatchingScore(interview.getId(), overallScore);
+        });
+
+        // Следующие этапы ставятся после коммита и без ошибки при переполнении:
+        // повтор этапа сохранил бы анализ и поставил проверку еще раз
+        queueService.deferAntifraudTask(interview.getId(), AntifraudProcessor.AI_TEXT_DETECTION, transcriptText);
+
+        // Отправляем уведомление о завершении анализа
+        queueService.deferNotification(
+            interview.getId(),
+            "ANALYSIS_COMPLETED",
+            "Анализ интервью завершен. Оценка: " + String.format("%.1f%%", overallScore * 100)
+        );
+
+        log.info("Анализ завершен: interviewId={}, score={}",
+            queueMessage.getInterviewId(), overallScore);
     }
 
     /**
@@ -0,0 +1,50 @@
+package com.example.hr_assistant.service.queue;
+
+import com.example.hr_assistant.model.dto.AntifraudEvaluationRequest;
+import com.example.hr_assistant.model.dto.QueueMessage;
+import com.example.hr_assistant.service.antifraud.AntifraudService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Обработчик антифрод задач (этап ANTIFRAUD)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AntifraudProcessor implements JobHandler {
+
+    public static final String AI_TEXT_DETECTION = "AI_TEXT_DETECTION";
+    public static final String FRAUD_SCORE = "FRAUD_SCORE";
+
+    private final AntifraudService antifraudService;
+    private final QueueService queueService;
+
+    @Override
+    public JobStage stage() {
+        return JobStage.ANTIFRAUD;
+    }
+
+    @Override
+    public void handle(QueueMessage queueMessage) {
+        Long interviewId = queueMessage.getInterviewId();
+        String taskType = queueMessage.getTaskType();
+        log.info("Обработка антифрод задачи: interviewId={}, taskType={}", interviewId, taskType);
+
+        if (AI_TEXT_DETECTION.equals(taskType)) {
+            // Проверка и пересчет fraud score — одно сохранение записи
+            AntifraudEvaluationRequest request = new AntifraudEvaluationRequest();
+            request.setInterviewId(interviewId);
+            request.setText(String.valueOf(queueMessage.getData()));
+            antifraudService.evaluateAll(request);
+        } else if (FRAUD_SCORE.equals(taskType)) {
+            antifraudService.calculateFraudScore(interviewId);
+        } else {
+            log.warn("Неизвестный тип антифрод задачи: {}", taskType);
+            return;
+        }
+
+        queueService.sendNotification(interviewId, "ANTIFRAUD_COMPLETED", "Антифрод проверка завершена: " + taskType);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.hr_assistant.service.queue;
+
+import com.example.hr_assistant.config.PipelineConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Транспорт в памяти процесса: по ограниченной очереди на этап.
+ * Задачи не переживают рестарт; окончательно упавшие задачи сохраняются в dead_letter_jobs.
+ */
+@Component
+@ConditionalOnProperty(name = "queue.pipeline.transport", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryJobTransport implements JobTransport {
+
+    private final Map<JobStage, BlockingQueue<PipelineJob>> queues = new EnumMap<>(JobStage.class);
+
+    public InMemoryJobTransport(PipelineConfig pipelineConfig) {
+        for (JobStage stage : JobStage.values()) {
+            int capacity = Math.max(1, pipelineConfig.stage(stage).getCapacity());
+            queues.put(stage, new ArrayBlockingQueue<>(capacity));
+        }
+    }
+
+    @Override
+    public boolean offer(PipelineJob job, long timeout, TimeUnit unit) throws InterruptedException {
+        return queues.get(job.getStage()).offer(job, timeout, unit);
+    }
+
+    @Override
+    public PipelineJob poll(JobStage stage, long timeout, TimeUnit unit) throws InterruptedException {
+        return queues.get(stage).poll(timeout, unit);
+    }
+
+    @Override
+    public int size(JobStage stage) {
+        return queues.get(stage).size();
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+}
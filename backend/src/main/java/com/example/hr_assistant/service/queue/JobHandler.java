@@ -0,0 +1,14 @@
+package com.example.hr_assistant.service.queue;
+
+import com.example.hr_assistant.model.dto.QueueMessage;
+
+/**
+ * Обработчик этапа конвейера. Исключение из handle означает неудачную попытку:
+ * задача будет повторена с экспоненциальной задержкой, а после исчерпания попыток уйдет в dead letter.
+ */
+public interface JobHandler {
+
+    JobStage stage();
+
+    void handle(QueueMessage message) throws Exception;
+}
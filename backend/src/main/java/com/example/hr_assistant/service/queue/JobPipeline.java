@@ -0,0 +1,296 @@
+package com.example.hr_assistant.service.queue;
+
+import com.example.hr_assistant.config.PipelineConfig;
+import com.example.hr_assistant.exception.PipelineOverloadedException;
+import com.example.hr_assistant.exception.ResourceNotFoundException;
+import com.example.hr_assistant.model.DeadLetterJob;
+import com.example.hr_assistant.model.dto.QueueMessage;
+import com.example.hr_assistant.repository.DeadLetterJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Конвейер фоновой обработки интервью: UPLOAD → TRANSCRIBE → ANALYZE → ANTIFRAUD → NOTIFY.
+ *
+ * У каждого этапа своя ограниченная очередь в {@link JobTransport} и свой пул воркеров
+ * (queue.pipeline.stages.&lt;этап&gt;.workers/capacity). Обработчики этапов — бины {@link JobHandler};
+ * следующий этап обработчик ставит сам через {@link QueueService}.
+ *
+ * Неудачная попытка повторяется с экспоненциальной задержкой; после queue.pipeline.retry.max-attempts
+ * задача сохраняется в dead_letter_jobs, а по интервью отправляется уведомление об ошибке.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobPipeline {
+
+    private final PipelineConfig pipelineConfig;
+    private final JobTransport transport;
+    private final ObjectProvider<JobHandler> handlerProvider;
+    private final DeadLetterJobRepository deadLetterJobRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<JobStage, JobHandler> handlers = new EnumMap<>(JobStage.class);
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "pipeline-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running;
+
+    /**
+     * Запускает воркеры после старта приложения, когда все обработчики уже созданы
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running || !isEnabled()) {
+            return;
+        }
+        handlerProvider.orderedStream().forEach(handler -> {
+            JobHandler previous = handlers.put(handler.stage(), handler);
+            if (previous != null) {
+                throw new IllegalStateException("Несколько обработчиков этапа " + handler.stage());
+            }
+        });
+        running = true;
+
+        for (JobStage stage : JobStage.values()) {
+            Gauge.builder("hr.pipeline.queue.size", transport, t -> t.size(stage))
+                .description("Задачи, ожидающие обработки на этапе конвейера")
+                .tag("stage", stage.name())
+                .register(meterRegistry);
+            if (!handlers.containsKey(stage)) {
+                log.warn("Для этапа {} нет обработчика, задачи будут копиться в очереди", stage);
+                continue;
+            }
+            int count = Math.max(1, pipelineConfig.stage(stage).getWorkers());
+            for (int i = 0; i < count; i++) {
+                Thread worker = new Thread(() -> work(stage), "pipeline-" + stage.name().toLowerCase() + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+        log.info("Конвейер задач запущен: транспорт={}, этапы={}", transport.name(), handlers.keySet());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+        retryScheduler.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(pipelineConfig.getEnabled());
+    }
+
+    /**
+     * Ставит задачу на этап. Если очередь этапа заполнена дольше offer-timeout-ms — PipelineOverloadedException.
+     */
+    public String submit(JobStage stage, QueueMessage message) {
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(System.currentTimeMillis());
+        }
+        PipelineJob job = PipelineJob.of(stage, message);
+        try {
+            if (!transport.offer(job, pipelineConfig.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                counter(stage, "rejected").increment();
+                throw new PipelineOverloadedException("Очередь этапа " + stage + " переполнена");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipelineOverloadedException("Постановка задачи этапа " + stage + " прервана");
+        }
+        log.debug("Задача {} поставлена на этап {}: interviewId={}", job.getId(), stage, message.getInterviewId());
+        return job.getId();
+    }
+
+    /**
+     * Ставит задачу на этап без ожидания места в очереди: если очередь заполнена, постановка
+     * откладывается планировщиком, как повтор. PipelineOverloadedException не бросается.
+     */
+    public String submitDeferred(JobStage stage, QueueMessage message) {
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(System.currentTimeMillis());
+        }
+        PipelineJob job = PipelineJob.of(stage, message);
+        enqueueOrReschedule(job, pipelineConfig.getRetry().getInitialBackoffMs());
+        return job.getId();
+    }
+
+    /**
+     * Ставит задачу на этап после задержки
+     */
+    public String submitDelayed(JobStage stage, QueueMessage message, long delayMs) {
+        PipelineJob job = PipelineJob.of(stage, message);
+        retryScheduler.schedule(() -> enqueueOrReschedule(job, delayMs), delayMs, TimeUnit.MILLISECONDS);
+        return job.getId();
+    }
+
+    /**
+     * Повторно ставит задачу из dead letter на ее этап (попытки начинаются заново)
+     */
+    public String requeueDeadLetter(Long deadLetterId) {
+        DeadLetterJob deadLetter = deadLetterJobRepository.findById(deadLetterId)
+            .orElseThrow(() -> new ResourceNotFoundException("Задача dead letter не найдена: " + deadLetterId));
+        try {
+            QueueMessage message = objectMapper.readValue(deadLetter.getPayloadJson(), QueueMessage.class);
+            String jobId = submit(JobStage.valueOf(deadLetter.getStage()), message);
+            deadLetterJobRepository.delete(deadLetter);
+            return jobId;
+        } catch (PipelineOverloadedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Не удалось восстановить задачу " + deadLetterId + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Состояние очередей по этапам
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (JobStage stage : JobStage.values()) {
+            stages.put(stage.name(), Map.of(
+                "queued", transport.size(stage),
+                "capacity", pipelineConfig.stage(stage).getCapacity(),
+                "workers", handlers.containsKey(stage) ? pipelineConfig.stage(stage).getWorkers() : 0));
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running);
+        stats.put("transport", transport.name());
+        stats.put("stages", stages);
+        stats.put("deadLetters", deadLetterJobRepository.count());
+        return stats;
+    }
+
+    private void work(JobStage stage) {
+        JobHandler handler = handlers.get(stage);
+        Timer timer = Timer.builder("hr.pipeline.job.duration")
+            .description("Время обработки задачи этапа конвейера")
+            .tag("stage", stage.name())
+            .register(meterRegistry);
+
+        while (running && !Thread.currentThread().isInterrupted()) {
+            PipelineJob job;
+            try {
+                job = transport.poll(stage, 1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (job == null) {
+                continue;
+            }
+
+            long started = System.nanoTime();
+            try {
+                job.setAttempt(job.getAttempt() + 1);
+                handler.handle(job.getMessage());
+                counter(stage, "success").increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                onFailure(job, e);
+            } catch (Exception e) {
+                onFailure(job, e);
+            } finally {
+                timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void onFailure(PipelineJob job, Exception error) {
+        PipelineConfig.Retry retry = pipelineConfig.getRetry();
+        if (job.getAttempt() < retry.getMaxAttempts()) {
+            long backoff = backoffMs(job.getAttempt());
+            counter(job.getStage(), "retry").increment();
+            log.warn("Задача {} этапа {} упала (попытка {}/{}), повтор через {} мс: {}",
+                job.getId(), job.getStage(), job.getAttempt(), retry.getMaxAttempts(), backoff, error.getMessage());
+            retryScheduler.schedule(() -> enqueueOrReschedule(job, backoff), backoff, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        counter(job.getStage(), "dead").increment();
+        log.error("Задача {} этапа {} исчерпала {} попыток: {}",
+            job.getId(), job.getStage(), job.getAttempt(), error.getMessage(), error);
+        deadLetter(job, error);
+
+        if (job.getStage() != JobStage.NOTIFY && handlers.containsKey(JobStage.NOTIFY)) {
+            QueueMessage notification = new QueueMessage();
+            notification.setType(QueueMessage.MessageType.NOTIFICATION);
+            notification.setInterviewId(job.getMessage().getInterviewId());
+            notification.setNotificationType(job.getStage().name() + "_ERROR");
+            notification.setMessage("Ошибка этапа " + job.getStage() + ": " + error.getMessage());
+            enqueueOrReschedule(PipelineJob.of(JobStage.NOTIFY, notification), retry.getInitialBackoffMs());
+        }
+    }
+
+    /**
+     * Неблокирующая постановка из планировщика: если очередь все еще заполнена, попытка откладывается
+     */
+    private void enqueueOrReschedule(PipelineJob job, long delayMs) {
+        try {
+            if (!transport.offer(job, 0, TimeUnit.MILLISECONDS)) {
+                long next = Math.min(delayMs * 2, pipelineConfig.getRetry().getMaxBackoffMs());
+                retryScheduler.schedule(() -> enqueueOrReschedule(job, next), next, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Не удалось вернуть задачу {} в очередь: {}", job.getId(), e.getMessage());
+            deadLetter(job, e);
+        }
+    }
+
+    private void deadLetter(PipelineJob job, Exception error) {
+        try {
+            DeadLetterJob deadLetter = new DeadLetterJob();
+            deadLetter.setJobId(job.getId());
+            deadLetter.setStage(job.getStage().name());
+            deadLetter.setInterviewId(job.getMessage().getInterviewId());
+            deadLetter.setPayloadJson(objectMapper.writeValueAsString(job.getMessage()));
+            deadLetter.setAttempts(job.getAttempt());
+            deadLetter.setLastError(error.toString());
+            deadLetterJobRepository.save(deadLetter);
+        } catch (Exception e) {
+            log.error("Не удалось сохранить задачу {} в dead letter: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    long backoffMs(int attempt) {
+        PipelineConfig.Retry retry = pipelineConfig.getRetry();
+        double backoff = retry.getInitialBackoffMs() * Math.pow(retry.getMultiplier(), Math.max(0, attempt - 1));
+        return (long) Math.min(backoff, retry.getMaxBackoffMs());
+    }
+
+    private Counter counter(JobStage stage, String outcome) {
+        return Counter.builder("hr.pipeline.jobs")
+            .description("Задачи конвейера по исходу обработки")
+            .tag("stage", stage.name())
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.hr_assistant.service.queue;
+
+/**
+ * Этапы конвейера обработки интервью
+ */
+public enum JobStage {
+    UPLOAD,
+    TRANSCRIBE,
+    ANALYZE,
+    ANTIFRAUD,
+    NOTIFY
+}
@@ -0,0 +1,24 @@
+package com.example.hr_assistant.service.queue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Транспорт очередей конвейера.
+ *
+ * Очереди этапов ограничены: offer возвращает false, если места не появилось за timeout —
+ * так перегрузка следующего этапа доходит до источника задач (back-pressure).
+ * Реализация поверх брокера (RabbitMQ) должна сохранять эту семантику.
+ */
+public interface JobTransport {
+
+    boolean offer(PipelineJob job, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Следующая задача этапа или null, если за timeout задач не появилось
+     */
+    PipelineJob poll(JobStage stage, long timeout, TimeUnit unit) throws InterruptedException;
+
+    int size(JobStage stage);
+
+    String name();
+}
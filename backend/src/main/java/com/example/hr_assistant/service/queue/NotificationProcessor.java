@@ -0,0 +1,52 @@
+package com.example.hr_assistant.service.queue;
+
+import com.example.hr_assistant.model.AuditLog;
+import com.example.hr_assistant.model.dto.QueueMessage;
+import com.example.hr_assistant.repository.AuditLogRepository;
+import com.example.hr_assistant.repository.InterviewRepository;
+import com.example.hr_assistant.service.antifraud.CandidateSilenceEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Обработчик уведомлений (этап NOTIFY): уведомления по интервью сохраняются в журнал аудита
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationProcessor implements JobHandler {
+
+    private final AuditLogRepository auditLogRepository;
+    private final InterviewRepository interviewRepository;
+    private final QueueService queueService;
+
+    @Override
+    public JobStage stage() {
+        return JobStage.NOTIFY;
+    }
+
+    @Override
+    public void handle(QueueMessage queueMessage) {
+        log.info("Уведомление {} по интервью {}: {}",
+            queueMessage.getNotificationType(), queueMessage.getInterviewId(), queueMessage.getMessage());
+
+        AuditLog auditLog = new AuditLog();
+        if (queueMessage.getInterviewId() != null && interviewRepository.existsById(queueMessage.getInterviewId())) {
+            auditLog.setInterview(interviewRepository.getReferenceById(queueMessage.getInterviewId()));
+        }
+        auditLog.setEventType(queueMessage.getNotificationType() != null ? queueMessage.getNotificationType() : "NOTIFICATION");
+        auditLog.setMessage(queueMessage.getMessage());
+        auditLogRepository.save(auditLog);
+    }
+
+    /**
+     * Кандидат перестал присылать heartbeat — уведомление ставится в очередь, а не пишется в потоке колеса таймеров
+     */
+    @EventListener
+    public void onCandidateSilence(CandidateSilenceEvent event) {
+        queueService.sendNotification(event.interviewId(), "CANDIDATE_SILENT",
+            "Нет heartbeat от кандидата " + event.silentForMs() / 1000 + " с");
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.hr_assistant.service.queue;
+
+import com.example.hr_assistant.model.dto.QueueMessage;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Задача конвейера: сообщение, этап и номер попытки
+ */
+@Data
+@NoArgsConstructor
+public class PipelineJob {
+
+    private String id;
+    private JobStage stage;
+    private int attempt;
+    private QueueMessage message;
+    private long enqueuedAt;
+
+    public static PipelineJob of(JobStage stage, QueueMessage message) {
+        PipelineJob job = new PipelineJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setStage(stage);
+        job.setMessage(message);
+        job.setEnqueuedAt(System.currentTimeMillis());
+        return job;
+    }
+}
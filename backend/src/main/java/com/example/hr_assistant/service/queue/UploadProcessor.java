@@ -0,0 +1,59 @@
+package com.example.hr_assistant.service.queue;
+
+import com.example.hr_assistant.model.Interview;
+import com.example.hr_assistant.model.Question;
+import com.example.hr_assistant.model.Recording;
+import com.example.hr_assistant.model.dto.QueueMessage;
+import com.example.hr_assistant.repository.InterviewRepository;
+import com.example.hr_assistant.repository.QuestionRepository;
+import com.example.hr_assistant.repository.RecordingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Обработчик загруженных записей (этап UPLOAD): регистрирует запись ответа и ставит ее на транскрипцию
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UploadProcessor implements JobHandler {
+
+    private final InterviewRepository interviewRepository;
+    private final QuestionRepository questionRepository;
+    private final RecordingRepository recordingRepository;
+    private final QueueService queueService;
+
+    @Override
+    public JobStage stage() {
+        return JobStage.UPLOAD;
+    }
+
+    @Override
+    public void handle(QueueMessage queueMessage) {
+        Long interviewId = queueMessage.getInterviewId();
+        Long questionId = queueMessage.getQuestionId();
+        log.info("Обработка загруженной записи: interviewId={}, questionId={}", interviewId, questionId);
+
+        // Повторная попытка не должна создавать вторую запись для того же файла
+        Recording recording = recordingRepository.findByInterviewIdAndQuestionId(interviewId, questionId).stream()
+            .filter(r -> queueMessage.getFileUrl().equals(r.getFileUrl()))
+            .findFirst()
+            .orElseGet(() -> {
+                Interview interview = interviewRepository.findById(interviewId)
+                    .orElseThrow(() -> new RuntimeException("Интервью не найдено: " + interviewId));
+                Question question = questionRepository.findById(questionId)
+                    .orElseThrow(() -> new RuntimeException("Вопрос не найден: " + questionId));
+                Recording created = new Recording();
+                created.setInterview(interview);
+                created.setQuestion(question);
+                created.setType(Recording.RecordingType.AUDIO_VIDEO);
+                created.setFileUrl(queueMessage.getFileUrl());
+                created.setFileSizeBytes(queueMessage.getFileSizeBytes());
+                created.setIsFinalChunk(true);
+                return recordingRepository.save(created);
+            });
+
+        queueService.sendTranscriptionTask(recording.getId(), recording.getFileUrl());
+    }
+}
@@ -1,23 +1,49 @@
 package com.example.hr_assistant.service.storage;
 
 import com.example.hr_assistant.config.MinioConfig;
+import com.example.hr_assistant.model.MediaObject;
 import com.example.hr_assistant.model.dto.MediaUploadResponse;
+import com.example.hr_assistant.repository.MediaObjectRepository;
 import io.minio.*;
 import io.minio.http.Method;
+import io.minio.messages.Part;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Сервис для работы с медиа хранилищем (MinIO/S3)
+ * Сервис для работы с медиа хранилищем (MinIO/S3).
+ *
+ * Синхронные операции идут через {@link MinioClient}, асинхронные загрузки — через
+ * {@link MinioAsyncClient}; оба используют общий пул соединений OkHttp (minio.client.*).
+ * Задержка каждой операции и пропускная способность загрузок пишутся в hr.storage.*.
+ * Генерируемые медиа (TTS, аватары) хранятся по хэшу содержимого с подсчетом ссылок в media_objects:
+ * повторная генерация того же файла не создает новый объект.
  */
 @Service
 @RequiredArgsConstructor
@@ -25,8 +51,19 @@ import java.util.concurrent.TimeUnit;
 @ConditionalOnBean(MinioConfig.class)
 public class MediaStorageService {
 
+    /** Минимальный размер части multipart upload в S3 (кроме последней) */
+    private static final long MIN_PART_SIZE_BYTES = 5L * 1024 * 1024;
+
+    /** Повторы дедуплицированной загрузки, пока запись того же содержимого удаляется */
+    private static final int STALE_OBJECT_RETRIES = 5;
+    private static final Duration STALE_OBJECT_BACKOFF = Duration.ofMillis(50);
+
     private final MinioClient minioClient;
+    private final MinioAsyncClient minioAsyncClient;
+    private final MinioMultipartClient multipartClient;
     private final MinioConfig minioConfig;
+    private final MediaObjectRepository mediaObjectRepository;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Инициализирует bucket если не существует
@@ -60,36 +97,19 @@ public class MediaStorageService {
         try {
             String fileName = generateFileName(file.getOriginalFilename(), folder);
             
-            minioClient.putObject(
+            timed("put", file.getSize(), () -> minioClient.putObject(
                 PutObjectArgs.builder()
                     .bucket(minioConfig.getBucketName())
                     .object(fileName)
                     .stream(file.getInputStream(), file.getSize(), -1)
                     .contentType(file.getContentType())
                     .build()
-            );
+            ));
 
-            String fileUrl = getFileUrl(fileName);
-            
-            MediaUploadResponse response = new MediaUploadResponse();
-            response.setFileUrl(fileUrl);
-            response.setFileSize(file.getSize());
-            response.setContentType(file.getContentType());
-            response.setSuccess(true);
-            response.setMessage("Файл успешно загружен");
-            
-            log.info("Файл загружен: {}", fileName);
-            
-            return response;
+            return uploaded(fileName, file.getSize(), file.getContentType());
             
         } catch (Exception e) {
-            log.error("Ошибка при загрузке файла: {}", e.getMessage(), e);
-            
-            MediaUploadResponse response = new MediaUploadResponse();
-            response.setSuccess(false);
-            response.setMessage("Ошибка загрузки файла: " + e.getMessage());
-            
-            return response;
+            return uploadFailed(e);
         }
     }
 
@@ -100,39 +120,234 @@ public class MediaStorageService {
         try {
             String fullFileName = generateFileName(fileName, folder);
             
-            minioClient.putObject(
+            timed("put", fileData.length, () -> minioClient.putObject(
                 PutObjectArgs.builder()
                     .bucket(minioConfig.getBucketName())
                     .object(fullFileName)
                     .stream(new ByteArrayInputStream(fileData), fileData.length, -1)
                     .contentType(contentType)
                     .build()
-            );
+            ));
 
-            String fileUrl = getFileUrl(fullFileName);
-            
-            MediaUploadResponse response = new MediaUploadResponse();
-            response.setFileUrl(fileUrl);
-            response.setFileSize((long) fileData.length);
-            response.setContentType(contentType);
-            response.setSuccess(true);
-            response.setMessage("Файл успешно загружен");
-            
-            log.info("Файл загружен: {}", fullFileName);
-            
-            return response;
+            return uploaded(fullFileName, fileData.length, contentType);
             
         } catch (Exception e) {
-            log.error("Ошибка при загрузке файла: {}", e.getMessage(), e);
-            
-            MediaUploadResponse response = new MediaUploadResponse();
-            response.setSuccess(false);
-            response.setMessage("Ошибка загрузки файла: " + e.getMessage());
-            
-            return response;
+            return uploadFailed(e);
+        }
+    }
+
+    /**
+     * Асинхронно загружает файл запроса: поток запроса не ждет окончания PUT
+     */
+    public Mono<MediaUploadResponse> uploadFileAsync(MultipartFile file, String folder) {
+        String fileName = generateFileName(file.getOriginalFilename(), folder);
+        return timed("put", file.getSize(), future(() -> minioAsyncClient.putObject(
+                PutObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(fileName)
+                    .stream(file.getInputStream(), file.getSize(), -1)
+                    .contentType(file.getContentType())
+                    .build()
+            )))
+            .map(written -> uploaded(fileName, file.getSize(), file.getContentType()))
+            .onErrorResume(e -> Mono.just(uploadFailed(e)));
+    }
+
+    /**
+     * Асинхронно загружает файл из byte array. Объекты больше minio.client.part-size-bytes
+     * загружаются частями, до minio.client.parallel-parts частей одновременно.
+     */
+    public Mono<MediaUploadResponse> uploadFileAsync(byte[] fileData, String fileName, String contentType, String folder) {
+        String fullFileName = generateFileName(fileName, folder);
+        return putObjectAsync(fullFileName, fileData, contentType)
+            .then(Mono.fromSupplier(() -> uploaded(fullFileName, fileData.length, contentType)))
+            .onErrorResume(e -> Mono.just(uploadFailed(e)));
+    }
+
+    /**
+     * Сохраняет файл под ключом из SHA-256 содержимого ({folder}/sha256/{hash}{ext}).
+     * Если такое содержимое уже есть, загрузки нет — у объекта увеличивается счетчик ссылок.
+     * Каждый успешный вызов добавляет одну ссылку; освобождается она через {@link #release}.
+     * Если найденная запись удалена или удаляется последним владельцем, попытка повторяется:
+     * после удаления записи содержимое загружается и регистрируется заново.
+     */
+    public Mono<MediaUploadResponse> storeDeduplicatedAsync(byte[] fileData, String fileName, String contentType,
+                                                            String folder) {
+        String hash = contentHash(fileData);
+        String objectName = String.format("%s/sha256/%s%s", folder, hash, getFileExtension(fileName));
+        return Mono.defer(() -> Mono.fromCallable(() -> mediaObjectRepository.findByContentHash(hash))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(existing -> existing.isPresent()
+                    ? Mono.fromCallable(() -> reference(existing.get(), fileData.length))
+                    : putObjectAsync(objectName, fileData, contentType)
+                        .publishOn(Schedulers.boundedElastic())
+                        .then(Mono.fromCallable(() -> register(hash, objectName, fileData.length, contentType)))))
+            .retryWhen(Retry.backoff(STALE_OBJECT_RETRIES, STALE_OBJECT_BACKOFF)
+                .filter(StaleMediaObjectException.class::isInstance))
+            .map(object -> uploaded(object.getObjectName(), object.getSizeBytes(), object.getContentType()))
+            .onErrorResume(e -> Mono.just(uploadFailed(e)));
+    }
+
+    /**
+     * Снимает ссылку с объекта, сохраненного через {@link #storeDeduplicatedAsync}; последний
+     * владелец удаляет объект из хранилища. Файлы вне учета ссылок не трогаются.
+     *
+     * Объект удаляется, пока запись помечена надгробием: новая загрузка того же содержимого ждет удаления
+     * записи и не может записать объект под тем же ключом раньше, чем его удалят.
+     */
+    public void release(String fileUrl) {
+        String objectName = getObjectName(fileUrl);
+        mediaObjectRepository.findByObjectName(objectName).ifPresent(object -> {
+            mediaObjectRepository.decrementRefCount(object.getId());
+            // Помечается, только если за это время никто не сослался на объект снова
+            if (mediaObjectRepository.markDeleting(object.getId()) == 0) {
+                return;
+            }
+            if (deleteFile(objectName)) {
+                mediaObjectRepository.deleteById(object.getId());
+                log.info("Объект {} удален: ссылок не осталось", objectName);
+            } else {
+                // Объект остался в хранилище: запись снова доступна для ссылок
+                mediaObjectRepository.unmarkDeleting(object.getId());
+            }
+        });
+    }
+
+    /**
+     * Добавляет ссылку на объект, сохраненный по хэшу содержимого (новый владелец того же файла).
+     * false — файл не учитывается в media_objects или удаляется последним владельцем.
+     */
+    public boolean retain(String fileUrl) {
+        return mediaObjectRepository.findByObjectName(getObjectName(fileUrl))
+            .map(object -> mediaObjectRepository.incrementRefCount(object.getId(), LocalDateTime.now()) > 0)
+            .orElse(false);
+    }
+
+    /**
+     * SHA-256 содержимого файла, если он сохранен по хэшу
+     */
+    public Optional<String> contentHashOf(String fileUrl) {
+        return mediaObjectRepository.findByObjectName(getObjectName(fileUrl)).map(MediaObject::getContentHash);
+    }
+
+    /**
+     * Добавляет ссылку на найденный объект. Если запись за это время удалена или помечена на удаление,
+     * бросает {@link StaleMediaObjectException} — вызов повторяется с поиском заново.
+     */
+    private MediaObject reference(MediaObject object, long size) {
+        if (mediaObjectRepository.incrementRefCount(object.getId(), LocalDateTime.now()) == 0) {
+            throw new StaleMediaObjectException(object.getObjectName());
+        }
+        Counter.builder("hr.storage.dedup.hits")
+            .description("Загрузки, совпавшие с уже сохраненным содержимым")
+            .register(meterRegistry)
+            .increment();
+        Counter.builder("hr.storage.dedup.saved.bytes")
+            .description("Байты, не загруженные повторно благодаря дедупликации")
+            .baseUnit("bytes")
+            .register(meterRegistry)
+            .increment(size);
+        log.info("Содержимое уже в хранилище, добавлена ссылка на {}", object.getObjectName());
+        return object;
+    }
+
+    private MediaObject register(String hash, String objectName, long size, String contentType) {
+        MediaObject object = new MediaObject();
+        object.setContentHash(hash);
+        object.setObjectName(objectName);
+        object.setSizeBytes(size);
+        object.setContentType(contentType);
+        object.setLastReferencedAt(LocalDateTime.now());
+        try {
+            return mediaObjectRepository.save(object);
+        } catch (DataIntegrityViolationException e) {
+            // То же содержимое одновременно загрузил другой запрос (ключ объекта совпадает, берем его запись)
+            // или запись еще удаляется прежним владельцем
+            return mediaObjectRepository.findByContentHash(hash)
+                .map(existing -> reference(existing, 0))
+                .orElseThrow(() -> new StaleMediaObjectException(objectName));
         }
     }
 
+    /**
+     * Запись объекта удалена или удаляется: вызов повторяется после удаления записи
+     */
+    private static final class StaleMediaObjectException extends RuntimeException {
+        StaleMediaObjectException(String objectName) {
+            super("Объект " + objectName + " удаляется");
+        }
+    }
+
+    static String contentHash(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Загрузка объекта под заданным ключом: одним PUT или параллельно частями для крупных объектов
+     */
+    private Mono<?> putObjectAsync(String objectName, byte[] fileData, String contentType) {
+        long partSize = Math.max(MIN_PART_SIZE_BYTES, minioConfig.getClient().getPartSizeBytes());
+        return fileData.length > partSize
+            ? timed("put_multipart", fileData.length, uploadPartsAsync(objectName, fileData, contentType, (int) partSize))
+            : timed("put", fileData.length, future(() -> minioAsyncClient.putObject(
+                PutObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(objectName)
+                    .stream(new ByteArrayInputStream(fileData), fileData.length, -1)
+                    .contentType(contentType)
+                    .build()
+            )));
+    }
+
+    /**
+     * Параллельная загрузка частей; при ошибке незавершенная загрузка отменяется
+     */
+    private Mono<Void> uploadPartsAsync(String objectName, byte[] data, String contentType, int partSize) {
+        String bucket = minioConfig.getBucketName();
+        String region = minioConfig.getRegion();
+        int partCount = (int) ((data.length + (long) partSize - 1) / partSize);
+        return future(() -> multipartClient.createUploadAsync(bucket, region, objectName, contentType))
+            .flatMap(uploadId -> Flux.range(1, partCount)
+                // Порядок частей сохраняется: CompleteMultipartUpload требует возрастания номеров
+                .flatMapSequential(partNumber -> future(() -> multipartClient.uploadPartBytes(bucket, region,
+                        objectName, uploadId, partNumber, Arrays.copyOfRange(data, (partNumber - 1) * partSize,
+                            Math.min(data.length, partNumber * partSize)))),
+                    minioConfig.getClient().getParallelParts())
+                .collectList()
+                .flatMap(parts -> future(() -> multipartClient.completeUploadAsync(bucket, region, objectName,
+                    uploadId, parts.toArray(Part[]::new))))
+                .onErrorResume(e -> future(() -> multipartClient.abortUploadAsync(bucket, region, objectName, uploadId))
+                    .onErrorResume(abortError -> Mono.empty())
+                    .then(Mono.error(e))));
+    }
+
+    private MediaUploadResponse uploaded(String fileName, long size, String contentType) {
+        MediaUploadResponse response = new MediaUploadResponse();
+        response.setFileUrl(getFileUrl(fileName));
+        response.setFileSize(size);
+        response.setContentType(contentType);
+        response.setSuccess(true);
+        response.setMessage("Файл успешно загружен");
+
+        log.info("Файл загружен: {}", fileName);
+
+        return response;
+    }
+
+    private MediaUploadResponse uploadFailed(Throwable e) {
+        log.error("Ошибка при загрузке файла: {}", e.getMessage(), e);
+
+        MediaUploadResponse response = new MediaUploadResponse();
+        response.setSuccess(false);
+        response.setMessage("Ошибка загрузки файла: " + e.getMessage());
+
+        return response;
+    }
+
     /**
      * Создает presigned URL для загрузки
      */
@@ -186,12 +401,12 @@ public class MediaStorageService {
      */
     public InputStream getFile(String fileName) {
         try {
-            return minioClient.getObject(
+            return timed("get", 0, () -> minioClient.getObject(
                 GetObjectArgs.builder()
                     .bucket(minioConfig.getBucketName())
                     .object(fileName)
                     .build()
-            );
+            ));
         } catch (Exception e) {
             log.error("Ошибка при получении файла {}: {}", fileName, e.getMessage(), e);
             throw new RuntimeException("Ошибка получения файла", e);
@@ -199,16 +414,62 @@ public class MediaStorageService {
     }
 
     /**
-     * Удаляет файл из хранилища
+     * Получает часть файла: хранилище отдает только запрошенный диапазон байт
      */
-    public boolean deleteFile(String fileName) {
+    public InputStream getFile(String fileName, long offset, long length) {
         try {
-            minioClient.removeObject(
-                RemoveObjectArgs.builder()
+            return timed("get_range", 0, () -> minioClient.getObject(
+                GetObjectArgs.builder()
                     .bucket(minioConfig.getBucketName())
                     .object(fileName)
+                    .offset(offset)
+                    .length(length)
                     .build()
-            );
+            ));
+        } catch (Exception e) {
+            log.error("Ошибка при получении файла {} [{}+{}]: {}", fileName, offset, length, e.getMessage(), e);
+            throw new RuntimeException("Ошибка получения файла", e);
+        }
+    }
+
+    /**
+     * Метаданные файла (размер, тип, ETag)
+     */
+    public StatObjectResponse statFile(String fileName) {
+        try {
+            return timed("stat", 0, () -> minioClient.statObject(
+                StatObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(fileName)
+                    .build()
+            ));
+        } catch (Exception e) {
+            throw new RuntimeException("Файл не найден: " + fileName, e);
+        }
+    }
+
+    /**
+     * Имя объекта по URL файла, выданному {@link #getFileUrl(String)}
+     */
+    public String getObjectName(String fileUrl) {
+        String prefix = String.format("%s/%s/", minioConfig.getEndpoint(), minioConfig.getBucketName());
+        return fileUrl != null && fileUrl.startsWith(prefix) ? fileUrl.substring(prefix.length()) : fileUrl;
+    }
+
+    /**
+     * Удаляет файл из хранилища
+     */
+    public boolean deleteFile(String fileName) {
+        try {
+            timed("remove", 0, () -> {
+                minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                        .bucket(minioConfig.getBucketName())
+                        .object(fileName)
+                        .build()
+                );
+                return null;
+            });
             
             log.info("Файл удален: {}", fileName);
             return true;
@@ -239,12 +500,14 @@ public class MediaStorageService {
     /**
      * Генерирует уникальное имя файла
      */
-    private String generateFileName(String originalFileName, String folder) {
+    String generateFileName(String originalFileName, String folder) {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
         String extension = getFileExtension(originalFileName);
         String baseName = getBaseFileName(originalFileName);
         
-        return String.format("%s/%s_%s%s", folder, baseName, timestamp, extension);
+        // Суффикс различает файлы с одним именем, загруженные в одну секунду
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        return String.format("%s/%s_%s_%s%s", folder, baseName, timestamp, suffix, extension);
     }
 
     /**
@@ -273,7 +536,7 @@ public class MediaStorageService {
     /**
      * Получает полный URL файла
      */
-    private String getFileUrl(String fileName) {
+    public String getFileUrl(String fileName) {
         return String.format("%s/%s/%s", minioConfig.getEndpoint(), minioConfig.getBucketName(), fileName);
     }
 
@@ -294,4 +557,69 @@ public class MediaStorageService {
             return 0;
         }
     }
+
+    /**
+     * Синхронная операция с записью задержки и пропускной способности
+     */
+    private <T> T timed(String operation, long bytes, StorageCall<T> call) throws Exception {
+        long started = System.nanoTime();
+        try {
+            T result = call.execute();
+            record(operation, bytes, started, null);
+            return result;
+        } catch (Exception e) {
+            record(operation, bytes, started, e);
+            throw e;
+        }
+    }
+
+    private <T> Mono<T> timed(String operation, long bytes, Mono<T> call) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return call
+                .doOnSuccess(result -> record(operation, bytes, started, null))
+                .doOnError(e -> record(operation, bytes, started, e));
+        });
+    }
+
+    /**
+     * Метрики операции: hr.storage.operation (задержка) и hr.storage.throughput (байт/с для загрузок)
+     */
+    private void record(String operation, long bytes, long startedNanos, Throwable error) {
+        long elapsed = System.nanoTime() - startedNanos;
+        Timer.builder("hr.storage.operation")
+            .description("Задержка операций с хранилищем медиа")
+            .tag("operation", operation)
+            .tag("outcome", error == null ? "success" : "error")
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(elapsed, TimeUnit.NANOSECONDS);
+        if (error == null && bytes > 0 && elapsed > 0) {
+            DistributionSummary.builder("hr.storage.throughput")
+                .description("Пропускная способность загрузки в хранилище медиа")
+                .baseUnit("bytes_per_second")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(bytes * 1e9 / elapsed);
+        }
+    }
+
+    /**
+     * Асинхронный вызов SDK как Mono; исключения подготовки запроса становятся ошибкой Mono
+     */
+    private static <T> Mono<T> future(StorageCall<CompletableFuture<T>> call) {
+        return Mono.fromFuture(() -> {
+            try {
+                return call.execute();
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface StorageCall<T> {
+        T execute() throws Exception;
+    }
 }
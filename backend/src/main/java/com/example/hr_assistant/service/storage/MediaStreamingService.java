@@ -0,0 +1,256 @@
+package com.example.hr_assistant.service.storage;
+
+import com.example.hr_assistant.config.MinioConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.StatObjectResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Потоковая выдача медиа из хранилища с поддержкой HTTP Range.
+ *
+ * Запрос диапазона превращается в ranged GET к MinIO — перемотка в плеере не скачивает объект целиком.
+ * Байты копируются через пул буферов фиксированного размера (minio.streaming.*): память на поток
+ * ограничена одним буфером, массив под объект не создается, а буферы переиспользуются между запросами.
+ * Оба конца копирования — потоки (ответ MinIO и ответ сервлета), поэтому буфер обычный byte[]:
+ * direct буфер копировался бы через промежуточные массивы адаптеров каналов. Когда пул исчерпан,
+ * поток получает временный буфер.
+ * Метаданные объектов (размер, тип, ETag) кэшируются: объекты записей неизменяемы, а плеер
+ * запрашивает диапазоны одного файла много раз подряд.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnBean(MinioConfig.class)
+public class MediaStreamingService {
+
+    private final MediaStorageService mediaStorageService;
+    private final MinioConfig minioConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final LinkedHashMap<String, ObjectInfo> metadata = new LinkedHashMap<>(256, 0.75f, true);
+    private BlockingQueue<byte[]> buffers;
+    /** Выделено буферов пула; не больше maxBuffers */
+    private volatile int allocated;
+
+    private Counter streamedBytes;
+    private Counter metadataHits;
+    private Counter metadataMisses;
+    private Counter bufferFallbacks;
+
+    @PostConstruct
+    public void init() {
+        MinioConfig.Streaming config = minioConfig.getStreaming();
+        buffers = new ArrayBlockingQueue<>(config.getMaxBuffers());
+
+        streamedBytes = Counter.builder("hr.media.stream.bytes")
+            .description("Байты медиа, отданные клиентам")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        metadataHits = Counter.builder("hr.media.stat.cache.hits")
+            .description("Попадания в кэш метаданных медиа")
+            .register(meterRegistry);
+        metadataMisses = Counter.builder("hr.media.stat.cache.misses")
+            .description("Промахи кэша метаданных медиа (запрос statObject)")
+            .register(meterRegistry);
+        bufferFallbacks = Counter.builder("hr.media.stream.buffer.fallbacks")
+            .description("Потоки, получившие временный буфер из-за исчерпания пула")
+            .register(meterRegistry);
+        Gauge.builder("hr.media.stream.buffers.idle", buffers, BlockingQueue::size)
+            .description("Свободные буферы пула потоковой выдачи медиа")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Ответ на запрос медиа: 200 с объектом целиком, 206 с одним диапазоном из заголовка Range
+     * или 416, если диапазон вне объекта. Несколько диапазонов в одном запросе не поддерживаются —
+     * отдается объект целиком, что допускает RFC 9110.
+     */
+    public ResponseEntity<StreamingResponseBody> serve(String objectName, HttpHeaders requestHeaders) {
+        Optional<ObjectInfo> found = stat(objectName);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ObjectInfo info = found.get();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentType(info.contentType());
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        if (info.etag() != null) {
+            headers.setETag("\"" + info.etag() + "\"");
+        }
+        if (info.lastModified() != null) {
+            headers.setLastModified(info.lastModified());
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            ranges = List.of();
+        }
+        if (ranges.size() != 1 || !ifRangeMatches(requestHeaders, info)) {
+            headers.setContentLength(info.size());
+            return ResponseEntity.ok().headers(headers).body(body(objectName, 0, info.size()));
+        }
+
+        HttpRange range = ranges.get(0);
+        long start;
+        long end;
+        try {
+            start = range.getRangeStart(info.size());
+            end = range.getRangeEnd(info.size());
+        } catch (IllegalArgumentException e) {
+            start = info.size();
+            end = -1;
+        }
+        if (start >= info.size() || end < start) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + info.size());
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+        }
+
+        long length = end - start + 1;
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + info.size());
+        headers.setContentLength(length);
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers).body(body(objectName, start, length));
+    }
+
+    /**
+     * Метаданные объекта из кэша или из хранилища; пусто, если объекта нет
+     */
+    public Optional<ObjectInfo> stat(String objectName) {
+        long now = System.currentTimeMillis();
+        synchronized (metadata) {
+            ObjectInfo cached = metadata.get(objectName);
+            if (cached != null && cached.expiresAt() > now) {
+                metadataHits.increment();
+                return Optional.of(cached);
+            }
+        }
+        metadataMisses.increment();
+
+        StatObjectResponse stat;
+        try {
+            stat = mediaStorageService.statFile(objectName);
+        } catch (RuntimeException e) {
+            log.debug("Метаданные медиа {} недоступны: {}", objectName, e.getMessage());
+            return Optional.empty();
+        }
+        MinioConfig.Streaming config = minioConfig.getStreaming();
+        ObjectInfo info = new ObjectInfo(stat.size(), contentType(stat.contentType()), stat.etag(),
+            stat.lastModified(), now + config.getMetadataTtlSeconds() * 1000);
+        synchronized (metadata) {
+            metadata.put(objectName, info);
+            if (metadata.size() > config.getMetadataCacheEntries()) {
+                metadata.remove(metadata.keySet().iterator().next());
+            }
+        }
+        return Optional.of(info);
+    }
+
+    private StreamingResponseBody body(String objectName, long offset, long length) {
+        return out -> copy(objectName, offset, length, out);
+    }
+
+    /**
+     * Копирует диапазон объекта в ответ через буфер из пула
+     */
+    void copy(String objectName, long offset, long length, OutputStream out) throws IOException {
+        if (length <= 0) {
+            return;
+        }
+        PooledBuffer buffer = acquire();
+        long remaining = length;
+        // Выходной поток не закрывается: им управляет контейнер
+        try (InputStream in = mediaStorageService.getFile(objectName, offset, length)) {
+            byte[] bytes = buffer.bytes();
+            while (remaining > 0) {
+                int read = in.read(bytes, 0, (int) Math.min(bytes.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                out.write(bytes, 0, read);
+                remaining -= read;
+            }
+            out.flush();
+        } catch (IOException e) {
+            // Клиент закрыл соединение (перемотка, закрытие плеера) — обычная ситуация
+            log.debug("Выдача медиа {} прервана после {} байт: {}", objectName, length - remaining, e.getMessage());
+        } finally {
+            streamedBytes.increment(length - remaining);
+            release(buffer);
+        }
+    }
+
+    private PooledBuffer acquire() {
+        byte[] bytes = buffers.poll();
+        if (bytes != null) {
+            return new PooledBuffer(bytes, true);
+        }
+        if (allocated < minioConfig.getStreaming().getMaxBuffers()) {
+            synchronized (this) {
+                if (allocated < minioConfig.getStreaming().getMaxBuffers()) {
+                    allocated++;
+                    return new PooledBuffer(new byte[minioConfig.getStreaming().getBufferSizeBytes()], true);
+                }
+            }
+        }
+        bufferFallbacks.increment();
+        return new PooledBuffer(new byte[minioConfig.getStreaming().getBufferSizeBytes()], false);
+    }
+
+    private void release(PooledBuffer buffer) {
+        if (buffer.pooled()) {
+            buffers.offer(buffer.bytes());
+        }
+    }
+
+    private boolean ifRangeMatches(HttpHeaders requestHeaders, ObjectInfo info) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        return ifRange == null || info.etag() == null || ifRange.equals("\"" + info.etag() + "\"");
+    }
+
+    private static MediaType contentType(String value) {
+        try {
+            return value != null ? MediaType.parseMediaType(value) : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (IllegalArgumentException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    /**
+     * Буфер копирования; pooled — возвращается в пул после выдачи
+     */
+    private record PooledBuffer(byte[] bytes, boolean pooled) {
+    }
+
+    /**
+     * Кэшируемые метаданные объекта хранилища
+     */
+    public record ObjectInfo(long size, MediaType contentType, String etag, ZonedDateTime lastModified,
+                             long expiresAt) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.hr_assistant.service.storage;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Низкоуровневые операции S3 multipart upload, которые MinIO SDK не открывает в публичном API.
+ *
+ * Используется двумя путями: загрузка записей клиентом напрямую по presigned URL (здесь только
+ * создание, просмотр, завершение и отмена) и параллельная загрузка частей крупных объектов
+ * самим backend ({@link #uploadPartBytes}).
+ */
+public class MinioMultipartClient extends MinioAsyncClient {
+
+    /** Максимум частей в одном ответе ListParts */
+    private static final int LIST_PARTS_PAGE = 1000;
+
+    public MinioMultipartClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /**
+     * Начинает multipart upload и возвращает его uploadId
+     */
+    public String createUpload(String bucket, String region, String object, String contentType) {
+        return await(createUploadAsync(bucket, region, object, contentType));
+    }
+
+    public CompletableFuture<String> createUploadAsync(String bucket, String region, String object, String contentType) {
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        return start(() -> createMultipartUploadAsync(bucket, region, object, headers, none()))
+            .thenApply(response -> response.result().uploadId());
+    }
+
+    /**
+     * Загружает одну часть из памяти; номер и ETag результата нужны для завершения загрузки
+     */
+    public CompletableFuture<Part> uploadPartBytes(String bucket, String region, String object, String uploadId,
+                                                   int partNumber, byte[] data) {
+        return start(() -> uploadPartAsync(bucket, region, object, data, data.length, uploadId, partNumber,
+                none(), none()))
+            .thenApply(response -> new Part(response.partNumber(), response.etag()));
+    }
+
+    /**
+     * Части, уже принятые хранилищем, с их ETag и размером (по возрастанию номера)
+     */
+    public List<Part> listUploadedParts(String bucket, String region, String object, String uploadId) {
+        List<Part> parts = new ArrayList<>();
+        int marker = 0;
+        while (true) {
+            int from = marker;
+            ListPartsResult result = await(start(() ->
+                listPartsAsync(bucket, region, object, LIST_PARTS_PAGE, from, uploadId, none(), none()))).result();
+            parts.addAll(result.partList());
+            if (!result.isTruncated()) {
+                return parts;
+            }
+            marker = result.nextPartNumberMarker();
+        }
+    }
+
+    public void completeUpload(String bucket, String region, String object, String uploadId, Part[] parts) {
+        await(completeUploadAsync(bucket, region, object, uploadId, parts));
+    }
+
+    public CompletableFuture<Void> completeUploadAsync(String bucket, String region, String object, String uploadId,
+                                                       Part[] parts) {
+        return start(() -> completeMultipartUploadAsync(bucket, region, object, uploadId, parts, none(), none()))
+            .thenApply(response -> null);
+    }
+
+    public void abortUpload(String bucket, String region, String object, String uploadId) {
+        await(abortUploadAsync(bucket, region, object, uploadId));
+    }
+
+    public CompletableFuture<Void> abortUploadAsync(String bucket, String region, String object, String uploadId) {
+        return start(() -> abortMultipartUploadAsync(bucket, region, object, uploadId, none(), none()))
+            .thenApply(response -> null);
+    }
+
+    private static Multimap<String, String> none() {
+        return HashMultimap.create();
+    }
+
+    /**
+     * Запускает асинхронный вызов SDK; исключения подготовки запроса становятся ошибкой future
+     */
+    private static <T> CompletableFuture<T> start(AsyncCall<T> call) {
+        try {
+            return call.start();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Операция multipart upload прервана", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка multipart upload: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    private interface AsyncCall<T> {
+        CompletableFuture<T> start() throws Exception;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.hr_assistant.service.storage;
+
+import com.example.hr_assistant.config.MinioConfig;
+import com.example.hr_assistant.model.RecordingUpload;
+import com.example.hr_assistant.model.dto.MediaUploadResponse;
+import com.example.hr_assistant.model.dto.RecordingUploadDtos.PartUrlsResponse;
+import com.example.hr_assistant.model.dto.RecordingUploadDtos.UploadSessionResponse;
+import com.example.hr_assistant.model.dto.RecordingUploadDtos.UploadedPart;
+import com.example.hr_assistant.repository.RecordingUploadRepository;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.http.Method;
+import io.minio.messages.Part;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка записей ответов частями напрямую в хранилище (S3/MinIO multipart upload).
+ *
+ * Backend открывает multipart upload на вопрос интервью и выдает presigned URL частей — клиент
+ * отправляет байты прямо в MinIO, через JVM они не проходят. Номера частей и ETag хранит MinIO:
+ * продолжение прерванной загрузки и завершение опираются на ListParts, а не на данные клиента.
+ * Клиент повторяет неудачную часть с новым presigned URL и перед завершением сверяет свои части
+ * с принятыми ({@link #session}), дозагружая недостающие в ту же загрузку. Новая запись ответа
+ * (start-record) отменяет прежнюю незавершенную загрузку вопроса.
+ * При завершении записи части собираются в один объект.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnBean(MinioConfig.class)
+public class RecordingUploadService {
+
+    private final MinioClient minioClient;
+    private final MinioMultipartClient multipartClient;
+    private final MinioConfig minioConfig;
+    private final MediaStorageService mediaStorageService;
+    private final RecordingUploadRepository recordingUploadRepository;
+
+    /**
+     * Открывает сессию загрузки записи вопроса. Если незавершенная сессия уже есть,
+     * возвращает ее вместе с принятыми частями, чтобы клиент продолжил с места обрыва.
+     */
+    public UploadSessionResponse start(Long interviewId, Long questionId, String fileName, String contentType) {
+        Optional<RecordingUpload> existing = active(interviewId, questionId);
+        if (existing.isPresent()) {
+            log.info("Продолжение загрузки записи: интервью {}, вопрос {}, uploadId={}",
+                interviewId, questionId, existing.get().getUploadId());
+            return toResponse(existing.get(), uploadedParts(existing.get()));
+        }
+
+        String folder = String.format("interviews/%d/questions/%d", interviewId, questionId);
+        String objectName = mediaStorageService.generateFileName(fileName != null ? fileName : "recording.webm", folder);
+        String uploadId = multipartClient.createUpload(minioConfig.getBucketName(), minioConfig.getRegion(),
+            objectName, contentType);
+
+        RecordingUpload upload = new RecordingUpload();
+        upload.setInterviewId(interviewId);
+        upload.setQuestionId(questionId);
+        upload.setObjectName(objectName);
+        upload.setUploadId(uploadId);
+        upload.setContentType(contentType);
+        upload = recordingUploadRepository.save(upload);
+        log.info("Начата загрузка записи частями: интервью {}, вопрос {}, объект {}", interviewId, questionId, objectName);
+        return toResponse(upload, List.of());
+    }
+
+    /**
+     * Незавершенная сессия вопроса с частями, уже принятыми хранилищем
+     */
+    public Optional<UploadSessionResponse> session(Long interviewId, Long questionId) {
+        return active(interviewId, questionId).map(upload -> toResponse(upload, uploadedParts(upload)));
+    }
+
+    /**
+     * Presigned URL для PUT частей с указанными номерами
+     */
+    public PartUrlsResponse partUrls(Long interviewId, Long questionId, List<Integer> partNumbers) {
+        RecordingUpload upload = active(interviewId, questionId)
+            .orElseThrow(() -> new IllegalStateException("Нет активной загрузки записи для вопроса " + questionId));
+        MinioConfig.Multipart config = minioConfig.getMultipart();
+
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        for (Integer partNumber : partNumbers) {
+            if (partNumber == null || partNumber < 1 || partNumber > config.getMaxParts()) {
+                throw new IllegalArgumentException("Недопустимый номер части: " + partNumber);
+            }
+            urls.put(partNumber, presignPart(upload, partNumber, config.getPresignExpiryMinutes()));
+        }
+
+        PartUrlsResponse response = new PartUrlsResponse();
+        response.setUrls(urls);
+        response.setExpiresAt(Instant.now().plusSeconds(config.getPresignExpiryMinutes() * 60L).toString());
+        return response;
+    }
+
+    /**
+     * Собирает принятые части в итоговый объект. Пустое значение — сессии для вопроса нет.
+     */
+    public Optional<MediaUploadResponse> complete(Long interviewId, Long questionId) {
+        Optional<RecordingUpload> active = active(interviewId, questionId);
+        if (active.isEmpty()) {
+            return Optional.empty();
+        }
+        RecordingUpload upload = active.get();
+        List<Part> parts = multipartClient.listUploadedParts(minioConfig.getBucketName(), minioConfig.getRegion(),
+            upload.getObjectName(), upload.getUploadId());
+        if (parts.isEmpty()) {
+            abort(upload);
+            throw new IllegalStateException("Загрузка записи для вопроса " + questionId + " не содержит частей");
+        }
+
+        Part[] completed = parts.stream()
+            .map(part -> new Part(part.partNumber(), part.etag()))
+            .toArray(Part[]::new);
+        multipartClient.completeUpload(minioConfig.getBucketName(), minioConfig.getRegion(),
+            upload.getObjectName(), upload.getUploadId(), completed);
+
+        long totalBytes = parts.stream().mapToLong(Part::partSize).sum();
+        upload.setStatus(RecordingUpload.UploadStatus.COMPLETED);
+        upload.setPartsCount(parts.size());
+        upload.setTotalBytes(totalBytes);
+        upload.setCompletedAt(LocalDateTime.now());
+        recordingUploadRepository.save(upload);
+        log.info("Загрузка записи завершена: интервью {}, вопрос {}, {} частей, {} байт",
+            interviewId, questionId, parts.size(), totalBytes);
+
+        MediaUploadResponse response = new MediaUploadResponse();
+        response.setFileUrl(mediaStorageService.getFileUrl(upload.getObjectName()));
+        response.setFileSize(totalBytes);
+        response.setContentType(upload.getContentType());
+        response.setUploadId(upload.getUploadId());
+        response.setSuccess(true);
+        response.setMessage("Запись собрана из " + parts.size() + " частей");
+        return Optional.of(response);
+    }
+
+    /**
+     * Отменяет незавершенную загрузку вопроса; хранилище удаляет принятые части
+     */
+    public boolean abort(Long interviewId, Long questionId) {
+        Optional<RecordingUpload> active = active(interviewId, questionId);
+        active.ifPresent(this::abort);
+        return active.isPresent();
+    }
+
+    /**
+     * Отменяет брошенные загрузки, чтобы их части не занимали место в хранилище
+     */
+    @Scheduled(fixedDelayString = "${minio.multipart.cleanup-interval-ms:3600000}")
+    public void abortAbandoned() {
+        LocalDateTime before = LocalDateTime.now().minusHours(minioConfig.getMultipart().getAbandonAfterHours());
+        for (RecordingUpload upload : recordingUploadRepository.findByStatusAndCreatedAtBefore(
+                RecordingUpload.UploadStatus.IN_PROGRESS, before)) {
+            try {
+                abort(upload);
+            } catch (Exception e) {
+                log.warn("Не удалось отменить брошенную загрузку {}: {}", upload.getUploadId(), e.getMessage());
+            }
+        }
+    }
+
+    private void abort(RecordingUpload upload) {
+        multipartClient.abortUpload(minioConfig.getBucketName(), minioConfig.getRegion(),
+            upload.getObjectName(), upload.getUploadId());
+        upload.setStatus(RecordingUpload.UploadStatus.ABORTED);
+        upload.setCompletedAt(LocalDateTime.now());
+        recordingUploadRepository.save(upload);
+        log.info("Загрузка записи отменена: интервью {}, вопрос {}, uploadId={}",
+            upload.getInterviewId(), upload.getQuestionId(), upload.getUploadId());
+    }
+
+    private Optional<RecordingUpload> active(Long interviewId, Long questionId) {
+        return recordingUploadRepository.findFirstByInterviewIdAndQuestionIdAndStatusOrderByCreatedAtDesc(
+            interviewId, questionId, RecordingUpload.UploadStatus.IN_PROGRESS);
+    }
+
+    private String presignPart(RecordingUpload upload, int partNumber, int expiryMinutes) {
+        try {
+            return minioClient.getPresignedObjectUrl(
+                GetPresignedObjectUrlArgs.builder()
+                    .method(Method.PUT)
+                    .bucket(minioConfig.getBucketName())
+                    .object(upload.getObjectName())
+                    .extraQueryParams(Map.of(
+                        "partNumber", Integer.toString(partNumber),
+                        "uploadId", upload.getUploadId()))
+                    .expiry(expiryMinutes, TimeUnit.MINUTES)
+                    .build()
+            );
+        } catch (Exception e) {
+            log.error("Ошибка при создании presigned URL части {}: {}", partNumber, e.getMessage(), e);
+            throw new RuntimeException("Ошибка создания presigned URL части", e);
+        }
+    }
+
+    private List<UploadedPart> uploadedParts(RecordingUpload upload) {
+        return multipartClient.listUploadedParts(minioConfig.getBucketName(), minioConfig.getRegion(),
+                upload.getObjectName(), upload.getUploadId()).stream()
+            .map(part -> new UploadedPart(part.partNumber(), part.etag(), part.partSize()))
+            .toList();
+    }
+
+    private UploadSessionResponse toResponse(RecordingUpload upload, List<UploadedPart> parts) {
+        UploadSessionResponse response = new UploadSessionResponse();
+        response.setSessionId(upload.getId());
+        response.setUploadId(upload.getUploadId());
+        response.setObjectName(upload.getObjectName());
+        response.setPartSizeBytes(minioConfig.getMultipart().getPartSizeBytes());
+        response.setMaxParts(minioConfig.getMultipart().getMaxParts());
+        response.setUploadedParts(parts);
+        return response;
+    }
+}
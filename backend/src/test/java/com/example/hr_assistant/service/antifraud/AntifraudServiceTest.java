@@ -0,0 +1,208 @@
+package com.example.hr_assistant.service.antifraud;
+
+import com.example.hr_assistant.config.AntifraudConfig;
+import com.example.hr_assistant.model.Antifraud;
+import com.example.hr_assistant.model.Interview;
+import com.example.hr_assistant.model.dto.AntifraudEvaluationRequest;
+import com.example.hr_assistant.model.dto.HeartbeatRequest;
+import com.example.hr_assistant.repository.AntifraudRepository;
+import com.example.hr_assistant.repository.InterviewRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AntifraudServiceTest {
+
+    @Mock
+    private AntifraudRepository antifraudRepository;
+
+    @Mock
+    private InterviewRepository interviewRepository;
+
+    @Mock
+    private LivenessService livenessService;
+
+    @Mock
+    private FaceRecognitionService faceRecognitionService;
+
+    @Mock
+    private VoiceVerificationService voiceVerificationService;
+
+    @Mock
+    private AiTextDetectionService aiTextDetectionService;
+
+    @Mock
+    private HeartbeatAggregator heartbeatAggregator;
+
+    @Mock
+    private HeartbeatLivenessTracker heartbeatLivenessTracker;
+
+    private AntifraudConfig config;
+    private AntifraudService antifraudService;
+    private Antifraud antifraud;
+
+    @BeforeEach
+    void setUp() {
+        config = new AntifraudConfig();
+        antifraudService = new AntifraudService(config, antifraudRepository, interviewRepository, livenessService,
+            faceRecognitionService, voiceVerificationService, aiTextDetectionService, heartbeatAggregator,
+            heartbeatLivenessTracker, new ObjectMapper());
+        antifraudService.init();
+
+        antifraud = new Antifraud();
+        antifraud.setVisibilityEventsCount(0);
+        antifraud.setDevtoolsDetected(false);
+        lenient().when(antifraudRepository.findByInterviewId(1L)).thenReturn(Optional.of(antifraud));
+        lenient().when(antifraudRepository.save(any(Antifraud.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        antifraudService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Должен выполнить все проверки, объединить результаты и сохранить запись один раз")
+    void shouldEvaluateAllChecksWithSingleSave() {
+        // Given
+        LivenessService.LivenessResult liveness = new LivenessService.LivenessResult();
+        liveness.setLivenessScore(0.9);
+        liveness.setFlags(Map.of("face_detected", true));
+        when(livenessService.checkLiveness(any())).thenReturn(liveness);
+
+        AiTextDetectionService.AiDetectionResult aiText = new AiTextDetectionService.AiDetectionResult();
+        aiText.setAiProbability(0.2);
+        aiText.setFlags(Map.of("method", "model"));
+        when(aiTextDetectionService.detectAiText("ответ кандидата")).thenReturn(aiText);
+
+        AntifraudEvaluationRequest request = new AntifraudEvaluationRequest();
+        request.setInterviewId(1L);
+        request.setVideoData(new byte[] {1, 2, 3});
+        request.setText("ответ кандидата");
+
+        // When
+        Antifraud result = antifraudService.evaluateAll(request);
+
+        // Then
+        verify(antifraudRepository, times(1)).findByInterviewId(1L);
+        verify(antifraudRepository, times(1)).save(any(Antifraud.class));
+        verifyNoInteractions(faceRecognitionService, voiceVerificationService);
+        assertEquals(0.9, result.getLivenessScore());
+        assertEquals(0.2, result.getTextAiScore());
+        assertEquals(0.25 * 0.1 + 0.2 * 0.2, result.getOverallFraudScore(), 1e-9);
+        assertEquals(Antifraud.FraudStatus.CLEAN, result.getFraudStatus());
+        assertTrue(result.getFlagsJson().contains("liveness"));
+        assertTrue(result.getFlagsJson().contains("ai_text_detection"));
+    }
+
+    @Test
+    @DisplayName("Должен сохранить результаты успешных проверок, если одна из проверок упала")
+    void shouldKeepSuccessfulChecksWhenOneFails() {
+        // Given
+        when(livenessService.checkLiveness(any())).thenThrow(new IllegalStateException("модель не загружена"));
+        AiTextDetectionService.AiDetectionResult aiText = new AiTextDetectionService.AiDetectionResult();
+        aiText.setAiProbability(0.6);
+        aiText.setFlags(Map.of());
+        when(aiTextDetectionService.detectAiText(any())).thenReturn(aiText);
+
+        AntifraudEvaluationRequest request = new AntifraudEvaluationRequest();
+        request.setInterviewId(1L);
+        request.setVideoData(new byte[] {1});
+        request.setText("текст");
+
+        // When
+        Antifraud result = antifraudService.evaluateAll(request);
+
+        // Then
+        assertNull(result.getLivenessScore());
+        assertEquals(0.6, result.getTextAiScore());
+        verify(antifraudRepository, times(1)).save(any(Antifraud.class));
+    }
+
+    @Test
+    @DisplayName("Должен прерывать поток проверки, не уложившейся в таймаут")
+    void shouldInterruptTimedOutCheck() throws InterruptedException {
+        // Given
+        config.getEvaluation().setTimeoutMs(100L);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(livenessService.checkLiveness(any())).thenAnswer(inv -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        });
+
+        AntifraudEvaluationRequest request = new AntifraudEvaluationRequest();
+        request.setInterviewId(1L);
+        request.setVideoData(new byte[] {1});
+
+        // When
+        Antifraud result = antifraudService.evaluateAll(request);
+
+        // Then
+        assertNull(result.getLivenessScore());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Должен повторить сохранение на свежей копии записи, если ее параллельно изменил сброс heartbeat")
+    void shouldRetryOnConcurrentUpdate() {
+        // Given
+        AiTextDetectionService.AiDetectionResult aiText = new AiTextDetectionService.AiDetectionResult();
+        aiText.setAiProbability(0.3);
+        aiText.setFlags(Map.of());
+        when(aiTextDetectionService.detectAiText(any())).thenReturn(aiText);
+        when(antifraudRepository.save(any(Antifraud.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Antifraud.class, 1L))
+            .thenAnswer(inv -> inv.getArgument(0));
+
+        AntifraudEvaluationRequest request = new AntifraudEvaluationRequest();
+        request.setInterviewId(1L);
+        request.setText("текст");
+
+        // When
+        Antifraud result = antifraudService.evaluateAll(request);
+
+        // Then
+        InOrder order = inOrder(heartbeatAggregator, antifraudRepository);
+        order.verify(heartbeatAggregator).flush(1L);
+        order.verify(antifraudRepository).findByInterviewId(1L);
+        verify(antifraudRepository, times(2)).findByInterviewId(1L);
+        verify(antifraudRepository, times(2)).save(any(Antifraud.class));
+        assertEquals(0.3, result.getTextAiScore());
+    }
+
+    @Test
+    @DisplayName("Должен игнорировать heartbeat завершенного интервью")
+    void shouldIgnoreHeartbeatOfFinishedInterview() {
+        // Given
+        when(heartbeatLivenessTracker.isTracked(1L)).thenReturn(false);
+        when(interviewRepository.findStatusById(1L)).thenReturn(Optional.of(Interview.InterviewStatus.COMPLETED));
+
+        // When
+        antifraudService.updateHeartbeat(1L, new HeartbeatRequest());
+
+        // Then
+        verify(heartbeatLivenessTracker, never()).heartbeat(any(), anyLong());
+        verifyNoInteractions(heartbeatAggregator);
+    }
+}
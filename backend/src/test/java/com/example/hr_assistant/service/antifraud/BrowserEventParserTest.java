@@ -0,0 +1,88 @@
+package com.example.hr_assistant.service.antifraud;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BrowserEventParserTest {
+
+    @Test
+    @DisplayName("Должен разбирать компактный пакет: каждое событие со своим временем, неизвестные коды пропускаются")
+    void shouldParseBinaryBatch() {
+        // Given
+        long start = 1_700_000_000_000L;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(BrowserEventParser.VERSION);
+        writeVarint(out, start);
+        writeVarint(out, 4);
+        out.write(BrowserEventType.BLUR.getCode());
+        writeVarint(out, 0);
+        out.write(BrowserEventType.BLUR.getCode());
+        writeVarint(out, 300);
+        out.write(99);
+        writeVarint(out, 10);
+        out.write(BrowserEventType.TAB_SWITCH.getCode());
+        writeVarint(out, 200);
+        List<String> events = new ArrayList<>();
+
+        // When
+        int count = BrowserEventParser.parse(out.toByteArray(), (type, at) -> events.add(type + "@" + (at - start)));
+
+        // Then
+        assertEquals(4, count);
+        assertEquals(List.of("BLUR@0", "BLUR@300", "TAB_SWITCH@510"), events);
+        assertThrows(IllegalArgumentException.class,
+            () -> BrowserEventParser.parse(new byte[] {1, (byte) 0x80}, (type, at) -> { }));
+    }
+
+    @Test
+    @DisplayName("Не должен передавать события поврежденного пакета")
+    void shouldRejectCorruptedBatchWithoutApplyingEvents() {
+        // Given: третье событие обрезано посреди varint смещения
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(BrowserEventParser.VERSION);
+        writeVarint(out, 1_700_000_000_000L);
+        writeVarint(out, 3);
+        out.write(BrowserEventType.BLUR.getCode());
+        writeVarint(out, 0);
+        out.write(BrowserEventType.TAB_SWITCH.getCode());
+        writeVarint(out, 100);
+        out.write(BrowserEventType.BLUR.getCode());
+        out.write(0x80);
+        List<BrowserEventType> events = new ArrayList<>();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+            () -> BrowserEventParser.parse(out.toByteArray(), (type, at) -> events.add(type)));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Должен разбирать устаревшую строку событий по точному имени, а не по подстроке")
+    void shouldParseLegacyStringByExactName() {
+        // Given
+        List<BrowserEventType> events = new ArrayList<>();
+
+        // When
+        int count = BrowserEventParser.parseLegacy("visibilitychange:hidden, blur,blur,not_blur,devtools_suspected,",
+            42L, (type, at) -> events.add(type));
+
+        // Then
+        assertEquals(4, count);
+        assertEquals(List.of(BrowserEventType.VISIBILITY_HIDDEN, BrowserEventType.BLUR, BrowserEventType.BLUR,
+            BrowserEventType.DEVTOOLS), events);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.hr_assistant.service.antifraud;
+
+import com.example.hr_assistant.config.AntifraudConfig;
+import com.example.hr_assistant.model.Antifraud;
+import com.example.hr_assistant.model.dto.HeartbeatRequest;
+import com.example.hr_assistant.repository.AntifraudRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HeartbeatAggregatorTest {
+
+    @Mock
+    private AntifraudRepository antifraudRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AntifraudConfig config;
+    private HeartbeatAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        config = new AntifraudConfig();
+        aggregator = new HeartbeatAggregator(config, antifraudRepository, objectMapper, new SimpleMeterRegistry());
+        aggregator.init();
+    }
+
+    @Test
+    @DisplayName("Должен копить heartbeat в памяти и прибавлять их к записи одним атомарным обновлением")
+    void shouldFlushAccumulatedCountersAtomically() {
+        // Given
+        when(antifraudRepository.addHeartbeatCounters(1L, 2, 1, 0, 1, false)).thenReturn(1);
+
+        // When
+        aggregator.record(1L, heartbeat(1_000L, "visibilitychange,blur"));
+        aggregator.record(1L, heartbeat(3_000L, "visibilitychange"));
+        aggregator.recordGap(1L);
+        aggregator.flush();
+        aggregator.flush();
+
+        // Then
+        verify(antifraudRepository, times(1)).addHeartbeatCounters(1L, 2, 1, 0, 1, false);
+        verify(antifraudRepository, never()).save(any());
+        verify(antifraudRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Должен вытеснять простаивающие счетчики, не теряя heartbeat, пришедший после вытеснения")
+    void shouldKeepHeartbeatArrivingAfterEviction() {
+        // Given
+        config.getHeartbeat().setIdleEvictMs(-1L);
+        when(antifraudRepository.addHeartbeatCounters(eq(1L), anyInt(), anyInt(), anyInt(), anyInt(), anyBoolean()))
+            .thenReturn(1);
+        aggregator.record(1L, heartbeat(1_000L, "blur"));
+
+        // When
+        aggregator.flush();
+        aggregator.record(1L, heartbeat(2_000L, "blur"));
+        aggregator.flush();
+
+        // Then
+        verify(antifraudRepository, times(2)).addHeartbeatCounters(1L, 0, 1, 0, 0, false);
+    }
+
+    @Test
+    @DisplayName("Должен вернуть приращения в память, если запись в БД не удалась")
+    void shouldRestoreDeltaWhenWriteFails() {
+        // Given
+        when(antifraudRepository.addHeartbeatCounters(1L, 0, 1, 0, 0, false))
+            .thenThrow(new IllegalStateException("БД недоступна"));
+        when(antifraudRepository.addHeartbeatCounters(1L, 0, 2, 0, 0, false)).thenReturn(1);
+        aggregator.record(1L, heartbeat(1_000L, "blur"));
+
+        // When
+        aggregator.flush();
+        aggregator.record(1L, heartbeat(2_000L, "blur"));
+        aggregator.flush();
+
+        // Then
+        verify(antifraudRepository).addHeartbeatCounters(1L, 0, 2, 0, 0, false);
+    }
+
+    @Test
+    @DisplayName("Должен дописывать хронологию событий при каждом сбросе, в том числе при вытеснении")
+    @SuppressWarnings("unchecked")
+    void shouldPersistTimelineOnFlushAndEviction() throws Exception {
+        // Given
+        config.getHeartbeat().setIdleEvictMs(-1L);
+        Antifraud antifraud = new Antifraud();
+        antifraud.setFlagsJson("{\"low_liveness\":true}");
+        when(antifraudRepository.addHeartbeatCounters(eq(1L), anyInt(), anyInt(), anyInt(), anyInt(), anyBoolean()))
+            .thenReturn(1);
+        when(antifraudRepository.findByInterviewId(1L)).thenReturn(Optional.of(antifraud));
+        aggregator.record(1L, heartbeat(1_000L, "blur"));
+
+        // When: счетчики вытесняются, затем кандидат возвращается
+        aggregator.flush();
+        aggregator.record(1L, heartbeat(2_000L, "tab_switch"));
+        aggregator.complete(1L);
+
+        // Then
+        Map<String, Object> flags = objectMapper.readValue(antifraud.getFlagsJson(), Map.class);
+        assertEquals(true, flags.get("low_liveness"));
+        assertEquals(List.of(Map.of("type", "BLUR", "at", 1_000), Map.of("type", "TAB_SWITCH", "at", 2_000)),
+            flags.get(HeartbeatAggregator.TIMELINE_FLAG));
+        verify(antifraudRepository, times(2)).save(antifraud);
+    }
+
+    private HeartbeatRequest heartbeat(Long timestamp, String events) {
+        HeartbeatRequest heartbeat = new HeartbeatRequest();
+        heartbeat.setTimestamp(timestamp);
+        heartbeat.setBrowserEvents(events);
+        return heartbeat;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.hr_assistant.service.antifraud;
+
+import com.example.hr_assistant.config.AntifraudConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HeartbeatLivenessTrackerTest {
+
+    @Mock
+    private HeartbeatAggregator heartbeatAggregator;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private HeartbeatLivenessTracker tracker;
+    private long t0;
+
+    @BeforeEach
+    void setUp() {
+        AntifraudConfig config = new AntifraudConfig();
+        config.getHeartbeat().setGapThresholdMs(10_000L);
+        config.getHeartbeat().setIdleEvictMs(60_000L);
+        config.getHeartbeat().setTickMs(1_000L);
+        config.getHeartbeat().setWheelSize(8);
+        tracker = new HeartbeatLivenessTracker(config, heartbeatAggregator, eventPublisher, new SimpleMeterRegistry());
+        tracker.init();
+        t0 = System.currentTimeMillis();
+    }
+
+    @Test
+    @DisplayName("Должен фиксировать один пропуск на период молчания и не считать регулярные heartbeat")
+    void shouldDetectSilenceOncePerGap() {
+        // Given: heartbeat каждые 5 с в течение 30 с (несколько оборотов колеса из 8 ячеек)
+        for (long t = 0; t <= 30_000; t += 5_000) {
+            tracker.heartbeat(1L, t0 + t);
+            tracker.advance(t0 + t);
+        }
+        verifyNoInteractions(heartbeatAggregator, eventPublisher);
+
+        // When: кандидат замолкает
+        tracker.advance(t0 + 45_000);
+        tracker.advance(t0 + 55_000);
+
+        // Then
+        verify(heartbeatAggregator, times(1)).recordGap(1L);
+        ArgumentCaptor<CandidateSilenceEvent> captor = ArgumentCaptor.forClass(CandidateSilenceEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(captor.capture());
+        assertEquals(1L, captor.getValue().interviewId());
+        assertEquals(t0 + 30_000, captor.getValue().lastHeartbeatAt());
+        assertTrue(captor.getValue().silentForMs() >= 10_000);
+
+        // When: heartbeat возобновился и снова пропал
+        tracker.heartbeat(1L, t0 + 56_000);
+        tracker.advance(t0 + 70_000);
+
+        // Then
+        verify(heartbeatAggregator, times(2)).recordGap(1L);
+    }
+
+    @Test
+    @DisplayName("Должен снимать интервью с отслеживания после завершения и долгого молчания")
+    void shouldStopTrackingFinishedAndIdleInterviews() {
+        // Given
+        tracker.heartbeat(1L, t0);
+        tracker.heartbeat(2L, t0);
+
+        // When
+        tracker.stop(1L);
+        tracker.advance(t0 + 120_000);
+
+        // Then
+        verify(heartbeatAggregator, never()).recordGap(1L);
+        verify(heartbeatAggregator, times(1)).recordGap(2L);
+        verify(eventPublisher, times(1)).publishEvent(any(CandidateSilenceEvent.class));
+        assertEquals(0, tracker.trackedCount());
+    }
+
+    @Test
+    @DisplayName("Не должен возобновлять отслеживание завершенного интервью поздним heartbeat")
+    void shouldIgnoreHeartbeatAfterStop() {
+        // Given
+        tracker.heartbeat(1L, t0);
+        tracker.stop(1L);
+
+        // When
+        boolean accepted = tracker.heartbeat(1L, t0 + 1_000);
+        tracker.advance(t0 + 30_000);
+
+        // Then
+        assertFalse(accepted);
+        assertFalse(tracker.isTracked(1L));
+        verifyNoInteractions(heartbeatAggregator, eventPublisher);
+    }
+}
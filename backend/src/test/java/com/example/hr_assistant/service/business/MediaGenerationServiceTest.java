@@ -0,0 +1,114 @@
+package com.example.hr_assistant.service.business;
+
+import com.example.hr_assistant.model.MediaRender;
+import com.example.hr_assistant.model.Question;
+import com.example.hr_assistant.model.dto.MediaUploadResponse;
+import com.example.hr_assistant.repository.MediaRenderRepository;
+import com.example.hr_assistant.repository.QuestionRepository;
+import com.example.hr_assistant.service.external.AvatarClient;
+import com.example.hr_assistant.service.external.TtsClient;
+import com.example.hr_assistant.service.storage.MediaStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaGenerationServiceTest {
+
+    @Mock
+    private TtsClient ttsClient;
+    @Mock
+    private AvatarClient avatarClient;
+    @Mock
+    private MediaStorageService mediaStorageService;
+    @Mock
+    private QuestionRepository questionRepository;
+    @Mock
+    private MediaRenderRepository mediaRenderRepository;
+
+    private MediaRenderCache renderCache;
+    private MediaGenerationService service;
+
+    @BeforeEach
+    void setUp() {
+        renderCache = new MediaRenderCache(mediaRenderRepository, mediaStorageService, new SimpleMeterRegistry(),
+            true, "v1", "v1", 30);
+        service = new MediaGenerationService(ttsClient, avatarClient, mediaStorageService, questionRepository,
+            renderCache);
+    }
+
+    @Test
+    @DisplayName("Должен отдавать готовую озвучку из кэша рендеров без обращения к TTS")
+    void shouldReuseCachedTtsRender() {
+        // Given
+        Question question = new Question();
+        question.setId(5L);
+        question.setText("Расскажите  о своем опыте с Kafka ");
+        when(questionRepository.findById(5L)).thenReturn(Optional.of(question));
+        String key = renderCache.ttsKey("Расскажите о своем опыте с Kafka", "baya", 1.0);
+        MediaRender render = new MediaRender();
+        render.setId(1L);
+        render.setFileUrl("http://minio/media/tts/sha256/abc.wav");
+        when(mediaRenderRepository.findByCacheKey(key)).thenReturn(Optional.of(render));
+        when(mediaStorageService.retain(render.getFileUrl())).thenReturn(true);
+
+        // When
+        String url = service.generateTtsForQuestion(5L, "baya", 1.0).block();
+
+        // Then
+        assertEquals("http://minio/media/tts/sha256/abc.wav", url);
+        assertEquals(url, question.getTtsAudioUrl());
+        verify(mediaStorageService).retain(url);
+        verify(mediaRenderRepository).markUsed(eq(1L), any());
+        verifyNoInteractions(ttsClient);
+    }
+
+    @Test
+    @DisplayName("Должен запоминать новый рендер аватара, передавая кэшу ссылку загрузки")
+    void shouldCacheNewAvatarRender() {
+        // Given
+        Question question = new Question();
+        question.setId(6L);
+        question.setTtsAudioUrl("http://minio/media/tts/sha256/abc.wav");
+        when(questionRepository.findById(6L)).thenReturn(Optional.of(question));
+        when(mediaStorageService.contentHashOf(question.getTtsAudioUrl())).thenReturn(Optional.of("abc"));
+        AvatarClient.GenerateResponse generated = new AvatarClient.GenerateResponse();
+        generated.setPath("q6.mp4");
+        when(avatarClient.generateAsync(question.getTtsAudioUrl(), null, null, "face.png"))
+            .thenReturn(Mono.just(generated));
+        when(avatarClient.downloadAsync("q6.mp4")).thenReturn(Mono.just(new byte[]{1, 2, 3}));
+        MediaUploadResponse uploaded = new MediaUploadResponse();
+        uploaded.setSuccess(true);
+        uploaded.setFileUrl("http://minio/media/avatar/sha256/def.mp4");
+        when(mediaStorageService.storeDeduplicatedAsync(any(), anyString(), eq("video/mp4"), eq("avatar")))
+            .thenReturn(Mono.just(uploaded));
+        when(mediaRenderRepository.save(any(MediaRender.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        String url = service.generateAvatarForQuestion(6L, "face.png").block();
+
+        // Then
+        assertEquals(uploaded.getFileUrl(), url);
+        ArgumentCaptor<MediaRender> saved = ArgumentCaptor.forClass(MediaRender.class);
+        verify(mediaRenderRepository).save(saved.capture());
+        assertEquals(MediaRender.RenderKind.AVATAR, saved.getValue().getKind());
+        assertEquals(renderCache.avatarKey(question.getTtsAudioUrl(), "face.png"), saved.getValue().getCacheKey());
+        // Видео не принадлежит вопросу: лишняя ссылка не дала бы вытеснению удалить файл
+        verify(mediaStorageService, never()).retain(any());
+        verify(mediaStorageService, never()).release(any());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.hr_assistant.service.business;
+
+import com.example.hr_assistant.model.MediaRender;
+import com.example.hr_assistant.model.MediaRender.RenderKind;
+import com.example.hr_assistant.repository.MediaRenderRepository;
+import com.example.hr_assistant.service.storage.MediaStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaRenderCacheTest {
+
+    @Mock
+    private MediaRenderRepository mediaRenderRepository;
+    @Mock
+    private MediaStorageService mediaStorageService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MediaRenderCache renderCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        renderCache = new MediaRenderCache(mediaRenderRepository, mediaStorageService, meterRegistry,
+            true, "v2", "v1", 30);
+    }
+
+    @Test
+    @DisplayName("Должен вытеснять устаревшие рендеры и снимать их ссылку на файл")
+    void shouldEvictStaleRendersAndReleaseFiles() {
+        // Given
+        MediaRender oldVersion = render(1L, "http://minio/media/tts/sha256/old.wav");
+        MediaRender usedDuringEviction = render(2L, "http://minio/media/tts/sha256/busy.wav");
+        when(mediaRenderRepository.findEvictable(eq(RenderKind.TTS), eq("v2"), any()))
+            .thenReturn(List.of(oldVersion, usedDuringEviction));
+        when(mediaRenderRepository.findEvictable(eq(RenderKind.AVATAR), eq("v1"), any())).thenReturn(List.of());
+        when(mediaRenderRepository.deleteUnusedSince(eq(1L), any())).thenReturn(1);
+        when(mediaRenderRepository.deleteUnusedSince(eq(2L), any())).thenReturn(0);
+
+        // When
+        renderCache.evictStale();
+
+        // Then
+        InOrder order = inOrder(mediaRenderRepository, mediaStorageService);
+        order.verify(mediaRenderRepository).deleteUnusedSince(eq(1L), any(LocalDateTime.class));
+        order.verify(mediaStorageService).release(oldVersion.getFileUrl());
+        verify(mediaStorageService, never()).release(usedDuringEviction.getFileUrl());
+        assertEquals(1.0, meterRegistry.get("hr.media.render.cache.evictions").tag("kind", "tts").counter().count());
+    }
+
+    @Test
+    @DisplayName("Должен снимать ссылку загрузки, если рендер с тем же ключом уже в кэше")
+    void shouldReleaseAdoptedFileWhenKeyAlreadyCached() {
+        // Given
+        MediaRender existing = render(3L, "http://minio/media/avatar/sha256/first.mp4");
+        when(mediaRenderRepository.save(any(MediaRender.class)))
+            .thenThrow(new DataIntegrityViolationException("duplicate cache_key"));
+        when(mediaRenderRepository.findByCacheKey("key")).thenReturn(Optional.of(existing));
+
+        // When
+        String url = renderCache.adopt(RenderKind.AVATAR, "key", "http://minio/media/avatar/sha256/second.mp4");
+
+        // Then
+        assertEquals(existing.getFileUrl(), url);
+        verify(mediaStorageService).release("http://minio/media/avatar/sha256/second.mp4");
+        verify(mediaStorageService, never()).retain(any());
+    }
+
+    private static MediaRender render(Long id, String fileUrl) {
+        MediaRender render = new MediaRender();
+        render.setId(id);
+        render.setKind(RenderKind.TTS);
+        render.setFileUrl(fileUrl);
+        return render;
+    }
+}
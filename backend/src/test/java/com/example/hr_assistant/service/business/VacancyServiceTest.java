@@ -2,6 +2,7 @@ package com.example.hr_assistant.service.business;
 
 import com.example.hr_assistant.model.Vacancy;
 import com.example.hr_assistant.repository.VacancyRepository;
+import com.example.hr_assistant.service.ml.RequirementEmbeddingIndex;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,6 +16,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,6 +25,9 @@ class VacancyServiceTest {
     @Mock
     private VacancyRepository vacancyRepository;
 
+    @Mock
+    private RequirementEmbeddingIndex requirementEmbeddingIndex;
+
     @InjectMocks
     private VacancyService vacancyService;
 
@@ -115,6 +120,7 @@ class VacancyServiceTest {
         assertEquals(1L, result.getId());
         assertEquals("Senior Java Developer", result.getTitle());
         assertEquals("New description", result.getDescription());
+        verify(requirementEmbeddingIndex).rebuild(existingVacancy);
     }
 
     @Test
@@ -0,0 +1,126 @@
+package com.example.hr_assistant.service.external;
+
+import com.example.hr_assistant.config.ResilienceConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbedClientTest {
+
+    @Test
+    @DisplayName("Должен разбирать бинарный пакет эмбеддингов и отклонять обрезанный")
+    void shouldDecodeBinaryBatch() {
+        // Given
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 2 * 3 * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(2).putInt(3);
+        buffer.putFloat(1f).putFloat(0f).putFloat(0f);
+        buffer.putFloat(0f).putFloat(0.6f).putFloat(0.8f);
+        byte[] payload = buffer.array();
+
+        // When
+        List<float[]> vectors = EmbedClient.decodeBatch(payload);
+
+        // Then
+        assertEquals(2, vectors.size());
+        assertArrayEquals(new float[]{1f, 0f, 0f}, vectors.get(0));
+        assertArrayEquals(new float[]{0f, 0.6f, 0.8f}, vectors.get(1));
+        byte[] truncated = Arrays.copyOf(payload, payload.length - 4);
+        assertThrows(IllegalStateException.class, () -> EmbedClient.decodeBatch(truncated));
+    }
+
+    @Test
+    @DisplayName("Должен делить список длиннее лимита embed-service на части и склеивать векторы по порядку")
+    void shouldSplitBatchAboveServiceLimit() {
+        // Given: сервис отклоняет пакеты больше лимита, вектор текста "t<i>" — [i]
+        List<Integer> chunkSizes = new ArrayList<>();
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            List<String> texts = requestTexts(request);
+            chunkSizes.add(texts.size());
+            if (texts.size() > EmbedClient.MAX_BATCH_TEXTS) {
+                return Mono.just(ClientResponse.create(HttpStatus.PAYLOAD_TOO_LARGE).build());
+            }
+            ByteBuffer payload = ByteBuffer.allocate(8 + texts.size() * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            payload.putInt(texts.size()).putInt(1);
+            texts.forEach(text -> payload.putFloat(Integer.parseInt(text.substring(1))));
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(payload.array())))
+                .build());
+        });
+        ServiceResilience resilience = new ServiceResilience(new ResilienceConfig(), builder,
+            ConnectionProvider.newConnection(), new SimpleMeterRegistry());
+        resilience.init();
+        EmbedClient client = new EmbedClient(resilience);
+        client.init();
+        List<String> texts = IntStream.range(0, 1100).mapToObj(i -> "t" + i).toList();
+
+        // When
+        List<float[]> vectors = client.embedBatch(texts);
+
+        // Then
+        assertEquals(List.of(512, 512, 76), chunkSizes);
+        assertEquals(1100, vectors.size());
+        for (int i = 0; i < vectors.size(); i++) {
+            assertEquals(i, vectors.get(i)[0]);
+        }
+    }
+
+    /**
+     * Тексты из JSON тела запроса /embed/batch
+     */
+    private static List<String> requestTexts(ClientRequest request) {
+        MockClientHttpRequest http = new MockClientHttpRequest(request.method(), request.url());
+        request.body().insert(http, new BodyInserter.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return ExchangeStrategies.withDefaults().messageWriters();
+            }
+
+            @Override
+            public Optional<ServerHttpRequest> serverRequest() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Map<String, Object> hints() {
+                return Map.of();
+            }
+        }).block();
+        try {
+            JsonNode body = new ObjectMapper().readTree(http.getBodyAsString().block());
+            List<String> texts = new ArrayList<>();
+            body.get("texts").forEach(text -> texts.add(text.asText()));
+            return texts;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.hr_assistant.service.external;
+
+import com.example.hr_assistant.config.LlmCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmResponseCacheTest {
+
+    private LlmResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new LlmResponseCache(new LlmCacheConfig(), new SimpleMeterRegistry());
+        cache.init();
+    }
+
+    @Test
+    @DisplayName("Должен выполнять одну генерацию для одновременных одинаковых запросов и отдавать ответ из кэша")
+    void shouldDeduplicateConcurrentGenerations() {
+        // Given
+        String key = cache.key("Вакансия: Java", 384, 0.3, "mistral");
+        AtomicInteger generations = new AtomicInteger();
+        Sinks.One<String> llm = Sinks.one();
+
+        // When
+        Mono<String> first = cache.getOrGenerate(key, () -> {
+            generations.incrementAndGet();
+            return llm.asMono();
+        });
+        Mono<String> second = cache.getOrGenerate(key, () -> {
+            generations.incrementAndGet();
+            return llm.asMono();
+        });
+        StringBuilder results = new StringBuilder();
+        first.subscribe(results::append);
+        second.subscribe(results::append);
+        llm.tryEmitValue("подходит");
+        String third = cache.getOrGenerate(key, () -> Mono.error(new IllegalStateException("повторная генерация"))).block();
+
+        // Then
+        assertEquals(1, generations.get());
+        assertEquals("подходитподходит", results.toString());
+        assertEquals("подходит", third);
+        assertNotEquals(key, cache.key("Вакансия: Java", 384, 0.7, "mistral"));
+        assertEquals(1, cache.clear());
+    }
+}
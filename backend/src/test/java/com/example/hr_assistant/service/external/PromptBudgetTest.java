@@ -0,0 +1,30 @@
+package com.example.hr_assistant.service.external;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptBudgetTest {
+
+    private final PromptBudget budget = new PromptBudget(200, 0.0);
+
+    @Test
+    @DisplayName("Должен обрезать длинные поля промпта по бюджету токенов, сохраняя короткие целиком")
+    void shouldFitFieldsIntoTokenBudget() {
+        // Given
+        String template = "Вакансия: \nОтвет: \nСформируй объяснение.";
+        String vacancy = "Java разработчик";
+        String answer = "опыт работы со Spring и базами данных ".repeat(100);
+
+        // When
+        String[] fitted = budget.fit(50, template, vacancy, answer);
+
+        // Then
+        assertEquals(vacancy, fitted[0]);
+        assertTrue(fitted[1].length() < answer.length());
+        assertTrue(fitted[1].endsWith("…"));
+        int total = budget.estimateTokens(template) + budget.estimateTokens(fitted[0]) + budget.estimateTokens(fitted[1]);
+        assertTrue(total <= budget.available(50), "Промпт превышает бюджет: " + total);
+    }
+}
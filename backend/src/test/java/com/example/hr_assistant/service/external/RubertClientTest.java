@@ -0,0 +1,102 @@
+package com.example.hr_assistant.service.external;
+
+import com.example.hr_assistant.config.ResilienceConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RubertClientTest {
+
+    private final AtomicInteger scoreCalls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private ResilienceConfig config;
+    private Function<ClientRequest, Mono<ClientResponse>> server;
+    private RubertClient client;
+
+    @BeforeEach
+    void setUp() {
+        config = new ResilienceConfig();
+        // Запросы обрабатывает функция теста вместо HTTP соединения
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> server.apply(request));
+        ServiceResilience resilience = new ServiceResilience(config, builder, ConnectionProvider.newConnection(),
+            new SimpleMeterRegistry());
+        resilience.init();
+        client = new RubertClient(resilience);
+        client.init();
+    }
+
+    @Test
+    @DisplayName("Должен оценивать все требования одним вызовом /score/batch")
+    void shouldScoreBatchInSingleCall() {
+        // Given
+        AtomicInteger batchCalls = new AtomicInteger();
+        server = request -> {
+            assertEquals("/score/batch", request.url().getPath());
+            batchCalls.incrementAndGet();
+            return json(HttpStatus.OK, "{\"similarity\":[[0.9,0.2,0.5]],\"score\":[[0.8,0.1,0.4]]}");
+        };
+
+        // When
+        List<RubertClient.ScoreResponse> scores = client.scoreBatch("ответ", List.of("java", "sql", "docker"));
+
+        // Then
+        assertEquals(1, batchCalls.get());
+        assertEquals(List.of(0.8, 0.1, 0.4), scores.stream().map(RubertClient.ScoreResponse::getScore).toList());
+        assertEquals(0.2, scores.get(1).getSimilarity());
+    }
+
+    @Test
+    @DisplayName("Должен оценивать пары по одной без /score/batch, не заполняя bulkhead сервиса")
+    void shouldFallBackToPairsWithinBulkhead() {
+        // Given: 30 требований при bulkhead на 20 вызовов
+        ResilienceConfig.Policy policy = new ResilienceConfig.Policy();
+        policy.setMaxConcurrentCalls(20);
+        config.getServices().put("rubert", policy);
+        server = request -> {
+            if (request.url().getPath().equals("/score/batch")) {
+                return json(HttpStatus.NOT_FOUND, "{}");
+            }
+            scoreCalls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return Mono.delay(Duration.ofMillis(5))
+                .doOnNext(tick -> inFlight.decrementAndGet())
+                .then(json(HttpStatus.OK, "{\"similarity\":0.7,\"score\":0.6}"));
+        };
+        List<String> requirements = Collections.nCopies(30, "требование");
+
+        // When
+        List<RubertClient.ScoreResponse> scores = client.scoreBatch("ответ", requirements);
+
+        // Then
+        assertEquals(30, scores.size());
+        assertEquals(30, scoreCalls.get());
+        assertTrue(maxInFlight.get() <= 5, "одновременных вызовов: " + maxInFlight.get());
+        assertTrue(scores.stream().allMatch(score -> score.getScore() == 0.6));
+    }
+
+    private static Mono<ClientResponse> json(HttpStatus status, String body) {
+        return Mono.just(ClientResponse.create(status)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .body(body)
+            .build());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.hr_assistant.service.external;
+
+import com.example.hr_assistant.config.ResilienceConfig;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceResilienceTest {
+
+    private ResilienceConfig config;
+    private ServiceResilience resilience;
+
+    @BeforeEach
+    void setUp() {
+        config = new ResilienceConfig();
+        resilience = new ServiceResilience(config, WebClient.builder(), ConnectionProvider.newConnection(),
+            new SimpleMeterRegistry());
+        resilience.init();
+    }
+
+    @Test
+    @DisplayName("Должен повторять неудачный вызов, а после серии ошибок отклонять вызовы без обращения к сервису")
+    void shouldRetryAndOpenCircuit() {
+        // Given
+        ResilienceConfig.Policy policy = new ResilienceConfig.Policy();
+        policy.setMaxAttempts(2);
+        policy.setRetryBackoffMs(1L);
+        policy.setSlidingWindowSize(4);
+        policy.setMinimumNumberOfCalls(4);
+        config.getServices().put("rubert", policy);
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalStateException.class, () -> resilience.decorate("rubert", () -> {
+                calls.incrementAndGet();
+                return Mono.error(new IllegalStateException("сервис недоступен"));
+            }).block());
+        }
+        Exception rejected = assertThrows(Exception.class, () -> resilience.decorate("rubert", () -> {
+            calls.incrementAndGet();
+            return Mono.just("ok");
+        }).block());
+
+        // Then
+        assertEquals(4, calls.get());
+        assertInstanceOf(CallNotPermittedException.class, rejected);
+        assertTrue(ServiceResilience.isRejected(rejected));
+    }
+
+    @Test
+    @DisplayName("Должен отправлять дублирующий запрос, если первый не ответил за hedge-delay, не занимая второе место в bulkhead")
+    void shouldHedgeSlowCall() {
+        // Given
+        ResilienceConfig.Policy policy = new ResilienceConfig.Policy();
+        policy.setHedgeDelayMs(20L);
+        policy.setReadTimeoutMs(2000L);
+        policy.setMaxConcurrentCalls(1);
+        config.getServices().put("sbert", policy);
+        AtomicInteger calls = new AtomicInteger();
+
+        // When: первый запрос зависает, второй отвечает сразу
+        String result = resilience.decorate("sbert",
+            () -> calls.incrementAndGet() == 1 ? Mono.<String>never() : Mono.just("hedged")).block();
+
+        // Then
+        assertEquals("hedged", result);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Должен брать незаданные поля секции сервиса из resilience.defaults")
+    void shouldMergeServicePolicyOverDefaults() {
+        // Given
+        config.getDefaults().setReadTimeoutMs(7000L);
+        config.getDefaults().setMaxConcurrentCalls(5);
+        ResilienceConfig.Policy policy = new ResilienceConfig.Policy();
+        policy.setReadTimeoutMs(3000L);
+        config.getServices().put("rubert", policy);
+
+        // When
+        ResilienceConfig.Policy merged = config.policy("rubert");
+
+        // Then
+        assertEquals(3000L, merged.getReadTimeoutMs());
+        assertEquals(5, merged.getMaxConcurrentCalls());
+        assertEquals(2000L, merged.getConnectTimeoutMs());
+        assertEquals(7000L, config.policy("llm").getReadTimeoutMs());
+    }
+}
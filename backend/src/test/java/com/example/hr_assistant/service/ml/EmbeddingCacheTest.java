@@ -0,0 +1,112 @@
+package com.example.hr_assistant.service.ml;
+
+import com.example.hr_assistant.config.EmbeddingCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmbeddingCacheTest {
+
+    @Mock
+    private ObjectProvider<RedisTemplate<String, byte[]>> redisTemplateProvider;
+
+    private EmbeddingCacheConfig config;
+    private SimpleMeterRegistry registry;
+    private EmbeddingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        config = new EmbeddingCacheConfig();
+        config.setMaxEntries(2);
+        registry = new SimpleMeterRegistry();
+        cache = new EmbeddingCache(config, registry, redisTemplateProvider);
+        cache.init();
+    }
+
+    @Test
+    @DisplayName("Должен строить одинаковый ключ для текстов, отличающихся регистром и пробелами")
+    void shouldNormalizeTextInKey() {
+        // When
+        String first = cache.key("  Опыт   работы с Java ", "v1", true);
+        String second = cache.key("опыт работы с java", "v1", true);
+        String otherVersion = cache.key("опыт работы с java", "v2", true);
+
+        // Then
+        assertEquals(first, second);
+        assertNotEquals(first, otherVersion);
+    }
+
+    @Test
+    @DisplayName("Должен различать регистр в ключе для модели с регистром")
+    void shouldKeepCaseForCasedModel() {
+        // When
+        String upper = cache.key("Опыт  работы с Java", "v1", false);
+        String lower = cache.key("опыт работы с java", "v1", false);
+
+        // Then
+        assertNotEquals(upper, lower);
+        assertEquals(upper, cache.key(" Опыт работы с Java ", "v1", false));
+    }
+
+    @Test
+    @DisplayName("Должен вытеснять давно неиспользованные записи при превышении лимита")
+    void shouldEvictLeastRecentlyUsed() {
+        // Given
+        cache.put("a", new float[] {1f});
+        cache.put("b", new float[] {2f});
+        cache.get("a");
+
+        // When
+        cache.put("c", new float[] {3f});
+
+        // Then
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1.0, registry.counter("hr.embeddings.cache.evictions").count());
+        assertEquals(1.0, registry.counter("hr.embeddings.cache.misses").count());
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать локальный кэш по объему памяти")
+    void shouldRespectByteLimit() {
+        // Given
+        config.setMaxEntries(100);
+        config.setMaxBytes(2_000L);
+
+        // When
+        cache.put("a", new float[256]);
+        cache.put("b", new float[256]);
+
+        // Then
+        assertEquals(1, cache.size());
+        assertTrue(cache.bytes() <= 2_000L);
+        assertEquals(1, cache.getAll(List.of("a", "b")).size());
+    }
+
+    @Test
+    @DisplayName("Должен кодировать эмбеддинг в little-endian float32 без потерь")
+    void shouldRoundTripCodec() {
+        // Given
+        float[] embedding = {0.5f, -1.25f, Float.MIN_VALUE, 3.0e7f};
+
+        // When
+        byte[] bytes = EmbeddingCodec.encode(embedding);
+
+        // Then
+        assertEquals(16, bytes.length);
+        assertEquals(0x3F, bytes[3] & 0xFF);
+        assertArrayEquals(embedding, EmbeddingCodec.decode(bytes));
+    }
+}
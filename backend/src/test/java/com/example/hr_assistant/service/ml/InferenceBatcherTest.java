@@ -0,0 +1,153 @@
+package com.example.hr_assistant.service.ml;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.types.Shape;
+import com.example.hr_assistant.config.MlModelsConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InferenceBatcherTest {
+
+    static {
+        // Без альтернативного движка OnnxRuntime не пытается скачать PyTorch
+        System.setProperty("ai.djl.onnx.disable_alternative", "true");
+    }
+
+    @Mock
+    private ModelManager modelManager;
+
+    private MlModelsConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private InferenceBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        config = new MlModelsConfig();
+        meterRegistry = new SimpleMeterRegistry();
+        batcher = new InferenceBatcher(modelManager, new TextTokenizer(config), config, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Должен отправлять батч, как только набран maxBatchSize, и раздавать результаты по запросам")
+    void shouldFlushWhenBatchIsFull() throws Exception {
+        // Given
+        config.getBatching().setMaxBatchSize(2);
+        config.getBatching().setMaxWaitMs(60_000L);
+        when(modelManager.predict(eq("embeddings"), any(NDList.class))).thenAnswer(rowSums());
+
+        // When
+        CompletableFuture<InferenceBatcher.InferenceResult> first = batcher.submit("embeddings", new long[][]{{1, 2, 3}});
+        CompletableFuture<InferenceBatcher.InferenceResult> second = batcher.submit("embeddings", new long[][]{{10, 20}});
+
+        // Then
+        assertArrayEquals(new float[]{6f}, first.get(5, TimeUnit.SECONDS).output(0));
+        assertArrayEquals(new float[]{30f}, second.get(5, TimeUnit.SECONDS).output(0));
+        verify(modelManager, times(1)).predict(eq("embeddings"), any(NDList.class));
+        assertEquals(2, meterRegistry.get("hr.models.batch.size").summary().max());
+    }
+
+    @Test
+    @DisplayName("Должен отправлять неполный батч по истечении окна ожидания")
+    void shouldFlushWhenWaitWindowExpires() throws Exception {
+        // Given
+        config.getBatching().setMaxBatchSize(16);
+        config.getBatching().setMaxWaitMs(20L);
+        when(modelManager.predict(eq("classifier"), any(NDList.class))).thenAnswer(rowSums());
+
+        // When
+        InferenceBatcher.InferenceResult result = batcher.submit("classifier", new long[][]{{4, 5}})
+            .get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertArrayEquals(new float[]{9f}, result.output(0));
+        assertEquals(1, meterRegistry.get("hr.models.batch.size").summary().count());
+    }
+
+    @Test
+    @DisplayName("Должен передавать ошибку модели каждому запросу батча")
+    void shouldFailEveryRequestOfFailedBatch() throws Exception {
+        // Given
+        config.getBatching().setMaxBatchSize(2);
+        config.getBatching().setMaxWaitMs(60_000L);
+        IllegalStateException failure = new IllegalStateException("onnx session failed");
+        when(modelManager.predict(eq("embeddings"), any(NDList.class))).thenThrow(failure);
+
+        // When
+        CompletableFuture<InferenceBatcher.InferenceResult> first = batcher.submit("embeddings", new long[][]{{1}});
+        CompletableFuture<InferenceBatcher.InferenceResult> second = batcher.submit("embeddings", new long[][]{{2}});
+
+        // Then
+        for (CompletableFuture<InferenceBatcher.InferenceResult> future : List.of(first, second)) {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertSame(failure, error.getCause());
+        }
+    }
+
+    @Test
+    @DisplayName("Должен завершать ошибкой все ожидающие запросы при остановке")
+    void shouldRejectPendingRequestsOnShutdown() throws Exception {
+        // Given
+        config.getPool().setSize(1);
+        config.getBatching().setMaxBatchSize(1);
+        CountDownLatch running = new CountDownLatch(1);
+        when(modelManager.predict(eq("embeddings"), any(NDList.class))).thenAnswer(invocation -> {
+            running.countDown();
+            new CountDownLatch(1).await();
+            return null;
+        });
+        CompletableFuture<InferenceBatcher.InferenceResult> inFlight = batcher.submit("embeddings", new long[][]{{1}});
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<InferenceBatcher.InferenceResult> waitingForPermit = batcher.submit("embeddings", new long[][]{{2}});
+        CompletableFuture<InferenceBatcher.InferenceResult> queued = batcher.submit("embeddings", new long[][]{{3}});
+
+        // When
+        batcher.shutdown();
+
+        // Then
+        for (CompletableFuture<InferenceBatcher.InferenceResult> future : List.of(inFlight, waitingForPermit, queued)) {
+            assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        }
+        assertThrows(IllegalStateException.class, () -> batcher.submit("embeddings", new long[][]{{4}}));
+    }
+
+    /**
+     * Модель-заглушка: на каждую строку батча возвращает сумму ее input_ids
+     */
+    private static Answer<NDList> rowSums() {
+        return invocation -> {
+            NDArray ids = invocation.<NDList>getArgument(1).get(0);
+            long[] shape = ids.getShape().getShape();
+            long[] values = ids.toLongArray();
+            float[] sums = new float[(int) shape[0]];
+            for (int i = 0; i < values.length; i++) {
+                sums[i / (int) shape[1]] += values[i];
+            }
+            return new NDList(ids.getManager().create(sums, new Shape(shape[0], 1)));
+        };
+    }
+}
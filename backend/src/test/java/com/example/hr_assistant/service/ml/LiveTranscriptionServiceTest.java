@@ -0,0 +1,242 @@
+package com.example.hr_assistant.service.ml;
+
+import com.example.hr_assistant.config.MlModelsConfig;
+import com.example.hr_assistant.model.Recording;
+import com.example.hr_assistant.model.Transcript;
+import com.example.hr_assistant.repository.InterviewRepository;
+import com.example.hr_assistant.repository.QuestionRepository;
+import com.example.hr_assistant.repository.RecordingRepository;
+import com.example.hr_assistant.repository.TranscriptRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LiveTranscriptionServiceTest {
+
+    private static final String RECORDING_URL = "http://minio:9000/media/interviews/1/questions/10/recording.webm";
+
+    @Mock
+    private AsrService asrService;
+
+    @Mock
+    private AudioDecoder audioDecoder;
+
+    @Mock
+    private ModelManager modelManager;
+
+    @Mock
+    private InterviewRepository interviewRepository;
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Mock
+    private RecordingRepository recordingRepository;
+
+    @Mock
+    private TranscriptRepository transcriptRepository;
+
+    private final List<EchoProcess> processes = new ArrayList<>();
+    private LiveTranscriptionService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws IOException {
+        MlModelsConfig config = new MlModelsConfig();
+        config.getAsr().setReadBufferBytes(64);
+        config.getAsr().setLiveMaxSessions(2);
+
+        // ffmpeg заменен процессом, который отдает записанные байты как PCM, а Whisper — окнами по 2 сэмпла,
+        // текст окна — его сэмплы
+        when(audioDecoder.open()).thenAnswer(inv -> {
+            EchoProcess process = new EchoProcess();
+            processes.add(process);
+            return new AudioDecoder.PcmStream(process, config.getAsr().getReadBufferBytes());
+        });
+        when(asrService.newWindower(any())).thenAnswer(inv -> {
+            Consumer<AsrService.Segment> sink = inv.getArgument(0);
+            return new PcmWindower(2, 0, (window, length, start) -> {
+                StringBuilder text = new StringBuilder();
+                for (int i = 0; i < length; i++) {
+                    text.append(text.isEmpty() ? "" : " ").append((int) window[i]);
+                }
+                sink.accept(new AsrService.Segment(start, start + length, text.toString(), 0.9));
+            });
+        });
+        when(asrService.toTranscript(any())).thenAnswer(inv -> {
+            List<AsrService.Segment> segments = inv.getArgument(0);
+            Transcript transcript = new Transcript();
+            transcript.setText(segments.stream().map(AsrService.Segment::text).collect(Collectors.joining(" ")));
+            transcript.setAsrConfidence(0.9);
+            return transcript;
+        });
+        when(recordingRepository.findByInterviewIdAndQuestionId(any(), any())).thenReturn(List.of(new Recording()));
+
+        service = new LiveTranscriptionService(asrService, audioDecoder, modelManager, config,
+            interviewRepository, questionRepository, recordingRepository, transcriptRepository);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Должен распознавать чанки в порядке загрузки и дочитывать поток после конца записи")
+    void shouldTranscribeChunksInOrder() {
+        // Given
+        service.appendChunk(1L, 10L, pcm(1, 2, 3), 0);
+        service.appendChunk(1L, 10L, pcm(4, 5), 1);
+        service.appendChunk(1L, 10L, pcm(6), 2);
+        service.endOfStream(1L, 10L);
+
+        // When
+        Transcript transcript = service.finish(1L, 10L, RECORDING_URL, 1024L).block(Duration.ofSeconds(10));
+
+        // Then
+        assertNotNull(transcript);
+        assertEquals("1 2 3 4 5 6", transcript.getText());
+        assertEquals(1, processes.size());
+        verify(recordingRepository).save(argThat(r -> RECORDING_URL.equals(r.getFileUrl())
+            && r.getChunkIndex() == 2 && r.getFileSizeBytes() == 1024L && r.getIsFinalChunk()));
+        verify(transcriptRepository).save(transcript);
+    }
+
+    @Test
+    @DisplayName("Должен отклонять чанки завершенного ответа, не открывая новую сессию")
+    void shouldRejectChunksAfterFinish() {
+        // Given
+        service.appendChunk(1L, 10L, pcm(1, 2), 0);
+        service.finish(1L, 10L, RECORDING_URL, 1024L).block(Duration.ofSeconds(10));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> service.appendChunk(1L, 10L, pcm(3), 1));
+        assertNull(service.finish(1L, 10L, RECORDING_URL, 1024L).block(Duration.ofSeconds(1)));
+        assertEquals(1, processes.size());
+    }
+
+    @Test
+    @DisplayName("Должен прерывать сессию без сохранения и принимать чанки только после новой записи")
+    void shouldAbortSession() {
+        // Given
+        service.appendChunk(1L, 10L, pcm(1, 2, 3), 0);
+
+        // When
+        service.abort(1L, 10L);
+
+        // Then
+        assertTrue(processes.get(0).destroyed);
+        assertNull(service.finish(1L, 10L, RECORDING_URL, 1024L).block(Duration.ofSeconds(1)));
+        assertThrows(IllegalStateException.class, () -> service.appendChunk(1L, 10L, pcm(4), 1));
+        verify(transcriptRepository, never()).save(any());
+
+        service.start(1L, 10L);
+        service.appendChunk(1L, 10L, pcm(7, 8), 0);
+        assertEquals("7 8", service.finish(1L, 10L, RECORDING_URL, 1024L).block(Duration.ofSeconds(10)).getText());
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать число одновременных сессий")
+    void shouldLimitSessions() {
+        // Given
+        service.appendChunk(1L, 10L, pcm(1), 0);
+        service.appendChunk(1L, 11L, pcm(1), 0);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> service.appendChunk(1L, 12L, pcm(1), 0));
+        assertEquals(2, processes.size());
+    }
+
+    private static byte[] pcm(float... samples) {
+        ByteBuffer buffer = ByteBuffer.allocate(samples.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (float sample : samples) {
+            buffer.putFloat(sample);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Процесс-заглушка ffmpeg: все, что записано в stdin, без изменений читается из stdout
+     */
+    private static class EchoProcess extends Process {
+        private final PipedInputStream stdout = new PipedInputStream(1 << 16);
+        private final PipedOutputStream stdin;
+        private volatile boolean destroyed;
+
+        EchoProcess() throws IOException {
+            stdin = new PipedOutputStream(stdout);
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return stdin;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return stdout;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public int waitFor() {
+            return 0;
+        }
+
+        @Override
+        public int exitValue() {
+            return 0;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return !destroyed;
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+            try {
+                stdout.close();
+            } catch (IOException ignored) {
+                // Поток уже закрыт
+            }
+        }
+
+        @Override
+        public Process destroyForcibly() {
+            destroy();
+            return this;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.hr_assistant.service.ml;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PcmWindowerTest {
+
+    @Test
+    @DisplayName("Должен нарезать поток на окна с перекрытием независимо от размера порций")
+    void shouldEmitOverlappingWindows() {
+        // Given
+        List<float[]> windows = new ArrayList<>();
+        List<Long> starts = new ArrayList<>();
+        PcmWindower windower = new PcmWindower(4, 1, (window, length, start) -> {
+            windows.add(Arrays.copyOf(window, length));
+            starts.add(start);
+        });
+        float[] samples = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+        // When
+        windower.feed(samples, 0, 3);
+        windower.feed(samples, 3, 5);
+        windower.feed(samples, 8, 2);
+        windower.flush();
+
+        // Then
+        assertEquals(List.of(0L, 3L, 6L), starts);
+        assertArrayEquals(new float[] {0, 1, 2, 3}, windows.get(0));
+        assertArrayEquals(new float[] {3, 4, 5, 6}, windows.get(1));
+        assertArrayEquals(new float[] {6, 7, 8, 9}, windows.get(2));
+    }
+
+    @Test
+    @DisplayName("Должен отдавать последнее неполное окно с нулевым хвостом и не повторять перекрытие")
+    void shouldFlushPartialWindowOnlyWithFreshSamples() {
+        // Given
+        List<float[]> windows = new ArrayList<>();
+        PcmWindower windower = new PcmWindower(4, 2, (window, length, start) -> windows.add(window.clone()));
+
+        // When
+        windower.feed(new float[] {1, 2, 3, 4, 5}, 0, 5);
+        windower.flush();
+        windower.flush();
+
+        // Then
+        assertEquals(2, windows.size());
+        assertArrayEquals(new float[] {1, 2, 3, 4}, windows.get(0));
+        assertArrayEquals(new float[] {3, 4, 5, 0}, windows.get(1));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.hr_assistant.service.ml;
+
+import ai.djl.inference.Predictor;
+import ai.djl.repository.zoo.ZooModel;
+import com.example.hr_assistant.exception.PredictorPoolExhaustedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PredictorPoolTest {
+
+    @Mock
+    private ZooModel<Object, Object> model;
+
+    @Test
+    @DisplayName("Должен выдавать и возвращать предикторы")
+    @SuppressWarnings("unchecked")
+    void shouldBorrowAndRelease() {
+        // Given
+        when(model.newPredictor()).thenAnswer(inv -> mock(Predictor.class));
+        PredictorPool pool = new PredictorPool("embeddings", model, 2, 10, new SimpleMeterRegistry());
+
+        // When
+        Predictor<Object, Object> first = pool.borrow();
+        Predictor<Object, Object> second = pool.borrow();
+
+        // Then
+        assertNotSame(first, second);
+        assertEquals(0, pool.available());
+
+        pool.release(first);
+        assertEquals(1, pool.available());
+        assertSame(first, pool.borrow());
+    }
+
+    @Test
+    @DisplayName("Должен отказывать, когда пул исчерпан")
+    @SuppressWarnings("unchecked")
+    void shouldRejectWhenExhausted() {
+        // Given
+        when(model.newPredictor()).thenAnswer(inv -> mock(Predictor.class));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PredictorPool pool = new PredictorPool("classifier", model, 1, 10, registry);
+        pool.borrow();
+
+        // When & Then
+        assertThrows(PredictorPoolExhaustedException.class, pool::borrow);
+        assertEquals(1.0, registry.counter("hr.models.predictor.rejected", "model", "classifier").count());
+    }
+
+    @Test
+    @DisplayName("Должен закрывать предиктор, возвращенный в закрытый пул")
+    @SuppressWarnings("unchecked")
+    void shouldCloseReleasedPredictorAfterPoolClosed() {
+        // Given
+        when(model.newPredictor()).thenAnswer(inv -> mock(Predictor.class));
+        PredictorPool pool = new PredictorPool("liveness", model, 1, 10, new SimpleMeterRegistry());
+        Predictor<Object, Object> borrowed = pool.borrow();
+
+        // When
+        pool.close();
+        pool.release(borrowed);
+
+        // Then
+        verify(borrowed).close();
+        assertEquals(0, pool.available());
+    }
+
+    @Test
+    @DisplayName("Должен закрывать модель только после возврата выданных предикторов")
+    @SuppressWarnings("unchecked")
+    void shouldRunDrainActionAfterLastRelease() {
+        // Given
+        when(model.newPredictor()).thenAnswer(inv -> mock(Predictor.class));
+        PredictorPool pool = new PredictorPool("embeddings", model, 2, 10, new SimpleMeterRegistry());
+        Predictor<Object, Object> borrowed = pool.borrow();
+        Runnable closeModel = mock(Runnable.class);
+
+        // When
+        pool.close(closeModel);
+
+        // Then
+        verify(closeModel, never()).run();
+        assertThrows(IllegalStateException.class, pool::borrow);
+        pool.release(borrowed);
+        verify(borrowed).close();
+        verify(closeModel).run();
+    }
+}
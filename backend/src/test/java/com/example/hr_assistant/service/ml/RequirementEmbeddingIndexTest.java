@@ -0,0 +1,119 @@
+package com.example.hr_assistant.service.ml;
+
+import com.example.hr_assistant.model.Vacancy;
+import com.example.hr_assistant.model.VacancyRequirementEmbedding;
+import com.example.hr_assistant.repository.VacancyRequirementEmbeddingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RequirementEmbeddingIndexTest {
+
+    @Mock
+    private VacancyRequirementEmbeddingRepository embeddingRepository;
+    @Mock
+    private EmbeddingService embeddingService;
+    @Mock
+    private ModelManager modelManager;
+
+    @InjectMocks
+    private RequirementEmbeddingIndex index;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Должен индексировать только требуемые компетенции вакансии")
+    void shouldUseOnlyRequiredCompetencies() {
+        // Given
+        Vacancy vacancy = vacancy();
+        vacancy.setRequirements("Опыт с Kafka\n- Знание SQL");
+
+        // When
+        Map<String, String> texts = RequirementEmbeddingIndex.requirementTexts(vacancy);
+
+        // Then
+        assertEquals(Map.of("Java", "Java", "Spring", "Spring"), texts);
+    }
+
+    @Test
+    @DisplayName("Должен пересчитывать устаревший индекс и заменять его одной операцией")
+    void shouldRebuildStaleIndexOnRead() {
+        // Given
+        Vacancy vacancy = vacancy();
+        VacancyRequirementEmbedding stale = new VacancyRequirementEmbedding();
+        stale.setRequirementKey("Java");
+        stale.setRequirementText("Java");
+        stale.setEmbedding(EmbeddingCodec.encode(new float[]{1f, 0f}));
+        when(modelManager.getModelVersion("embeddings")).thenReturn("model@2");
+        when(embeddingRepository.findByVacancyIdAndModelVersion(1L, "model@2")).thenReturn(List.of(stale));
+        when(embeddingService.createEmbeddings(List.of("Java", "Spring")))
+            .thenReturn(List.of(new float[]{1f, 0f}, new float[]{0f, 1f}));
+
+        // When
+        Map<String, float[]> embeddings = index.getEmbeddings(vacancy);
+
+        // Then
+        assertEquals(2, embeddings.size());
+        assertArrayEquals(new float[]{0f, 1f}, embeddings.get("Spring"));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<VacancyRequirementEmbedding>> rows = ArgumentCaptor.forClass(List.class);
+        verify(embeddingRepository).replaceForVacancy(eq(1L), rows.capture());
+        assertEquals(List.of("Java", "Spring"),
+            rows.getValue().stream().map(VacancyRequirementEmbedding::getRequirementKey).toList());
+        assertTrue(rows.getValue().stream().allMatch(row -> "model@2".equals(row.getModelVersion())));
+    }
+
+    @Test
+    @DisplayName("Должен откладывать пересчет до коммита транзакции и не пробрасывать ошибки инференса")
+    void shouldDeferRebuildUntilCommitAndSwallowFailures() {
+        // Given
+        Vacancy vacancy = vacancy();
+        when(modelManager.getModelVersion("embeddings")).thenReturn("model@1");
+        when(embeddingService.createEmbeddings(anyList())).thenThrow(new IllegalStateException("model failed"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        index.rebuild(vacancy);
+
+        // Then
+        verifyNoInteractions(embeddingService);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        assertDoesNotThrow(() -> synchronizations.get(0).afterCommit());
+        verify(embeddingService).createEmbeddings(List.of("Java", "Spring"));
+        verify(embeddingRepository, never()).replaceForVacancy(any(), anyList());
+    }
+
+    private Vacancy vacancy() {
+        Vacancy vacancy = new Vacancy();
+        vacancy.setId(1L);
+        Map<String, Double> competencies = new LinkedHashMap<>();
+        competencies.put("Java", 0.6);
+        competencies.put("Spring", 0.4);
+        vacancy.setRequiredCompetencies(competencies);
+        return vacancy;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.hr_assistant.service.ml;
+
+import com.example.hr_assistant.config.MlModelsConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextTokenizerTest {
+
+    // id токена — номер строки в vocab.txt
+    private static final List<String> VOCAB = List.of(
+        "[PAD]", "[UNK]", "[CLS]", "[SEP]",
+        "un", "##aff", "##able", "опыт", "java", "##script", ",", "раз", "##работка");
+
+    @TempDir
+    Path modelsDir;
+
+    private MlModelsConfig config;
+    private TextTokenizer tokenizer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(modelsDir.resolve("classifier"));
+        Files.write(modelsDir.resolve("classifier").resolve("vocab.txt"), VOCAB);
+        config = new MlModelsConfig();
+        config.setPath(modelsDir.toString());
+        tokenizer = new TextTokenizer(config);
+    }
+
+    @Test
+    @DisplayName("Должен разбивать слова на подслова WordPiece и заменять неизвестные на [UNK]")
+    void shouldEncodeWordPieces() {
+        // When
+        long[][] features = tokenizer.encodeSingle("classifier", "Unaffable JavaScript, опыт xyz");
+
+        // Then
+        assertArrayEquals(new long[] {2, 4, 5, 6, 8, 9, 10, 7, 1, 3}, features[0]);
+        assertEquals(features[0].length, features[1].length);
+        assertTrue(tokenizer.hasVocabulary("classifier"));
+    }
+
+    @Test
+    @DisplayName("Должен кодировать пару и укорачивать более длинную часть")
+    void shouldTruncateLongestFirst() {
+        // When
+        long[][] features = tokenizer.encodePair("classifier", "разработка разработка разработка", "java", 8);
+
+        // Then: [CLS] раз ##работка раз ##работка [SEP] java [SEP]
+        assertArrayEquals(new long[] {2, 11, 12, 11, 12, 3, 8, 3}, features[0]);
+    }
+
+    @Test
+    @DisplayName("Должен дополнять батч до самой длинной последовательности")
+    void shouldPadBatchDynamically() {
+        // When
+        EncodedBatch batch = tokenizer.encodeBatch("classifier", List.of("java", "опыт unaffable"));
+
+        // Then
+        assertEquals(2, batch.getBatchSize());
+        assertEquals(6, batch.getSequenceLength());
+        assertArrayEquals(new long[] {2, 8, 3, 0, 0, 0, 2, 7, 4, 5, 6, 3}, batch.getInputs()[0]);
+        assertArrayEquals(new long[] {1, 1, 1, 0, 0, 0, 1, 1, 1, 1, 1, 1}, batch.getInputs()[1]);
+    }
+
+    @Test
+    @DisplayName("Должен использовать псевдо-токены, если словаря модели нет")
+    void shouldFallBackToPseudoIds() {
+        // When
+        long[][] features = tokenizer.encodeSingle("embeddings", "ab");
+
+        // Then
+        assertFalse(tokenizer.hasVocabulary("embeddings"));
+        assertArrayEquals(new long[] {101, 1097, 1098, 102}, features[0]);
+    }
+
+    @Test
+    @DisplayName("Должен дополнять input_ids токеном [PAD] словаря, а не нулем")
+    void shouldPadWithVocabularyPadId() throws IOException {
+        // Given
+        Files.createDirectories(modelsDir.resolve("embeddings"));
+        Files.write(modelsDir.resolve("embeddings").resolve("vocab.txt"),
+            List.of("[UNK]", "[CLS]", "[SEP]", "[PAD]", "java", "опыт"));
+
+        // When
+        EncodedBatch batch = tokenizer.encodeBatch("embeddings", List.of("java", "опыт java"));
+
+        // Then
+        assertEquals(3, tokenizer.padId("embeddings"));
+        assertArrayEquals(new long[] {1, 4, 2, 3, 1, 5, 4, 2}, batch.getInputs()[0]);
+        assertArrayEquals(new long[] {1, 1, 1, 0, 1, 1, 1, 1}, batch.getInputs()[1]);
+    }
+}
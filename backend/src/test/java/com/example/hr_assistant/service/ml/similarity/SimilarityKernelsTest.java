@@ -0,0 +1,76 @@
+package com.example.hr_assistant.service.ml.similarity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityKernelsTest {
+
+    private static final float EPS = 1e-4f;
+
+    @Test
+    @DisplayName("SIMD и скалярное ядро должны давать одинаковый результат, включая хвост вектора")
+    void vectorKernelShouldMatchScalar() {
+        // Given
+        Random random = new Random(42);
+        float[] a = randomVector(random, 389);
+        float[] b = randomVector(random, 389);
+        SimilarityKernel scalar = new ScalarSimilarityKernel();
+        SimilarityKernel vector = new VectorSimilarityKernel();
+
+        // When & Then
+        assertEquals(scalar.dot(a, 0, b, 0, a.length), vector.dot(a, 0, b, 0, a.length), 1e-2f);
+        assertEquals(scalar.cosine(a, 0, b, 0, a.length), vector.cosine(a, 0, b, 0, a.length), EPS);
+        assertEquals(scalar.cosine(a, 5, b, 7, 100), vector.cosine(a, 5, b, 7, 100), EPS);
+    }
+
+    @Test
+    @DisplayName("Должен вычислять косинусное сходство и обрабатывать нулевые векторы")
+    void shouldComputeCosine() {
+        // When & Then
+        assertEquals(1.0f, SimilarityKernels.cosine(new float[] {1, 2, 3}, new float[] {2, 4, 6}), EPS);
+        assertEquals(0.0f, SimilarityKernels.cosine(new float[] {1, 0}, new float[] {0, 1}), EPS);
+        assertEquals(0.0f, SimilarityKernels.cosine(new float[] {0, 0}, new float[] {1, 1}), EPS);
+        assertThrows(IllegalArgumentException.class,
+            () -> SimilarityKernels.cosine(new float[] {1}, new float[] {1, 2}));
+    }
+
+    @Test
+    @DisplayName("Пакетные варианты должны совпадать с попарным расчетом")
+    void batchVariantsShouldMatchPairwise() {
+        // Given
+        Random random = new Random(7);
+        int dimension = 67;
+        float[] query = randomVector(random, dimension);
+        List<float[]> references = List.of(randomVector(random, dimension), randomVector(random, dimension),
+            randomVector(random, dimension));
+        float[] matrix = SimilarityKernels.pack(references);
+
+        // When
+        float[] oneVsMany = SimilarityKernels.oneVsMany(query, matrix, dimension);
+        float[] normalizedMatrix = matrix.clone();
+        SimilarityKernels.normalizeRows(normalizedMatrix, dimension);
+        float[] fastPath = SimilarityKernels.oneVsManyNormalized(SimilarityKernels.normalize(query), normalizedMatrix, dimension);
+        float[] manyVsMany = SimilarityKernels.manyVsMany(matrix, matrix, dimension);
+
+        // Then
+        for (int i = 0; i < references.size(); i++) {
+            float expected = SimilarityKernels.cosine(query, references.get(i));
+            assertEquals(expected, oneVsMany[i], EPS);
+            assertEquals(expected, fastPath[i], EPS);
+            assertEquals(1.0f, manyVsMany[i * references.size() + i], EPS);
+        }
+    }
+
+    private static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
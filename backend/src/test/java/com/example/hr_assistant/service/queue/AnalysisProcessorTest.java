@@ -0,0 +1,86 @@
+package com.example.hr_assistant.service.queue;
+
+import com.example.hr_assistant.model.Analysis;
+import com.example.hr_assistant.model.Interview;
+import com.example.hr_assistant.model.Vacancy;
+import com.example.hr_assistant.model.dto.QueueMessage;
+import com.example.hr_assistant.repository.AnalysisRepository;
+import com.example.hr_assistant.repository.InterviewRepository;
+import com.example.hr_assistant.service.ml.ClassificationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalysisProcessorTest {
+
+    @Mock
+    private ClassificationService classificationService;
+    @Mock
+    private InterviewRepository interviewRepository;
+    @Mock
+    private AnalysisRepository analysisRepository;
+    @Mock
+    private QueueService queueService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AnalysisProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new AnalysisProcessor(classificationService, interviewRepository, analysisRepository,
+            queueService, new ObjectMapper(), new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    @DisplayName("Должен считать оценки вне транзакции и ставить следующие этапы после коммита")
+    void shouldScoreOutsideTransactionAndEnqueueAfterCommit() {
+        // Given
+        Vacancy vacancy = new Vacancy();
+        vacancy.setRequiredCompetencies(Map.of("Java", 1.0));
+        Interview interview = new Interview();
+        interview.setId(3L);
+        interview.setVacancy(vacancy);
+        when(interviewRepository.findWithVacancyById(3L)).thenReturn(Optional.of(interview));
+        when(interviewRepository.getReferenceById(3L)).thenReturn(interview);
+        when(classificationService.classifyCompliance("Пишу на Java", vacancy)).thenReturn(Map.of("Java", 0.8));
+        when(classificationService.calculateOverallScore(any(), any())).thenReturn(0.8);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        QueueMessage message = new QueueMessage();
+        message.setInterviewId(3L);
+        message.setTranscriptText("Пишу на Java");
+
+        // When
+        processor.handle(message);
+
+        // Then
+        InOrder order = inOrder(classificationService, transactionManager, analysisRepository, interviewRepository,
+            queueService);
+        order.verify(classificationService).classifyCompliance("Пишу на Java", vacancy);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(analysisRepository).save(any(Analysis.class));
+        order.verify(interviewRepository).updateMatchingScore(3L, 0.8);
+        order.verify(transactionManager).commit(any());
+        order.verify(queueService).deferAntifraudTask(eq(3L), eq(AntifraudProcessor.AI_TEXT_DETECTION), any());
+        order.verify(queueService).deferNotification(eq(3L), eq("ANALYSIS_COMPLETED"), anyString());
+        verify(queueService, never()).sendAntifraudTask(any(), any(), any());
+        verify(interviewRepository, never()).save(any());
+    }
+}
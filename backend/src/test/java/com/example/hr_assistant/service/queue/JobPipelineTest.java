@@ -0,0 +1,106 @@
+package com.example.hr_assistant.service.queue;
+
+import com.example.hr_assistant.config.PipelineConfig;
+import com.example.hr_assistant.exception.PipelineOverloadedException;
+import com.example.hr_assistant.model.DeadLetterJob;
+import com.example.hr_assistant.model.dto.QueueMessage;
+import com.example.hr_assistant.repository.DeadLetterJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobPipelineTest {
+
+    @Mock
+    private JobHandler handler;
+
+    @Mock
+    private ObjectProvider<JobHandler> handlerProvider;
+
+    @Mock
+    private DeadLetterJobRepository deadLetterJobRepository;
+
+    private PipelineConfig config;
+    private JobPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        config = new PipelineConfig();
+        config.getRetry().setMaxAttempts(3);
+        config.getRetry().setInitialBackoffMs(10L);
+        config.setOfferTimeoutMs(10L);
+        config.stage(JobStage.ANALYZE).setWorkers(1);
+        config.stage(JobStage.ANALYZE).setCapacity(1);
+        pipeline = new JobPipeline(config, new InMemoryJobTransport(config), handlerProvider,
+            deadLetterJobRepository, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    @DisplayName("Должен повторять упавшую задачу с backoff и сохранять ее в dead letter после исчерпания попыток")
+    void shouldRetryAndDeadLetter() throws Exception {
+        // Given
+        when(handler.stage()).thenReturn(JobStage.ANALYZE);
+        when(handlerProvider.orderedStream()).thenReturn(Stream.of(handler));
+        doThrow(new IllegalStateException("модель недоступна")).when(handler).handle(any());
+        pipeline.start();
+
+        QueueMessage message = new QueueMessage();
+        message.setInterviewId(7L);
+
+        // When
+        pipeline.submit(JobStage.ANALYZE, message);
+
+        // Then
+        ArgumentCaptor<DeadLetterJob> captor = ArgumentCaptor.forClass(DeadLetterJob.class);
+        verify(deadLetterJobRepository, timeout(2000)).save(captor.capture());
+        verify(handler, times(3)).handle(any());
+        assertEquals("ANALYZE", captor.getValue().getStage());
+        assertEquals(3, captor.getValue().getAttempts());
+        assertEquals(7L, captor.getValue().getInterviewId());
+        assertTrue(captor.getValue().getLastError().contains("модель недоступна"));
+    }
+
+    @Test
+    @DisplayName("Должен отклонять задачу, если очередь этапа заполнена")
+    void shouldRejectWhenStageQueueIsFull() {
+        // Given: воркеры не запущены, емкость очереди ANALYZE — одна задача
+        pipeline.submit(JobStage.ANALYZE, new QueueMessage());
+
+        // When / Then
+        assertThrows(PipelineOverloadedException.class, () -> pipeline.submit(JobStage.ANALYZE, new QueueMessage()));
+    }
+
+    @Test
+    @DisplayName("Должен считать задержку повтора экспоненциально с верхней границей")
+    void shouldComputeExponentialBackoff() {
+        // Given
+        config.getRetry().setInitialBackoffMs(1000L);
+        config.getRetry().setMaxBackoffMs(5000L);
+
+        // When / Then
+        assertEquals(1000L, pipeline.backoffMs(1));
+        assertEquals(2000L, pipeline.backoffMs(2));
+        assertEquals(4000L, pipeline.backoffMs(3));
+        assertEquals(5000L, pipeline.backoffMs(4));
+    }
+}
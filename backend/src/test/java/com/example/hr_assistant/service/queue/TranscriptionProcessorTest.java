@@ -0,0 +1,91 @@
+package com.example.hr_assistant.service.queue;
+
+import com.example.hr_assistant.config.MinioConfig;
+import com.example.hr_assistant.model.Interview;
+import com.example.hr_assistant.model.Recording;
+import com.example.hr_assistant.model.Transcript;
+import com.example.hr_assistant.model.dto.QueueMessage;
+import com.example.hr_assistant.repository.MediaObjectRepository;
+import com.example.hr_assistant.repository.RecordingRepository;
+import com.example.hr_assistant.repository.TranscriptRepository;
+import com.example.hr_assistant.service.ml.AsrService;
+import com.example.hr_assistant.service.storage.MediaStorageService;
+import com.example.hr_assistant.service.storage.MinioMultipartClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TranscriptionProcessorTest {
+
+    @Mock
+    private AsrService asrService;
+    @Mock
+    private RecordingRepository recordingRepository;
+    @Mock
+    private TranscriptRepository transcriptRepository;
+    @Mock
+    private QueueService queueService;
+
+    private MediaStorageService mediaStorageService;
+    private TranscriptionProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        MinioConfig config = new MinioConfig();
+        config.setEndpoint("http://minio:9000");
+        config.setBucketName("hr-media");
+        mediaStorageService = spy(new MediaStorageService(mock(MinioClient.class), mock(MinioAsyncClient.class),
+            mock(MinioMultipartClient.class), config, mock(MediaObjectRepository.class), new SimpleMeterRegistry()));
+        processor = new TranscriptionProcessor(asrService, mediaStorageService, recordingRepository,
+            transcriptRepository, queueService);
+    }
+
+    @Test
+    @DisplayName("Должен читать из хранилища объект по URL загрузки, без имени бакета")
+    void shouldReadObjectByUploadedFileUrl() throws Exception {
+        // Given
+        String objectName = "interviews/7/questions/3/answer_1a2b.webm";
+        Interview interview = new Interview();
+        interview.setId(7L);
+        Recording recording = new Recording();
+        recording.setId(11L);
+        recording.setInterview(interview);
+        Transcript transcript = new Transcript();
+        transcript.setText("Опыт работы с Java");
+        transcript.setAsrConfidence(0.92);
+
+        QueueMessage message = new QueueMessage();
+        message.setRecordingId(11L);
+        message.setFileUrl(mediaStorageService.getFileUrl(objectName));
+
+        when(recordingRepository.findById(11L)).thenReturn(Optional.of(recording));
+        doReturn(new ByteArrayInputStream(new byte[] {1, 2, 3})).when(mediaStorageService).getFile(objectName);
+        when(asrService.transcribeStream(any(), eq("ru"))).thenReturn(transcript);
+        when(transcriptRepository.findByRecordingId(11L)).thenReturn(Optional.empty());
+
+        // When
+        processor.handle(message);
+
+        // Then
+        verify(mediaStorageService).getFile(objectName);
+        verify(transcriptRepository).save(transcript);
+        assertSame(recording, transcript.getRecording());
+        assertEquals(0.92, recording.getAsrConfidence());
+        verify(queueService).sendAnalysisTask(7L, "Опыт работы с Java");
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.hr_assistant.service.storage;
+
+import com.example.hr_assistant.config.MinioConfig;
+import com.example.hr_assistant.model.MediaObject;
+import com.example.hr_assistant.model.dto.MediaUploadResponse;
+import com.example.hr_assistant.repository.MediaObjectRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import io.minio.messages.Part;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaStorageServiceTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    @Mock
+    private MinioClient minioClient;
+    @Mock
+    private MinioAsyncClient minioAsyncClient;
+    @Mock
+    private MinioMultipartClient multipartClient;
+    @Mock
+    private MediaObjectRepository mediaObjectRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MediaStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        MinioConfig config = new MinioConfig();
+        config.setEndpoint("http://minio:9000");
+        config.setBucketName("media");
+        config.getClient().setPartSizeBytes((long) PART_SIZE);
+        config.getClient().setParallelParts(3);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new MediaStorageService(minioClient, minioAsyncClient, multipartClient, config,
+            mediaObjectRepository, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Должен загружать крупный объект частями параллельно и завершать загрузку в порядке номеров")
+    void shouldUploadPartsInParallelAndCompleteInOrder() {
+        // Given
+        byte[] data = new byte[2 * PART_SIZE + 1024];
+        CompletableFuture<Part> firstPart = new CompletableFuture<>();
+        when(multipartClient.createUploadAsync(eq("media"), any(), anyString(), eq("video/mp4")))
+            .thenReturn(CompletableFuture.completedFuture("upload-1"));
+        when(multipartClient.uploadPartBytes(eq("media"), any(), anyString(), eq("upload-1"), anyInt(), any()))
+            .thenAnswer(invocation -> {
+                int partNumber = invocation.getArgument(4);
+                byte[] bytes = invocation.getArgument(5);
+                assertEquals(partNumber < 3 ? PART_SIZE : 1024, bytes.length);
+                return partNumber == 1 ? firstPart
+                    : CompletableFuture.completedFuture(new Part(partNumber, "etag-" + partNumber));
+            });
+        when(multipartClient.completeUploadAsync(eq("media"), any(), anyString(), eq("upload-1"), any()))
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        CompletableFuture<MediaUploadResponse> result =
+            service.uploadFileAsync(data, "q1.mp4", "video/mp4", "avatar").toFuture();
+        // Первая часть завершается последней: остальные уже отправлены, не дожидаясь ее
+        verify(multipartClient, times(3)).uploadPartBytes(any(), any(), any(), any(), anyInt(), any());
+        firstPart.complete(new Part(1, "etag-1"));
+        MediaUploadResponse response = result.join();
+
+        // Then
+        assertTrue(response.getSuccess());
+        assertEquals(data.length, response.getFileSize());
+        ArgumentCaptor<Part[]> parts = ArgumentCaptor.forClass(Part[].class);
+        verify(multipartClient).completeUploadAsync(eq("media"), any(), anyString(), eq("upload-1"), parts.capture());
+        assertArrayEquals(new int[]{1, 2, 3},
+            Arrays.stream(parts.getValue()).mapToInt(Part::partNumber).toArray());
+        assertEquals(1, meterRegistry.get("hr.storage.operation")
+            .tag("operation", "put_multipart").tag("outcome", "success").timer().count());
+        verifyNoInteractions(minioAsyncClient);
+    }
+
+    @Test
+    @DisplayName("Должен отменять multipart загрузку при ошибке части")
+    void shouldAbortUploadWhenPartFails() {
+        // Given
+        byte[] data = new byte[PART_SIZE + 1];
+        when(multipartClient.createUploadAsync(any(), any(), anyString(), any()))
+            .thenReturn(CompletableFuture.completedFuture("upload-2"));
+        when(multipartClient.uploadPartBytes(any(), any(), anyString(), eq("upload-2"), anyInt(), any()))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("connection reset")));
+        when(multipartClient.abortUploadAsync(any(), any(), anyString(), eq("upload-2")))
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        MediaUploadResponse response = service.uploadFileAsync(data, "q2.wav", "audio/wav", "tts").block();
+
+        // Then
+        assertNotNull(response);
+        assertFalse(response.getSuccess());
+        verify(multipartClient).abortUploadAsync(any(), any(), anyString(), eq("upload-2"));
+        verify(multipartClient, never()).completeUploadAsync(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Должен не загружать повторно то же содержимое, а добавлять ссылку на объект")
+    void shouldReferenceExistingObjectForSameContent() {
+        // Given
+        byte[] audio = "same tts clip".getBytes();
+        String hash = MediaStorageService.contentHash(audio);
+        MediaObject existing = new MediaObject();
+        existing.setId(7L);
+        existing.setContentHash(hash);
+        existing.setObjectName("tts/sha256/" + hash + ".wav");
+        existing.setSizeBytes((long) audio.length);
+        existing.setContentType("audio/wav");
+        when(mediaObjectRepository.findByContentHash(hash)).thenReturn(Optional.of(existing));
+        when(mediaObjectRepository.incrementRefCount(eq(7L), any())).thenReturn(1);
+
+        // When
+        MediaUploadResponse response = service.storeDeduplicatedAsync(audio, "q1.wav", "audio/wav", "tts").block();
+
+        // Then
+        assertNotNull(response);
+        assertTrue(response.getSuccess());
+        assertEquals("http://minio:9000/media/tts/sha256/" + hash + ".wav", response.getFileUrl());
+        verify(mediaObjectRepository).incrementRefCount(eq(7L), any());
+        verifyNoInteractions(minioAsyncClient, multipartClient);
+        assertEquals(audio.length, meterRegistry.get("hr.storage.dedup.saved.bytes").counter().count());
+    }
+
+    @Test
+    @DisplayName("Должен удалять объект из хранилища, когда снята последняя ссылка")
+    void shouldDeleteObjectWhenLastReferenceReleased() throws Exception {
+        // Given
+        MediaObject object = new MediaObject();
+        object.setId(9L);
+        object.setObjectName("avatar/sha256/abc.mp4");
+        when(mediaObjectRepository.findByObjectName("avatar/sha256/abc.mp4")).thenReturn(Optional.of(object));
+        when(mediaObjectRepository.markDeleting(9L)).thenReturn(1);
+
+        // When
+        service.release("http://minio:9000/media/avatar/sha256/abc.mp4");
+
+        // Then
+        // Запись удаляется только после объекта: до этого надгробие не дает зарегистрировать содержимое заново
+        InOrder order = inOrder(mediaObjectRepository, minioClient);
+        order.verify(mediaObjectRepository).decrementRefCount(9L);
+        order.verify(mediaObjectRepository).markDeleting(9L);
+        order.verify(minioClient).removeObject(any());
+        order.verify(mediaObjectRepository).deleteById(9L);
+        verify(mediaObjectRepository, never()).unmarkDeleting(any());
+    }
+
+    @Test
+    @DisplayName("Должен загружать содержимое заново, если найденный объект удален последним владельцем")
+    void shouldUploadAgainWhenExistingObjectIsDeleted() throws Exception {
+        // Given
+        byte[] audio = "released tts clip".getBytes();
+        String hash = MediaStorageService.contentHash(audio);
+        MediaObject deleting = new MediaObject();
+        deleting.setId(11L);
+        deleting.setContentHash(hash);
+        deleting.setObjectName("tts/sha256/" + hash + ".wav");
+        when(mediaObjectRepository.findByContentHash(hash))
+            .thenReturn(Optional.of(deleting))
+            .thenReturn(Optional.empty());
+        when(mediaObjectRepository.incrementRefCount(eq(11L), any())).thenReturn(0);
+        when(minioAsyncClient.putObject(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(mediaObjectRepository.save(any(MediaObject.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        MediaUploadResponse response = service.storeDeduplicatedAsync(audio, "q1.wav", "audio/wav", "tts").block();
+
+        // Then
+        assertNotNull(response);
+        assertTrue(response.getSuccess());
+        assertEquals("http://minio:9000/media/tts/sha256/" + hash + ".wav", response.getFileUrl());
+        verify(minioAsyncClient).putObject(any());
+        verify(mediaObjectRepository).save(argThat(object -> hash.equals(object.getContentHash())));
+        assertTrue(meterRegistry.find("hr.storage.dedup.hits").counters().isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.hr_assistant.service.storage;
+
+import com.example.hr_assistant.config.MinioConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.StatObjectResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaStreamingServiceTest {
+
+    @Mock
+    private MediaStorageService mediaStorageService;
+    @Mock
+    private StatObjectResponse stat;
+
+    private MediaStreamingService service;
+
+    @BeforeEach
+    void setUp() {
+        MinioConfig config = new MinioConfig();
+        config.getStreaming().setBufferSizeBytes(16);
+        service = new MediaStreamingService(mediaStorageService, config, new SimpleMeterRegistry());
+        service.init();
+    }
+
+    @Test
+    @DisplayName("Должен отдавать диапазон записи ranged-запросом к хранилищу и кэшировать метаданные")
+    void shouldServeRangeWithCachedMetadata() throws Exception {
+        // Given
+        byte[] object = new byte[1000];
+        for (int i = 0; i < object.length; i++) {
+            object[i] = (byte) i;
+        }
+        when(stat.size()).thenReturn((long) object.length);
+        when(stat.contentType()).thenReturn("video/webm");
+        when(stat.etag()).thenReturn("abc");
+        when(mediaStorageService.statFile("rec.webm")).thenReturn(stat);
+        when(mediaStorageService.getFile("rec.webm", 100L, 50L))
+            .thenReturn(new ByteArrayInputStream(Arrays.copyOfRange(object, 100, 150)));
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=100-149");
+
+        // When
+        ResponseEntity<StreamingResponseBody> response = service.serve("rec.webm", request);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        request.set(HttpHeaders.RANGE, "bytes=5000-");
+        ResponseEntity<StreamingResponseBody> outOfRange = service.serve("rec.webm", request);
+
+        // Then
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 100-149/1000", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(50, response.getHeaders().getContentLength());
+        assertArrayEquals(Arrays.copyOfRange(object, 100, 150), out.toByteArray());
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, outOfRange.getStatusCode());
+        verify(mediaStorageService, times(1)).statFile("rec.webm");
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.hr_assistant.service.storage;
+
+import com.example.hr_assistant.config.MinioConfig;
+import com.example.hr_assistant.model.RecordingUpload;
+import com.example.hr_assistant.model.dto.MediaUploadResponse;
+import com.example.hr_assistant.repository.RecordingUploadRepository;
+import io.minio.MinioClient;
+import io.minio.messages.Part;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecordingUploadServiceTest {
+
+    @Mock
+    private MinioClient minioClient;
+    @Mock
+    private MinioMultipartClient multipartClient;
+    @Mock
+    private MediaStorageService mediaStorageService;
+    @Mock
+    private RecordingUploadRepository recordingUploadRepository;
+
+    private RecordingUploadService service;
+
+    @BeforeEach
+    void setUp() {
+        MinioConfig config = new MinioConfig();
+        config.setBucketName("media");
+        service = new RecordingUploadService(minioClient, multipartClient, config, mediaStorageService,
+            recordingUploadRepository);
+    }
+
+    @Test
+    @DisplayName("Должен собирать запись из частей, принятых хранилищем, по их ETag")
+    void shouldCompleteMultipartUploadFromStoredParts() {
+        // Given
+        RecordingUpload upload = new RecordingUpload();
+        upload.setInterviewId(1L);
+        upload.setQuestionId(2L);
+        upload.setObjectName("interviews/1/questions/2/recording.webm");
+        upload.setUploadId("upload-1");
+        when(recordingUploadRepository.findFirstByInterviewIdAndQuestionIdAndStatusOrderByCreatedAtDesc(
+            1L, 2L, RecordingUpload.UploadStatus.IN_PROGRESS)).thenReturn(Optional.of(upload));
+        Part first = mock(Part.class);
+        when(first.partNumber()).thenReturn(1);
+        when(first.etag()).thenReturn("etag-1");
+        when(first.partSize()).thenReturn(8L * 1024 * 1024);
+        Part second = mock(Part.class);
+        when(second.partNumber()).thenReturn(2);
+        when(second.etag()).thenReturn("etag-2");
+        when(second.partSize()).thenReturn(1024L);
+        when(multipartClient.listUploadedParts("media", null, upload.getObjectName(), "upload-1"))
+            .thenReturn(List.of(first, second));
+        when(mediaStorageService.getFileUrl(upload.getObjectName())).thenReturn("http://minio/media/recording.webm");
+
+        // When
+        Optional<MediaUploadResponse> response = service.complete(1L, 2L);
+
+        // Then
+        ArgumentCaptor<Part[]> parts = ArgumentCaptor.forClass(Part[].class);
+        verify(multipartClient).completeUpload(eq("media"), any(), eq(upload.getObjectName()), eq("upload-1"),
+            parts.capture());
+        assertEquals(2, parts.getValue().length);
+        assertEquals("etag-2", parts.getValue()[1].etag());
+        assertTrue(response.isPresent());
+        assertEquals(8L * 1024 * 1024 + 1024, response.get().getFileSize());
+        assertEquals(RecordingUpload.UploadStatus.COMPLETED, upload.getStatus());
+        assertEquals(2, upload.getPartsCount());
+    }
+}
@@ -1,4 +1,4 @@
-from fastapi import FastAPI
+from fastapi import FastAPI, HTTPException, Response
 from pydantic import BaseModel
 from typing import List
 from sentence_transformers import SentenceTransformer
@@ -14,6 +14,9 @@ class EmbedRequest(BaseModel):
 class EmbedResponse(BaseModel):
     embedding: List[float]
 
+class EmbedBatchRequest(BaseModel):
+    texts: List[str]
+
 class SimilarityRequest(BaseModel):
     text1: str
     text2: str
@@ -26,6 +29,27 @@ def embed(req: EmbedRequest):
     vec = model.encode(req.text, normalize_embeddings=True).tolist()
     return EmbedResponse(embedding=vec)
 
+MAX_BATCH_TEXTS = 512
+
+@app.post(
+    "/embed/batch",
+    response_class=Response,
+    summary="Пакетные эмбеддинги",
+    description="Принимает список текстов и возвращает бинарный пакет: int32 LE число векторов, "
+                "int32 LE размерность, затем векторы подряд в float32 LE (нормированные)."
+)
+def embed_batch(req: EmbedBatchRequest):
+    if len(req.texts) > MAX_BATCH_TEXTS:
+        raise HTTPException(status_code=413, detail=f"Не более {MAX_BATCH_TEXTS} текстов в пакете")
+    dim = model.get_sentence_embedding_dimension()
+    if req.texts:
+        vectors = model.encode(req.texts, batch_size=64, normalize_embeddings=True, convert_to_numpy=True)
+        payload = np.ascontiguousarray(vectors, dtype="<f4").tobytes()
+    else:
+        payload = b""
+    header = np.array([len(req.texts), dim], dtype="<i4").tobytes()
+    return Response(content=header + payload, media_type="application/octet-stream")
+
 @app.post("/similarity", response_model=SimilarityResponse, summary="Косинусное сходство", description="Принимает 2 текста и возвращает cosine similarity их эмбеддингов.")
 def similarity(req: SimilarityRequest):
     v1 = model.encode(req.text1, normalize_embeddings=True)
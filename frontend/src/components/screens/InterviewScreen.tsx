@@ -1,7 +1,7 @@
 import React, { useState, useEffect, useRef } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
 import { toast } from 'react-hot-toast';
-import { useInterview, useStartInterview, useHeartbeat, useInterviewRecording } from '../../hooks/useInterview';
+import { useInterview, useStartInterview, useFinishInterview, useHeartbeat, useInterviewRecording } from '../../hooks/useInterview';
 import { motion } from 'framer-motion';
 import { Card, CardContent } from '@/components/ui/card';
 import { Button } from '@/components/ui/button';
@@ -29,6 +29,7 @@ export default function InterviewScreen() {
   
   const { data: interview, isLoading } = useInterview(interviewId);
   const startInterviewMutation = useStartInterview();
+  const finishInterviewMutation = useFinishInterview();
   const { startHeartbeat, stopHeartbeat, isActive: heartbeatActive } = useHeartbeat(interviewId);
   const { isRecording, recordingTime, startRecording, stopRecording } = useInterviewRecording(interviewId, 1);
   
@@ -89,12 +90,19 @@ export default function InterviewScreen() {
 
   const formatTime = (seconds: number) => new Date(seconds * 1000).toISOString().substr(14, 5);
 
-  const handleNextQuestion = () => {
+  const handleNextQuestion = async () => {
     if (currentQuestion < questions.length - 1) {
       setCurrentQuestion(currentQuestion + 1);
     } else {
-      toast.success('Интервью завершено!');
-      navigate('/app/dashboard');
+      // Завершение интервью: backend записывает счетчики heartbeat и пересчитывает fraud score
+      stopHeartbeat();
+      try {
+        await finishInterviewMutation.mutateAsync(interviewId);
+        toast.success('Интервью завершено!');
+        navigate('/app/dashboard');
+      } catch (error) {
+        console.error('Не удалось завершить интервью:', error);
+      }
     }
   };
 
@@ -225,7 +233,7 @@ export default function InterviewScreen() {
                   {isRecording ? <Square className="mr-2" size={18} /> : <Mic className="mr-2" size={18} />}
                   {isRecording ? 'Стоп' : 'Запись'}
                 </Button>
-                <Button onClick={handleNextQuestion} variant="secondary" className="flex-1" disabled={isRecording}>
+                <Button onClick={handleNextQuestion} variant="secondary" className="flex-1" disabled={isRecording || finishInterviewMutation.isLoading}>
                   Далее <MoveRight className="ml-2" size={18} />
                 </Button>
               </div>
@@ -2,6 +2,7 @@ import { useState, useEffect, useCallback } from 'react';
 import { useQuery, useMutation, useQueryClient } from '@tanstack/react-query';
 import { toast } from 'react-hot-toast';
 import apiService from '../services/api';
+import { RecordingUpload } from '../services/recordingUpload';
 import { Interview, InterviewCreateRequest, InterviewResults, HeartbeatRequest } from '../types/api';
 
 export const useInterviews = () => {
@@ -53,6 +54,20 @@ export const useStartInterview = () => {
   });
 };
 
+export const useFinishInterview = () => {
+  const queryClient = useQueryClient();
+
+  return useMutation(apiService.finishInterview, {
+    onSuccess: (_, interviewId) => {
+      queryClient.invalidateQueries(['interview', interviewId]);
+      queryClient.invalidateQueries('interviews');
+    },
+    onError: (error: any) => {
+      toast.error(error.response?.data?.message || 'Ошибка завершения интервью');
+    },
+  });
+};
+
 export const useHeartbeat = (interviewId: number) => {
   const [isActive, setIsActive] = useState(false);
   const [intervalId, setIntervalId] = useState<NodeJS.Timeout | null>(null);
@@ -69,6 +84,7 @@ export const useHeartbeat = (interviewId: number) => {
     if (intervalId) return;
 
     setIsActive(true);
+    startEventCapture();
     const id = setInterval(() => {
       const heartbeatData: HeartbeatRequest = {
         timestamp: Date.now(),
@@ -77,7 +93,7 @@ export const useHeartbeat = (interviewId: number) => {
         windowHeight: window.innerHeight,
         isFullscreen: document.fullscreenElement !== null,
         isVisible: !document.hidden,
-        browserEvents: getBrowserEvents(),
+        eventBatch: takeEventBatch(),
       };
       
       sendHeartbeat(heartbeatData);
@@ -91,6 +107,7 @@ export const useHeartbeat = (interviewId: number) => {
       clearInterval(intervalId);
       setIntervalId(null);
     }
+    stopEventCapture();
     setIsActive(false);
   }, [intervalId]);
 
@@ -98,6 +115,7 @@ export const useHeartbeat = (interviewId: number) => {
     return () => {
       if (intervalId) {
         clearInterval(intervalId);
+        stopEventCapture();
       }
     };
   }, [intervalId]);
@@ -110,26 +128,94 @@ export const useHeartbeat = (interviewId: number) => {
   };
 };
 
-// Helper function to collect browser events
-const getBrowserEvents = (): string => {
-  const events: string[] = [];
-  
-  // Check for visibility changes
+// Browser event codes, see BrowserEventType on the backend
+const EVENT_CODES = {
+  visibilityHidden: 1,
+  visibilityVisible: 2,
+  blur: 3,
+  focus: 4,
+  tabSwitch: 5,
+  devtools: 6,
+  fullscreenExit: 7,
+  copy: 8,
+  paste: 9,
+} as const;
+
+const MAX_BUFFERED_EVENTS = 1000;
+let eventBuffer: Array<{ code: number; at: number }> = [];
+
+const pushEvent = (code: number) => {
+  if (eventBuffer.length < MAX_BUFFERED_EVENTS) {
+    eventBuffer.push({ code, at: Date.now() });
+  }
+};
+
+// The page is hidden when the candidate switches to another tab or minimizes the window:
+// besides the visibility change, this counts as a tab switch (tabSwitchesCount on the backend)
+const onVisibilityChange = () => {
   if (document.hidden) {
-    events.push('visibilitychange:hidden');
+    pushEvent(EVENT_CODES.visibilityHidden);
+    pushEvent(EVENT_CODES.tabSwitch);
+  } else {
+    pushEvent(EVENT_CODES.visibilityVisible);
   }
-  
-  // Check for focus/blur
-  if (!document.hasFocus()) {
-    events.push('blur');
+};
+const onBlur = () => pushEvent(EVENT_CODES.blur);
+const onFocus = () => pushEvent(EVENT_CODES.focus);
+const onFullscreenChange = () => {
+  if (document.fullscreenElement === null) pushEvent(EVENT_CODES.fullscreenExit);
+};
+const onCopy = () => pushEvent(EVENT_CODES.copy);
+const onPaste = () => pushEvent(EVENT_CODES.paste);
+
+const startEventCapture = () => {
+  eventBuffer = [];
+  document.addEventListener('visibilitychange', onVisibilityChange);
+  window.addEventListener('blur', onBlur);
+  window.addEventListener('focus', onFocus);
+  document.addEventListener('fullscreenchange', onFullscreenChange);
+  document.addEventListener('copy', onCopy);
+  document.addEventListener('paste', onPaste);
+};
+
+const stopEventCapture = () => {
+  document.removeEventListener('visibilitychange', onVisibilityChange);
+  window.removeEventListener('blur', onBlur);
+  window.removeEventListener('focus', onFocus);
+  document.removeEventListener('fullscreenchange', onFullscreenChange);
+  document.removeEventListener('copy', onCopy);
+  document.removeEventListener('paste', onPaste);
+  eventBuffer = [];
+};
+
+const writeVarint = (bytes: number[], value: number) => {
+  while (value >= 0x80) {
+    bytes.push((value % 0x80) | 0x80);
+    value = Math.floor(value / 0x80);
   }
-  
+  bytes.push(value);
+};
+
+// Drains buffered events into the compact batch: version, first timestamp, count, (code, delta ms)*
+const takeEventBatch = (): string | undefined => {
   // Check for devtools (basic detection)
   if (window.outerHeight - window.innerHeight > 200 || window.outerWidth - window.innerWidth > 200) {
-    events.push('devtools_suspected');
+    pushEvent(EVENT_CODES.devtools);
   }
-  
-  return events.join(',');
+  if (eventBuffer.length === 0) return undefined;
+
+  const events = eventBuffer;
+  eventBuffer = [];
+  const bytes: number[] = [1];
+  writeVarint(bytes, events[0].at);
+  writeVarint(bytes, events.length);
+  let previous = events[0].at;
+  for (const event of events) {
+    bytes.push(event.code);
+    writeVarint(bytes, Math.max(0, event.at - previous));
+    previous = event.at;
+  }
+  return btoa(String.fromCharCode(...bytes));
 };
 
 export const useMediaUpload = () => {
@@ -183,12 +269,13 @@ export const useMediaUpload = () => {
   };
 };
 
+// Recording fragment length: each fragment goes to live transcription as soon as it is recorded
+const RECORDING_TIMESLICE_MS = 3000;
+
 export const useInterviewRecording = (interviewId: number, questionId: number) => {
   const [isRecording, setIsRecording] = useState(false);
   const [recordingTime, setRecordingTime] = useState(0);
   const [mediaRecorder, setMediaRecorder] = useState<MediaRecorder | null>(null);
-  const [audioChunks, setAudioChunks] = useState<Blob[]>([]);
-  const { uploadChunk } = useMediaUpload();
 
   const startRecording = useCallback(async () => {
     try {
@@ -198,31 +285,30 @@ export const useInterviewRecording = (interviewId: number, questionId: number) =
       });
       
       const recorder = new MediaRecorder(stream);
-      const chunks: Blob[] = [];
+      const upload = await RecordingUpload.open(interviewId, questionId, recorder.mimeType || 'audio/webm');
       
+      // Fragments are uploaded while recording; the last one arrives after stop() (state is already inactive)
       recorder.ondataavailable = (event) => {
-        if (event.data.size > 0) {
-          chunks.push(event.data);
+        const isFinal = recorder.state === 'inactive';
+        if (event.data.size > 0 || isFinal) {
+          upload.addData(event.data, isFinal);
         }
       };
       
       recorder.onstop = async () => {
-        const audioBlob = new Blob(chunks, { type: 'audio/wav' });
-        const file = new File([audioBlob], `recording-${Date.now()}.wav`, { type: 'audio/wav' });
-        
+        // Stop all tracks
+        stream.getTracks().forEach(track => track.stop());
+
         try {
-          await uploadChunk(interviewId, questionId, file, 0, true);
+          await upload.finish();
         } catch (error) {
           console.error('Upload failed:', error);
+          toast.error('Не удалось загрузить запись ответа');
         }
-        
-        // Stop all tracks
-        stream.getTracks().forEach(track => track.stop());
       };
       
       setMediaRecorder(recorder);
-      setAudioChunks(chunks);
-      recorder.start();
+      recorder.start(RECORDING_TIMESLICE_MS);
       setIsRecording(true);
       setRecordingTime(0);
       
@@ -237,7 +323,7 @@ export const useInterviewRecording = (interviewId: number, questionId: number) =
       toast.error('Не удалось начать запись. Проверьте разрешения микрофона.');
       throw error;
     }
-  }, [interviewId, questionId, uploadChunk]);
+  }, [interviewId, questionId]);
 
   const stopRecording = useCallback(() => {
     if (mediaRecorder && isRecording) {
@@ -9,6 +9,8 @@ import {
   InterviewCreateRequest,
   InterviewResults,
   MediaUploadResponse,
+  UploadSession,
+  PartUrls,
   HeartbeatRequest,
   AuditLog,
   ModelVersion,
@@ -122,6 +124,10 @@ class ApiService {
     await this.api.post(`/interviews/${id}/start`);
   }
 
+  async finishInterview(id: number): Promise<void> {
+    await this.api.post(`/interviews/${id}/finish`);
+  }
+
   async getInterviewResults(id: number): Promise<InterviewResults> {
     const response: AxiosResponse<InterviewResults> = await this.api.get(`/interviews/${id}/results`);
     return response.data;
@@ -152,6 +158,38 @@ class ApiService {
     return response.data;
   }
 
+  async startRecord(interviewId: number, questionId: number): Promise<void> {
+    await this.api.post(`/interviews/${interviewId}/questions/${questionId}/start-record`);
+  }
+
+  // Загрузка записи частями напрямую в хранилище: байты идут по presigned URL мимо backend
+  async openUploadSession(interviewId: number, questionId: number, fileName: string, contentType: string): Promise<UploadSession> {
+    const response: AxiosResponse<UploadSession> = await this.api.post(
+      `/interviews/${interviewId}/questions/${questionId}/upload-session`,
+      { fileName, contentType }
+    );
+    return response.data;
+  }
+
+  async getUploadSession(interviewId: number, questionId: number): Promise<UploadSession> {
+    const response: AxiosResponse<UploadSession> = await this.api.get(
+      `/interviews/${interviewId}/questions/${questionId}/upload-session`
+    );
+    return response.data;
+  }
+
+  async getPartUrls(interviewId: number, questionId: number, partNumbers: number[]): Promise<PartUrls> {
+    const response: AxiosResponse<PartUrls> = await this.api.get(
+      `/interviews/${interviewId}/questions/${questionId}/upload-session/part-urls`,
+      { params: { parts: partNumbers.join(',') } }
+    );
+    return response.data;
+  }
+
+  async finishRecord(interviewId: number, questionId: number): Promise<void> {
+    await this.api.post(`/interviews/${interviewId}/questions/${questionId}/finish-record`);
+  }
+
   async getMediaUrl(interviewId: number, type: string): Promise<string> {
     const response: AxiosResponse<string> = await this.api.get(`/interviews/${interviewId}/media/${type}`);
     return response.data;
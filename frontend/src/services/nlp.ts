@@ -0,0 +1,61 @@
+export type ExplanationParams = {
+  vacancy: string
+  answer: string
+  requirements: string
+}
+
+const EXPLANATION_STREAM_URL = '/api/v1/api/nlp/explanation/stream'
+
+// Streams the suitability explanation token by token.
+// EventSource can only send GET without an Authorization header, so the SSE stream is read with fetch
+// (POST, form-encoded parameters) and parsed here. Aborting the signal stops generation on the backend.
+export async function streamExplanation(
+  params: ExplanationParams,
+  onToken: (token: string) => void,
+  signal?: AbortSignal
+): Promise<void> {
+  const token = localStorage.getItem('accessToken')
+  const resp = await fetch(EXPLANATION_STREAM_URL, {
+    method: 'POST',
+    headers: {
+      Accept: 'text/event-stream',
+      ...(token ? { Authorization: `Bearer ${token}` } : {}),
+    },
+    body: new URLSearchParams(params),
+    signal,
+  })
+
+  if (!resp.ok || !resp.body) {
+    throw new Error(`Explanation stream error ${resp.status}`)
+  }
+
+  const reader = resp.body.pipeThrough(new TextDecoderStream()).getReader()
+  let buffer = ''
+  for (;;) {
+    const { value, done } = await reader.read()
+    if (done) return
+    buffer += value.replace(/\r\n/g, '\n')
+
+    // SSE events are separated by a blank line; an event may span several data: lines
+    let boundary: number
+    while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+      const frame = buffer.slice(0, boundary)
+      buffer = buffer.slice(boundary + 2)
+      let event = 'message'
+      const data: string[] = []
+      for (const line of frame.split('\n')) {
+        if (line.startsWith('event:')) event = line.slice(6).trim()
+        else if (line.startsWith('data:')) data.push(line.slice(5).replace(/^ /, ''))
+      }
+      const text = data.join('\n')
+      if (event === 'token') {
+        onToken(text)
+      } else if (event === 'done') {
+        await reader.cancel()
+        return
+      } else if (event === 'error') {
+        throw new Error(text)
+      }
+    }
+  }
+}
@@ -0,0 +1,161 @@
+import { apiService } from './api';
+import { UploadSession } from '../types/api';
+
+// Частей записи, одновременно загружаемых в хранилище
+const MAX_PARALLEL_PARTS = 3;
+// Попыток загрузки одной части; каждая получает новый presigned URL
+const MAX_PART_ATTEMPTS = 4;
+const PART_RETRY_DELAY_MS = 500;
+// Попыток дозагрузить части, которых нет в хранилище, перед finish-record
+const MAX_RESUME_ROUNDS = 3;
+
+const sleep = (ms: number) => new Promise((resolve) => setTimeout(resolve, ms));
+
+// Загрузка записи ответа во время записи.
+// Фрагменты MediaRecorder по порядку отправляются в upload-chunk только для инкрементальной транскрипции —
+// backend их не сохраняет. Запись целиком копится в части multipart загрузки и уходит в хранилище
+// по presigned URL, не более MAX_PARALLEL_PARTS одновременно. Неудачная часть повторяется с новым URL;
+// если она так и не загрузилась, finish() сверяется с сессией на backend и дозагружает недостающие части
+// той же загрузки, а затем вызывает finish-record — единственную точку запуска обработки ответа.
+export class RecordingUpload {
+  private chunkIndex = 0;
+  private chunkChain: Promise<void> = Promise.resolve();
+  private liveTranscription = true;
+  private partChain: Promise<void> = Promise.resolve();
+  private readonly partsInFlight = new Set<Promise<void>>();
+  // Части, которые хранилище еще не подтвердило: нужны для повторной загрузки
+  private readonly pendingParts = new Map<number, Blob>();
+  private buffer: Blob[] = [];
+  private bufferedBytes = 0;
+  private nextPartNumber = 1;
+
+  private constructor(
+    private readonly interviewId: number,
+    private readonly questionId: number,
+    private readonly contentType: string,
+    private readonly session: UploadSession
+  ) {}
+
+  static async open(interviewId: number, questionId: number, contentType: string): Promise<RecordingUpload> {
+    // start-record начинает новую запись ответа: прежние транскрипция и незавершенная загрузка вопроса сбрасываются
+    await apiService.startRecord(interviewId, questionId);
+    const fileName = `recording-${Date.now()}.webm`;
+    let session: UploadSession | undefined;
+    for (let attempt = 1; !session; attempt++) {
+      try {
+        session = await apiService.openUploadSession(interviewId, questionId, fileName, contentType);
+      } catch (e) {
+        // Повторный запрос вернет уже открытую загрузку, если первый дошел до backend
+        if (attempt >= MAX_PART_ATTEMPTS) throw e;
+        await sleep(PART_RETRY_DELAY_MS * 2 ** (attempt - 1));
+      }
+    }
+    return new RecordingUpload(interviewId, questionId, contentType, session);
+  }
+
+  // Фрагмент записи (ondataavailable); isFinal — последний фрагмент после stop()
+  addData(data: Blob, isFinal: boolean) {
+    const index = this.chunkIndex++;
+    const chunk = new File([data], `chunk-${index}.webm`, { type: this.contentType });
+    // Чанки транскрибируются потоком, поэтому отправляются строго по порядку.
+    // Ошибка транскрипции не мешает записи: ответ будет распознан целиком после finish-record
+    this.chunkChain = this.chunkChain
+      .then(async () => {
+        if (!this.liveTranscription) return;
+        const response = await apiService.uploadChunk(this.interviewId, this.questionId, chunk, index, isFinal);
+        if (!response.success) {
+          this.liveTranscription = false;
+        }
+      })
+      .then(() => undefined, (e) => {
+        this.liveTranscription = false;
+        console.warn('Live transcription stopped:', e);
+      });
+
+    this.buffer.push(data);
+    this.bufferedBytes += data.size;
+    while (this.bufferedBytes >= this.session.partSizeBytes) {
+      const pending = new Blob(this.buffer, { type: this.contentType });
+      this.schedulePart(pending.slice(0, this.session.partSizeBytes));
+      const rest = pending.slice(this.session.partSizeBytes);
+      this.buffer = rest.size > 0 ? [rest] : [];
+      this.bufferedBytes = rest.size;
+    }
+  }
+
+  async finish(): Promise<void> {
+    if (this.bufferedBytes > 0 || this.nextPartNumber === 1) {
+      this.schedulePart(new Blob(this.buffer, { type: this.contentType }));
+      this.buffer = [];
+      this.bufferedBytes = 0;
+    }
+    await this.chunkChain;
+    await this.partChain;
+    await Promise.all(this.partsInFlight);
+    await this.resume();
+    await apiService.finishRecord(this.interviewId, this.questionId);
+  }
+
+  // Сверяет части с хранилищем (ListParts на backend) и дозагружает недостающие в ту же загрузку
+  private async resume() {
+    for (let round = 1; ; round++) {
+      const session = await apiService.getUploadSession(this.interviewId, this.questionId);
+      if (session.uploadId !== this.session.uploadId) {
+        throw new Error('Recording upload was replaced by a newer one');
+      }
+      const stored = new Set(session.uploadedParts.map((part) => part.partNumber));
+      const missing: number[] = [];
+      for (let partNumber = 1; partNumber < this.nextPartNumber; partNumber++) {
+        if (stored.has(partNumber)) {
+          this.pendingParts.delete(partNumber);
+        } else {
+          missing.push(partNumber);
+        }
+      }
+      if (missing.length === 0) return;
+      if (round > MAX_RESUME_ROUNDS) {
+        throw new Error(`Recording parts ${missing.join(', ')} were not uploaded`);
+      }
+      for (const partNumber of missing) {
+        const body = this.pendingParts.get(partNumber);
+        if (!body) {
+          throw new Error(`Recording part ${partNumber} is no longer available`);
+        }
+        await this.uploadPart(partNumber, body);
+      }
+    }
+  }
+
+  private schedulePart(body: Blob) {
+    const partNumber = this.nextPartNumber++;
+    this.pendingParts.set(partNumber, body);
+    this.partChain = this.partChain.then(async () => {
+      while (this.partsInFlight.size >= MAX_PARALLEL_PARTS) {
+        await Promise.race(this.partsInFlight);
+      }
+      const upload = this.uploadPart(partNumber, body)
+        .finally(() => this.partsInFlight.delete(upload));
+      this.partsInFlight.add(upload);
+    });
+  }
+
+  // Часть остается в pendingParts, пока хранилище ее не приняло: finish() попробует еще раз
+  private async uploadPart(partNumber: number, body: Blob) {
+    for (let attempt = 1; attempt <= MAX_PART_ATTEMPTS; attempt++) {
+      try {
+        const partUrls = await apiService.getPartUrls(this.interviewId, this.questionId, [partNumber]);
+        const response = await fetch(partUrls.urls[partNumber], { method: 'PUT', body });
+        if (response.ok) {
+          this.pendingParts.delete(partNumber);
+          return;
+        }
+        console.warn(`Part ${partNumber} upload failed: ${response.status}`);
+      } catch (e) {
+        console.warn(`Part ${partNumber} upload failed:`, e);
+      }
+      if (attempt < MAX_PART_ATTEMPTS) {
+        await sleep(PART_RETRY_DELAY_MS * 2 ** (attempt - 1));
+      }
+    }
+  }
+}
@@ -170,6 +170,26 @@ export interface MediaUploadResponse {
   message: string;
 }
 
+export interface UploadedPart {
+  partNumber: number;
+  etag: string;
+  size: number;
+}
+
+export interface UploadSession {
+  sessionId: number;
+  uploadId: string;
+  objectName: string;
+  partSizeBytes: number;
+  maxParts: number;
+  uploadedParts: UploadedPart[];
+}
+
+export interface PartUrls {
+  urls: Record<number, string>;
+  expiresAt: string;
+}
+
 export interface HeartbeatRequest {
   timestamp?: number;
   browserInfo?: string;
@@ -181,6 +201,7 @@ export interface HeartbeatRequest {
   isFullscreen?: boolean;
   isVisible?: boolean;
   browserEvents?: string;
+  eventBatch?: string;
 }
 
 export interface AuditLog {
@@ -1,12 +1,16 @@
 from fastapi import FastAPI
+from fastapi.responses import StreamingResponse
 from pydantic import BaseModel
 from typing import Optional
+import json
 import os
 
 app = FastAPI(title="LLM Service (llama.cpp)", description="Генерация объяснения пригодности кандидата", version="1.0.0")
 
 # Заглушка без модели для dev режима
 MODEL_PATH = os.environ.get("LLM_MODEL_PATH", "/models/mistral-7b-instruct.Q4_K_M.gguf")
+CTX_SIZE = int(os.environ.get("LLM_CTX_SIZE", "2048"))
+STOP = ["</s>", "</SYS>"]
 llm = None
 
 # Попытка загрузить модель, если файл существует
@@ -15,7 +19,6 @@ def load_llm_model():
     if os.path.exists(MODEL_PATH):
         try:
             from llama_cpp import Llama
-            CTX_SIZE = int(os.environ.get("LLM_CTX_SIZE", "2048"))
             N_THREADS = int(os.environ.get("LLM_THREADS", "6"))
             llm = Llama(model_path=MODEL_PATH, n_ctx=CTX_SIZE, n_threads=N_THREADS, verbose=False)
             print(f"LLM модель загружена: {MODEL_PATH}")
@@ -47,17 +50,60 @@ def generate(req: GenerateRequest):
         # Заглушка для dev режима
         return GenerateResponse(output=f"[Заглушка LLM] Обработан промпт: {req.prompt[:100]}...")
     
-    # ограничение длины промпта для безопасности
-    safe_prompt = req.prompt[:4000]
     result = llm(
-        safe_prompt,
+        fit_prompt(req.prompt, req.max_tokens),
         max_tokens=req.max_tokens,
         temperature=req.temperature,
-        stop=["</s>", "</SYS>"]
+        stop=STOP
     )
     text = result["choices"][0]["text"].strip()
     return GenerateResponse(output=text)
 
+def fit_prompt(prompt: str, max_tokens: int) -> str:
+    """Обрезает промпт по токенам модели так, чтобы в контекст поместился ответ.
+    Сохраняются начало и конец промпта (инструкция обычно в конце), вырезается середина."""
+    budget = max(CTX_SIZE - max_tokens, 1)
+    tokens = llm.tokenize(prompt.encode("utf-8"), add_bos=False)
+    if len(tokens) <= budget:
+        return prompt
+    head = budget // 2
+    tail = budget - head
+    return (llm.detokenize(tokens[:head]) + llm.detokenize(tokens[-tail:])).decode("utf-8", errors="ignore")
+
+def sse(event: str, token: str = "") -> str:
+    return f"event: {event}\ndata: {json.dumps({'token': token}, ensure_ascii=False)}\n\n"
+
+@app.post("/generate/stream", summary="Потоковая генерация", description="Возвращает ответ LLM по мере генерации событиями SSE: token (data: {\"token\": ...}) и завершающее done. Закрытие соединения клиентом прекращает генерацию.")
+def generate_stream(req: GenerateRequest):
+    if llm is None:
+        load_llm_model()
+
+    def events():
+        if llm is None:
+            for word in f"[Заглушка LLM] Обработан промпт: {req.prompt[:100]}...".split(" "):
+                yield sse("token", word + " ")
+            yield sse("done")
+            return
+        chunks = llm(
+            fit_prompt(req.prompt, req.max_tokens),
+            max_tokens=req.max_tokens,
+            temperature=req.temperature,
+            stop=STOP,
+            stream=True
+        )
+        try:
+            for chunk in chunks:
+                token = chunk["choices"][0]["text"]
+                if token:
+                    yield sse("token", token)
+            yield sse("done")
+        finally:
+            # Клиент отключился или генерация завершена — освобождаем модель
+            chunks.close()
+
+    return StreamingResponse(events(), media_type="text/event-stream",
+                             headers={"Cache-Control": "no-cache", "X-Accel-Buffering": "no"})
+
 @app.get("/health")
 def health():
     return {"status": "ok", "service": "llm", "model_loaded": llm is not None}
@@ -1,8 +1,8 @@
-from fastapi import FastAPI
+from fastapi import FastAPI, HTTPException
 from pydantic import BaseModel
 from typing import List, Dict, Any
 import torch
-from transformers import AutoTokenizer, AutoModelForSequenceClassification, pipeline
+from transformers import AutoTokenizer, AutoModel, AutoModelForSequenceClassification, pipeline
 import numpy as np
 
 app = FastAPI(title="RuBERT Service", description="Русская BERT-модель для анализа текста", version="1.0.0")
@@ -19,6 +19,53 @@ classifier = pipeline(
     return_all_scores=True
 )
 
+# Энкодер для оценки соответствия ответа требованию (mean pooling скрытых состояний)
+encoder = AutoModel.from_pretrained(MODEL_NAME)
+encoder.eval()
+
+MAX_BATCH_TEXTS = 256
+
+def encode_texts(texts: List[str]) -> torch.Tensor:
+    """Нормированные эмбеддинги текстов одним проходом модели"""
+    inputs = tokenizer(texts, padding=True, truncation=True, max_length=512, return_tensors="pt")
+    with torch.no_grad():
+        hidden = encoder(**inputs).last_hidden_state
+    mask = inputs["attention_mask"].unsqueeze(-1).type_as(hidden)
+    pooled = (hidden * mask).sum(dim=1) / mask.sum(dim=1).clamp(min=1e-9)
+    return torch.nn.functional.normalize(pooled, p=2, dim=1)
+
+def similarity_to_score(similarity: float) -> float:
+    """Сходство в оценку соответствия 0 / 0.5 / 1 (те же пороги, что и в backend)"""
+    if similarity >= 0.8:
+        return 1.0
+    if similarity >= 0.5:
+        return 0.5
+    return 0.0
+
+def score_matrix(answers: List[str], requirements: List[str]) -> List[List[float]]:
+    """Матрица косинусного сходства M ответов x N требований; каждый текст кодируется один раз"""
+    embeddings = encode_texts(answers + requirements)
+    answer_embeddings = embeddings[:len(answers)]
+    requirement_embeddings = embeddings[len(answers):]
+    return (answer_embeddings @ requirement_embeddings.T).clamp(min=0.0, max=1.0).tolist()
+
+class ScoreRequest(BaseModel):
+    answer: str
+    requirement: str
+
+class ScoreResponse(BaseModel):
+    similarity: float
+    score: float
+
+class BatchScoreRequest(BaseModel):
+    answers: List[str]
+    requirements: List[str]
+
+class BatchScoreResponse(BaseModel):
+    # Строка — ответ, столбец — требование
+    similarity: List[List[float]]
+    score: List[List[float]]
+
 class TextAnalysisRequest(BaseModel):
     text: str
     task: str = "classification"  # classification, similarity, embedding
@@ -72,6 +119,23 @@ def classify_text(request: ClassificationRequest):
             top_prediction={"label": "error", "score": 0.0}
         )
 
+@app.post("/score", response_model=ScoreResponse, summary="Соответствие ответа требованию", description="Косинусное сходство ответа и требования и оценка 0 / 0.5 / 1")
+def score(request: ScoreRequest):
+    similarity = score_matrix([request.answer], [request.requirement])[0][0]
+    return ScoreResponse(similarity=similarity, score=similarity_to_score(similarity))
+
+@app.post("/score/batch", response_model=BatchScoreResponse, summary="Пакетная оценка соответствия", description="Оценивает M ответов по N требованиям за один вызов и один проход модели")
+def score_batch(request: BatchScoreRequest):
+    if not request.answers or not request.requirements:
+        return BatchScoreResponse(similarity=[], score=[])
+    if len(request.answers) + len(request.requirements) > MAX_BATCH_TEXTS:
+        raise HTTPException(status_code=413, detail=f"Не более {MAX_BATCH_TEXTS} текстов в пакете")
+    similarity = score_matrix(request.answers, request.requirements)
+    return BatchScoreResponse(
+        similarity=similarity,
+        score=[[similarity_to_score(value) for value in row] for row in similarity]
+    )
+
 @app.post("/similarity", response_model=SimilarityResponse, summary="Сходство текстов", description="Вычисляет семантическое сходство между двумя текстами")
 def calculate_similarity(request: SimilarityRequest):
     try:
@@ -153,7 +217,7 @@ def health():
 def get_info():
     return {
         "model": MODEL_NAME,
-        "tasks": ["classification", "similarity", "analysis"],
+        "tasks": ["classification", "similarity", "analysis", "score", "score_batch"],
         "language": "ru",
         "max_length": 512
     }